@@ -0,0 +1,138 @@
+package br.edu.ifba.client;
+
+import br.edu.ifba.orchestrator.atividade.OrquestradorAtividadeProto;
+import br.edu.ifba.orchestrator.atividade.ServicoAtividadeGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmark de escala de conexões e latência do orquestrador.
+ *
+ * Conecta N workers simulados na porta TCP (respondendo tarefas e heartbeats) e envia
+ * atividades via gRPC, medindo a latência de enviarAtividade. Para comparar threads de
+ * plataforma e virtuais, rode o mesmo orquestrador com e sem -Dorquestrador.threads=virtual.
+ *
+ * Uso: BenchmarkConexoes [workers] [requisicoes] [concorrencia] [host]
+ */
+public class BenchmarkConexoes {
+
+    public static void main(String[] args) throws Exception {
+        int numeroWorkers = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int numeroRequisicoes = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int concorrencia = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        String host = args.length > 3 ? args[3] : "localhost";
+
+        System.out.println("=== BENCHMARK DE CONEXÕES ===");
+        System.out.println("Workers: " + numeroWorkers + " | Requisições: " + numeroRequisicoes +
+                          " | Concorrência: " + concorrencia);
+
+        // Workers simulados em threads virtuais, para que o benchmark não seja o gargalo
+        ExecutorService executorWorkers = Executors.newVirtualThreadPerTaskExecutor();
+        AtomicInteger workersConectados = new AtomicInteger(0);
+        AtomicInteger tarefasConcluidas = new AtomicInteger(0);
+        List<Socket> sockets = new ArrayList<>();
+
+        long inicioConexoes = System.nanoTime();
+        for (int i = 0; i < numeroWorkers; i++) {
+            String workerId = "bench-worker-" + i;
+            try {
+                Socket socket = new Socket(host, 8080);
+                sockets.add(socket);
+                executorWorkers.submit(() -> simularWorker(socket, workerId, workersConectados, tarefasConcluidas));
+            } catch (Exception e) {
+                System.err.println("Falha ao conectar worker " + workerId + ": " + e.getMessage());
+                break;
+            }
+        }
+        Thread.sleep(1000);
+        System.out.printf("Workers conectados: %d em %.1f ms%n",
+                workersConectados.get(), (System.nanoTime() - inicioConexoes) / 1e6);
+
+        ManagedChannel canal = ManagedChannelBuilder.forAddress(host, 9090).usePlaintext().build();
+        ServicoAtividadeGrpc.ServicoAtividadeBlockingStub stub = ServicoAtividadeGrpc.newBlockingStub(canal);
+
+        ExecutorService executorClientes = Executors.newFixedThreadPool(concorrencia);
+        long[] latencias = new long[numeroRequisicoes];
+        List<Future<?>> futuros = new ArrayList<>();
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < numeroRequisicoes; i++) {
+            int indice = i;
+            futuros.add(executorClientes.submit(() -> {
+                OrquestradorAtividadeProto.EnviarAtividadeRequisicao requisicao =
+                        OrquestradorAtividadeProto.EnviarAtividadeRequisicao.newBuilder()
+                                .setAtividade(OrquestradorAtividadeProto.Atividade.newBuilder()
+                                        .setTitulo("bench-" + indice)
+                                        .setDescricao("benchmark")
+                                        .build())
+                                .build();
+                long t0 = System.nanoTime();
+                stub.enviarAtividade(requisicao);
+                latencias[indice] = System.nanoTime() - t0;
+            }));
+        }
+        for (Future<?> futuro : futuros) {
+            futuro.get();
+        }
+        double duracaoSegundos = (System.nanoTime() - inicio) / 1e9;
+
+        Arrays.sort(latencias);
+        System.out.printf("Vazão: %.0f req/s%n", numeroRequisicoes / duracaoSegundos);
+        System.out.printf("Latência p50: %.2f ms | p99: %.2f ms | máx: %.2f ms%n",
+                percentil(latencias, 0.50), percentil(latencias, 0.99), latencias[latencias.length - 1] / 1e6);
+
+        Thread.sleep(1000);
+        System.out.println("Tarefas concluídas pelos workers simulados: " + tarefasConcluidas.get());
+
+        executorClientes.shutdown();
+        canal.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        executorWorkers.shutdownNow();
+    }
+
+    private static void simularWorker(Socket socket, String workerId,
+                                      AtomicInteger workersConectados, AtomicInteger tarefasConcluidas) {
+        try {
+            BufferedReader entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter saida = new PrintWriter(socket.getOutputStream(), true);
+            saida.println("{\"tipo\":\"REGISTRO\",\"workerId\":\"" + workerId + "\"}");
+            workersConectados.incrementAndGet();
+
+            String linha;
+            while ((linha = entrada.readLine()) != null) {
+                if (linha.contains("\"tipo\":\"TAREFA\"")) {
+                    String busca = "\"id\":\"";
+                    int inicio = linha.indexOf(busca) + busca.length();
+                    String tarefaId = linha.substring(inicio, linha.indexOf('"', inicio));
+                    saida.println("{\"tipo\":\"CONCLUSAO\",\"tarefaId\":\"" + tarefaId + "\",\"workerId\":\"" + workerId + "\"}");
+                    tarefasConcluidas.incrementAndGet();
+                } else if (linha.contains("\"tipo\":\"HEARTBEAT\"")) {
+                    saida.println("{\"tipo\":\"HEARTBEAT_RESPONSE\",\"workerId\":\"" + workerId + "\"}");
+                }
+            }
+        } catch (Exception e) {
+            // Conexão encerrada ao final do benchmark
+        }
+    }
+
+    private static double percentil(long[] ordenados, double fracao) {
+        int indice = (int) Math.ceil(fracao * ordenados.length) - 1;
+        return ordenados[Math.max(0, Math.min(indice, ordenados.length - 1))] / 1e6;
+    }
+}
@@ -3,22 +3,67 @@ package br.edu.ifba.client;
 import br.edu.ifba.orchestrator.atividade.OrquestradorAtividadeProto;
 import br.edu.ifba.orchestrator.atividade.ServicoAtividadeGrpc;
 import br.edu.ifba.client.util.RelogioLamport;
+import br.edu.ifba.client.util.SpoolAtividades;
+import io.grpc.ConnectivityState;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
 
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.function.Consumer;
 
 public class ServicoClienteImpl {
     private ManagedChannel canal;
     private ServicoAtividadeGrpc.ServicoAtividadeBlockingStub blockingStub;
+    private ServicoAtividadeGrpc.ServicoAtividadeStub asyncStub;
     private final RelogioLamport relogioLamport;
     private String currentHost;
     private int currentPort;
     private boolean conexaoAtiva = false;
-    private static final int MAX_TENTATIVAS_RECONEXAO = 3;
-    private static final long INTERVALO_RECONEXAO_MS = 5000;
+
+    // Spool em disco: atividades que não chegaram ao orquestrador (indisponível ou sem resposta no prazo)
+    // são reenviadas em ordem, no máximo TAXA_REENVIO_POR_SEGUNDO, assim que o canal voltar a ficar pronto
+    private static final String PREFIXO_SPOOL = System.getProperty("cliente.spool", "cliente-spool");
+    private static final long INTERVALO_RECONEXAO_MS = Long.getLong("cliente.spool.intervaloMs", 2000L);
+    private static final int TAXA_REENVIO_POR_SEGUNDO = Integer.getInteger("cliente.spool.taxa", 50);
+    private static final String MENSAGEM_SPOOL = "Orquestrador indisponível - atividade guardada no spool local para reenvio";
+    private SpoolAtividades spool;
+    private final ScheduledExecutorService agendadorSpool = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "cliente-spool");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Prazo de cada chamada unária ou em lote
+    private static final long PRAZO_MS = Long.getLong("cliente.prazoMs", 10000L);
+
+    // Envio assíncrono: no máximo MAXIMO_EM_VOO atividades aguardando resposta, agrupadas em lotes
+    // de até TAMANHO_LOTE ou enviadas após ESPERA_LOTE_MS (cliente.lote.maximo=1 desativa o agrupamento)
+    private static final int MAXIMO_EM_VOO = Integer.getInteger("cliente.emVooMaximo", 256);
+    private static final int TAMANHO_LOTE = Integer.getInteger("cliente.lote.maximo", 128);
+    private static final long ESPERA_LOTE_MS = Long.getLong("cliente.lote.esperaMs", 2L);
+
+    private final Semaphore janelaEmVoo = new Semaphore(MAXIMO_EM_VOO);
+    private final Object travaLote = new Object();
+    private List<EnvioPendente> loteAtual = new ArrayList<>();
+    private ScheduledFuture<?> envioAgendado;
+    private volatile boolean loteDisponivel = true;
+    private final ScheduledExecutorService agendadorLote = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "cliente-lote");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private final String host;
     private final int port;
@@ -30,6 +75,17 @@ public class ServicoClienteImpl {
         this.currentPort = port;
         this.relogioLamport = new RelogioLamport("client-" + System.currentTimeMillis());
         conectar();
+        abrirSpool();
+    }
+
+    private void abrirSpool() {
+        try {
+            spool = SpoolAtividades.abrir(PREFIXO_SPOOL);
+            agendadorSpool.scheduleWithFixedDelay(this::reenviarSpool, INTERVALO_RECONEXAO_MS, INTERVALO_RECONEXAO_MS, TimeUnit.MILLISECONDS);
+        } catch (IOException e) {
+            System.out.println("[SPOOL] Não foi possível abrir o spool local, envios sem conexão serão perdidos: " + e.getMessage());
+            spool = null;
+        }
     }
     
     // Realiza a conexão com o servidor
@@ -40,6 +96,7 @@ public class ServicoClienteImpl {
                 .build();
             
             blockingStub = ServicoAtividadeGrpc.newBlockingStub(canal);
+            asyncStub = ServicoAtividadeGrpc.newStub(canal);
             conexaoAtiva = true;
             System.out.println("Conectado ao servidor " + host + ":" + port);
             return true;
@@ -72,21 +129,19 @@ public class ServicoClienteImpl {
             return false;
         }
 
-        try {
-            // Incrementa o relógio lógico antes de enviar
-            long timestamp = relogioLamport.incremento();
-            
-            OrquestradorAtividadeProto.Atividade atividade = OrquestradorAtividadeProto.Atividade.newBuilder()
-                    .setTitulo(titulo)
-                    .setDescricao(descricao)
-                    .setMarcaTempo(timestamp)
-                    .build();
+        OrquestradorAtividadeProto.Atividade atividade = novaAtividade(titulo, descricao);
 
+        // Com reenvios pendentes a atividade entra no fim do spool, preservando a ordem
+        if (existemReenviosPendentes()) {
+            return guardarNoSpool(atividade);
+        }
+
+        try {
             OrquestradorAtividadeProto.EnviarAtividadeRequisicao request = OrquestradorAtividadeProto.EnviarAtividadeRequisicao.newBuilder()
                     .setAtividade(atividade)
                     .build();
 
-            OrquestradorAtividadeProto.EnviarAtividadeResposta response = blockingStub.enviarAtividade(request);
+            OrquestradorAtividadeProto.EnviarAtividadeResposta response = blockingStub.withDeadlineAfter(PRAZO_MS, TimeUnit.MILLISECONDS).enviarAtividade(request);
             
             if (response.getSucesso()) {
                 System.out.println("Atividade enviada com sucesso: " + response.getMensagem());
@@ -96,11 +151,303 @@ public class ServicoClienteImpl {
                 return false;
             }
         } catch (Exception e) {
+            if (falhaDeConexao(e) && guardarNoSpool(atividade)) {
+                return true;
+            }
             System.out.println("Erro ao enviar atividade: " + e.getMessage());
             return false;
         }
     }
 
+    // Atividade com marca de tempo Lamport e chave de idempotência própria, mantida em qualquer reenvio
+    private OrquestradorAtividadeProto.Atividade novaAtividade(String titulo, String descricao) {
+        // Incrementa o relógio lógico antes de enviar
+        long timestamp = relogioLamport.incremento();
+
+        return OrquestradorAtividadeProto.Atividade.newBuilder()
+                .setTitulo(titulo)
+                .setDescricao(descricao)
+                .setMarcaTempo(timestamp)
+                .setChaveIdempotencia(UUID.randomUUID().toString())
+                .build();
+    }
+
+    // Orquestrador fora do ar ou sem resposta no prazo: a atividade pode ser reenviada com a mesma chave
+    private static boolean falhaDeConexao(Throwable erro) {
+        Status.Code codigo = Status.fromThrowable(erro).getCode();
+        return codigo == Status.Code.UNAVAILABLE || codigo == Status.Code.DEADLINE_EXCEEDED;
+    }
+
+    private boolean existemReenviosPendentes() {
+        return spool != null && !spool.vazio();
+    }
+
+    private boolean guardarNoSpool(OrquestradorAtividadeProto.Atividade atividade) {
+        if (spool == null) {
+            return false;
+        }
+        try {
+            spool.anexar(atividade);
+            System.out.println("[SPOOL] Atividade '" + atividade.getTitulo() + "' guardada para reenvio (" +
+                    spool.obterPendentes() + " pendentes)");
+            return true;
+        } catch (IOException e) {
+            System.out.println("[SPOOL] Erro ao gravar atividade no spool: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static OrquestradorAtividadeProto.EnviarAtividadeResposta respostaSpool() {
+        return OrquestradorAtividadeProto.EnviarAtividadeResposta.newBuilder()
+                .setSucesso(true)
+                .setMensagem(MENSAGEM_SPOOL)
+                .build();
+    }
+
+    // Reenvia o spool em ordem, limitado pela taxa; para na primeira falha de conexão e tenta de novo depois
+    private void reenviarSpool() {
+        if (!existemReenviosPendentes() || canal == null || canal.getState(true) != ConnectivityState.READY) {
+            return;
+        }
+
+        long pausaMs = TAXA_REENVIO_POR_SEGUNDO > 0 ? 1000L / TAXA_REENVIO_POR_SEGUNDO : 0L;
+        int reenviadas = 0;
+        try {
+            OrquestradorAtividadeProto.Atividade atividade;
+            while ((atividade = spool.espiarProxima()) != null) {
+                OrquestradorAtividadeProto.EnviarAtividadeRequisicao request = OrquestradorAtividadeProto.EnviarAtividadeRequisicao.newBuilder()
+                        .setAtividade(atividade)
+                        .build();
+                try {
+                    OrquestradorAtividadeProto.EnviarAtividadeResposta response = blockingStub.withDeadlineAfter(PRAZO_MS, TimeUnit.MILLISECONDS).enviarAtividade(request);
+                    if (!response.getSucesso()) {
+                        System.out.println("[SPOOL] Atividade '" + atividade.getTitulo() + "' recusada no reenvio: " + response.getMensagem());
+                    }
+                } catch (Exception e) {
+                    if (falhaDeConexao(e)) {
+                        System.out.println("[SPOOL] Orquestrador indisponível durante o reenvio - " + spool.obterPendentes() + " pendentes");
+                        return;
+                    }
+                    System.out.println("[SPOOL] Atividade '" + atividade.getTitulo() + "' descartada no reenvio: " + e.getMessage());
+                }
+                spool.confirmarProxima();
+                reenviadas++;
+                if (pausaMs > 0) {
+                    Thread.sleep(pausaMs);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("[SPOOL] Erro ao ler o spool: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (reenviadas > 0) {
+                System.out.println("[SPOOL] " + reenviadas + " atividades reenviadas ao orquestrador");
+            }
+        }
+    }
+
+    // Envia sem esperar a resposta; só bloqueia se a janela de atividades em voo estiver cheia.
+    // O futuro é concluído na thread do gRPC quando o orquestrador confirmar (ou recusar) a atividade.
+    public CompletableFuture<OrquestradorAtividadeProto.EnviarAtividadeResposta> enviarAtividadeAssincrona(String titulo, String descricao) {
+        if (!conexaoAtiva || asyncStub == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Não conectado ao servidor"));
+        }
+
+        try {
+            janelaEmVoo.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<OrquestradorAtividadeProto.EnviarAtividadeResposta> futuro = new CompletableFuture<>();
+        futuro.whenComplete((resposta, erro) -> janelaEmVoo.release());
+
+        OrquestradorAtividadeProto.Atividade atividade = novaAtividade(titulo, descricao);
+        EnvioPendente envio = new EnvioPendente(atividade, futuro);
+
+        if (existemReenviosPendentes()) {
+            concluirNoSpool(envio, null);
+            return futuro;
+        }
+
+        if (TAMANHO_LOTE <= 1) {
+            enviarUnitario(envio);
+            return futuro;
+        }
+
+        List<EnvioPendente> loteCheio = null;
+        synchronized (travaLote) {
+            loteAtual.add(envio);
+            if (loteAtual.size() >= TAMANHO_LOTE) {
+                loteCheio = retirarLoteAtual();
+            } else if (envioAgendado == null) {
+                envioAgendado = agendadorLote.schedule(this::enviarLotePendente, ESPERA_LOTE_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (loteCheio != null) {
+            enviarLote(loteCheio);
+        }
+        return futuro;
+    }
+
+    // Envia imediatamente o lote em formação
+    public void enviarLotePendente() {
+        List<EnvioPendente> lote;
+        synchronized (travaLote) {
+            lote = retirarLoteAtual();
+        }
+        if (!lote.isEmpty()) {
+            enviarLote(lote);
+        }
+    }
+
+    // Aguarda a resposta de todas as atividades em voo; retorna false se o tempo acabar antes
+    public boolean aguardarEnvios(long tempo, TimeUnit unidade) throws InterruptedException {
+        enviarLotePendente();
+        if (!janelaEmVoo.tryAcquire(MAXIMO_EM_VOO, tempo, unidade)) {
+            return false;
+        }
+        janelaEmVoo.release(MAXIMO_EM_VOO);
+        return true;
+    }
+
+    // Deve ser chamado com travaLote
+    private List<EnvioPendente> retirarLoteAtual() {
+        List<EnvioPendente> lote = loteAtual;
+        loteAtual = new ArrayList<>();
+        if (envioAgendado != null) {
+            envioAgendado.cancel(false);
+            envioAgendado = null;
+        }
+        return lote;
+    }
+
+    private void enviarLote(List<EnvioPendente> lote) {
+        if (lote.size() == 1 || !loteDisponivel) {
+            lote.forEach(this::enviarUnitario);
+            return;
+        }
+
+        OrquestradorAtividadeProto.EnviarAtividadesLoteRequisicao.Builder request = OrquestradorAtividadeProto.EnviarAtividadesLoteRequisicao.newBuilder();
+        for (EnvioPendente envio : lote) {
+            request.addAtividades(envio.atividade);
+        }
+
+        asyncStub.withDeadlineAfter(PRAZO_MS, TimeUnit.MILLISECONDS).enviarAtividadesLote(request.build(),
+                new StreamObserver<OrquestradorAtividadeProto.EnviarAtividadesLoteResposta>() {
+                    @Override
+                    public void onNext(OrquestradorAtividadeProto.EnviarAtividadesLoteResposta resposta) {
+                        for (int i = 0; i < lote.size(); i++) {
+                            if (i < resposta.getResultadosCount()) {
+                                lote.get(i).futuro.complete(resposta.getResultados(i));
+                            } else {
+                                lote.get(i).futuro.completeExceptionally(new IllegalStateException("Resposta do lote sem resultado para a atividade"));
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable erro) {
+                        // Orquestrador sem o RPC de lote: passa a enviar individualmente
+                        if (Status.fromThrowable(erro).getCode() == Status.Code.UNIMPLEMENTED) {
+                            loteDisponivel = false;
+                            System.out.println("Servidor não suporta envio em lote - usando envios individuais");
+                            lote.forEach(ServicoClienteImpl.this::enviarUnitario);
+                            return;
+                        }
+                        lote.forEach(envio -> concluirNoSpool(envio, erro));
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                    }
+                });
+    }
+
+    private void enviarUnitario(EnvioPendente envio) {
+        OrquestradorAtividadeProto.EnviarAtividadeRequisicao request = OrquestradorAtividadeProto.EnviarAtividadeRequisicao.newBuilder()
+                .setAtividade(envio.atividade)
+                .build();
+
+        asyncStub.withDeadlineAfter(PRAZO_MS, TimeUnit.MILLISECONDS).enviarAtividade(request,
+                new StreamObserver<OrquestradorAtividadeProto.EnviarAtividadeResposta>() {
+                    @Override
+                    public void onNext(OrquestradorAtividadeProto.EnviarAtividadeResposta resposta) {
+                        envio.futuro.complete(resposta);
+                    }
+
+                    @Override
+                    public void onError(Throwable erro) {
+                        concluirNoSpool(envio, erro);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                    }
+                });
+    }
+
+    // Guarda no spool um envio que não chegou ao orquestrador (ou que precisa esperar os reenvios pendentes);
+    // falhas que não são de conexão, ou sem spool disponível, concluem o futuro com o erro
+    private void concluirNoSpool(EnvioPendente envio, Throwable erro) {
+        if ((erro == null || falhaDeConexao(erro)) && guardarNoSpool(envio.atividade)) {
+            envio.futuro.complete(respostaSpool());
+        } else {
+            envio.futuro.completeExceptionally(erro != null ? erro : new IllegalStateException(MENSAGEM_SPOOL));
+        }
+    }
+
+    // Envia várias atividades em uma única requisição; retorna quantas foram aceitas
+    public int enviarAtividadesLote(List<String> titulos, List<String> descricoes) {
+        if (!conexaoAtiva || blockingStub == null) {
+            System.out.println("Erro: Não conectado ao servidor");
+            return 0;
+        }
+
+        OrquestradorAtividadeProto.EnviarAtividadesLoteRequisicao.Builder request = OrquestradorAtividadeProto.EnviarAtividadesLoteRequisicao.newBuilder();
+        for (int i = 0; i < titulos.size(); i++) {
+            request.addAtividades(novaAtividade(titulos.get(i), descricoes.get(i)));
+        }
+
+        if (existemReenviosPendentes()) {
+            return guardarLoteNoSpool(request.getAtividadesList());
+        }
+
+        try {
+            OrquestradorAtividadeProto.EnviarAtividadesLoteResposta response = blockingStub.withDeadlineAfter(PRAZO_MS, TimeUnit.MILLISECONDS).enviarAtividadesLote(request.build());
+
+            int aceitas = 0;
+            for (int i = 0; i < response.getResultadosCount(); i++) {
+                OrquestradorAtividadeProto.EnviarAtividadeResposta resultado = response.getResultados(i);
+                if (resultado.getSucesso()) {
+                    aceitas++;
+                } else {
+                    System.out.println("Erro ao enviar atividade '" + titulos.get(i) + "': " + resultado.getMensagem());
+                }
+            }
+            System.out.println("Lote enviado: " + aceitas + " de " + titulos.size() + " atividades aceitas");
+            return aceitas;
+        } catch (Exception e) {
+            if (falhaDeConexao(e)) {
+                return guardarLoteNoSpool(request.getAtividadesList());
+            }
+            System.out.println("Erro ao enviar lote de atividades: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private int guardarLoteNoSpool(List<OrquestradorAtividadeProto.Atividade> atividades) {
+        int guardadas = 0;
+        for (OrquestradorAtividadeProto.Atividade atividade : atividades) {
+            if (guardarNoSpool(atividade)) {
+                guardadas++;
+            }
+        }
+        return guardadas;
+    }
+
     public void listarAtividades() {
         if (!conexaoAtiva || blockingStub == null) {
             System.out.println("Erro: Não conectado ao servidor");
@@ -109,7 +456,7 @@ public class ServicoClienteImpl {
 
         try {
             OrquestradorAtividadeProto.ListarAtividadesRequisicao request = OrquestradorAtividadeProto.ListarAtividadesRequisicao.newBuilder().build();
-            OrquestradorAtividadeProto.ListarAtividadesResposta response = blockingStub.listarAtividades(request);
+            OrquestradorAtividadeProto.ListarAtividadesResposta response = blockingStub.withDeadlineAfter(PRAZO_MS, TimeUnit.MILLISECONDS).listarAtividades(request);
             
             System.out.println("\n=== ATIVIDADES DO CLIENTE ===");
             if (response.getAtividadesCount() == 0) {
@@ -127,6 +474,84 @@ public class ServicoClienteImpl {
         }
     }
 
+    // Lista as atividades página a página, filtrando por status e worker (vazio = todos)
+    public int listarAtividadesPaginado(String status, String workerId, int tamanhoPagina) {
+        if (!conexaoAtiva || blockingStub == null) {
+            System.out.println("Erro: Não conectado ao servidor");
+            return 0;
+        }
+
+        try {
+            OrquestradorAtividadeProto.FiltroAtividades filtro = OrquestradorAtividadeProto.FiltroAtividades.newBuilder()
+                    .setStatus(status)
+                    .setWorkerId(workerId)
+                    .build();
+
+            int total = 0;
+            String cursor = "";
+            System.out.println("\n=== ATIVIDADES REGISTRADAS ===");
+            do {
+                OrquestradorAtividadeProto.ListarAtividadesPaginaRequisicao request = OrquestradorAtividadeProto.ListarAtividadesPaginaRequisicao.newBuilder()
+                        .setFiltro(filtro)
+                        .setCursor(cursor)
+                        .setTamanhoPagina(tamanhoPagina)
+                        .build();
+                OrquestradorAtividadeProto.ListarAtividadesPaginaResposta response = blockingStub.withDeadlineAfter(PRAZO_MS, TimeUnit.MILLISECONDS).listarAtividadesPaginado(request);
+
+                for (OrquestradorAtividadeProto.AtividadeRegistrada registrada : response.getAtividadesList()) {
+                    System.out.println(registrada.getTarefaId() + " [" + registrada.getStatus() + "] " +
+                            registrada.getAtividade().getTitulo() +
+                            (registrada.getWorkerId().isEmpty() ? "" : " - worker " + registrada.getWorkerId()));
+                }
+                total += response.getAtividadesCount();
+                cursor = response.getProximoCursor();
+            } while (!cursor.isEmpty());
+
+            System.out.println("Total: " + total);
+            return total;
+        } catch (Exception e) {
+            System.out.println("Erro ao listar atividades: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    // Acompanha em uma thread separada as transições das tarefas informadas (lista vazia = todas)
+    public Thread observarTarefas(List<String> tarefaIds, Consumer<OrquestradorAtividadeProto.EventoTarefa> consumidor) {
+        if (!conexaoAtiva || blockingStub == null) {
+            System.out.println("Erro: Não conectado ao servidor");
+            return null;
+        }
+
+        OrquestradorAtividadeProto.ObservarTarefasRequisicao request = OrquestradorAtividadeProto.ObservarTarefasRequisicao.newBuilder()
+                .addAllTarefaIds(tarefaIds)
+                .build();
+
+        Thread thread = new Thread(() -> {
+            try {
+                Iterator<OrquestradorAtividadeProto.EventoTarefa> eventos = blockingStub.observarTarefas(request);
+                while (eventos.hasNext()) {
+                    consumidor.accept(eventos.next());
+                }
+            } catch (Exception e) {
+                System.out.println("Observação de tarefas encerrada: " + e.getMessage());
+            }
+        }, "observacao-tarefas");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static final class EnvioPendente {
+        private final OrquestradorAtividadeProto.Atividade atividade;
+        private final CompletableFuture<OrquestradorAtividadeProto.EnviarAtividadeResposta> futuro;
+
+        private EnvioPendente(OrquestradorAtividadeProto.Atividade atividade,
+                              CompletableFuture<OrquestradorAtividadeProto.EnviarAtividadeResposta> futuro) {
+            this.atividade = atividade;
+            this.futuro = futuro;
+        }
+    }
+
     // Para saber se a conexão está ativa
     public boolean isConexaoAtiva() {
         return conexaoAtiva && canal != null && !canal.isShutdown();
@@ -135,6 +560,17 @@ public class ServicoClienteImpl {
     // Encerra conexão
     public void encerrar() throws InterruptedException {
         System.out.println("Encerrando cliente...");
+        if (!aguardarEnvios(5, TimeUnit.SECONDS)) {
+            System.out.println("Atividades ainda sem resposta ao encerrar: " + (MAXIMO_EM_VOO - janelaEmVoo.availablePermits()));
+        }
+        agendadorLote.shutdownNow();
+        agendadorSpool.shutdownNow();
+        if (spool != null) {
+            if (!spool.vazio()) {
+                System.out.println("[SPOOL] " + spool.obterPendentes() + " atividades continuam em " + spool.obterArquivo() + " para o próximo início");
+            }
+            spool.fechar();
+        }
         if (canal != null) {
             canal.shutdown().awaitTermination(5, TimeUnit.SECONDS);
         }
@@ -19,11 +19,9 @@ public class RelogioLamport {
         return newTimestamp;
     }
     
-    // Atualiza o clock a partir do recebimento de uma mensagem
+    // Atualiza o clock a partir do recebimento de uma mensagem (compare-and-set, seguro entre threads)
     public long update(long receivedTimestamp) {
-        long currentTimestamp = timestamp.get();
-        long newTimestamp = Math.max(currentTimestamp, receivedTimestamp) + 1;
-        timestamp.set(newTimestamp);
+        long newTimestamp = timestamp.accumulateAndGet(receivedTimestamp, (atual, recebido) -> Math.max(atual, recebido) + 1);
         
         System.out.println("[LAMPORT]: " + newTimestamp);
         return newTimestamp;
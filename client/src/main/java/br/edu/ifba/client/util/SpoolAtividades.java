@@ -0,0 +1,164 @@
+package br.edu.ifba.client.util;
+
+import br.edu.ifba.orchestrator.atividade.OrquestradorAtividadeProto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Fila em disco, somente de anexação, das atividades que não puderam ser entregues ao orquestrador.
+// Cada registro é [int tamanho][Atividade serializada]. O arquivo ".pos" guarda o deslocamento do
+// próximo registro ainda não confirmado; quando todos são confirmados os dois arquivos são zerados.
+// O arquivo fica travado enquanto o cliente está aberto, para que dois clientes não usem o mesmo spool.
+public class SpoolAtividades {
+    private static final int TAMANHO_MAXIMO_REGISTRO = 1024 * 1024;
+    private static final int MAXIMO_ARQUIVOS = 16;
+
+    private final Path arquivo;
+    private final FileChannel canal;
+    private final FileChannel canalPosicao;
+    private final FileLock trava;
+    private long posicao;
+    private long fim;
+    private int pendentes;
+    private int tamanhoUltimaLeitura = -1;
+
+    private SpoolAtividades(Path arquivo, FileChannel canal, FileLock trava) throws IOException {
+        this.arquivo = arquivo;
+        this.canal = canal;
+        this.trava = trava;
+        this.canalPosicao = FileChannel.open(Paths.get(arquivo + ".pos"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        carregar();
+    }
+
+    // Abre o primeiro spool livre a partir do prefixo (prefixo.dat, prefixo-1.dat, ...), retomando o que
+    // um cliente anterior tenha deixado pendente nele
+    public static SpoolAtividades abrir(String prefixo) throws IOException {
+        for (int i = 0; i < MAXIMO_ARQUIVOS; i++) {
+            Path arquivo = Paths.get(i == 0 ? prefixo + ".dat" : prefixo + "-" + i + ".dat");
+            FileChannel canal = FileChannel.open(arquivo,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileLock trava;
+            try {
+                trava = canal.tryLock();
+            } catch (OverlappingFileLockException e) {
+                trava = null;
+            }
+            if (trava != null) {
+                return new SpoolAtividades(arquivo, canal, trava);
+            }
+            canal.close();
+        }
+        throw new IOException("Nenhum arquivo de spool livre com o prefixo " + prefixo);
+    }
+
+    // Lê a posição confirmada e conta os registros completos depois dela; um registro
+    // incompleto no fim (queda durante a gravação) é descartado
+    private void carregar() throws IOException {
+        ByteBuffer bufferPosicao = ByteBuffer.allocate(Long.BYTES);
+        posicao = canalPosicao.read(bufferPosicao, 0) == Long.BYTES ? bufferPosicao.flip().getLong() : 0L;
+
+        long tamanhoArquivo = canal.size();
+        if (posicao > tamanhoArquivo) {
+            posicao = tamanhoArquivo;
+        }
+
+        fim = posicao;
+        pendentes = 0;
+        ByteBuffer cabecalho = ByteBuffer.allocate(Integer.BYTES);
+        while (fim + Integer.BYTES <= tamanhoArquivo) {
+            cabecalho.clear();
+            canal.read(cabecalho, fim);
+            int tamanho = cabecalho.flip().getInt();
+            if (tamanho < 0 || tamanho > TAMANHO_MAXIMO_REGISTRO || fim + Integer.BYTES + tamanho > tamanhoArquivo) {
+                break;
+            }
+            fim += Integer.BYTES + tamanho;
+            pendentes++;
+        }
+        if (fim < tamanhoArquivo) {
+            System.out.println("[SPOOL] Descartando " + (tamanhoArquivo - fim) + " bytes incompletos no fim de " + arquivo);
+            canal.truncate(fim);
+        }
+        if (pendentes > 0) {
+            System.out.println("[SPOOL] " + pendentes + " atividades pendentes em " + arquivo);
+        }
+    }
+
+    public synchronized void anexar(OrquestradorAtividadeProto.Atividade atividade) throws IOException {
+        byte[] conteudo = atividade.toByteArray();
+        ByteBuffer registro = ByteBuffer.allocate(Integer.BYTES + conteudo.length);
+        registro.putInt(conteudo.length).put(conteudo).flip();
+        while (registro.hasRemaining()) {
+            fim += canal.write(registro, fim);
+        }
+        canal.force(false);
+        pendentes++;
+    }
+
+    // Próxima atividade não confirmada, sem removê-la; null se o spool estiver vazio
+    public synchronized OrquestradorAtividadeProto.Atividade espiarProxima() throws IOException {
+        if (posicao >= fim) {
+            return null;
+        }
+        ByteBuffer cabecalho = ByteBuffer.allocate(Integer.BYTES);
+        canal.read(cabecalho, posicao);
+        int tamanho = cabecalho.flip().getInt();
+
+        ByteBuffer conteudo = ByteBuffer.allocate(tamanho);
+        while (conteudo.hasRemaining()) {
+            canal.read(conteudo, posicao + Integer.BYTES + conteudo.position());
+        }
+        tamanhoUltimaLeitura = tamanho;
+        return OrquestradorAtividadeProto.Atividade.parseFrom(conteudo.flip());
+    }
+
+    // Confirma a atividade devolvida por espiarProxima
+    public synchronized void confirmarProxima() throws IOException {
+        if (tamanhoUltimaLeitura < 0) {
+            return;
+        }
+        posicao += Integer.BYTES + tamanhoUltimaLeitura;
+        tamanhoUltimaLeitura = -1;
+        pendentes--;
+
+        if (posicao >= fim) {
+            canal.truncate(0);
+            posicao = 0;
+            fim = 0;
+            pendentes = 0;
+        }
+        ByteBuffer bufferPosicao = ByteBuffer.allocate(Long.BYTES);
+        bufferPosicao.putLong(posicao).flip();
+        canalPosicao.write(bufferPosicao, 0);
+        canalPosicao.force(false);
+    }
+
+    public synchronized boolean vazio() {
+        return pendentes == 0;
+    }
+
+    public synchronized int obterPendentes() {
+        return pendentes;
+    }
+
+    public Path obterArquivo() {
+        return arquivo;
+    }
+
+    public synchronized void fechar() {
+        try {
+            trava.release();
+            canal.close();
+            canalPosicao.close();
+        } catch (IOException e) {
+            System.out.println("[SPOOL] Erro ao fechar " + arquivo + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package br.edu.ifba.orchestrator;
+
+import br.edu.ifba.orchestrator.network.ComunicacaoMulticast.MensagemMulticast;
+import br.edu.ifba.orchestrator.network.MensagensMulticast;
+import br.edu.ifba.orchestrator.network.MensagensMulticast.*;
+import br.edu.ifba.orchestrator.network.ProtocoloMulticast;
+import br.edu.ifba.orchestrator.service.ReplicadorTarefas;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Benchmark de codificação e decodificação das mensagens multicast: JSON (Jackson, caminho antigo)
+ * contra o ProtocoloMulticast binário.
+ *
+ * Para cada tipo mede o custo por mensagem de codificar (JSON: mapa + writeValueAsBytes; binário: escrita
+ * no buffer reaproveitado) e de decodificar até os dados tipados que o handler usa (JSON: readValue +
+ * conversão do mapa; binário: leitura do buffer), além do tamanho em bytes.
+ *
+ * Uso: BenchmarkCodecMulticast [iterações por rodada] [rodadas] [tamanho do arquivo do DATA_SYNC em bytes]
+ */
+public class BenchmarkCodecMulticast {
+
+    private interface Operacao {
+        long executar();
+    }
+
+    private static final ObjectMapper MAPEADOR = new ObjectMapper();
+    private static final String REMETENTE = "orchestrator-backup-1";
+
+    // Evita que o JIT elimine as operações medidas
+    private static long consumidor;
+
+    public static void main(String[] args) throws Exception {
+        int iteracoes = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rodadas = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int tamanhoArquivo = args.length > 2 ? Integer.parseInt(args[2]) : 4096;
+
+        System.out.println("=== BENCHMARK CODEC MULTICAST ===");
+        System.out.println("Iterações por rodada: " + iteracoes + " | Rodadas: " + rodadas +
+                          " (melhor rodada) | Arquivo DATA_SYNC: " + tamanhoArquivo + " bytes");
+        System.out.printf("%n%-26s %-8s %12s %12s %10s%n", "tipo", "codec", "codif. ns", "decodif. ns", "bytes");
+
+        long agora = System.currentTimeMillis();
+        medir("SIMPLE_HEARTBEAT", HeartbeatSimples.class,
+              new HeartbeatSimples("orchestrator-backup-1", "orchestrator-primary", agora, 123456, null),
+              iteracoes, rodadas);
+        medir("HEARTBEAT_RESPONSE", HeartbeatBackup.class,
+              new HeartbeatBackup("orchestrator-primary", "orchestrator-backup-1", 123457, agora, "active"),
+              iteracoes, rodadas);
+        medir(ReplicadorTarefas.TIPO_CATCHUP, PedidoCatchup.class,
+              new PedidoCatchup("orchestrator-backup-1", 98765, false), iteracoes, rodadas);
+        medir("DATA_SYNC", SincronizacaoDados.class,
+              new SincronizacaoDados("orchestrator-primary", 123458, agora, gerarArquivo(tamanhoArquivo),
+                                     "tarefas.json", "full"),
+              Math.max(1, iteracoes / 20), rodadas);
+
+        System.out.println("\n(" + consumidor + ")");
+    }
+
+    private static <T extends MensagensMulticast.Dados> void medir(String tipo, Class<T> classe, T dados,
+                                                                  int iteracoes, int rodadas) throws Exception {
+        // JSON: o remetente monta o mapa e o Jackson serializa a mensagem inteira
+        byte[] json = MAPEADOR.writeValueAsBytes(new MensagemMulticast(REMETENTE, tipo, dados.paraMapa(), 1, 2));
+        double jsonCodificar = melhor(rodadas, iteracoes, () -> {
+            try {
+                return MAPEADOR.writeValueAsBytes(new MensagemMulticast(REMETENTE, tipo, dados.paraMapa(), 1, 2)).length;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        double jsonDecodificar = melhor(rodadas, iteracoes, () -> {
+            try {
+                MensagemMulticast mensagem = MAPEADOR.readValue(json, 0, json.length, MensagemMulticast.class);
+                return mensagem.obterDados(classe).hashCode() + mensagem.obterTimestampLamport();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        ProtocoloMulticast.codificar(buffer, REMETENTE, tipo, dados, 1, 2);
+        int tamanhoBinario = buffer.position();
+        byte[] binario = new byte[tamanhoBinario];
+        buffer.flip().get(binario);
+        double binarioCodificar = melhor(rodadas, iteracoes, () -> {
+            buffer.clear();
+            ProtocoloMulticast.codificar(buffer, REMETENTE, tipo, dados, 1, 2);
+            return buffer.position();
+        });
+        double binarioDecodificar = melhor(rodadas, iteracoes, () -> {
+            MensagemMulticast mensagem = ProtocoloMulticast.decodificar(ByteBuffer.wrap(binario, 0, binario.length));
+            return mensagem.obterDados(classe).hashCode() + mensagem.obterTimestampLamport();
+        });
+
+        System.out.printf("%-26s %-8s %12.0f %12.0f %10d%n", tipo, "json", jsonCodificar, jsonDecodificar, json.length);
+        System.out.printf("%-26s %-8s %12.0f %12.0f %10d%n", "", "binario", binarioCodificar, binarioDecodificar, tamanhoBinario);
+    }
+
+    /**
+     * Roda a operação em rodadas (a primeira serve de aquecimento) e devolve o menor custo médio em ns
+     */
+    private static double melhor(int rodadas, int iteracoes, Operacao operacao) {
+        double melhor = Double.MAX_VALUE;
+        for (int rodada = 0; rodada <= rodadas; rodada++) {
+            long soma = 0;
+            long inicio = System.nanoTime();
+            for (int i = 0; i < iteracoes; i++) {
+                soma += operacao.executar();
+            }
+            double porOperacao = (double) (System.nanoTime() - inicio) / iteracoes;
+            consumidor += soma;
+            if (rodada > 0) {
+                melhor = Math.min(melhor, porOperacao);
+            }
+        }
+        return melhor;
+    }
+
+    // Conteúdo parecido com o arquivo de tarefas (JSON com aspas, que o JSON externo precisa escapar)
+    private static String gerarArquivo(int tamanho) {
+        StringBuilder conteudo = new StringBuilder(tamanho + 128);
+        conteudo.append("{\"tarefas\":[");
+        int i = 0;
+        while (conteudo.length() < tamanho) {
+            conteudo.append("{\"id\":\"tarefa-").append(i).append("\",\"titulo\":\"Tarefa ").append(i)
+                    .append("\",\"status\":\"PENDENTE\"},");
+            i++;
+        }
+        conteudo.append("{}]}");
+        return conteudo.toString();
+    }
+}
@@ -0,0 +1,133 @@
+package br.edu.ifba.orchestrator;
+
+import br.edu.ifba.orchestrator.util.RelógioLamport;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmark de vazão do RelógioLamport sob contenção.
+ *
+ * Para cada número de threads mede tick(), update() com timestamps recebidos próximos do atual,
+ * tick(n) em blocos (o caminho dos lotes de despacho) e, para comparação, o update antigo com
+ * get()/set(), contando os incrementos que ele perde. Os logs do relógio são desligados.
+ *
+ * Uso: BenchmarkRelogioLamport [duracaoMs por medição] [threads separadas por vírgula] [tamanho do bloco]
+ */
+public class BenchmarkRelogioLamport {
+
+    private interface Operacao {
+        /**
+         * Executa uma operação e devolve quantos eventos ela registrou no relógio
+         */
+        int executar(RelógioLamport relogio, AtomicLong antigo);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("orquestrador.lamport.log", "false");
+
+        long duracaoMs = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        String[] listaThreads = (args.length > 1 ? args[1] : "1,2,4,8,16,32,64").split(",");
+        int tamanhoBloco = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        System.out.println("=== BENCHMARK RELÓGIO DE LAMPORT ===");
+        System.out.println("Duração por medição: " + duracaoMs + "ms | Bloco: " + tamanhoBloco +
+                          " | CPUs: " + Runtime.getRuntime().availableProcessors());
+
+        // Aquecimento do JIT
+        medir("aquecimento", 2, duracaoMs / 2, (relogio, antigo) -> {
+            relogio.tick();
+            return 1;
+        });
+
+        for (String valor : listaThreads) {
+            int threads = Integer.parseInt(valor.trim());
+            System.out.println("\n--- " + threads + " threads ---");
+
+            medir("tick", threads, duracaoMs, (relogio, antigo) -> {
+                relogio.tick();
+                return 1;
+            });
+            medir("update", threads, duracaoMs, (relogio, antigo) -> {
+                // Recebido às vezes à frente, às vezes atrás do relógio local
+                long recebido = relogio.obterTimestampAtual() + ThreadLocalRandom.current().nextInt(-4, 4);
+                relogio.update(recebido);
+                return 1;
+            });
+            medir("tick+update", threads, duracaoMs, (relogio, antigo) -> {
+                if (ThreadLocalRandom.current().nextBoolean()) {
+                    relogio.tick();
+                } else {
+                    relogio.update(relogio.obterTimestampAtual() - 1);
+                }
+                return 1;
+            });
+            medir("tick(" + tamanhoBloco + ")", threads, duracaoMs, (relogio, antigo) -> {
+                relogio.tick(tamanhoBloco);
+                return tamanhoBloco;
+            });
+            medir("update get/set (antigo)", threads, duracaoMs, (relogio, antigo) -> {
+                long atual = antigo.get();
+                antigo.set(Math.max(atual, 0) + 1);
+                return 1;
+            });
+        }
+    }
+
+    /**
+     * Roda a operação em N threads pelo tempo indicado e imprime a vazão em eventos por segundo.
+     * Como cada evento avança o relógio em exatamente 1 (update com recebido <= local também),
+     * o valor final do relógio deve ser igual ao total de eventos; a diferença são incrementos perdidos.
+     */
+    private static void medir(String nome, int threads, long duracaoMs, Operacao operacao) throws InterruptedException {
+        RelógioLamport relogio = new RelógioLamport("benchmark");
+        AtomicLong antigo = new AtomicLong(0);
+        LongAdder eventos = new LongAdder();
+        CountDownLatch largada = new CountDownLatch(1);
+        CountDownLatch chegada = new CountDownLatch(threads);
+        long[] fim = new long[1];
+
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    largada.await();
+                    long eventosLocais = 0;
+                    while (System.nanoTime() < fim[0]) {
+                        for (int j = 0; j < 256; j++) {
+                            eventosLocais += operacao.executar(relogio, antigo);
+                        }
+                    }
+                    eventos.add(eventosLocais);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    chegada.countDown();
+                }
+            }, "benchmark-lamport-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long inicio = System.nanoTime();
+        fim[0] = inicio + duracaoMs * 1_000_000L;
+        largada.countDown();
+        chegada.await();
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        long total = eventos.sum();
+        long valorFinal = nome.contains("antigo") ? antigo.get() : relogio.obterTimestampAtual();
+        String conferencia;
+        if (nome.startsWith("update") && !nome.contains("antigo")) {
+            // O recebido pode estar à frente do local e pular valores, então só não pode ficar para trás
+            conferencia = valorFinal >= total ? "ok" : "PERDEU " + (total - valorFinal);
+        } else {
+            conferencia = valorFinal == total ? "ok" : "perdidos: " + (total - valorFinal);
+        }
+
+        if (!nome.equals("aquecimento")) {
+            System.out.printf("%-24s %,14.0f eventos/s   %s%n", nome, total / segundos, conferencia);
+        }
+    }
+}
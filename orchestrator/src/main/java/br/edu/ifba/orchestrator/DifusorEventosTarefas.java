@@ -0,0 +1,199 @@
+package br.edu.ifba.orchestrator;
+
+import br.edu.ifba.orchestrator.atividade.OrquestradorAtividadeProto.EventoTarefa;
+import br.edu.ifba.orchestrator.atividade.OrquestradorAtividadeProto.TipoEventoTarefa;
+import br.edu.ifba.orchestrator.service.AlteracaoTarefa;
+import br.edu.ifba.orchestrator.service.FiltroTarefas;
+import br.edu.ifba.orchestrator.service.GerenciadorTarefas;
+import br.edu.ifba.orchestrator.model.Tarefa;
+import br.edu.ifba.orchestrator.util.FabricaThreads;
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Distribui as alterações de tarefas aos assinantes de observarTarefas.
+ *
+ * O GerenciadorTarefas só enfileira cada alteração (sob a trava dos índices); uma thread própria converte
+ * o evento uma vez e o repassa aos assinantes. Cada assinante tem um buffer limitado, esvaziado conforme o
+ * controle de fluxo do gRPC permite. Quando o buffer enche, os eventos acumulados são descartados e o
+ * assinante recebe RESSINCRONIZAR, devendo listar o estado atual novamente.
+ */
+public class DifusorEventosTarefas {
+
+    private static final int TAMANHO_BUFFER_ASSINANTE = Integer.getInteger("orquestrador.observacao.buffer", 1024);
+    private static final int TAMANHO_FILA_CENTRAL = Integer.getInteger("orquestrador.observacao.filaCentral", 65536);
+
+    private final GerenciadorTarefas gerenciadorTarefas;
+    private final Set<Assinante> assinantes = new CopyOnWriteArraySet<>();
+    private final BlockingQueue<AlteracaoTarefa> filaCentral = new LinkedBlockingQueue<>(TAMANHO_FILA_CENTRAL);
+    private volatile boolean filaCentralTransbordou = false;
+    private boolean iniciado = false;
+
+    public DifusorEventosTarefas(GerenciadorTarefas gerenciadorTarefas) {
+        this.gerenciadorTarefas = gerenciadorTarefas;
+    }
+
+    /**
+     * Passa a enviar ao observador as alterações que atendem ao filtro (e, se informados, aos ids)
+     */
+    public void assinar(ServerCallStreamObserver<EventoTarefa> observador, FiltroTarefas filtro, Set<String> tarefaIds) {
+        iniciarSeNecessario();
+
+        Assinante assinante = new Assinante(observador, filtro, tarefaIds);
+        observador.setOnCancelHandler(() -> {
+            assinante.encerrar();
+            assinantes.remove(assinante);
+            System.out.println("[OBSERVACAO] Assinante encerrado - " + assinantes.size() + " ativos");
+        });
+        observador.setOnReadyHandler(assinante::drenar);
+        assinantes.add(assinante);
+        System.out.println("[OBSERVACAO] Novo assinante - " + assinantes.size() + " ativos");
+    }
+
+    public int obterNumeroAssinantes() {
+        return assinantes.size();
+    }
+
+    private synchronized void iniciarSeNecessario() {
+        if (iniciado) {
+            return;
+        }
+        iniciado = true;
+        gerenciadorTarefas.adicionarObservador(this::enfileirar);
+        FabricaThreads.iniciar("observacao-tarefas", this::distribuir);
+    }
+
+    // Chamado sob a trava dos índices do GerenciadorTarefas: não pode bloquear
+    private void enfileirar(AlteracaoTarefa alteracao) {
+        if (assinantes.isEmpty()) {
+            return;
+        }
+        if (!filaCentral.offer(alteracao)) {
+            filaCentralTransbordou = true;
+        }
+    }
+
+    private void distribuir() {
+        while (true) {
+            try {
+                AlteracaoTarefa alteracao = filaCentral.take();
+
+                // Eventos perdidos na fila central afetam todos os assinantes
+                if (filaCentralTransbordou) {
+                    filaCentralTransbordou = false;
+                    System.err.println("[OBSERVACAO] Fila central cheia - todos os assinantes serão ressincronizados");
+                    for (Assinante assinante : assinantes) {
+                        assinante.descartarParaRessincronizar();
+                    }
+                }
+
+                EventoTarefa evento = null;
+                for (Assinante assinante : assinantes) {
+                    if (!assinante.interessado(alteracao.obterTarefa())) {
+                        continue;
+                    }
+                    if (evento == null) {
+                        evento = converter(alteracao);
+                    }
+                    assinante.oferecer(evento);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("[OBSERVACAO] Erro ao distribuir alteração: " + e.getMessage());
+            }
+        }
+    }
+
+    private static EventoTarefa converter(AlteracaoTarefa alteracao) {
+        return EventoTarefa.newBuilder()
+            .setTipo(TipoEventoTarefa.valueOf(alteracao.obterTipo().name()))
+            .setSequencia(alteracao.obterSequencia())
+            .setTarefa(ServicoAtividadeImpl.converterTarefa(alteracao.obterTarefa()))
+            .build();
+    }
+
+    private final class Assinante {
+        private final ServerCallStreamObserver<EventoTarefa> observador;
+        private final FiltroTarefas filtro;
+        private final Set<String> tarefaIds;
+        private final ArrayDeque<EventoTarefa> buffer = new ArrayDeque<>();
+        private boolean ressincronizar = false;
+        private boolean encerrado = false;
+        private long descartados = 0;
+
+        Assinante(ServerCallStreamObserver<EventoTarefa> observador, FiltroTarefas filtro, Set<String> tarefaIds) {
+            this.observador = observador;
+            this.filtro = filtro;
+            this.tarefaIds = tarefaIds;
+        }
+
+        boolean interessado(Tarefa tarefa) {
+            return (tarefaIds.isEmpty() || tarefaIds.contains(tarefa.obterIdentificador())) && filtro.aceita(tarefa);
+        }
+
+        synchronized void oferecer(EventoTarefa evento) {
+            if (encerrado) {
+                return;
+            }
+            // Até o aviso de ressincronização sair, novos eventos seriam cobertos pela nova listagem
+            if (ressincronizar) {
+                descartados++;
+                return;
+            }
+            if (buffer.size() >= TAMANHO_BUFFER_ASSINANTE) {
+                descartarParaRessincronizar();
+                descartados++;
+                return;
+            }
+            buffer.addLast(evento);
+            drenar();
+        }
+
+        synchronized void descartarParaRessincronizar() {
+            descartados += buffer.size();
+            buffer.clear();
+            ressincronizar = true;
+        }
+
+        /**
+         * Envia o que estiver no buffer enquanto o transporte aceitar (também chamado pelo onReady do gRPC)
+         */
+        synchronized void drenar() {
+            try {
+                while (!encerrado && observador.isReady()) {
+                    if (ressincronizar) {
+                        System.out.println("[OBSERVACAO] Assinante lento - " + descartados + " eventos descartados, enviando ressincronização");
+                        observador.onNext(EventoTarefa.newBuilder()
+                            .setTipo(TipoEventoTarefa.RESSINCRONIZAR)
+                            .setSequencia(gerenciadorTarefas.obterSequenciaAlteracoes())
+                            .build());
+                        ressincronizar = false;
+                        descartados = 0;
+                        continue;
+                    }
+                    EventoTarefa evento = buffer.pollFirst();
+                    if (evento == null) {
+                        return;
+                    }
+                    observador.onNext(evento);
+                }
+            } catch (Exception e) {
+                System.err.println("[OBSERVACAO] Erro ao enviar evento ao assinante: " + e.getMessage());
+                encerrar();
+                assinantes.remove(this);
+            }
+        }
+
+        synchronized void encerrar() {
+            encerrado = true;
+            buffer.clear();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import br.edu.ifba.orchestrator.service.BackupHeartbeatService;
 import br.edu.ifba.orchestrator.service.AutoSyncService;
 import br.edu.ifba.orchestrator.service.GerenciadorTarefas;
 import br.edu.ifba.orchestrator.service.HeartbeatManager;
+import br.edu.ifba.orchestrator.service.ReplicadorTarefas;
 import br.edu.ifba.orchestrator.worker.GerenciadorWorkers;
 import br.edu.ifba.orchestrator.util.RelógioLamport;
 import br.edu.ifba.orchestrator.network.ComunicacaoMulticast;
@@ -30,6 +31,7 @@ public class OrquestradorBackup {
     private HeartbeatManager heartbeatManager;
     private BackupHeartbeatService backupHeartbeatService;
     private AutoSyncService autoSyncService;
+    private ReplicadorTarefas replicadorTarefas;
     private RelógioLamport relógioLamport;
     private ComunicacaoMulticast comunicacaoMulticast;
     private ScheduledExecutorService scheduler;
@@ -60,10 +62,14 @@ public class OrquestradorBackup {
             
             // Configurar handlers multicast
             configurarHandlersMulticast();
+            replicadorTarefas = new ReplicadorTarefas(backupId, comunicacaoMulticast, gerenciadorTarefas, false);
             
             // Iniciar comunicação multicast
             comunicacaoMulticast.iniciar();
             
+            // Receber do principal os registros de tarefas que faltam
+            replicadorTarefas.iniciar();
+            
             // Inicializar sistema de heartbeat para backup
             backupHeartbeatService = new BackupHeartbeatService(
                 backupId, 
@@ -124,6 +130,12 @@ public class OrquestradorBackup {
                 backupHeartbeatService.parar();
             }
             
+            // Passar a publicar o log de tarefas em vez de recebê-lo
+            gerenciadorTarefas.setComunicacaoMulticast(comunicacaoMulticast);
+            if (replicadorTarefas != null) {
+                replicadorTarefas.assumirPrincipal();
+            }
+            
             if (!servidorRodando.get()) {
                 // Iniciar servidor nas mesmas portas do principal
                 server = new ServidorOrquestrador(9090, 8080);
@@ -148,8 +160,15 @@ public class OrquestradorBackup {
                             // Restaurar estado do round-robin dos metadados
                             gerenciadorWorkers.restaurarEstadoRoundRobin();
                             
+                            // Refazer a fila de tarefas sem worker a partir do estado replicado
+                            gerenciadorTarefas.reconstruirFilaPendente();
+
                             // Descobrir e conectar workers existentes
                             descobrirWorkersExistentes(gerenciadorWorkers);
+
+                            // Despachar o que for possível aos workers que já se reconectaram;
+                            // o restante sai conforme os demais se registram
+                            gerenciadorWorkers.drenarFilaPendente();
                             
                             // Inicializar sistema de heartbeat para workers (mesma estratégia do principal)
                             heartbeatManager = new HeartbeatManager(gerenciadorWorkers, gerenciadorTarefas);
@@ -354,6 +373,16 @@ public class OrquestradorBackup {
             autoSyncService.parar();
         }
         
+        // Parar replicação de tarefas
+        if (replicadorTarefas != null) {
+            replicadorTarefas.parar();
+        }
+        
+        // Gravar checkpoint final das tarefas
+        if (gerenciadorTarefas != null) {
+            gerenciadorTarefas.parar();
+        }
+        
         // Parar comunicação multicast
         if (comunicacaoMulticast != null) {
             comunicacaoMulticast.parar();
@@ -5,12 +5,14 @@ import br.edu.ifba.orchestrator.service.GerenciadorTarefas;
 import br.edu.ifba.orchestrator.service.HeartbeatManager;
 import br.edu.ifba.orchestrator.service.PrimaryHeartbeatService;
 import br.edu.ifba.orchestrator.service.SincronizadorDados;
+import br.edu.ifba.orchestrator.service.ReplicadorTarefas;
 import br.edu.ifba.orchestrator.service.ChandyLamportSnapshot;
 import br.edu.ifba.orchestrator.service.AutoSyncService;
 import br.edu.ifba.orchestrator.worker.GerenciadorWorkers;
 import br.edu.ifba.orchestrator.model.Tarefa;
 import br.edu.ifba.orchestrator.util.RelógioLamport;
 import br.edu.ifba.orchestrator.network.ComunicacaoMulticast;
+import br.edu.ifba.orchestrator.network.MensagensMulticast.HeartbeatSimples;
 
 import java.io.IOException;
 import java.text.SimpleDateFormat;
@@ -31,6 +33,7 @@ public class PrincipalOrquestrador {
     private static HeartbeatManager heartbeatManager;
     private static PrimaryHeartbeatService primaryHeartbeatService;
     private static SincronizadorDados sincronizadorDados;
+    private static ReplicadorTarefas replicadorTarefas;
     private static ChandyLamportSnapshot snapshotManager;
     private static AutoSyncService autoSyncService;
     private static RelógioLamport relógioLamport;
@@ -87,6 +90,12 @@ public class PrincipalOrquestrador {
                         );
                         sincronizadorDados.iniciar();
                         
+                        // Inicializar replicação incremental de tarefas para backups
+                        replicadorTarefas = new ReplicadorTarefas(
+                            ORCHESTRATOR_ID, comunicacaoMulticast, gerenciadorTarefas, true
+                        );
+                        replicadorTarefas.iniciar();
+                        
                         // Inicializar serviço de heartbeat para backups
                         primaryHeartbeatService = new PrimaryHeartbeatService(
                             ORCHESTRATOR_ID, relógioLamport, comunicacaoMulticast
@@ -139,6 +148,11 @@ public class PrincipalOrquestrador {
                 sincronizadorDados.parar();
             }
             
+            // Parar replicação de tarefas
+            if (replicadorTarefas != null) {
+                replicadorTarefas.parar();
+            }
+            
             // Parar snapshot manager
             if (snapshotManager != null) {
                 snapshotManager.parar();
@@ -149,6 +163,11 @@ public class PrincipalOrquestrador {
                 autoSyncService.parar();
             }
             
+            // Gravar checkpoint final das tarefas
+            if (gerenciadorTarefas != null) {
+                gerenciadorTarefas.parar();
+            }
+            
             // Parar comunicação multicast
             if (comunicacaoMulticast != null) {
                 comunicacaoMulticast.parar();
@@ -306,6 +325,7 @@ public class PrincipalOrquestrador {
             System.out.println("Tarefas pendentes: " + estatisticas.get("pendentes"));
             System.out.println("Tarefas finalizadas: " + estatisticas.get("finalizadas"));
             System.out.println("Tarefas realocadas: " + estatisticas.get("realocadas"));
+            System.out.println("Tarefas na fila pendente: " + estatisticas.get("naFila"));
         }
         
         if (heartbeatManager != null) {
@@ -327,6 +347,15 @@ public class PrincipalOrquestrador {
             System.out.println("Node ID: " + syncStats.get("nodeId"));
         }
         
+        // Estatísticas da replicação incremental
+        if (replicadorTarefas != null) {
+            var replicacaoStats = replicadorTarefas.getEstatisticas();
+            System.out.println("\n=== REPLICAÇÃO DE TAREFAS ===");
+            System.out.println("Último registro: " + replicacaoStats.get("ultimaSequencia"));
+            System.out.println("Catch-ups atendidos: " + replicacaoStats.get("catchupsAtendidos"));
+            System.out.println("Transferências completas: " + replicacaoStats.get("snapshotsTransferidos"));
+        }
+        
         // Estatísticas do PrimaryHeartbeatService
         if (primaryHeartbeatService != null) {
             var heartbeatStats = primaryHeartbeatService.getEstatisticas();
@@ -444,10 +473,9 @@ public class PrincipalOrquestrador {
         
         // Handler para heartbeat simples do backup
         comunicacaoMulticast.registrarHandler("SIMPLE_HEARTBEAT", mensagem -> {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> dados = (Map<String, Object>) mensagem.getDados();
-            String backupId = (String) dados.get("backupId");
-            String targetPrimaryId = (String) dados.get("primaryId");
+            HeartbeatSimples dados = mensagem.obterDados(HeartbeatSimples.class);
+            String backupId = dados.obterBackupId();
+            String targetPrimaryId = dados.obterPrimaryId();
             
             // Verifica se o heartbeat é para este primary
             if (ORCHESTRATOR_ID.equals(targetPrimaryId)) {
@@ -455,43 +483,12 @@ public class PrincipalOrquestrador {
                                   " [Lamport:" + mensagem.getTimestampLamport() + "]");
                 
                 // Responde ao backup
-                Map<String, Object> resposta = Map.of(
-                    "primaryId", ORCHESTRATOR_ID,
-                    "backupId", backupId,
-                    "timestamp", System.currentTimeMillis(),
-                    "lamportTimestamp", relógioLamport.getCurrentTimestamp(),
-                    "status", "ALIVE"
-                );
+                HeartbeatSimples resposta = new HeartbeatSimples(backupId, ORCHESTRATOR_ID, System.currentTimeMillis(),
+                                                                 relógioLamport.getCurrentTimestamp(), "ALIVE");
                 
                 comunicacaoMulticast.enviarMensagem("SIMPLE_HEARTBEAT_RESPONSE", resposta);
             }
         });
-
-        // Handler para heartbeat do backup (mantido para compatibilidade)
-        comunicacaoMulticast.registrarHandler("BACKUP_HEARTBEAT", mensagem -> {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> dados = (Map<String, Object>) mensagem.getDados();
-            String backupId = (String) dados.get("backupId");
-            String targetLeaderId = (String) dados.get("leaderId");
-            
-            // Verifica se o heartbeat é para este líder
-            if (ORCHESTRATOR_ID.equals(targetLeaderId)) {
-                System.out.println("[HEARTBEAT] Heartbeat recebido do backup: " + backupId);
-                
-                // Responde ao backup
-                Map<String, Object> resposta = Map.of(
-                    "leaderId", ORCHESTRATOR_ID,
-                    "backupId", backupId,
-                    "timestamp", System.currentTimeMillis(),
-                    "lamportTimestamp", relógioLamport.getCurrentTimestamp(),
-                    "status", "ALIVE",
-                    "workersConectados", server.obterGerenciadorWorkers().obterNumeroWorkersConectados(),
-                    "tarefasPendentes", gerenciadorTarefas.getTarefasPendentes().size()
-                );
-                
-                comunicacaoMulticast.enviarMensagem("BACKUP_HEARTBEAT_RESPONSE", resposta);
-            }
-        });
     }
     
     /**
@@ -502,8 +499,8 @@ public class PrincipalOrquestrador {
             try {
                 Map<String, Object> estadoAtual = Map.of(
                     "workersConectados", server.obterGerenciadorWorkers().obterNumeroWorkersConectados(),
-                    "tarefasPendentes", gerenciadorTarefas.getTarefasPendentes().size(),
-                    "tarefasConcluidas", gerenciadorTarefas.getTarefasFinalizadas().size(),
+                    "tarefasPendentes", gerenciadorTarefas.contarTarefas(Tarefa.StatusTarefa.PENDENTE),
+                    "tarefasConcluidas", gerenciadorTarefas.contarTarefas(Tarefa.StatusTarefa.FINALIZADA),
                     "timestamp", System.currentTimeMillis(),
                     "lamportTimestamp", relógioLamport.getCurrentTimestamp() // Usar timestamp atual sem incrementar
                 );
@@ -545,8 +542,8 @@ public class PrincipalOrquestrador {
             System.out.println("\n--- Informações do Snapshot ---");
             System.out.println("Estado capturado do sistema distribuído:");
             System.out.println("- Workers conectados: " + server.obterGerenciadorWorkers().obterNumeroWorkersConectados());
-            System.out.println("- Tarefas pendentes: " + gerenciadorTarefas.getTarefasPendentes().size());
-            System.out.println("- Tarefas concluídas: " + gerenciadorTarefas.getTarefasFinalizadas().size());
+            System.out.println("- Tarefas pendentes: " + gerenciadorTarefas.contarTarefas(Tarefa.StatusTarefa.PENDENTE));
+            System.out.println("- Tarefas concluídas: " + gerenciadorTarefas.contarTarefas(Tarefa.StatusTarefa.FINALIZADA));
             System.out.println("- Timestamp Lamport atual: " + relógioLamport.getCurrentTimestamp());
             
             System.out.println("\nSnapshot salvo e sincronizado com backups.");
@@ -2,21 +2,46 @@ package br.edu.ifba.orchestrator;
 
 import br.edu.ifba.orchestrator.atividade.OrquestradorAtividadeProto.*;
 import br.edu.ifba.orchestrator.atividade.ServicoAtividadeGrpc;
+import br.edu.ifba.orchestrator.model.Tarefa;
+import br.edu.ifba.orchestrator.network.ProtocoloWorker;
 import br.edu.ifba.orchestrator.worker.GerenciadorWorkers;
+import br.edu.ifba.orchestrator.worker.GerenciadorWorkers.ResultadoDistribuicao;
+import br.edu.ifba.orchestrator.service.FiltroTarefas;
 import br.edu.ifba.orchestrator.service.GerenciadorTarefas;
+import br.edu.ifba.orchestrator.util.LoggerLamport;
 import br.edu.ifba.orchestrator.util.RelógioLamport;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 public class ServicoAtividadeImpl extends ServicoAtividadeGrpc.ServicoAtividadeImplBase {
     
-    private final List<Atividade> atividades = new CopyOnWriteArrayList<>();
+    // Tamanho máximo de cada passada de criação/persistência/despacho em lotes e streams
+    private static final int TAMANHO_MAXIMO_LOTE = Integer.getInteger("orquestrador.lote.maximo", 1000);
+    
+    // Paginação de listarAtividadesPaginado quando o cliente não informa (ou excede) o tamanho
+    private static final int TAMANHO_PAGINA_PADRAO = 100;
+    private static final int TAMANHO_MAXIMO_PAGINA = Integer.getInteger("orquestrador.listagem.paginaMaxima", 1000);
+    
+    // Título e descrição maiores que isso não caberiam no quadro enviado ao worker
+    private static final String MENSAGEM_ATIVIDADE_GRANDE = "Título e descrição excedem " +
+        ProtocoloWorker.TAMANHO_MAXIMO_TEXTOS_TAREFA + " bytes";
+    
     private GerenciadorWorkers gerenciadorWorkers;
     private GerenciadorTarefas gerenciadorTarefas;
+    private DifusorEventosTarefas difusorEventos;
     private RelógioLamport relógioLamport;
+    // Logs por atividade vão pela saída assíncrona; recriado ao receber o relógio
+    private LoggerLamport logger = new LoggerLamport("Atividades", null);
     
     public void setGerenciadorWorkers(GerenciadorWorkers gerenciadorWorkers) {
         this.gerenciadorWorkers = gerenciadorWorkers;
@@ -24,10 +49,12 @@ public class ServicoAtividadeImpl extends ServicoAtividadeGrpc.ServicoAtividadeI
     
     public void setGerenciadorTarefas(GerenciadorTarefas gerenciadorTarefas) {
         this.gerenciadorTarefas = gerenciadorTarefas;
+        this.difusorEventos = new DifusorEventosTarefas(gerenciadorTarefas);
     }
     
     public void setRelógioLamport(RelógioLamport relógioLamport) {
         this.relógioLamport = relógioLamport;
+        this.logger = new LoggerLamport("Atividades", relógioLamport);
     }
     
     @Override
@@ -45,46 +72,61 @@ public class ServicoAtividadeImpl extends ServicoAtividadeGrpc.ServicoAtividadeI
                 return;
             }
             
+            if (!ProtocoloWorker.cabeNaTarefa(atividade.getTitulo(), atividade.getDescricao())) {
+                responder(observadorResposta, false, MENSAGEM_ATIVIDADE_GRANDE);
+                return;
+            }
+            
+            // Reenvio de uma atividade já aceita: devolve o resultado original sem criar outra tarefa
+            String tarefaExistente = gerenciadorTarefas != null
+                ? gerenciadorTarefas.obterTarefaIdPorChave(atividade.getChaveIdempotencia())
+                : null;
+            if (tarefaExistente != null) {
+                logger.info("[IDEMPOTENCIA] Atividade repetida (chave %s) - tarefa %s",
+                            atividade.getChaveIdempotencia(), tarefaExistente);
+                responderAposPersistencia(observadorResposta, descreverRepeticao(tarefaExistente));
+                return;
+            }
+            
             Atividade.Builder construtorAtividade = atividade.toBuilder();
             if (atividade.getMarcaTempo() == 0) {
                 construtorAtividade.setMarcaTempo(System.currentTimeMillis());
             }
             
             Atividade atividadeFinal = construtorAtividade.build();
-            atividades.add(atividadeFinal);
             
             // Incrementar Lamport ao receber tarefa do cliente
             if (relógioLamport != null) {
-                long marcaTempoLamport = relógioLamport.tick();
-                System.out.println("[LAMPORT] Tarefa recebida do cliente - Tick: " + marcaTempoLamport);
+                logger.infoWithTick("[LAMPORT] Tarefa recebida do cliente");
             }
             
-            System.out.println("Nova atividade recebida:");
-            System.out.println("  Título: " + atividadeFinal.getTitulo());
-            System.out.println("  Descrição: " + atividadeFinal.getDescricao());
-            System.out.println("  Timestamp: " + atividadeFinal.getMarcaTempo());
-            
-            // Tentar distribuir para workers
+            // Tentar distribuir para workers; sem capacidade a tarefa fica na fila pendente
             boolean distribuida = false;
-            if (gerenciadorWorkers != null && gerenciadorWorkers.obterNumeroWorkersConectados() > 0) {
-                distribuida = gerenciadorWorkers.distribuirTarefa(atividadeFinal);
-                if (distribuida) {
-                    System.out.println("  Status: Distribuída para worker");
-                } else {
-                    System.out.println("  Status: Erro ao distribuir para worker");
+            String status;
+            if (gerenciadorWorkers != null) {
+                ResultadoDistribuicao resultado = gerenciadorWorkers.distribuirTarefa(atividadeFinal);
+                if (resultado == ResultadoDistribuicao.REPETIDA) {
+                    // Outra requisição com a mesma chave reservou-a entre a verificação acima e a criação
+                    String tarefaConcorrente = gerenciadorTarefas.obterTarefaIdPorChave(atividade.getChaveIdempotencia());
+                    logger.info("[IDEMPOTENCIA] Atividade repetida em requisição concorrente (chave %s) - tarefa %s",
+                                atividade.getChaveIdempotencia(), tarefaConcorrente);
+                    responderAposPersistencia(observadorResposta, tarefaConcorrente != null
+                        ? descreverRepeticao(tarefaConcorrente)
+                        : "Atividade já recebida anteriormente");
+                    return;
                 }
+                distribuida = resultado == ResultadoDistribuicao.DISTRIBUIDA;
+                status = distribuida ? "Distribuída para worker" : "Nenhum worker disponível - tarefa na fila pendente";
             } else {
-                System.out.println("  Status: Nenhum worker disponível - tarefa armazenada");
+                status = "Nenhum worker disponível - tarefa armazenada";
             }
-            System.out.println();
             
-            EnviarAtividadeResposta resposta = EnviarAtividadeResposta.newBuilder()
-                .setSucesso(true)
-                .setMensagem(distribuida ? "Atividade distribuída para worker com sucesso" : "Atividade recebida e armazenada (nenhum worker disponível)")
-                .build();
-                
-            observadorResposta.onNext(resposta);
-            observadorResposta.onCompleted();
+            logger.info("Nova atividade recebida - Título: %s | Descrição: %s | Timestamp: %d | Status: %s",
+                        atividadeFinal.getTitulo(), atividadeFinal.getDescricao(), atividadeFinal.getMarcaTempo(), status);
+            
+            String mensagem = distribuida ? "Atividade distribuída para worker com sucesso" : "Atividade recebida e armazenada (nenhum worker disponível)";
+            
+            responderAposPersistencia(observadorResposta, mensagem);
             
         } catch (Exception e) {
             EnviarAtividadeResposta resposta = EnviarAtividadeResposta.newBuilder()
@@ -97,11 +139,213 @@ public class ServicoAtividadeImpl extends ServicoAtividadeGrpc.ServicoAtividadeI
         }
     }
     
+    @Override
+    public void enviarAtividadesLote(EnviarAtividadesLoteRequisicao requisicao, StreamObserver<EnviarAtividadesLoteResposta> observadorResposta) {
+        try {
+            List<EnviarAtividadeResposta.Builder> resultados = new ArrayList<>(requisicao.getAtividadesCount());
+            List<Atividade> lote = requisicao.getAtividadesList();
+            for (int inicio = 0; inicio < lote.size(); inicio += TAMANHO_MAXIMO_LOTE) {
+                resultados.addAll(processarLote(lote.subList(inicio, Math.min(lote.size(), inicio + TAMANHO_MAXIMO_LOTE))));
+            }
+            responderLote(observadorResposta, resultados);
+        } catch (Exception e) {
+            System.err.println("[LOTE] Erro ao processar lote: " + e.getMessage());
+            observadorResposta.onError(e);
+        }
+    }
+    
+    /**
+     * Client-streaming: as atividades são acumuladas e processadas em passadas de até TAMANHO_MAXIMO_LOTE;
+     * a resposta, com um resultado por atividade na ordem recebida, é enviada quando o cliente fecha o stream
+     */
+    @Override
+    public StreamObserver<EnviarAtividadeRequisicao> enviarAtividadesStream(StreamObserver<EnviarAtividadesLoteResposta> observadorResposta) {
+        return new StreamObserver<EnviarAtividadeRequisicao>() {
+            private final List<Atividade> pendentes = new ArrayList<>();
+            private final List<EnviarAtividadeResposta.Builder> resultados = new ArrayList<>();
+            
+            @Override
+            public void onNext(EnviarAtividadeRequisicao requisicao) {
+                pendentes.add(requisicao.getAtividade());
+                if (pendentes.size() >= TAMANHO_MAXIMO_LOTE) {
+                    processarPendentes();
+                }
+            }
+            
+            @Override
+            public void onError(Throwable erro) {
+                // Atividades já processadas continuam válidas; as acumuladas são descartadas
+                System.err.println("[LOTE] Stream de atividades interrompido pelo cliente após " + resultados.size() +
+                                  " atividades: " + erro.getMessage());
+                pendentes.clear();
+            }
+            
+            @Override
+            public void onCompleted() {
+                try {
+                    processarPendentes();
+                    responderLote(observadorResposta, resultados);
+                } catch (Exception e) {
+                    System.err.println("[LOTE] Erro ao processar stream de atividades: " + e.getMessage());
+                    observadorResposta.onError(e);
+                }
+            }
+            
+            private void processarPendentes() {
+                if (!pendentes.isEmpty()) {
+                    resultados.addAll(processarLote(pendentes));
+                    pendentes.clear();
+                }
+            }
+        };
+    }
+    
+    /**
+     * Responde somente quando as mutações já aplicadas estiverem duráveis (group commit). Um reenvio
+     * que chega antes de a tarefa original ser gravada também espera por ela.
+     */
+    private void responderAposPersistencia(StreamObserver<EnviarAtividadeResposta> observadorResposta, String mensagem) {
+        if (gerenciadorTarefas == null) {
+            responder(observadorResposta, true, mensagem);
+            return;
+        }
+        gerenciadorTarefas.confirmarPersistencia().whenComplete((resultado, erro) -> {
+            if (erro != null) {
+                responder(observadorResposta, false, "Erro ao persistir atividade: " + erro.getMessage());
+            } else {
+                responder(observadorResposta, true, mensagem);
+            }
+        });
+    }
+    
+    private String descreverRepeticao(String tarefaId) {
+        Tarefa tarefa = gerenciadorTarefas.obterTarefa(tarefaId);
+        return "Atividade já recebida anteriormente (tarefa " + tarefaId +
+               (tarefa != null ? ", " + tarefa.obterStatus() : "") + ")";
+    }
+    
+    /**
+     * Valida, cria, persiste e despacha as atividades em uma única passada.
+     * @return um resultado por atividade, na mesma ordem
+     */
+    private List<EnviarAtividadeResposta.Builder> processarLote(List<Atividade> lote) {
+        List<EnviarAtividadeResposta.Builder> resultados = new ArrayList<>(lote.size());
+        List<Atividade> validas = new ArrayList<>(lote.size());
+        List<EnviarAtividadeResposta.Builder> resultadosValidas = new ArrayList<>(lote.size());
+        // Itens que repetem a chave de outro item do mesmo lote: descritos depois que o primeiro for criado
+        List<EnviarAtividadeResposta.Builder> repetidosNoLote = new ArrayList<>();
+        List<String> chavesRepetidasNoLote = new ArrayList<>();
+        Set<String> chavesDoLote = new HashSet<>();
+        long agora = System.currentTimeMillis();
+        
+        for (Atividade atividade : lote) {
+            EnviarAtividadeResposta.Builder resultado = EnviarAtividadeResposta.newBuilder();
+            resultados.add(resultado);
+            if (atividade.getTitulo().trim().isEmpty()) {
+                resultado.setSucesso(false).setMensagem("Título da atividade não pode estar vazio");
+                continue;
+            }
+            if (!ProtocoloWorker.cabeNaTarefa(atividade.getTitulo(), atividade.getDescricao())) {
+                resultado.setSucesso(false).setMensagem(MENSAGEM_ATIVIDADE_GRANDE);
+                continue;
+            }
+            String chave = atividade.getChaveIdempotencia();
+            if (!chave.isEmpty() && gerenciadorTarefas != null) {
+                String tarefaExistente = gerenciadorTarefas.obterTarefaIdPorChave(chave);
+                if (tarefaExistente != null) {
+                    resultado.setSucesso(true).setMensagem(descreverRepeticao(tarefaExistente));
+                    continue;
+                }
+                if (!chavesDoLote.add(chave)) {
+                    repetidosNoLote.add(resultado);
+                    chavesRepetidasNoLote.add(chave);
+                    continue;
+                }
+            }
+            validas.add(atividade.getMarcaTempo() == 0 ? atividade.toBuilder().setMarcaTempo(agora).build() : atividade);
+            resultadosValidas.add(resultado);
+        }
+        
+        if (validas.isEmpty()) {
+            return resultados;
+        }
+        // Incrementar Lamport ao receber tarefas do cliente
+        if (relógioLamport != null) {
+            long marcaTempoLamport = relógioLamport.tick(validas.size());
+            logger.info("[LAMPORT] Lote recebido do cliente - Tick: %s", relógioLamport.formatarMarca(marcaTempoLamport));
+        }
+        
+        List<Boolean> distribuidas = gerenciadorWorkers != null
+            ? gerenciadorWorkers.distribuirTarefas(validas)
+            : Collections.nCopies(validas.size(), false);
+        
+        int enviadas = 0;
+        for (int i = 0; i < validas.size(); i++) {
+            boolean distribuida = distribuidas.get(i);
+            enviadas += distribuida ? 1 : 0;
+            resultadosValidas.get(i).setSucesso(true).setMensagem(distribuida
+                ? "Atividade distribuída para worker com sucesso"
+                : "Atividade recebida e armazenada (nenhum worker disponível)");
+        }
+        for (int i = 0; i < repetidosNoLote.size(); i++) {
+            String tarefaId = gerenciadorTarefas.obterTarefaIdPorChave(chavesRepetidasNoLote.get(i));
+            repetidosNoLote.get(i).setSucesso(true).setMensagem(tarefaId != null
+                ? descreverRepeticao(tarefaId)
+                : "Atividade já recebida anteriormente neste lote");
+        }
+        
+        logger.info("Lote de atividades recebido: %d atividades, %d novas, %d distribuídas para workers",
+                    lote.size(), validas.size(), enviadas);
+        return resultados;
+    }
+    
+    /**
+     * Responde ao lote somente quando as mutações dele estiverem duráveis (group commit)
+     */
+    private void responderLote(StreamObserver<EnviarAtividadesLoteResposta> observadorResposta,
+                               List<EnviarAtividadeResposta.Builder> resultados) {
+        if (gerenciadorTarefas == null) {
+            observadorResposta.onNext(construirRespostaLote(resultados));
+            observadorResposta.onCompleted();
+            return;
+        }
+        gerenciadorTarefas.confirmarPersistencia().whenComplete((resultado, erro) -> {
+            if (erro != null) {
+                for (EnviarAtividadeResposta.Builder item : resultados) {
+                    if (item.getSucesso()) {
+                        item.setSucesso(false).setMensagem("Erro ao persistir atividade: " + erro.getMessage());
+                    }
+                }
+            }
+            observadorResposta.onNext(construirRespostaLote(resultados));
+            observadorResposta.onCompleted();
+        });
+    }
+    
+    private EnviarAtividadesLoteResposta construirRespostaLote(List<EnviarAtividadeResposta.Builder> resultados) {
+        EnviarAtividadesLoteResposta.Builder resposta = EnviarAtividadesLoteResposta.newBuilder();
+        for (EnviarAtividadeResposta.Builder item : resultados) {
+            resposta.addResultados(item);
+        }
+        return resposta.build();
+    }
+    
+    private void responder(StreamObserver<EnviarAtividadeResposta> observadorResposta, boolean sucesso, String mensagem) {
+        EnviarAtividadeResposta resposta = EnviarAtividadeResposta.newBuilder()
+            .setSucesso(sucesso)
+            .setMensagem(mensagem)
+            .build();
+            
+        observadorResposta.onNext(resposta);
+        observadorResposta.onCompleted();
+    }
+    
+    // Resposta única com todas as atividades; para volumes grandes use listarAtividadesPaginado ou listarAtividadesStream
     @Override
     public void listarAtividades(ListarAtividadesRequisicao requisicao, StreamObserver<ListarAtividadesResposta> observadorResposta) {
         try {
             ListarAtividadesResposta resposta = ListarAtividadesResposta.newBuilder()
-                .addAllAtividades(atividades)
+                .addAllAtividades(obterAtividades())
                 .build();
                 
             observadorResposta.onNext(resposta);
@@ -112,12 +356,157 @@ public class ServicoAtividadeImpl extends ServicoAtividadeGrpc.ServicoAtividadeI
         }
     }
     
+    /**
+     * Página de tarefas em ordem de criação, lida dos índices do GerenciadorTarefas a partir do cursor
+     */
+    @Override
+    public void listarAtividadesPaginado(ListarAtividadesPaginaRequisicao requisicao,
+                                         StreamObserver<ListarAtividadesPaginaResposta> observadorResposta) {
+        try {
+            FiltroTarefas filtro = converterFiltro(requisicao.getFiltro());
+            int tamanhoPagina = requisicao.getTamanhoPagina() <= 0
+                ? TAMANHO_PAGINA_PADRAO
+                : Math.min(requisicao.getTamanhoPagina(), TAMANHO_MAXIMO_PAGINA);
+            
+            // Um item a mais indica se existe próxima página
+            List<Tarefa> pagina = gerenciadorTarefas.percorrerTarefas(filtro, requisicao.getCursor())
+                .limit(tamanhoPagina + 1L)
+                .collect(Collectors.toList());
+            
+            ListarAtividadesPaginaResposta.Builder resposta = ListarAtividadesPaginaResposta.newBuilder();
+            for (Tarefa tarefa : pagina.subList(0, Math.min(tamanhoPagina, pagina.size()))) {
+                resposta.addAtividades(converterTarefa(tarefa));
+            }
+            if (pagina.size() > tamanhoPagina) {
+                resposta.setProximoCursor(pagina.get(tamanhoPagina - 1).obterIdentificador());
+            }
+            
+            observadorResposta.onNext(resposta.build());
+            observadorResposta.onCompleted();
+        } catch (IllegalArgumentException e) {
+            observadorResposta.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            observadorResposta.onError(e);
+        }
+    }
+    
+    /**
+     * Envia as tarefas uma a uma conforme o cliente consome (controle de fluxo do gRPC),
+     * percorrendo o índice sob demanda em vez de montar a lista inteira
+     */
+    @Override
+    public void listarAtividadesStream(ListarAtividadesStreamRequisicao requisicao,
+                                       StreamObserver<AtividadeRegistrada> observadorResposta) {
+        Iterator<Tarefa> iterador;
+        try {
+            iterador = gerenciadorTarefas.percorrerTarefas(converterFiltro(requisicao.getFiltro()), null).iterator();
+        } catch (IllegalArgumentException e) {
+            observadorResposta.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+            return;
+        } catch (Exception e) {
+            observadorResposta.onError(e);
+            return;
+        }
+        
+        ServerCallStreamObserver<AtividadeRegistrada> observador = (ServerCallStreamObserver<AtividadeRegistrada>) observadorResposta;
+        AtomicBoolean encerrado = new AtomicBoolean(false);
+        
+        observador.setOnCancelHandler(() -> encerrado.set(true));
+        observador.setOnReadyHandler(() -> {
+            // O handler pode ser chamado por threads diferentes; o iterador não é thread-safe
+            synchronized (iterador) {
+                try {
+                    while (!encerrado.get() && observador.isReady() && iterador.hasNext()) {
+                        observador.onNext(converterTarefa(iterador.next()));
+                    }
+                    if (!iterador.hasNext() && encerrado.compareAndSet(false, true)) {
+                        observador.onCompleted();
+                    }
+                } catch (Exception e) {
+                    if (encerrado.compareAndSet(false, true)) {
+                        observador.onError(e);
+                    }
+                }
+            }
+        });
+    }
+    
+    /**
+     * Stream de transições das tarefas (criação, atribuição, realocação, devolução à fila e finalização)
+     * que atendem ao filtro, a partir do momento da assinatura
+     */
+    @Override
+    public void observarTarefas(ObservarTarefasRequisicao requisicao, StreamObserver<EventoTarefa> observadorResposta) {
+        if (difusorEventos == null) {
+            observadorResposta.onError(Status.UNAVAILABLE.withDescription("Gerenciador de tarefas não configurado").asRuntimeException());
+            return;
+        }
+        try {
+            FiltroTarefas filtro = converterFiltro(requisicao.getFiltro());
+            difusorEventos.assinar((ServerCallStreamObserver<EventoTarefa>) observadorResposta, filtro,
+                                   new HashSet<>(requisicao.getTarefaIdsList()));
+        } catch (IllegalArgumentException e) {
+            observadorResposta.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+    
+    private FiltroTarefas converterFiltro(FiltroAtividades filtroAtividades) {
+        FiltroTarefas filtro = new FiltroTarefas();
+        if (!filtroAtividades.getStatus().isEmpty()) {
+            try {
+                filtro.definirStatus(Tarefa.StatusTarefa.valueOf(filtroAtividades.getStatus().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Status desconhecido: " + filtroAtividades.getStatus());
+            }
+        }
+        if (!filtroAtividades.getWorkerId().isEmpty()) {
+            filtro.definirWorkerId(filtroAtividades.getWorkerId());
+        }
+        filtro.definirLamportMinimo(filtroAtividades.getLamportMinimo());
+        filtro.definirLamportMaximo(filtroAtividades.getLamportMaximo());
+        filtro.definirRecebidaDesde(filtroAtividades.getRecebidaDesde());
+        filtro.definirRecebidaAte(filtroAtividades.getRecebidaAte());
+        return filtro;
+    }
+    
+    static AtividadeRegistrada converterTarefa(Tarefa tarefa) {
+        AtividadeRegistrada.Builder registrada = AtividadeRegistrada.newBuilder()
+            .setTarefaId(tarefa.obterIdentificador())
+            .setAtividade(Atividade.newBuilder()
+                .setTitulo(tarefa.obterTitulo() != null ? tarefa.obterTitulo() : "")
+                .setDescricao(tarefa.obterDescricao() != null ? tarefa.obterDescricao() : "")
+                .setMarcaTempo(FiltroTarefas.obterMarcaTempoRecebimento(tarefa)))
+            .setStatus(tarefa.obterStatus().name())
+            .setClockLamport(tarefa.obterClockLamport())
+            .setRealocada(tarefa.obterRealocada());
+        if (tarefa.obterWorkerResponsavel() != null) {
+            registrada.setWorkerId(tarefa.obterWorkerResponsavel());
+        }
+        return registrada.build();
+    }
+    
+    // As atividades recebidas são as tarefas do GerenciadorTarefas; nenhuma cópia é mantida aqui
     public int obterContadorAtividades() {
-        return atividades.size();
+        if (gerenciadorTarefas == null) {
+            return 0;
+        }
+        int total = 0;
+        for (Tarefa.StatusTarefa status : Tarefa.StatusTarefa.values()) {
+            total += gerenciadorTarefas.contarTarefas(status);
+        }
+        return total;
     }
     
+    /**
+     * Atividades das tarefas conhecidas, em ordem de criação
+     */
     public List<Atividade> obterAtividades() {
-        return new ArrayList<>(atividades);
+        if (gerenciadorTarefas == null) {
+            return new ArrayList<>();
+        }
+        return gerenciadorTarefas.percorrerTarefas(new FiltroTarefas(), null)
+            .map(tarefa -> converterTarefa(tarefa).getAtividade())
+            .collect(Collectors.toList());
     }
     
     public GerenciadorWorkers obterGerenciadorWorkers() {
@@ -132,6 +521,8 @@ public class ServicoAtividadeImpl extends ServicoAtividadeGrpc.ServicoAtividadeI
      * Método para adicionar atividades diretamente (usado para testes)
      */
     public void adicionarAtividade(Atividade atividade) {
-        atividades.add(atividade);
+        if (gerenciadorTarefas != null) {
+            gerenciadorTarefas.criarTarefa(atividade.getTitulo(), atividade.getDescricao(), atividade.getChaveIdempotencia());
+        }
     }
 }
\ No newline at end of file
@@ -3,10 +3,13 @@ package br.edu.ifba.orchestrator;
 import br.edu.ifba.orchestrator.network.ServidorTCP;
 import br.edu.ifba.orchestrator.worker.GerenciadorWorkers;
 import br.edu.ifba.orchestrator.service.GerenciadorTarefas;
+import br.edu.ifba.orchestrator.util.FabricaThreads;
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 public class ServidorOrquestrador {
@@ -21,6 +24,7 @@ public class ServidorOrquestrador {
     private ServidorTCP servidorTCP;
     private GerenciadorWorkers gerenciadorWorkers;
     private GerenciadorTarefas gerenciadorTarefas;
+    private ExecutorService executorGrpc;
     
     public ServidorOrquestrador() {
         this(DEFAULT_GRPC_PORT, DEFAULT_TCP_PORT);
@@ -47,12 +51,16 @@ public class ServidorOrquestrador {
         servidorTCP.iniciar();
         
         // Iniciar servidor gRPC para clientes
-        server = ServerBuilder.forPort(grpcPort)
-            .addService(servicoAtividade.bindService())
-            .build()
-            .start();
+        ServerBuilder<?> construtorServidor = ServerBuilder.forPort(grpcPort)
+            .addService(servicoAtividade.bindService());
+        if (FabricaThreads.usaThreadsVirtuais()) {
+            executorGrpc = Executors.newVirtualThreadPerTaskExecutor();
+            construtorServidor.executor(executorGrpc);
+        }
+        server = construtorServidor.build().start();
             
-        System.out.println("Servidor gRPC iniciado na porta " + grpcPort + " (clientes)");
+        System.out.println("Servidor gRPC iniciado na porta " + grpcPort + " (clientes)" +
+                          (executorGrpc != null ? " com threads virtuais" : ""));
         System.out.println("Orquestrador pronto para receber clientes e workers");
         
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -81,6 +89,10 @@ public class ServidorOrquestrador {
         if (server != null) {
             server.shutdown().awaitTermination(30, TimeUnit.SECONDS);
         }
+        
+        if (executorGrpc != null) {
+            executorGrpc.shutdown();
+        }
     }
     
     public void bloquearAteDesligamento() throws InterruptedException {
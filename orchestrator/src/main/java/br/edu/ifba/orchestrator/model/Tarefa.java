@@ -1,5 +1,6 @@
 package br.edu.ifba.orchestrator.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -29,6 +30,11 @@ public class Tarefa {
     @JsonProperty("clock_lamport")
     private long clockLamport;
     
+    // Chave informada pelo cliente para reenvios; viaja com a tarefa no log e na replicação
+    @JsonProperty("chave_idempotencia")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String chaveIdempotencia;
+    
     public enum StatusTarefa {
         PENDENTE,
         FINALIZADA
@@ -49,6 +55,20 @@ public class Tarefa {
         this.descricao = descricao;
     }
     
+    /**
+     * Cópia independente do estado atual (usada para notificar observadores)
+     */
+    public Tarefa copiar() {
+        Tarefa copia = new Tarefa(id, titulo, descricao);
+        copia.horarioRecebimento = horarioRecebimento;
+        copia.status = status;
+        copia.realocada = realocada;
+        copia.workerResponsavel = workerResponsavel;
+        copia.clockLamport = clockLamport;
+        copia.chaveIdempotencia = chaveIdempotencia;
+        return copia;
+    }
+    
     // Getters e Setters
     public String obterIdentificador() {
         return id;
@@ -118,6 +138,14 @@ public class Tarefa {
         this.clockLamport = clockLamport;
     }
     
+    public String obterChaveIdempotencia() {
+        return chaveIdempotencia;
+    }
+    
+    public void definirChaveIdempotencia(String chaveIdempotencia) {
+        this.chaveIdempotencia = chaveIdempotencia;
+    }
+    
     public String obterHorarioRecebimentoFormatado() {
         if (horarioRecebimento != null) {
             return horarioRecebimento.format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss"));
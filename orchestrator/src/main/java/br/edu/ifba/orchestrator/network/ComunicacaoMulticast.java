@@ -1,37 +1,118 @@
 package br.edu.ifba.orchestrator.network;
 
+import br.edu.ifba.orchestrator.service.ReplicadorTarefas;
+import br.edu.ifba.orchestrator.util.FabricaThreads;
+import br.edu.ifba.orchestrator.util.LoggerLamport;
 import br.edu.ifba.orchestrator.util.RelógioLamport;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
 import java.net.*;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
-// Gerencia comunicação multicast entre orquestradores para sincronização de estado
+// Gerencia comunicação multicast entre orquestradores para sincronização de estado.
+// A recepção tem thread própria e entrega as mensagens em duas faixas, cada uma com filas limitadas e
+// threads próprias: CONTROLE (heartbeats, eleição, marcadores) e DADOS (sincronização e replicação),
+// para que uma escrita lenta de DATA_SYNC não atrase heartbeats e provoque failovers falsos.
+// Dentro de uma faixa as mensagens de um mesmo remetente vão sempre para a mesma fila, então são
+// entregues na ordem de chegada. Um tipo pode ter vários handlers, e handlers "*" recebem todos os tipos.
+// Mensagens de um só datagrama saem na thread que chama enviarMensagem; as fragmentadas vão para a thread
+// de envio, que faz as pausas entre rajadas sem prender quem enviou.
 public class ComunicacaoMulticast {
+    
+    public enum Faixa {
+        CONTROLE,
+        DADOS
+    }
+    
+    // Tipos volumosos ou de processamento demorado; os demais (inclusive desconhecidos) vão para CONTROLE
+    private static final Set<String> TIPOS_DADOS = Set.of(
+        "DATA_SYNC", "DATA_SYNC_REQUEST", "FILE_SYNC", "SYNC_TAREFAS_IMEDIATA",
+        ReplicadorTarefas.TIPO_DELTA, ReplicadorTarefas.TIPO_SNAPSHOT,
+        ReplicadorTarefas.TIPO_CATCHUP, ReplicadorTarefas.TIPO_SEQUENCIA
+    );
+    private static final String TIPO_CURINGA = "*";
+    
+    private static final int THREADS_CONTROLE = Integer.getInteger("orquestrador.multicast.controle.threads", 1);
+    private static final int FILA_CONTROLE = Integer.getInteger("orquestrador.multicast.controle.fila", 1024);
+    private static final int THREADS_DADOS = Integer.getInteger("orquestrador.multicast.dados.threads", 2);
+    private static final int FILA_DADOS = Integer.getInteger("orquestrador.multicast.dados.fila", 4096);
+    private static final long ESPERA_FILA_MS = 200;
     private static final String MULTICAST_ADDRESS = "224.0.0.1";
     private static final int MULTICAST_PORT = 4446;
     private static final int BUFFER_SIZE = 1024;
     
+    // Mensagens maiores que um datagrama são divididas em fragmentos de até BUFFER_SIZE bytes
+    private static final byte MARCADOR_FRAGMENTO = 'F';
+    // Marcador, id da mensagem, índice, total e tamanho do remetente
+    private static final int TAMANHO_CABECALHO_FRAGMENTO = 1 + Long.BYTES + Integer.BYTES + Integer.BYTES + Short.BYTES;
+    private static final int TAMANHO_MAXIMO_DATAGRAMA_RECEBIDO = 65507;
+    private static final int TAMANHO_MAXIMO_MENSAGEM = Integer.getInteger("orquestrador.multicast.maxPayload", 8 * 1024 * 1024);
+    private static final long TEMPO_LIMITE_REMONTAGEM_MS = Long.getLong("orquestrador.multicast.remontagemTimeoutMs", 5000L);
+    private static final int MAXIMO_MENSAGENS_EM_REMONTAGEM = 64;
+    // Pausa entre rajadas de fragmentos, para uma mensagem grande não transbordar o buffer de recepção
+    // (1 MB) dos outros nós; 256 fragmentos de BUFFER_SIZE ocupam cerca de um quarto dele
+    private static final int FRAGMENTOS_POR_RAJADA = Integer.getInteger("orquestrador.multicast.fragmentosPorRajada", 256);
+    private static final long PAUSA_RAJADA_MS = Long.getLong("orquestrador.multicast.pausaRajadaMs", 2L);
+    private static final int FILA_ENVIO = Integer.getInteger("orquestrador.multicast.envio.fila", 1024);
+    
+    // Com "binario" os tipos de MensagensMulticast são enviados no ProtocoloMulticast; a leitura aceita sempre os dois
+    private static final boolean CODEC_BINARIO = "binario".equalsIgnoreCase(
+            System.getProperty("orquestrador.multicast.codec", "json"));
+    private static final int TAMANHO_INICIAL_BUFFER_ENVIO = 64 * 1024;
+    
     private MulticastSocket socket;
     private InetAddress group;
     private NetworkInterface networkInterface;
-    private final ExecutorService executor;
     private final ObjectMapper objectMapper;
     private final RelógioLamport relógioLamport;
+    private final LoggerLamport logger;
     private final String orquestradorId;
     private volatile boolean running = false;
     
-    // Callbacks para diferentes tipos de mensagem
-    private final ConcurrentHashMap<String, Consumer<MensagemMulticast>> messageHandlers;
+    // Callbacks para diferentes tipos de mensagem (vários por tipo) e para todos os tipos
+    private final ConcurrentHashMap<String, List<Consumer<MensagemMulticast>>> messageHandlers;
+    private final List<Consumer<MensagemMulticast>> handlersCuringa = new CopyOnWriteArrayList<>();
+    private final ConcurrentHashMap<String, Faixa> faixasDefinidas = new ConcurrentHashMap<>();
+    private volatile FaixaEntrega faixaControle;
+    private volatile FaixaEntrega faixaDados;
+    
+    // Envios em segundo plano, executados em ordem por uma única thread
+    private volatile BlockingQueue<Runnable> filaEnvio;
+    private volatile Thread threadEnvio;
+    private final LongAdder enviosDescartados = new LongAdder();
+    
+    // Fragmentação: identificador por mensagem enviada e mensagens recebidas em remontagem
+    private final AtomicLong proximoIdMensagem = new AtomicLong(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE);
+    private final ConcurrentHashMap<String, MensagemFragmentada> mensagensEmRemontagem = new ConcurrentHashMap<>();
+    private long ultimaLimpezaRemontagem = System.currentTimeMillis();
+    
+    // Buffer de codificação binária reaproveitado por thread que envia; cresce se uma mensagem não couber
+    private final ThreadLocal<ByteBuffer> bufferEnvio =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(TAMANHO_INICIAL_BUFFER_ENVIO));
     
     public ComunicacaoMulticast(String orquestradorId, RelógioLamport relógioLamport) {
         this.orquestradorId = orquestradorId;
         this.relógioLamport = relógioLamport;
-        this.executor = Executors.newFixedThreadPool(2);
+        this.logger = new LoggerLamport("Multicast", relógioLamport);
         this.objectMapper = new ObjectMapper();
         this.messageHandlers = new ConcurrentHashMap<>();
         
@@ -46,11 +127,20 @@ public class ComunicacaoMulticast {
     // Inicia o serviço multicast
     public void iniciar() throws IOException {
         socket = new MulticastSocket(MULTICAST_PORT);
+        socket.setReceiveBufferSize(1024 * 1024);
         socket.joinGroup(new InetSocketAddress(group, MULTICAST_PORT), networkInterface);
         running = true;
         
-        // Thread para escutar mensagens
-        executor.submit(this::escutarMensagens);
+        encerrarFaixas();
+        faixaControle = new FaixaEntrega(Faixa.CONTROLE, THREADS_CONTROLE, FILA_CONTROLE);
+        faixaDados = new FaixaEntrega(Faixa.DADOS, THREADS_DADOS, FILA_DADOS);
+        
+        BlockingQueue<Runnable> fila = new ArrayBlockingQueue<>(Math.max(1, FILA_ENVIO));
+        filaEnvio = fila;
+        threadEnvio = FabricaThreads.iniciar("multicast-envio-" + orquestradorId, () -> consumirEnvios(fila));
+        
+        // Thread para escutar mensagens, separada das que executam os handlers
+        FabricaThreads.iniciar("multicast-recepcao-" + orquestradorId, this::escutarMensagens);
         
         System.out.println("[MULTICAST] " + orquestradorId + " - Serviço iniciado no grupo " + 
                           MULTICAST_ADDRESS + ":" + MULTICAST_PORT);
@@ -59,6 +149,7 @@ public class ComunicacaoMulticast {
     // Para o serviço multicast
     public void parar() {
         running = false;
+        filaEnvio = null; // Envios fragmentados ainda na fila são descartados
         try {
             if (socket != null) {
                 socket.leaveGroup(new InetSocketAddress(group, MULTICAST_PORT), networkInterface);
@@ -67,7 +158,7 @@ public class ComunicacaoMulticast {
         } catch (IOException e) {
             System.err.println("[MULTICAST] Erro ao parar serviço: " + e.getMessage());
         }
-        executor.shutdown();
+        encerrarFaixas();
         System.out.println("[MULTICAST] " + orquestradorId + " - Serviço parado");
     }
     
@@ -77,37 +168,208 @@ public class ComunicacaoMulticast {
     public void enviarMensagem(String tipo, Object dados) {
         try {
             long timestamp = relógioLamport.tick();
+            long agora = System.currentTimeMillis();
             
-            MensagemMulticast mensagem = new MensagemMulticast(
-                orquestradorId, tipo, dados, timestamp, System.currentTimeMillis()
-            );
+            if (dados instanceof MensagensMulticast.Dados) {
+                MensagensMulticast.Dados tipados = (MensagensMulticast.Dados) dados;
+                if (CODEC_BINARIO && ProtocoloMulticast.suporta(tipo, tipados)) {
+                    ByteBuffer conteudo = codificarBinario(tipo, tipados, timestamp, agora);
+                    if (conteudo != null) {
+                        enviarConteudo(tipo, conteudo.array(), conteudo.position());
+                        registrarEnvio(tipo);
+                        return;
+                    }
+                }
+                // Em JSON os dados tipados seguem com as chaves de sempre, compatíveis com versões antigas
+                dados = tipados.paraMapa();
+            }
             
-            String json = objectMapper.writeValueAsString(mensagem);
-            byte[] buffer = json.getBytes();
+            MensagemMulticast mensagem = new MensagemMulticast(orquestradorId, tipo, dados, timestamp, agora);
+            byte[] buffer = objectMapper.writeValueAsBytes(mensagem);
+            enviarConteudo(tipo, buffer, buffer.length);
+            registrarEnvio(tipo);
+            
+        } catch (Exception e) {
+            System.err.println("[MULTICAST] Erro ao enviar mensagem: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Enfileira a mensagem para a thread de envio, que monta os dados, codifica e envia; quem chama nunca
+     * bloqueia (com a fila cheia a mensagem é descartada). Mensagens enviadas assim saem na ordem em que foram enfileiradas.
+     */
+    public void enviarMensagemEmSegundoPlano(String tipo, Supplier<?> dados) {
+        agendarEnvio(tipo, () -> enviarMensagem(tipo, dados.get()));
+    }
+    
+    /**
+     * Codifica no buffer da thread, dobrando-o enquanto a mensagem não couber
+     * @return o buffer com a mensagem entre 0 e a posição, ou null se exceder o tamanho máximo
+     */
+    private ByteBuffer codificarBinario(String tipo, MensagensMulticast.Dados dados, long timestamp, long agora) {
+        ByteBuffer buffer = bufferEnvio.get();
+        while (true) {
+            buffer.clear();
+            try {
+                ProtocoloMulticast.codificar(buffer, orquestradorId, tipo, dados, timestamp, agora);
+                return buffer;
+            } catch (BufferOverflowException e) {
+                if (buffer.capacity() >= TAMANHO_MAXIMO_MENSAGEM) {
+                    return null;
+                }
+                buffer = ByteBuffer.allocate((int) Math.min((long) buffer.capacity() * 2, TAMANHO_MAXIMO_MENSAGEM));
+                bufferEnvio.set(buffer);
+            }
+        }
+    }
+    
+    private void enviarConteudo(String tipo, byte[] conteudo, int tamanho) throws IOException {
+        if (tamanho <= BUFFER_SIZE) {
+            socket.send(new DatagramPacket(conteudo, tamanho, group, MULTICAST_PORT));
+        } else if (tamanho > TAMANHO_MAXIMO_MENSAGEM) {
+            System.err.println("[MULTICAST] Mensagem " + tipo + " com " + tamanho +
+                              " bytes excede o limite de " + TAMANHO_MAXIMO_MENSAGEM + " bytes - descartada");
+        } else if (Thread.currentThread() == threadEnvio) {
+            enviarFragmentado(tipo, conteudo, tamanho);
+        } else {
+            // O conteúdo pode estar no buffer reaproveitado da thread: a thread de envio recebe uma cópia
+            byte[] copia = Arrays.copyOf(conteudo, tamanho);
+            agendarEnvio(tipo, () -> {
+                try {
+                    enviarFragmentado(tipo, copia, tamanho);
+                } catch (IOException e) {
+                    System.err.println("[MULTICAST] Erro ao enviar mensagem " + tipo + ": " + e.getMessage());
+                }
+            });
+        }
+    }
+    
+    // Nunca bloqueia quem envia: com a fila cheia (ou o serviço parado) o envio é descartado
+    private void agendarEnvio(String tipo, Runnable envio) {
+        BlockingQueue<Runnable> fila = filaEnvio;
+        if (fila == null || !fila.offer(envio)) {
+            enviosDescartados.increment();
+            long total = enviosDescartados.sum();
+            if (total == 1 || total % 100 == 0) {
+                System.err.println("[MULTICAST] Fila de envio cheia - " + tipo + " descartada (" + total + " descartadas)");
+            }
+        }
+    }
+    
+    private void consumirEnvios(BlockingQueue<Runnable> fila) {
+        try {
+            while (running && fila == filaEnvio) {
+                Runnable envio = fila.poll(ESPERA_FILA_MS, TimeUnit.MILLISECONDS);
+                if (envio != null) {
+                    envio.run();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void registrarEnvio(String tipo) {
+        // Log apenas heartbeats entre orquestradores
+        if (isHeartbeatMessage(tipo)) {
+            logger.info("[HEARTBEAT] %s - Enviado: %s", orquestradorId, tipo);
+        }
+    }
+    
+    /**
+     * Divide a mensagem serializada em fragmentos que cabem em um datagrama, enviados em rajadas
+     * de FRAGMENTOS_POR_RAJADA separadas por PAUSA_RAJADA_MS. Executado apenas pela thread de envio.
+     * Cabeçalho: 'F' | id da mensagem (long) | índice (int) | total (int) | remetente (short + UTF-8)
+     */
+    private void enviarFragmentado(String tipo, byte[] conteudo, int tamanhoConteudo) throws IOException {
+        byte[] remetente = orquestradorId.getBytes(StandardCharsets.UTF_8);
+        int tamanhoCabecalho = TAMANHO_CABECALHO_FRAGMENTO + remetente.length;
+        int tamanhoFragmento = BUFFER_SIZE - tamanhoCabecalho;
+        int total = (tamanhoConteudo + tamanhoFragmento - 1) / tamanhoFragmento;
+        long idMensagem = proximoIdMensagem.getAndIncrement();
+        
+        ByteBuffer datagrama = ByteBuffer.allocate(BUFFER_SIZE);
+        for (int indice = 0; indice < total; indice++) {
+            int inicio = indice * tamanhoFragmento;
+            int tamanho = Math.min(tamanhoFragmento, tamanhoConteudo - inicio);
             
-            DatagramPacket packet = new DatagramPacket(
-                buffer, buffer.length, group, MULTICAST_PORT
-            );
+            datagrama.clear();
+            datagrama.put(MARCADOR_FRAGMENTO)
+                     .putLong(idMensagem)
+                     .putInt(indice)
+                     .putInt(total)
+                     .putShort((short) remetente.length)
+                     .put(remetente)
+                     .put(conteudo, inicio, tamanho);
             
-            socket.send(packet);
+            socket.send(new DatagramPacket(datagrama.array(), datagrama.position(), group, MULTICAST_PORT));
             
-            // Log apenas heartbeats entre orquestradores
-            if (isHeartbeatMessage(tipo)) {
-                System.out.println("[HEARTBEAT] " + orquestradorId + " - Enviado: " + tipo + 
-                                  " [Lamport:" + timestamp + "]");
+            if (PAUSA_RAJADA_MS > 0 && (indice + 1) % FRAGMENTOS_POR_RAJADA == 0 && indice + 1 < total) {
+                try {
+                    Thread.sleep(PAUSA_RAJADA_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    System.err.println("[MULTICAST] Envio da mensagem " + tipo + " interrompido após " + (indice + 1) +
+                                      "/" + total + " fragmentos");
+                    return;
+                }
             }
-            
-        } catch (Exception e) {
-            System.err.println("[MULTICAST] Erro ao enviar mensagem: " + e.getMessage());
         }
     }
     
-    // Registra handler para tipo específico de mensagem
+    // Registra handler para tipo específico de mensagem ("*" recebe todos); handlers do mesmo tipo se acumulam
     public void registrarHandler(String tipo, Consumer<MensagemMulticast> handler) {
-        messageHandlers.put(tipo, handler);
+        if (TIPO_CURINGA.equals(tipo)) {
+            handlersCuringa.add(handler);
+        } else {
+            messageHandlers.computeIfAbsent(tipo, t -> new CopyOnWriteArrayList<>()).add(handler);
+        }
         System.out.println("[MULTICAST] Handler registrado para tipo: " + tipo);
     }
     
+    public boolean removerHandler(String tipo, Consumer<MensagemMulticast> handler) {
+        if (TIPO_CURINGA.equals(tipo)) {
+            return handlersCuringa.remove(handler);
+        }
+        List<Consumer<MensagemMulticast>> handlers = messageHandlers.get(tipo);
+        return handlers != null && handlers.remove(handler);
+    }
+    
+    /**
+     * Muda a faixa de entrega de um tipo (por padrão, tipos de sincronização e replicação vão para DADOS)
+     */
+    public void definirFaixa(String tipo, Faixa faixa) {
+        faixasDefinidas.put(tipo, faixa);
+    }
+    
+    public Faixa obterFaixa(String tipo) {
+        Faixa definida = faixasDefinidas.get(tipo);
+        if (definida != null) {
+            return definida;
+        }
+        return TIPOS_DADOS.contains(tipo) ? Faixa.DADOS : Faixa.CONTROLE;
+    }
+    
+    /**
+     * Mensagens entregues, descartadas (fila cheia) e aguardando em cada faixa
+     */
+    public Map<String, Object> obterEstatisticas() {
+        Map<String, Object> estatisticas = new HashMap<>();
+        for (FaixaEntrega faixa : new FaixaEntrega[] {faixaControle, faixaDados}) {
+            if (faixa != null) {
+                String prefixo = faixa.faixa.name().toLowerCase();
+                estatisticas.put(prefixo + "_entregues", faixa.entregues.sum());
+                estatisticas.put(prefixo + "_descartadas", faixa.descartadas.sum());
+                estatisticas.put(prefixo + "_aguardando", faixa.obterAguardando());
+            }
+        }
+        BlockingQueue<Runnable> fila = filaEnvio;
+        estatisticas.put("envio_aguardando", fila != null ? fila.size() : 0);
+        estatisticas.put("envio_descartados", enviosDescartados.sum());
+        estatisticas.put("handlers_curinga", handlersCuringa.size());
+        return estatisticas;
+    }
+    
     // Verifica se a mensagem é um heartbeat entre orquestradores
     private boolean isHeartbeatMessage(String tipo) {
         return tipo.equals("SIMPLE_HEARTBEAT") || 
@@ -118,15 +380,24 @@ public class ComunicacaoMulticast {
     
     // Thread para escutar mensagens multicast
     private void escutarMensagens() {
-        byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] buffer = new byte[TAMANHO_MAXIMO_DATAGRAMA_RECEBIDO];
         
         while (running) {
             try {
                 DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
                 socket.receive(packet);
                 
-                String json = new String(packet.getData(), 0, packet.getLength());
-                MensagemMulticast mensagem = objectMapper.readValue(json, MensagemMulticast.class);
+                // Decodificada direto do buffer de recepção: a mensagem não guarda referências a ele
+                MensagemMulticast mensagem;
+                if (packet.getLength() > 0 && buffer[0] == MARCADOR_FRAGMENTO) {
+                    byte[] conteudo = receberFragmento(ByteBuffer.wrap(buffer, 0, packet.getLength()));
+                    if (conteudo == null) {
+                        continue; // Mensagem ainda incompleta
+                    }
+                    mensagem = decodificar(conteudo, conteudo.length);
+                } else {
+                    mensagem = decodificar(buffer, packet.getLength());
+                }
                 
                 // Ignora mensagens próprias
                 if (mensagem.getRemetenteId().equals(orquestradorId)) {
@@ -138,18 +409,18 @@ public class ComunicacaoMulticast {
                 
                 // Log apenas heartbeats entre orquestradores
                 if (isHeartbeatMessage(mensagem.getTipo())) {
-                    System.out.println("[HEARTBEAT] " + orquestradorId + " - Recebido de " + 
-                                      mensagem.getRemetenteId() + ": " + mensagem.getTipo() + 
-                                      " [Lamport:" + mensagem.getTimestampLamport() + "]");
+                    logger.info("[HEARTBEAT] %s - Recebido de %s: %s [Lamport:%d]", orquestradorId,
+                                mensagem.getRemetenteId(), mensagem.getTipo(), mensagem.getTimestampLamport());
                 }
                 
-                // Processa mensagem com handler apropriado
-                Consumer<MensagemMulticast> handler = messageHandlers.get(mensagem.getTipo());
-                if (handler != null) {
-                    executor.submit(() -> handler.accept(mensagem));
-                } else {
-                    System.out.println("[MULTICAST] Nenhum handler para tipo: " + mensagem.getTipo());
+                // Entrega na faixa do tipo; os handlers rodam nas threads da faixa
+                List<Consumer<MensagemMulticast>> handlers = messageHandlers.get(mensagem.getTipo());
+                if ((handlers == null || handlers.isEmpty()) && handlersCuringa.isEmpty()) {
+                    logger.warn("[MULTICAST] Nenhum handler para tipo: %s", mensagem.getTipo());
+                    continue;
                 }
+                FaixaEntrega faixa = obterFaixa(mensagem.getTipo()) == Faixa.DADOS ? faixaDados : faixaControle;
+                faixa.enfileirar(mensagem);
                 
             } catch (Exception e) {
                 if (running) {
@@ -159,6 +430,208 @@ public class ComunicacaoMulticast {
         }
     }
     
+    // Binária (ProtocoloMulticast) ou JSON, conforme o primeiro byte
+    private MensagemMulticast decodificar(byte[] conteudo, int tamanho) throws IOException {
+        if (tamanho > 0 && conteudo[0] == ProtocoloMulticast.MARCADOR_BINARIO) {
+            return ProtocoloMulticast.decodificar(ByteBuffer.wrap(conteudo, 0, tamanho));
+        }
+        return objectMapper.readValue(conteudo, 0, tamanho, MensagemMulticast.class);
+    }
+    
+    /**
+     * Guarda um fragmento e devolve a mensagem completa quando todos tiverem chegado
+     */
+    private byte[] receberFragmento(ByteBuffer datagrama) {
+        limparRemontagensExpiradas();
+        
+        if (datagrama.remaining() < TAMANHO_CABECALHO_FRAGMENTO) {
+            System.err.println("[MULTICAST] Fragmento truncado descartado");
+            return null;
+        }
+        datagrama.get(); // marcador
+        long idMensagem = datagrama.getLong();
+        int indice = datagrama.getInt();
+        int total = datagrama.getInt();
+        int tamanhoRemetente = datagrama.getShort();
+        if (tamanhoRemetente < 0 || tamanhoRemetente > datagrama.remaining()) {
+            System.err.println("[MULTICAST] Fragmento com remetente inválido descartado");
+            return null;
+        }
+        byte[] remetente = new byte[tamanhoRemetente];
+        datagrama.get(remetente);
+        String remetenteId = new String(remetente, StandardCharsets.UTF_8);
+        
+        // Fragmentos próprios voltam pelo grupo multicast
+        if (remetenteId.equals(orquestradorId)) {
+            return null;
+        }
+        
+        if (total <= 0 || indice < 0 || indice >= total || (long) total * BUFFER_SIZE > TAMANHO_MAXIMO_MENSAGEM + BUFFER_SIZE) {
+            System.err.println("[MULTICAST] Fragmento inválido de " + remetenteId + " descartado");
+            return null;
+        }
+        
+        String chave = remetenteId + ":" + idMensagem;
+        MensagemFragmentada parcial = mensagensEmRemontagem.get(chave);
+        if (parcial == null) {
+            if (mensagensEmRemontagem.size() >= MAXIMO_MENSAGENS_EM_REMONTAGEM) {
+                System.err.println("[MULTICAST] Limite de mensagens em remontagem atingido - fragmento de " + remetenteId + " descartado");
+                return null;
+            }
+            parcial = new MensagemFragmentada(total);
+            mensagensEmRemontagem.put(chave, parcial);
+        } else if (parcial.fragmentos.length != total) {
+            // Mesmo id com outro total: fragmento corrompido ou de outra mensagem (ex.: remetente reiniciado)
+            System.err.println("[MULTICAST] Fragmento de " + remetenteId + " com total " + total + " diferente de " +
+                              parcial.fragmentos.length + " - descartado");
+            return null;
+        }
+        
+        byte[] fragmento = new byte[datagrama.remaining()];
+        datagrama.get(fragmento);
+        if (!parcial.adicionar(indice, fragmento)) {
+            return null;
+        }
+        
+        mensagensEmRemontagem.remove(chave);
+        return parcial.montar();
+    }
+    
+    // Descarta mensagens cujos fragmentos não chegaram dentro do tempo limite
+    private void limparRemontagensExpiradas() {
+        long agora = System.currentTimeMillis();
+        if (agora - ultimaLimpezaRemontagem < 1000) {
+            return;
+        }
+        ultimaLimpezaRemontagem = agora;
+        
+        mensagensEmRemontagem.entrySet().removeIf(entrada -> {
+            boolean expirada = agora - entrada.getValue().criadaEm > TEMPO_LIMITE_REMONTAGEM_MS;
+            if (expirada) {
+                System.err.println("[MULTICAST] Remontagem expirada para " + entrada.getKey() + " - " +
+                                  entrada.getValue().recebidos + "/" + entrada.getValue().fragmentos.length + " fragmentos");
+            }
+            return expirada;
+        });
+    }
+    
+    // As threads de cada faixa terminam no próximo poll; mensagens ainda na fila são descartadas
+    private void encerrarFaixas() {
+        for (FaixaEntrega faixa : new FaixaEntrega[] {faixaControle, faixaDados}) {
+            if (faixa != null) {
+                faixa.ativa = false;
+            }
+        }
+    }
+    
+    // Executa os handlers do tipo e os curinga, isolando falhas de cada um
+    private void entregar(MensagemMulticast mensagem) {
+        List<Consumer<MensagemMulticast>> handlers = messageHandlers.get(mensagem.getTipo());
+        if (handlers != null) {
+            for (Consumer<MensagemMulticast> handler : handlers) {
+                executarHandler(handler, mensagem);
+            }
+        }
+        for (Consumer<MensagemMulticast> handler : handlersCuringa) {
+            executarHandler(handler, mensagem);
+        }
+    }
+    
+    private void executarHandler(Consumer<MensagemMulticast> handler, MensagemMulticast mensagem) {
+        try {
+            handler.accept(mensagem);
+        } catch (Exception e) {
+            System.err.println("[MULTICAST] Erro no handler de " + mensagem.getTipo() + ": " + e.getMessage());
+        }
+    }
+    
+    // Filas limitadas de uma faixa, cada uma com sua thread; o remetente escolhe a fila
+    private final class FaixaEntrega {
+        final Faixa faixa;
+        final List<BlockingQueue<MensagemMulticast>> filas;
+        final LongAdder entregues = new LongAdder();
+        final LongAdder descartadas = new LongAdder();
+        volatile boolean ativa = true;
+        
+        FaixaEntrega(Faixa faixa, int threads, int capacidadeFila) {
+            this.faixa = faixa;
+            this.filas = new ArrayList<>(Math.max(1, threads));
+            for (int i = 0; i < Math.max(1, threads); i++) {
+                BlockingQueue<MensagemMulticast> fila = new ArrayBlockingQueue<>(Math.max(1, capacidadeFila));
+                filas.add(fila);
+                FabricaThreads.iniciar("multicast-" + faixa.name().toLowerCase() + "-" + i, () -> consumir(fila));
+            }
+        }
+        
+        // Chamado pela thread de recepção, que nunca bloqueia: com a fila cheia a mensagem é descartada
+        void enfileirar(MensagemMulticast mensagem) {
+            String remetente = mensagem.obterRemetenteId();
+            int indice = Math.floorMod(remetente != null ? remetente.hashCode() : 0, filas.size());
+            if (!filas.get(indice).offer(mensagem)) {
+                descartadas.increment();
+                long total = descartadas.sum();
+                if (total == 1 || total % 100 == 0) {
+                    System.err.println("[MULTICAST] Fila " + faixa + " cheia - " + mensagem.obterTipo() + " de " +
+                                      remetente + " descartada (" + total + " descartadas)");
+                }
+            }
+        }
+        
+        int obterAguardando() {
+            int total = 0;
+            for (BlockingQueue<MensagemMulticast> fila : filas) {
+                total += fila.size();
+            }
+            return total;
+        }
+        
+        private void consumir(BlockingQueue<MensagemMulticast> fila) {
+            try {
+                while (ativa) {
+                    MensagemMulticast mensagem = fila.poll(ESPERA_FILA_MS, TimeUnit.MILLISECONDS);
+                    if (mensagem != null) {
+                        entregar(mensagem);
+                        entregues.increment();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    // Fragmentos recebidos de uma mensagem; acessado apenas pela thread de escuta
+    private static class MensagemFragmentada {
+        final byte[][] fragmentos;
+        final long criadaEm = System.currentTimeMillis();
+        int recebidos;
+        int tamanhoTotal;
+        
+        MensagemFragmentada(int total) {
+            this.fragmentos = new byte[total][];
+        }
+        
+        boolean adicionar(int indice, byte[] fragmento) {
+            if (indice < 0 || indice >= fragmentos.length) {
+                return false;
+            }
+            if (fragmentos[indice] == null) {
+                fragmentos[indice] = fragmento;
+                recebidos++;
+                tamanhoTotal += fragmento.length;
+            }
+            return recebidos == fragmentos.length;
+        }
+        
+        byte[] montar() {
+            ByteBuffer completo = ByteBuffer.allocate(tamanhoTotal);
+            for (byte[] fragmento : fragmentos) {
+                completo.put(fragmento);
+            }
+            return completo.array();
+        }
+    }
+    
     // Classe para representar mensagens multicast
     public static class MensagemMulticast {
         private String remetenteId;
@@ -187,6 +660,21 @@ public class ComunicacaoMulticast {
         public void definirTipo(String tipo) { this.tipo = tipo; }
         
         public Object obterDados() { return dados; }
+        
+        /**
+         * Dados como a classe tipada de MensagensMulticast, venha a mensagem em binário ou em JSON (mapa)
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T obterDados(Class<T> classe) {
+            if (classe.isInstance(dados)) {
+                return classe.cast(dados);
+            }
+            Object convertido = dados instanceof Map ? ProtocoloMulticast.converterMapa(classe, (Map<String, Object>) dados) : null;
+            if (convertido == null) {
+                throw new IllegalArgumentException("Dados de " + tipo + " não são " + classe.getSimpleName());
+            }
+            return classe.cast(convertido);
+        }
         public void definirDados(Object dados) { this.dados = dados; }
         
         public long obterTimestampLamport() { return timestampLamport; }
@@ -0,0 +1,292 @@
+package br.edu.ifba.orchestrator.network;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Dados tipados das mensagens multicast que têm codificação binária (ver ProtocoloMulticast).
+ *
+ * Cada classe sabe se escrever no corpo binário e se converter no mapa que a versão JSON sempre usou,
+ * com as mesmas chaves; assim orquestradores antigos continuam entendendo o que é enviado em JSON.
+ * Na leitura de um mapa JSON os números são aceitos em qualquer tipo (Integer ou Long, conforme o Jackson).
+ */
+public final class MensagensMulticast {
+
+    private MensagensMulticast() {
+    }
+
+    /**
+     * Dados com codificação binária
+     */
+    public interface Dados {
+        void escrever(ByteBuffer corpo);
+
+        Map<String, Object> paraMapa();
+    }
+
+    /**
+     * SIMPLE_HEARTBEAT (backup para principal) e SIMPLE_HEARTBEAT_RESPONSE (principal para backup, com status)
+     */
+    public static final class HeartbeatSimples implements Dados {
+        private final String backupId;
+        private final String primaryId;
+        private final long timestamp;
+        private final long lamportTimestamp;
+        private final String status;
+
+        public HeartbeatSimples(String backupId, String primaryId, long timestamp, long lamportTimestamp, String status) {
+            this.backupId = backupId;
+            this.primaryId = primaryId;
+            this.timestamp = timestamp;
+            this.lamportTimestamp = lamportTimestamp;
+            this.status = status;
+        }
+
+        static HeartbeatSimples ler(ByteBuffer corpo) {
+            return new HeartbeatSimples(ProtocoloMulticast.lerTexto(corpo), ProtocoloMulticast.lerTexto(corpo),
+                    corpo.getLong(), corpo.getLong(), ProtocoloMulticast.lerTexto(corpo));
+        }
+
+        static HeartbeatSimples deMapa(Map<String, Object> mapa) {
+            return new HeartbeatSimples(texto(mapa, "backupId"), texto(mapa, "primaryId"),
+                    numero(mapa, "timestamp"), numero(mapa, "lamportTimestamp"), texto(mapa, "status"));
+        }
+
+        @Override
+        public void escrever(ByteBuffer corpo) {
+            ProtocoloMulticast.escreverTexto(corpo, backupId);
+            ProtocoloMulticast.escreverTexto(corpo, primaryId);
+            corpo.putLong(timestamp).putLong(lamportTimestamp);
+            ProtocoloMulticast.escreverTexto(corpo, status);
+        }
+
+        @Override
+        public Map<String, Object> paraMapa() {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            mapa.put("backupId", backupId);
+            mapa.put("primaryId", primaryId);
+            mapa.put("timestamp", timestamp);
+            mapa.put("lamportTimestamp", lamportTimestamp);
+            if (status != null) {
+                mapa.put("status", status);
+            }
+            return mapa;
+        }
+
+        public String obterBackupId() { return backupId; }
+        public String obterPrimaryId() { return primaryId; }
+        public long obterTimestamp() { return timestamp; }
+        public long obterLamportTimestamp() { return lamportTimestamp; }
+        public String obterStatus() { return status; }
+    }
+
+    /**
+     * BACKUP_HEARTBEAT (backup para principal) e HEARTBEAT_RESPONSE (principal para backup)
+     */
+    public static final class HeartbeatBackup implements Dados {
+        private final String remetente;
+        private final String destinatario;
+        private final long timestamp;
+        private final long timestampReal;
+        private final String status;
+
+        public HeartbeatBackup(String remetente, String destinatario, long timestamp, long timestampReal, String status) {
+            this.remetente = remetente;
+            this.destinatario = destinatario;
+            this.timestamp = timestamp;
+            this.timestampReal = timestampReal;
+            this.status = status;
+        }
+
+        static HeartbeatBackup ler(ByteBuffer corpo) {
+            return new HeartbeatBackup(ProtocoloMulticast.lerTexto(corpo), ProtocoloMulticast.lerTexto(corpo),
+                    corpo.getLong(), corpo.getLong(), ProtocoloMulticast.lerTexto(corpo));
+        }
+
+        static HeartbeatBackup deMapa(Map<String, Object> mapa) {
+            return new HeartbeatBackup(texto(mapa, "remetente"), texto(mapa, "destinatario"),
+                    numero(mapa, "timestamp"), numero(mapa, "timestampReal"), texto(mapa, "status"));
+        }
+
+        @Override
+        public void escrever(ByteBuffer corpo) {
+            ProtocoloMulticast.escreverTexto(corpo, remetente);
+            ProtocoloMulticast.escreverTexto(corpo, destinatario);
+            corpo.putLong(timestamp).putLong(timestampReal);
+            ProtocoloMulticast.escreverTexto(corpo, status);
+        }
+
+        @Override
+        public Map<String, Object> paraMapa() {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            mapa.put("remetente", remetente);
+            mapa.put("destinatario", destinatario);
+            mapa.put("timestamp", timestamp);
+            mapa.put("timestampReal", timestampReal);
+            if (status != null) {
+                mapa.put("status", status);
+            }
+            return mapa;
+        }
+
+        public String obterRemetente() { return remetente; }
+        public String obterDestinatario() { return destinatario; }
+        /** Timestamp de Lamport do remetente */
+        public long obterTimestamp() { return timestamp; }
+        public long obterTimestampReal() { return timestampReal; }
+        public String obterStatus() { return status; }
+    }
+
+    /**
+     * SEQUENCIA_TAREFAS: última sequência do log anunciada pelo principal
+     */
+    public static final class AnuncioSequencia implements Dados {
+        private final long sequencia;
+
+        public AnuncioSequencia(long sequencia) {
+            this.sequencia = sequencia;
+        }
+
+        static AnuncioSequencia ler(ByteBuffer corpo) {
+            return new AnuncioSequencia(corpo.getLong());
+        }
+
+        static AnuncioSequencia deMapa(Map<String, Object> mapa) {
+            return new AnuncioSequencia(numero(mapa, "seq"));
+        }
+
+        @Override
+        public void escrever(ByteBuffer corpo) {
+            corpo.putLong(sequencia);
+        }
+
+        @Override
+        public Map<String, Object> paraMapa() {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            mapa.put("seq", sequencia);
+            return mapa;
+        }
+
+        public long obterSequencia() { return sequencia; }
+    }
+
+    /**
+     * CATCHUP_TAREFAS: backup pedindo os registros posteriores a uma sequência (ou o estado completo)
+     */
+    public static final class PedidoCatchup implements Dados {
+        private final String backupId;
+        private final long desde;
+        private final boolean completo;
+
+        public PedidoCatchup(String backupId, long desde, boolean completo) {
+            this.backupId = backupId;
+            this.desde = desde;
+            this.completo = completo;
+        }
+
+        static PedidoCatchup ler(ByteBuffer corpo) {
+            return new PedidoCatchup(ProtocoloMulticast.lerTexto(corpo), corpo.getLong(), corpo.get() != 0);
+        }
+
+        static PedidoCatchup deMapa(Map<String, Object> mapa) {
+            return new PedidoCatchup(texto(mapa, "backupId"), numero(mapa, "desde"),
+                    Boolean.TRUE.equals(mapa.get("completo")));
+        }
+
+        @Override
+        public void escrever(ByteBuffer corpo) {
+            ProtocoloMulticast.escreverTexto(corpo, backupId);
+            corpo.putLong(desde).put((byte) (completo ? 1 : 0));
+        }
+
+        @Override
+        public Map<String, Object> paraMapa() {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            mapa.put("backupId", backupId);
+            mapa.put("desde", desde);
+            mapa.put("completo", completo);
+            return mapa;
+        }
+
+        public String obterBackupId() { return backupId; }
+        public long obterDesde() { return desde; }
+        public boolean ehCompleto() { return completo; }
+    }
+
+    /**
+     * DATA_SYNC: conteúdo do arquivo de tarefas do principal. No binário o conteúdo vai como UTF-8 puro,
+     * sem o escape de JSON dentro de JSON.
+     */
+    public static final class SincronizacaoDados implements Dados {
+        private final String leaderId;
+        private final long timestamp;
+        private final long fileTimestamp;
+        private final String fileContent;
+        private final String fileName;
+        private final String syncType;
+
+        public SincronizacaoDados(String leaderId, long timestamp, long fileTimestamp, String fileContent,
+                                  String fileName, String syncType) {
+            this.leaderId = leaderId;
+            this.timestamp = timestamp;
+            this.fileTimestamp = fileTimestamp;
+            this.fileContent = fileContent;
+            this.fileName = fileName;
+            this.syncType = syncType;
+        }
+
+        static SincronizacaoDados ler(ByteBuffer corpo) {
+            String leaderId = ProtocoloMulticast.lerTexto(corpo);
+            long timestamp = corpo.getLong();
+            long fileTimestamp = corpo.getLong();
+            return new SincronizacaoDados(leaderId, timestamp, fileTimestamp, ProtocoloMulticast.lerTexto(corpo),
+                    ProtocoloMulticast.lerTexto(corpo), ProtocoloMulticast.lerTexto(corpo));
+        }
+
+        static SincronizacaoDados deMapa(Map<String, Object> mapa) {
+            return new SincronizacaoDados(texto(mapa, "leaderId"), numero(mapa, "timestamp"),
+                    numero(mapa, "fileTimestamp"), texto(mapa, "fileContent"), texto(mapa, "fileName"),
+                    texto(mapa, "syncType"));
+        }
+
+        @Override
+        public void escrever(ByteBuffer corpo) {
+            ProtocoloMulticast.escreverTexto(corpo, leaderId);
+            corpo.putLong(timestamp).putLong(fileTimestamp);
+            ProtocoloMulticast.escreverTexto(corpo, fileContent);
+            ProtocoloMulticast.escreverTexto(corpo, fileName);
+            ProtocoloMulticast.escreverTexto(corpo, syncType);
+        }
+
+        @Override
+        public Map<String, Object> paraMapa() {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            mapa.put("leaderId", leaderId);
+            mapa.put("timestamp", timestamp);
+            mapa.put("fileTimestamp", fileTimestamp);
+            mapa.put("fileContent", fileContent);
+            mapa.put("fileName", fileName);
+            mapa.put("syncType", syncType);
+            return mapa;
+        }
+
+        public String obterLeaderId() { return leaderId; }
+        /** Timestamp de Lamport do principal */
+        public long obterTimestamp() { return timestamp; }
+        public long obterFileTimestamp() { return fileTimestamp; }
+        public String obterFileContent() { return fileContent; }
+        public String obterFileName() { return fileName; }
+        public String obterSyncType() { return syncType; }
+    }
+
+    private static String texto(Map<String, Object> mapa, String chave) {
+        Object valor = mapa.get(chave);
+        return valor != null ? valor.toString() : null;
+    }
+
+    private static long numero(Map<String, Object> mapa, String chave) {
+        Object valor = mapa.get(chave);
+        return valor instanceof Number ? ((Number) valor).longValue() : 0L;
+    }
+}
@@ -0,0 +1,168 @@
+package br.edu.ifba.orchestrator.network;
+
+import br.edu.ifba.orchestrator.network.ComunicacaoMulticast.MensagemMulticast;
+import br.edu.ifba.orchestrator.network.MensagensMulticast.*;
+import br.edu.ifba.orchestrator.service.ReplicadorTarefas;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Codificação binária das mensagens multicast entre orquestradores (versão 1).
+ *
+ * Mensagem: 'B' | versão (byte) | código do tipo (byte) | remetente (texto) | Lamport (long) |
+ * horário físico (long) | corpo do tipo. Textos são UTF-8 precedidos do tamanho (int, -1 para nulo).
+ * Mensagens JSON começam com '{' e fragmentos com 'F', então as três formas convivem no mesmo grupo.
+ *
+ * Só os tipos registrados abaixo (com dados de MensagensMulticast) têm forma binária; os demais continuam
+ * em JSON. Todo orquestrador lê as duas formas, mas só envia binário com
+ * -Dorquestrador.multicast.codec=binario: numa atualização gradual, atualize todos os nós e só então
+ * habilite o binário, já que versões antigas descartam o que não é JSON.
+ */
+public final class ProtocoloMulticast {
+
+    public static final byte MARCADOR_BINARIO = 'B';
+    public static final byte VERSAO = 1;
+
+    private static final class Formato {
+        final String tipo;
+        final byte codigo;
+        final Class<? extends Dados> classe;
+        final Function<ByteBuffer, ? extends Dados> leitor;
+        final Function<Map<String, Object>, ? extends Dados> conversor;
+
+        <T extends Dados> Formato(String tipo, int codigo, Class<T> classe, Function<ByteBuffer, T> leitor,
+                                  Function<Map<String, Object>, T> conversor) {
+            this.tipo = tipo;
+            this.codigo = (byte) codigo;
+            this.classe = classe;
+            this.leitor = leitor;
+            this.conversor = conversor;
+        }
+    }
+
+    private static final Map<String, Formato> FORMATOS_POR_TIPO = new HashMap<>();
+    private static final Map<Class<?>, Formato> FORMATOS_POR_CLASSE = new HashMap<>();
+    private static final Formato[] FORMATOS_POR_CODIGO = new Formato[128];
+
+    static {
+        registrar(new Formato("SIMPLE_HEARTBEAT", 1, HeartbeatSimples.class, HeartbeatSimples::ler, HeartbeatSimples::deMapa));
+        registrar(new Formato("SIMPLE_HEARTBEAT_RESPONSE", 2, HeartbeatSimples.class, HeartbeatSimples::ler, HeartbeatSimples::deMapa));
+        registrar(new Formato("BACKUP_HEARTBEAT", 3, HeartbeatBackup.class, HeartbeatBackup::ler, HeartbeatBackup::deMapa));
+        registrar(new Formato("HEARTBEAT_RESPONSE", 4, HeartbeatBackup.class, HeartbeatBackup::ler, HeartbeatBackup::deMapa));
+        registrar(new Formato(ReplicadorTarefas.TIPO_SEQUENCIA, 5, AnuncioSequencia.class, AnuncioSequencia::ler, AnuncioSequencia::deMapa));
+        registrar(new Formato(ReplicadorTarefas.TIPO_CATCHUP, 6, PedidoCatchup.class, PedidoCatchup::ler, PedidoCatchup::deMapa));
+        registrar(new Formato("DATA_SYNC", 7, SincronizacaoDados.class, SincronizacaoDados::ler, SincronizacaoDados::deMapa));
+    }
+
+    private ProtocoloMulticast() {
+    }
+
+    private static void registrar(Formato formato) {
+        FORMATOS_POR_TIPO.put(formato.tipo, formato);
+        FORMATOS_POR_CLASSE.putIfAbsent(formato.classe, formato);
+        FORMATOS_POR_CODIGO[formato.codigo] = formato;
+    }
+
+    /**
+     * Se o tipo tem forma binária para esses dados
+     */
+    public static boolean suporta(String tipo, Object dados) {
+        Formato formato = FORMATOS_POR_TIPO.get(tipo);
+        return formato != null && formato.classe.isInstance(dados);
+    }
+
+    /**
+     * Codifica a mensagem no buffer a partir da posição atual, sem buffers intermediários.
+     * O buffer fica com a posição no fim da mensagem.
+     * @throws BufferOverflowException se não couber (o chamador pode repetir com um buffer maior)
+     */
+    public static void codificar(ByteBuffer destino, String remetenteId, String tipo, Dados dados,
+                                 long timestampLamport, long timestampFisico) {
+        Formato formato = FORMATOS_POR_TIPO.get(tipo);
+        if (formato == null || !formato.classe.isInstance(dados)) {
+            throw new IllegalArgumentException("Tipo sem codificação binária: " + tipo);
+        }
+        destino.put(MARCADOR_BINARIO).put(VERSAO).put(formato.codigo);
+        escreverTexto(destino, remetenteId);
+        destino.putLong(timestampLamport).putLong(timestampFisico);
+        dados.escrever(destino);
+    }
+
+    /**
+     * Decodifica uma mensagem binária completa; os dados vêm como a classe tipada do tipo
+     */
+    public static MensagemMulticast decodificar(ByteBuffer origem) {
+        if (origem.get() != MARCADOR_BINARIO) {
+            throw new IllegalArgumentException("Mensagem não binária");
+        }
+        byte versao = origem.get();
+        if (versao != VERSAO) {
+            throw new IllegalArgumentException("Versão de protocolo multicast não suportada: " + versao);
+        }
+        byte codigo = origem.get();
+        Formato formato = codigo >= 0 ? FORMATOS_POR_CODIGO[codigo] : null;
+        if (formato == null) {
+            throw new IllegalArgumentException("Código de tipo desconhecido: " + codigo);
+        }
+        String remetenteId = lerTexto(origem);
+        long timestampLamport = origem.getLong();
+        long timestampFisico = origem.getLong();
+        Dados dados = formato.leitor.apply(origem);
+        return new MensagemMulticast(remetenteId, formato.tipo, dados, timestampLamport, timestampFisico);
+    }
+
+    /**
+     * Converte o mapa de uma mensagem recebida em JSON na classe tipada, se ela tiver forma binária
+     * @return null se a classe não for de MensagensMulticast
+     */
+    static Object converterMapa(Class<?> classe, Map<String, Object> mapa) {
+        Formato formato = FORMATOS_POR_CLASSE.get(classe);
+        return formato != null ? formato.conversor.apply(mapa) : null;
+    }
+
+    static void escreverTexto(ByteBuffer destino, String texto) {
+        if (texto == null) {
+            destino.putInt(-1);
+            return;
+        }
+        // ASCII vai direto para o buffer; só textos com outros caracteres passam por um byte[]
+        int inicio = destino.position();
+        int tamanho = texto.length();
+        destino.putInt(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            char caractere = texto.charAt(i);
+            if (caractere >= 0x80) {
+                destino.position(inicio);
+                byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+                destino.putInt(bytes.length).put(bytes);
+                return;
+            }
+            destino.put((byte) caractere);
+        }
+    }
+
+    static String lerTexto(ByteBuffer origem) {
+        int tamanho = origem.getInt();
+        if (tamanho == -1) {
+            return null;
+        }
+        if (tamanho < 0 || tamanho > origem.remaining()) {
+            throw new IllegalArgumentException("Texto com tamanho inválido: " + tamanho);
+        }
+        String texto;
+        if (origem.hasArray()) {
+            texto = new String(origem.array(), origem.arrayOffset() + origem.position(), tamanho, StandardCharsets.UTF_8);
+            origem.position(origem.position() + tamanho);
+        } else {
+            byte[] bytes = new byte[tamanho];
+            origem.get(bytes);
+            texto = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return texto;
+    }
+}
@@ -0,0 +1,298 @@
+package br.edu.ifba.orchestrator.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Protocolo binário entre orquestrador e workers (versão 1).
+ *
+ * Quadro: [int comprimento][byte versão][byte tipo][corpo], em que o comprimento conta
+ * os bytes depois do próprio campo. Textos são UTF-8 precedidos do tamanho (int).
+ * Como um quadro tem no máximo TAMANHO_MAXIMO_QUADRO bytes, seu primeiro byte é sempre 0,
+ * o que permite distinguir quadros de linhas JSON (que começam com '{') na mesma conexão.
+ *
+ * O protocolo é negociado no REGISTRO: o worker anuncia "protocolo":"binario-v1" e o
+ * orquestrador confirma com um quadro REGISTRO_ACK. Sem a confirmação os dois lados
+ * continuam usando linhas JSON, então workers e orquestradores antigos seguem compatíveis.
+ * Este arquivo tem uma cópia idêntica no módulo worker.
+ */
+public final class ProtocoloWorker {
+
+    public static final String NOME_PROTOCOLO = "binario-v1";
+    public static final byte VERSAO = 1;
+    public static final int TAMANHO_MAXIMO_QUADRO = 1024 * 1024;
+    // Título + descrição (UTF-8) aceitos em uma tarefa; a outra metade do quadro fica para o id,
+    // os nomes de campo e o escape da linha JSON usada com workers sem o protocolo binário
+    public static final int TAMANHO_MAXIMO_TEXTOS_TAREFA = TAMANHO_MAXIMO_QUADRO / 2;
+
+    public static final byte TIPO_REGISTRO_ACK = 1;
+    public static final byte TIPO_TAREFA = 2;
+    public static final byte TIPO_CONCLUSAO = 3;
+    public static final byte TIPO_HEARTBEAT = 4;
+    public static final byte TIPO_HEARTBEAT_RESPONSE = 5;
+    public static final byte TIPO_DESCONEXAO = 6;
+    public static final byte TIPO_MUDANCA_ORQUESTRADOR = 7;
+    public static final byte TIPO_CREDITO = 8;
+
+    private static final int TAMANHO_CABECALHO = Integer.BYTES + 2;
+
+    /**
+     * Recebe as mensagens decodificadas de uma conexão
+     */
+    public interface ReceptorMensagens {
+        void linhaJson(String linha);
+
+        void quadro(byte tipo, ByteBuffer corpo);
+    }
+
+    private ProtocoloWorker() {
+    }
+
+    // ---- Codificação ----
+
+    public static ByteBuffer codificarRegistroAck() {
+        return iniciarQuadro(TIPO_REGISTRO_ACK, 0).flip();
+    }
+
+    public static ByteBuffer codificarTarefa(String id, String titulo, String descricao, long timestamp) {
+        byte[] bytesId = utf8(id);
+        byte[] bytesTitulo = utf8(titulo);
+        byte[] bytesDescricao = utf8(descricao);
+        ByteBuffer quadro = iniciarQuadro(TIPO_TAREFA,
+                tamanho(bytesId) + tamanho(bytesTitulo) + tamanho(bytesDescricao) + Long.BYTES);
+        escreverTexto(quadro, bytesId);
+        escreverTexto(quadro, bytesTitulo);
+        escreverTexto(quadro, bytesDescricao);
+        quadro.putLong(timestamp);
+        return quadro.flip();
+    }
+
+    public static ByteBuffer codificarConclusao(String tarefaId, String workerId) {
+        byte[] bytesTarefa = utf8(tarefaId);
+        byte[] bytesWorker = utf8(workerId);
+        ByteBuffer quadro = iniciarQuadro(TIPO_CONCLUSAO, tamanho(bytesTarefa) + tamanho(bytesWorker));
+        escreverTexto(quadro, bytesTarefa);
+        escreverTexto(quadro, bytesWorker);
+        return quadro.flip();
+    }
+
+    public static ByteBuffer codificarHeartbeat(long timestamp) {
+        return iniciarQuadro(TIPO_HEARTBEAT, Long.BYTES).putLong(timestamp).flip();
+    }
+
+    public static ByteBuffer codificarHeartbeatResponse(String workerId, long timestamp) {
+        byte[] bytesWorker = utf8(workerId);
+        ByteBuffer quadro = iniciarQuadro(TIPO_HEARTBEAT_RESPONSE, tamanho(bytesWorker) + Long.BYTES);
+        escreverTexto(quadro, bytesWorker);
+        quadro.putLong(timestamp);
+        return quadro.flip();
+    }
+
+    public static ByteBuffer codificarDesconexao(String workerId) {
+        byte[] bytesWorker = utf8(workerId);
+        ByteBuffer quadro = iniciarQuadro(TIPO_DESCONEXAO, tamanho(bytesWorker));
+        escreverTexto(quadro, bytesWorker);
+        return quadro.flip();
+    }
+
+    public static ByteBuffer codificarMudancaOrquestrador(String novoOrquestradorId, String novoHost, int novaPorta) {
+        byte[] bytesId = utf8(novoOrquestradorId);
+        byte[] bytesHost = utf8(novoHost);
+        ByteBuffer quadro = iniciarQuadro(TIPO_MUDANCA_ORQUESTRADOR,
+                tamanho(bytesId) + tamanho(bytesHost) + Integer.BYTES);
+        escreverTexto(quadro, bytesId);
+        escreverTexto(quadro, bytesHost);
+        quadro.putInt(novaPorta);
+        return quadro.flip();
+    }
+
+    public static ByteBuffer codificarCredito(int creditos) {
+        return iniciarQuadro(TIPO_CREDITO, Integer.BYTES).putInt(creditos).flip();
+    }
+
+    /**
+     * Verifica se título e descrição cabem em uma tarefa, em quadro ou em linha JSON
+     */
+    public static boolean cabeNaTarefa(String titulo, String descricao) {
+        return (long) tamanhoUtf8(titulo) + tamanhoUtf8(descricao) <= TAMANHO_MAXIMO_TEXTOS_TAREFA;
+    }
+
+    /**
+     * Rejeita, antes do envio, uma linha JSON que o outro lado descartaria por exceder o limite
+     */
+    public static void validarLinha(String linha) {
+        int tamanho = tamanhoUtf8(linha);
+        if (tamanho > TAMANHO_MAXIMO_QUADRO) {
+            throw new IllegalArgumentException("Linha de " + tamanho + " bytes excede " + TAMANHO_MAXIMO_QUADRO + " bytes");
+        }
+    }
+
+    // ---- Decodificação ----
+
+    public static String lerTexto(ByteBuffer corpo) {
+        int tamanho = corpo.getInt();
+        if (tamanho < 0 || tamanho > corpo.remaining()) {
+            throw new IllegalArgumentException("Texto com tamanho inválido: " + tamanho);
+        }
+        String texto;
+        if (corpo.hasArray()) {
+            texto = new String(corpo.array(), corpo.arrayOffset() + corpo.position(), tamanho, StandardCharsets.UTF_8);
+            corpo.position(corpo.position() + tamanho);
+        } else {
+            byte[] bytes = new byte[tamanho];
+            corpo.get(bytes);
+            texto = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return texto;
+    }
+
+    /**
+     * Lê a próxima mensagem (quadro ou linha JSON) de um fluxo bloqueante.
+     * @return false no fim do fluxo
+     */
+    public static boolean lerProxima(DataInputStream entrada, ReceptorMensagens receptor) throws IOException {
+        int primeiro = entrada.read();
+        if (primeiro < 0) {
+            return false;
+        }
+
+        if (primeiro == 0) {
+            int comprimento = (entrada.readUnsignedByte() << 16) | (entrada.readUnsignedByte() << 8) | entrada.readUnsignedByte();
+            validarComprimento(comprimento);
+            byte[] dados = new byte[comprimento];
+            entrada.readFully(dados);
+            entregarQuadro(ByteBuffer.wrap(dados), receptor);
+            return true;
+        }
+
+        ByteArrayOutputStream linha = new ByteArrayOutputStream();
+        int valor = primeiro;
+        while (valor >= 0 && valor != '\n') {
+            linha.write(valor);
+            if (linha.size() > TAMANHO_MAXIMO_QUADRO) {
+                throw new IOException("Linha excede " + TAMANHO_MAXIMO_QUADRO + " bytes");
+            }
+            valor = entrada.read();
+        }
+        entregarLinha(linha.toString(StandardCharsets.UTF_8), receptor);
+        return true;
+    }
+
+    /**
+     * Entrega as mensagens completas de um buffer em modo leitura. O que sobrar
+     * (mensagem parcial) fica a partir da posição atual do buffer.
+     */
+    public static void extrair(ByteBuffer acumulado, ReceptorMensagens receptor) throws IOException {
+        while (acumulado.hasRemaining()) {
+            int inicio = acumulado.position();
+
+            if (acumulado.get(inicio) == 0) {
+                if (acumulado.remaining() < Integer.BYTES) {
+                    return;
+                }
+                int comprimento = acumulado.getInt(inicio);
+                validarComprimento(comprimento);
+                if (acumulado.remaining() < Integer.BYTES + comprimento) {
+                    return;
+                }
+                ByteBuffer quadro = acumulado.slice(inicio + Integer.BYTES, comprimento);
+                acumulado.position(inicio + Integer.BYTES + comprimento);
+                entregarQuadro(quadro, receptor);
+                continue;
+            }
+
+            int fimLinha = -1;
+            for (int i = inicio; i < acumulado.limit(); i++) {
+                if (acumulado.get(i) == '\n') {
+                    fimLinha = i;
+                    break;
+                }
+            }
+            if (fimLinha < 0) {
+                return;
+            }
+
+            String linha;
+            if (acumulado.hasArray()) {
+                linha = new String(acumulado.array(), acumulado.arrayOffset() + inicio, fimLinha - inicio, StandardCharsets.UTF_8);
+            } else {
+                byte[] bytes = new byte[fimLinha - inicio];
+                acumulado.get(inicio, bytes);
+                linha = new String(bytes, StandardCharsets.UTF_8);
+            }
+            acumulado.position(fimLinha + 1);
+            entregarLinha(linha, receptor);
+        }
+    }
+
+    private static void entregarQuadro(ByteBuffer quadro, ReceptorMensagens receptor) throws IOException {
+        if (quadro.remaining() < 2) {
+            throw new IOException("Quadro sem cabeçalho");
+        }
+        byte versao = quadro.get();
+        if (versao != VERSAO) {
+            throw new IOException("Versão de protocolo não suportada: " + versao);
+        }
+        byte tipo = quadro.get();
+        receptor.quadro(tipo, quadro.slice());
+    }
+
+    private static void entregarLinha(String linha, ReceptorMensagens receptor) {
+        String conteudo = linha.trim();
+        if (!conteudo.isEmpty()) {
+            receptor.linhaJson(conteudo);
+        }
+    }
+
+    private static void validarComprimento(int comprimento) throws IOException {
+        if (comprimento < 2 || comprimento > TAMANHO_MAXIMO_QUADRO) {
+            throw new IOException("Quadro com comprimento inválido: " + comprimento);
+        }
+    }
+
+    private static ByteBuffer iniciarQuadro(byte tipo, int tamanhoCorpo) {
+        if (tamanhoCorpo > TAMANHO_MAXIMO_QUADRO - 2) {
+            throw new IllegalArgumentException("Quadro de " + (2L + tamanhoCorpo) + " bytes excede " + TAMANHO_MAXIMO_QUADRO + " bytes");
+        }
+        ByteBuffer quadro = ByteBuffer.allocate(TAMANHO_CABECALHO + tamanhoCorpo);
+        quadro.putInt(2 + tamanhoCorpo).put(VERSAO).put(tipo);
+        return quadro;
+    }
+
+    private static byte[] utf8(String texto) {
+        return (texto != null ? texto : "").getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Tamanho em UTF-8 sem codificar o texto
+    private static int tamanhoUtf8(String texto) {
+        if (texto == null) {
+            return 0;
+        }
+        int tamanho = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c < 0x80) {
+                tamanho++;
+            } else if (c < 0x800) {
+                tamanho += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < texto.length() && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                tamanho += 4;
+                i++;
+            } else {
+                tamanho += 3;
+            }
+        }
+        return tamanho;
+    }
+
+    private static int tamanho(byte[] texto) {
+        return Integer.BYTES + texto.length;
+    }
+
+    private static void escreverTexto(ByteBuffer quadro, byte[] texto) {
+        quadro.putInt(texto.length).put(texto);
+    }
+}
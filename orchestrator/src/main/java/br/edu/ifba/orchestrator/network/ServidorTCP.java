@@ -1,17 +1,31 @@
 package br.edu.ifba.orchestrator.network;
 
+import br.edu.ifba.orchestrator.util.FabricaThreads;
 import br.edu.ifba.orchestrator.worker.GerenciadorWorkers;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.*;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class ServidorTCP {
     
     private static final int DEFAULT_PORTA = 8080;
+    
+    // "nio" atende todos os workers com poucos laços de eventos; "bloqueante" usa uma thread por worker
+    // (padrão quando -Dorquestrador.threads=virtual, para que cada worker ocupe uma thread virtual)
+    private static final boolean MODO_NIO = !"bloqueante".equalsIgnoreCase(System.getProperty(
+            "orquestrador.transporte", FabricaThreads.usaThreadsVirtuais() ? "bloqueante" : "nio"));
+    private static final int THREADS_NIO = Integer.getInteger("orquestrador.nio.threads",
+            Math.min(4, Runtime.getRuntime().availableProcessors()));
+    
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    
     private final int porta;
+    private ServidorTCPNio servidorNio;
     private ServerSocket serverSocket;
     private ExecutorService executorService;
     private GerenciadorWorkers gerenciadorWorkers;
@@ -24,21 +38,31 @@ public class ServidorTCP {
     public ServidorTCP(GerenciadorWorkers gerenciadorWorkers, int porta) {
         this.gerenciadorWorkers = gerenciadorWorkers;
         this.porta = porta;
-        this.executorService = Executors.newCachedThreadPool();
+        this.executorService = MODO_NIO ? null : FabricaThreads.novoExecutorPorTarefa();
         this.rodando = false;
     }
     
     public void iniciar() {
+        if (MODO_NIO) {
+            try {
+                servidorNio = new ServidorTCPNio(gerenciadorWorkers, porta, THREADS_NIO);
+                servidorNio.iniciar();
+                rodando = true;
+            } catch (IOException e) {
+                System.err.println("Erro ao iniciar servidor TCP: " + e.getMessage());
+            }
+            return;
+        }
+        
         try {
             serverSocket = new ServerSocket(porta);
             rodando = true;
             
-            System.out.println("Servidor TCP iniciado na porta " + porta + " para comunicação com workers");
+            System.out.println("Servidor TCP iniciado na porta " + porta + " para comunicação com workers" +
+                              (FabricaThreads.usaThreadsVirtuais() ? " (threads virtuais)" : ""));
             
             // Thread principal para aceitar conexões
-            Thread threadAceitacao = new Thread(this::aceitarConexoes);
-            threadAceitacao.setDaemon(true);
-            threadAceitacao.start();
+            FabricaThreads.iniciar("tcp-aceitacao", this::aceitarConexoes);
             
         } catch (IOException e) {
             System.err.println("Erro ao iniciar servidor TCP: " + e.getMessage());
@@ -63,21 +87,27 @@ public class ServidorTCP {
     
     private void processarConexaoWorker(Socket socket) {
         try {
-            BufferedReader entrada = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            
-            // Aguardar mensagem de registro do worker
-            String mensagemRegistro = entrada.readLine();
+            DataInputStream entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
             
-            if (mensagemRegistro != null && mensagemRegistro.contains("\"tipo\":\"REGISTRO\"")) {
-                String workerId = extrairWorkerId(mensagemRegistro);
+            // Aguardar mensagem de registro do worker (sempre uma linha JSON)
+            String[] mensagemRegistro = new String[1];
+            ProtocoloWorker.lerProxima(entrada, new ProtocoloWorker.ReceptorMensagens() {
+                @Override
+                public void linhaJson(String linha) {
+                    mensagemRegistro[0] = linha;
+                }
                 
-                if (workerId != null) {
-                    // Registrar worker no gerenciador
-                    gerenciadorWorkers.adicionarWorker(workerId, socket);
-                } else {
-                    System.err.println("ID do worker não encontrado na mensagem de registro");
-                    socket.close();
+                @Override
+                public void quadro(byte tipo, ByteBuffer corpo) {
+                    // Quadros só são aceitos depois do registro
                 }
+            });
+            
+            RegistroWorker registro = mensagemRegistro[0] != null ? interpretarRegistro(mensagemRegistro[0]) : null;
+            if (registro != null) {
+                // Registrar worker no gerenciador, mantendo o fluxo já aberto para não perder dados em buffer
+                gerenciadorWorkers.adicionarWorker(registro.workerId, socket, entrada,
+                        registro.protocoloBinario, registro.creditos);
             } else {
                 System.err.println("Mensagem de registro inválida recebida");
                 socket.close();
@@ -93,26 +123,49 @@ public class ServidorTCP {
         }
     }
     
-    private String extrairWorkerId(String mensagem) {
+    /**
+     * Interpreta a mensagem de REGISTRO de um worker.
+     * @return null se a mensagem não for um registro válido
+     */
+    static RegistroWorker interpretarRegistro(String mensagem) {
         try {
-            String busca = "\"workerId\":\"";
-            int inicio = mensagem.indexOf(busca);
-            if (inicio != -1) {
-                inicio += busca.length();
-                int fim = mensagem.indexOf("\"", inicio);
-                if (fim != -1) {
-                    return mensagem.substring(inicio, fim);
-                }
+            JsonNode json = OBJECT_MAPPER.readTree(mensagem);
+            String workerId = json.path("workerId").asText(null);
+            if (!"REGISTRO".equals(json.path("tipo").asText()) || workerId == null || workerId.isEmpty()) {
+                return null;
             }
-        } catch (Exception e) {
-            System.err.println("Erro ao extrair worker ID: " + e.getMessage());
+            boolean binario = ProtocoloWorker.NOME_PROTOCOLO.equals(json.path("protocolo").asText(null));
+            // Workers que não anunciam crédito recebem tarefas sem limite, como antes
+            int creditos = json.path("creditos").asInt(0);
+            return new RegistroWorker(workerId, binario, creditos > 0 ? creditos : GerenciadorWorkers.CREDITOS_ILIMITADOS);
+        } catch (IOException e) {
+            System.err.println("Erro ao interpretar registro do worker: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    // Dados extraídos da mensagem de REGISTRO
+    static final class RegistroWorker {
+        final String workerId;
+        final boolean protocoloBinario;
+        final int creditos;
+        
+        RegistroWorker(String workerId, boolean protocoloBinario, int creditos) {
+            this.workerId = workerId;
+            this.protocoloBinario = protocoloBinario;
+            this.creditos = creditos;
         }
-        return null;
     }
     
     public void parar() {
         rodando = false;
         
+        if (servidorNio != null) {
+            servidorNio.parar();
+            System.out.println("Servidor TCP parado");
+            return;
+        }
+        
         try {
             if (serverSocket != null && !serverSocket.isClosed()) {
                 serverSocket.close();
@@ -130,6 +183,9 @@ public class ServidorTCP {
     }
     
     public boolean estaRodando() {
+        if (servidorNio != null) {
+            return servidorNio.estaRodando();
+        }
         return rodando && serverSocket != null && !serverSocket.isClosed();
     }
     
@@ -0,0 +1,482 @@
+package br.edu.ifba.orchestrator.network;
+
+import br.edu.ifba.orchestrator.worker.ConexaoWorker;
+import br.edu.ifba.orchestrator.worker.GerenciadorWorkers;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor TCP não bloqueante para workers.
+ *
+ * Um número fixo de laços de eventos (um Selector por thread) atende todas as
+ * conexões; o primeiro laço também aceita novas conexões e as distribui entre os
+ * laços. Cada conexão tem um buffer de leitura e uma fila de escrita próprios, então
+ * o número de threads e a memória por conexão não crescem com a frota de workers.
+ * O buffer de leitura guarda linhas JSON ou quadros do ProtocoloWorker e só cresce
+ * enquanto uma mensagem maior que ele ainda está chegando.
+ *
+ * Os laços só fazem I/O e decodificação: as mensagens decodificadas são tratadas pelo
+ * GerenciadorWorkers em um pool de processamento, em ordem por conexão. Uma conexão com
+ * muitas mensagens aguardando deixa de ser lida até o pool alcançá-la.
+ */
+public class ServidorTCPNio {
+
+    private static final int TAMANHO_BUFFER_LEITURA = 4096;
+    private static final int TAMANHO_MAXIMO_MENSAGEM = ProtocoloWorker.TAMANHO_MAXIMO_QUADRO + Integer.BYTES;
+    private static final long LIMITE_ESCRITA_PENDENTE = 4L * 1024 * 1024;
+    private static final int THREADS_PROCESSAMENTO = Integer.getInteger("orquestrador.nio.threadsProcessamento",
+            Math.max(2, Runtime.getRuntime().availableProcessors()));
+    // Mensagens decodificadas aguardando processamento a partir das quais a conexão deixa de ser lida
+    private static final int LIMITE_MENSAGENS_PENDENTES = 1024;
+    // Mensagens tratadas por vez antes de ceder a thread do pool a outra conexão
+    private static final int MENSAGENS_POR_VEZ = 64;
+
+    private final GerenciadorWorkers gerenciadorWorkers;
+    private final int porta;
+    private final LacoEventos[] lacos;
+    private final AtomicInteger proximoLaco = new AtomicInteger(0);
+    private final ExecutorService executorProcessamento;
+    private ServerSocketChannel canalServidor;
+    private volatile boolean rodando;
+
+    public ServidorTCPNio(GerenciadorWorkers gerenciadorWorkers, int porta, int numeroThreads) {
+        this.gerenciadorWorkers = gerenciadorWorkers;
+        this.porta = porta;
+        this.lacos = new LacoEventos[Math.max(1, numeroThreads)];
+        AtomicInteger contadorThreads = new AtomicInteger(0);
+        this.executorProcessamento = Executors.newFixedThreadPool(Math.max(1, THREADS_PROCESSAMENTO), tarefa -> {
+            Thread thread = new Thread(tarefa, "tcp-nio-processamento-" + contadorThreads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void iniciar() throws IOException {
+        canalServidor = ServerSocketChannel.open();
+        canalServidor.bind(new InetSocketAddress(porta));
+        canalServidor.configureBlocking(false);
+        rodando = true;
+
+        for (int i = 0; i < lacos.length; i++) {
+            lacos[i] = new LacoEventos(i);
+        }
+        lacos[0].registrarAceitacao(canalServidor);
+        for (LacoEventos laco : lacos) {
+            laco.thread.start();
+        }
+
+        System.out.println("Servidor TCP (NIO) iniciado na porta " + porta + " com " + lacos.length +
+                          " threads de I/O e " + THREADS_PROCESSAMENTO + " de processamento para comunicação com workers");
+    }
+
+    public void parar() {
+        rodando = false;
+        for (LacoEventos laco : lacos) {
+            if (laco != null) {
+                laco.selector.wakeup();
+            }
+        }
+        try {
+            if (canalServidor != null) {
+                canalServidor.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Erro ao fechar canal do servidor TCP: " + e.getMessage());
+        }
+        executorProcessamento.shutdown();
+    }
+
+    public boolean estaRodando() {
+        return rodando && canalServidor != null && canalServidor.isOpen();
+    }
+
+    private void aceitar() {
+        try {
+            SocketChannel canal;
+            while ((canal = canalServidor.accept()) != null) {
+                canal.configureBlocking(false);
+                canal.socket().setTcpNoDelay(true);
+                LacoEventos laco = lacos[Math.floorMod(proximoLaco.getAndIncrement(), lacos.length)];
+                laco.adicionarConexao(new ConexaoNio(canal, laco));
+            }
+        } catch (IOException e) {
+            if (rodando) {
+                System.err.println("Erro ao aceitar conexão: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Thread de I/O com seu próprio Selector. Tarefas de outras threads (registro de
+     * conexões, interesse de escrita) entram pela fila e são executadas no próprio laço.
+     */
+    private class LacoEventos implements Runnable {
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<Runnable> tarefas = new ConcurrentLinkedQueue<>();
+
+        LacoEventos(int indice) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, "tcp-nio-" + indice);
+            this.thread.setDaemon(true);
+        }
+
+        void registrarAceitacao(ServerSocketChannel canal) throws IOException {
+            canal.register(selector, SelectionKey.OP_ACCEPT);
+        }
+
+        void adicionarConexao(ConexaoNio conexao) {
+            executar(() -> {
+                try {
+                    conexao.chave = conexao.canal.register(selector, SelectionKey.OP_READ, conexao);
+                    // Mensagens enfileiradas antes do registro
+                    if (!conexao.filaEscrita.isEmpty() && conexao.escritaAgendada.compareAndSet(false, true)) {
+                        conexao.escrever();
+                    }
+                } catch (IOException e) {
+                    conexao.encerrar();
+                }
+            });
+        }
+
+        void executar(Runnable tarefa) {
+            tarefas.add(tarefa);
+            if (Thread.currentThread() != thread) {
+                selector.wakeup();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (rodando) {
+                    // Tarefas enfileiradas pela própria thread (ex.: conexão aceita neste laço) não
+                    // acordam o selector, então não se pode bloquear enquanto houver alguma pendente
+                    if (tarefas.isEmpty()) {
+                        selector.select();
+                    } else {
+                        selector.selectNow();
+                    }
+
+                    Runnable tarefa;
+                    while ((tarefa = tarefas.poll()) != null) {
+                        tarefa.run();
+                    }
+
+                    for (SelectionKey chave : selector.selectedKeys()) {
+                        if (!chave.isValid()) {
+                            continue;
+                        }
+                        if (chave.isAcceptable()) {
+                            aceitar();
+                            continue;
+                        }
+
+                        ConexaoNio conexao = (ConexaoNio) chave.attachment();
+                        if (chave.isReadable()) {
+                            conexao.ler();
+                        }
+                        if (chave.isValid() && chave.isWritable()) {
+                            conexao.escrever();
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (rodando) {
+                    System.err.println("Erro no laço de eventos TCP: " + e.getMessage());
+                }
+            } finally {
+                for (SelectionKey chave : selector.keys()) {
+                    if (chave.attachment() instanceof ConexaoNio) {
+                        ((ConexaoNio) chave.attachment()).encerrar();
+                    }
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    // Ignorar erro ao fechar selector
+                }
+            }
+        }
+    }
+
+    /**
+     * Conexão de um worker atendida por um laço de eventos
+     */
+    private class ConexaoNio implements ConexaoWorker, ProtocoloWorker.ReceptorMensagens {
+        private final SocketChannel canal;
+        private final LacoEventos laco;
+        private ByteBuffer bufferLeitura = ByteBuffer.allocate(TAMANHO_BUFFER_LEITURA);
+        private final Queue<ByteBuffer> filaEscrita = new ConcurrentLinkedQueue<>();
+        private final AtomicLong bytesPendentes = new AtomicLong(0);
+        private final AtomicBoolean escritaAgendada = new AtomicBoolean(false);
+        private final AtomicBoolean fechada = new AtomicBoolean(false);
+        // Mensagens já decodificadas, tratadas uma de cada vez e na ordem de chegada
+        private final Queue<Runnable> filaProcessamento = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger mensagensPendentes = new AtomicInteger(0);
+        private final AtomicBoolean processamentoAgendado = new AtomicBoolean(false);
+        private volatile boolean leituraPausada;
+        private SelectionKey chave;
+        private volatile String workerId;
+        private volatile boolean protocoloBinario;
+
+        ConexaoNio(SocketChannel canal, LacoEventos laco) {
+            this.canal = canal;
+            this.laco = laco;
+        }
+
+        @Override
+        public String obterWorkerId() {
+            return workerId;
+        }
+
+        @Override
+        public boolean usaProtocoloBinario() {
+            return protocoloBinario;
+        }
+
+        @Override
+        public void enviar(String mensagem) {
+            if (fechada.get()) {
+                return;
+            }
+            enfileirar(ByteBuffer.wrap((mensagem + "\n").getBytes(StandardCharsets.UTF_8)));
+        }
+
+        @Override
+        public void enviarQuadro(ByteBuffer quadro) {
+            if (fechada.get()) {
+                return;
+            }
+            enfileirar(quadro);
+        }
+
+        private void enfileirar(ByteBuffer dados) {
+            if (bytesPendentes.addAndGet(dados.remaining()) > LIMITE_ESCRITA_PENDENTE) {
+                System.err.println("Worker " + workerId + " não está consumindo mensagens - desconectando");
+                laco.executar(this::encerrar);
+                return;
+            }
+
+            filaEscrita.add(dados);
+            if (escritaAgendada.compareAndSet(false, true)) {
+                laco.executar(this::escrever);
+            }
+        }
+
+        @Override
+        public void fechar() {
+            laco.executar(this::encerrar);
+        }
+
+        // Executado apenas na thread do laço
+        void ler() {
+            try {
+                while (!fechada.get() && !leituraPausada) {
+                    if (!bufferLeitura.hasRemaining() && !ampliarBufferLeitura()) {
+                        System.err.println("Mensagem do worker " + workerId + " excede " + TAMANHO_MAXIMO_MENSAGEM + " bytes - desconectando");
+                        encerrar();
+                        return;
+                    }
+
+                    int lidos = canal.read(bufferLeitura);
+                    if (lidos < 0) {
+                        encerrar();
+                        return;
+                    }
+                    if (lidos == 0) {
+                        return;
+                    }
+
+                    bufferLeitura.flip();
+                    ProtocoloWorker.extrair(bufferLeitura, this);
+                    bufferLeitura.compact();
+                }
+            } catch (IOException e) {
+                if (!fechada.get()) {
+                    System.err.println("Erro na conexão do worker " + workerId + ": " + e.getMessage());
+                }
+                encerrar();
+            }
+        }
+
+        // Buffer cheio com uma mensagem incompleta: dobra até o tamanho máximo de mensagem
+        private boolean ampliarBufferLeitura() {
+            if (bufferLeitura.capacity() >= TAMANHO_MAXIMO_MENSAGEM) {
+                return false;
+            }
+            ByteBuffer maior = ByteBuffer.allocate(Math.min(bufferLeitura.capacity() * 2, TAMANHO_MAXIMO_MENSAGEM));
+            bufferLeitura.flip();
+            maior.put(bufferLeitura);
+            bufferLeitura = maior;
+            return true;
+        }
+
+        // Executado apenas na thread do laço, a cada mensagem decodificada
+        private void processar(Runnable tratamento) {
+            filaProcessamento.add(tratamento);
+            if (mensagensPendentes.incrementAndGet() >= LIMITE_MENSAGENS_PENDENTES && !leituraPausada
+                    && chave != null && chave.isValid()) {
+                leituraPausada = true;
+                chave.interestOps(chave.interestOps() & ~SelectionKey.OP_READ);
+            }
+            agendarProcessamento();
+        }
+
+        private void agendarProcessamento() {
+            if (!processamentoAgendado.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executorProcessamento.execute(this::processarPendentes);
+            } catch (RejectedExecutionException e) {
+                // Servidor parando: as mensagens restantes são descartadas
+                processamentoAgendado.set(false);
+            }
+        }
+
+        // Executado no pool de processamento, nunca por duas threads ao mesmo tempo para a mesma conexão
+        private void processarPendentes() {
+            Runnable tratamento;
+            int tratadas = 0;
+            while (tratadas < MENSAGENS_POR_VEZ && (tratamento = filaProcessamento.poll()) != null) {
+                try {
+                    tratamento.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Erro ao tratar mensagem do worker " + workerId + ": " + e.getMessage());
+                }
+                tratadas++;
+            }
+            if (mensagensPendentes.addAndGet(-tratadas) < LIMITE_MENSAGENS_PENDENTES / 2 && leituraPausada) {
+                laco.executar(this::retomarLeitura);
+            }
+            processamentoAgendado.set(false);
+            if (!filaProcessamento.isEmpty()) {
+                agendarProcessamento();
+            }
+        }
+
+        // Executado apenas na thread do laço
+        private void retomarLeitura() {
+            if (!leituraPausada || fechada.get() || chave == null || !chave.isValid()) {
+                return;
+            }
+            leituraPausada = false;
+            chave.interestOps(chave.interestOps() | SelectionKey.OP_READ);
+            ler();
+        }
+
+        @Override
+        public void linhaJson(String linha) {
+            if (fechada.get()) {
+                return;
+            }
+            if (workerId != null) {
+                String worker = workerId;
+                processar(() -> gerenciadorWorkers.processarMensagemWorker(worker, linha));
+                return;
+            }
+
+            // Primeira mensagem deve ser o registro do worker
+            ServidorTCP.RegistroWorker registro = ServidorTCP.interpretarRegistro(linha);
+            if (registro == null) {
+                System.err.println("Mensagem de registro inválida recebida");
+                encerrar();
+                return;
+            }
+            workerId = registro.workerId;
+            protocoloBinario = registro.protocoloBinario;
+            processar(() -> gerenciadorWorkers.adicionarWorker(this, registro.creditos));
+        }
+
+        @Override
+        public void quadro(byte tipo, ByteBuffer corpo) {
+            if (fechada.get()) {
+                return;
+            }
+            if (workerId == null) {
+                System.err.println("Quadro recebido antes do registro do worker");
+                encerrar();
+                return;
+            }
+            // O corpo aponta para o buffer de leitura, reaproveitado assim que a extração termina
+            ByteBuffer copia = ByteBuffer.allocate(corpo.remaining()).put(corpo).flip();
+            String worker = workerId;
+            processar(() -> gerenciadorWorkers.processarQuadroWorker(worker, tipo, copia));
+        }
+
+        // Executado apenas na thread do laço
+        void escrever() {
+            if (fechada.get() || chave == null) {
+                // Ainda sem chave, a escrita é retomada por adicionarConexao ao registrar o canal
+                escritaAgendada.set(false);
+                return;
+            }
+            try {
+                ByteBuffer buffer;
+                while ((buffer = filaEscrita.peek()) != null) {
+                    int escritos = canal.write(buffer);
+                    bytesPendentes.addAndGet(-escritos);
+                    if (buffer.hasRemaining()) {
+                        // Socket cheio: aguardar OP_WRITE
+                        chave.interestOps(opsLeitura() | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    filaEscrita.poll();
+                }
+
+                chave.interestOps(opsLeitura());
+                escritaAgendada.set(false);
+                // Mensagem enfileirada entre o último peek e a liberação do agendamento
+                if (!filaEscrita.isEmpty() && escritaAgendada.compareAndSet(false, true)) {
+                    laco.executar(this::escrever);
+                }
+            } catch (IOException e) {
+                encerrar();
+            }
+        }
+
+        private int opsLeitura() {
+            return leituraPausada ? 0 : SelectionKey.OP_READ;
+        }
+
+        // Executado apenas na thread do laço
+        void encerrar() {
+            if (!fechada.compareAndSet(false, true)) {
+                return;
+            }
+            if (chave != null) {
+                chave.cancel();
+            }
+            try {
+                canal.close();
+            } catch (IOException e) {
+                System.err.println("Erro ao fechar conexão do worker " + workerId + ": " + e.getMessage());
+            }
+            filaEscrita.clear();
+
+            if (workerId != null) {
+                System.out.println("Worker " + workerId + " desconectado");
+                // Depois das mensagens que o worker enviou antes de cair (ex.: conclusões)
+                processar(() -> gerenciadorWorkers.removerWorker(workerId, this));
+            }
+        }
+    }
+}
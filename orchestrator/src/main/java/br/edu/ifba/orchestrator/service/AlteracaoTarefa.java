@@ -0,0 +1,40 @@
+package br.edu.ifba.orchestrator.service;
+
+import br.edu.ifba.orchestrator.model.Tarefa;
+
+/**
+ * Transição de uma tarefa aplicada pelo GerenciadorTarefas, com uma cópia do estado logo após a mudança.
+ * A sequência é crescente na ordem em que as alterações foram aplicadas.
+ */
+public class AlteracaoTarefa {
+
+    public enum TipoAlteracao {
+        CRIADA,
+        ATRIBUIDA,
+        REALOCADA,
+        DEVOLVIDA,
+        FINALIZADA
+    }
+
+    private final TipoAlteracao tipo;
+    private final long sequencia;
+    private final Tarefa tarefa;
+
+    public AlteracaoTarefa(TipoAlteracao tipo, long sequencia, Tarefa tarefa) {
+        this.tipo = tipo;
+        this.sequencia = sequencia;
+        this.tarefa = tarefa;
+    }
+
+    public TipoAlteracao obterTipo() {
+        return tipo;
+    }
+
+    public long obterSequencia() {
+        return sequencia;
+    }
+
+    public Tarefa obterTarefa() {
+        return tarefa;
+    }
+}
@@ -128,7 +128,8 @@ public class AutoSyncService {
                 String senderId = (String) dados.get("senderId");
                 String fileHash = (String) dados.get("fileHash");
                 String fileContent = (String) dados.get("fileContent");
-                Long lamportTimestamp = (Long) dados.get("lamportTimestamp");
+                // O Jackson entrega Integer ou Long conforme o valor
+                long lamportTimestamp = ((Number) dados.get("lamportTimestamp")).longValue();
                 
                 // Não processar nossa própria mensagem
                 if (senderId.equals(nodeId)) {
@@ -2,6 +2,7 @@ package br.edu.ifba.orchestrator.service;
 
 import br.edu.ifba.orchestrator.util.RelógioLamport;
 import br.edu.ifba.orchestrator.network.ComunicacaoMulticast;
+import br.edu.ifba.orchestrator.network.MensagensMulticast.HeartbeatBackup;
 
 import java.util.Map;
 import java.util.concurrent.Executors;
@@ -106,13 +107,8 @@ public class BackupHeartbeatService {
             ultimoHeartbeatEnviado.set(System.currentTimeMillis());
             heartbeatsEnviados.incrementAndGet();
             
-            Map<String, Object> heartbeatData = Map.of(
-                "tipo", "BACKUP_HEARTBEAT",
-                "remetente", backupId,
-                "destinatario", PRIMARY_ID,
-                "timestamp", timestamp,
-                "timestampReal", System.currentTimeMillis()
-            );
+            HeartbeatBackup heartbeatData = new HeartbeatBackup(backupId, PRIMARY_ID, timestamp,
+                                                                System.currentTimeMillis(), null);
             
             comunicacaoMulticast.enviarMensagem("BACKUP_HEARTBEAT", heartbeatData);
             System.out.println("[BACKUP-HEARTBEAT] Heartbeat enviado para " + PRIMARY_ID + 
@@ -155,11 +151,10 @@ public class BackupHeartbeatService {
         // Handler para resposta de heartbeat do primary
         comunicacaoMulticast.registrarHandler("HEARTBEAT_RESPONSE", mensagem -> {
             try {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> dados = (Map<String, Object>) mensagem;
+                HeartbeatBackup dados = mensagem.obterDados(HeartbeatBackup.class);
                 
-                String remetente = (String) dados.get("remetente");
-                String destinatario = (String) dados.get("destinatario");
+                String remetente = dados.obterRemetente();
+                String destinatario = dados.obterDestinatario();
                 
                 // Verifica se a resposta é para este backup
                 if (PRIMARY_ID.equals(remetente) && backupId.equals(destinatario)) {
@@ -172,10 +167,7 @@ public class BackupHeartbeatService {
                     }
                     
                     // Atualiza relógio de Lamport
-                    Object timestampObj = dados.get("timestamp");
-                    if (timestampObj instanceof Number) {
-                        relógioLamport.update(((Number) timestampObj).longValue());
-                    }
+                    relógioLamport.update(dados.obterTimestamp());
                     
                     System.out.println("[BACKUP-HEARTBEAT] Resposta recebida do " + remetente);
                 }
@@ -2,6 +2,7 @@ package br.edu.ifba.orchestrator.service;
 
 import br.edu.ifba.orchestrator.util.RelógioLamport;
 import br.edu.ifba.orchestrator.network.ComunicacaoMulticast;
+import br.edu.ifba.orchestrator.network.MensagensMulticast;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
@@ -137,10 +138,14 @@ public class ChandyLamportSnapshot {
     /**
      * Grava mensagem recebida durante snapshot
      */
-    private void gravarMensagemCanal(String origem, Map<String, Object> mensagem) {
+    private void gravarMensagemCanal(String origem, Object mensagem) {
         if (snapshotAtivo.get() && mensagensCanal.containsKey(origem)) {
             try {
-                String mensagemJson = objectMapper.writeValueAsString(mensagem);
+                // Dados tipados (recebidos em binário) são gravados com as mesmas chaves da versão JSON
+                Object conteudo = mensagem instanceof MensagensMulticast.Dados
+                    ? ((MensagensMulticast.Dados) mensagem).paraMapa()
+                    : mensagem;
+                String mensagemJson = objectMapper.writeValueAsString(conteudo);
                 mensagensCanal.get(origem).add(mensagemJson);
             } catch (Exception e) {
                 System.err.println("Erro ao gravar mensagem do canal: " + e.getMessage());
@@ -219,8 +224,7 @@ public class ChandyLamportSnapshot {
             String origem = mensagem.getRemetenteId();
             
             if (!"SNAPSHOT_MARKER".equals(tipo) && origem != null && !origem.equals(nodeId)) {
-                Map<String, Object> dados = (Map<String, Object>) mensagem.getDados();
-                gravarMensagemCanal(origem, dados);
+                gravarMensagemCanal(origem, mensagem.getDados());
             }
         });
     }
@@ -0,0 +1,129 @@
+package br.edu.ifba.orchestrator.service;
+
+/**
+ * Detector de falhas phi-accrual (Hayashibara et al.) para os heartbeats de um worker.
+ *
+ * Guarda os últimos intervalos entre chegadas e, a partir da média e do desvio padrão deles,
+ * calcula phi = -log10(P(o próximo heartbeat chegar depois de agora)). phi = 1 equivale a ~10% de
+ * chance de o worker estar vivo, phi = 8 a ~0,000001%. A pausa aceitável é somada à média para
+ * tolerar pausas de GC e atrasos ocasionais sem falsos positivos.
+ *
+ * Qualquer sinal de vida conta como chegada, mas só entra no histórico o intervalo de pelo menos
+ * intervaloMinimoAmostraMs desde a amostra anterior: assim um worker ocupado, que manda mensagens a
+ * todo instante, não ensina ao detector intervalos de milissegundos que o condenariam ao ficar ocioso.
+ */
+public class DetectorPhiAccrual {
+
+    private final double[] intervalos;
+    private final long desvioPadraoMinimoMs;
+    private final long pausaAceitavelMs;
+    private final long intervaloMinimoAmostraMs;
+    private int quantidade = 0;
+    private int proximo = 0;
+    private double soma = 0;
+    private double somaQuadrados = 0;
+    private long ultimaChegada;
+    private long inicioAmostra;
+
+    /**
+     * @param janela número de intervalos considerados
+     * @param intervaloEsperadoMs intervalo nominal dos heartbeats, usado como histórico inicial
+     * @param desvioPadraoMinimoMs piso do desvio padrão, para que intervalos muito regulares não tornem o detector sensível demais
+     * @param pausaAceitavelMs atraso tolerado além do intervalo aprendido
+     * @param intervaloMinimoAmostraMs menor intervalo registrado no histórico
+     * @param agoraMs instante do registro do worker, tratado como a primeira chegada
+     */
+    public DetectorPhiAccrual(int janela, long intervaloEsperadoMs, long desvioPadraoMinimoMs,
+                              long pausaAceitavelMs, long intervaloMinimoAmostraMs, long agoraMs) {
+        this.intervalos = new double[janela];
+        this.desvioPadraoMinimoMs = desvioPadraoMinimoMs;
+        this.pausaAceitavelMs = pausaAceitavelMs;
+        this.intervaloMinimoAmostraMs = intervaloMinimoAmostraMs;
+        this.ultimaChegada = agoraMs;
+        this.inicioAmostra = agoraMs;
+
+        // Histórico inicial com média no intervalo esperado e desvio de 1/4 dele, até haver amostras reais
+        long desvioInicial = intervaloEsperadoMs / 4;
+        adicionarIntervalo(intervaloEsperadoMs - desvioInicial);
+        adicionarIntervalo(intervaloEsperadoMs + desvioInicial);
+    }
+
+    public synchronized void registrarChegada(long agoraMs) {
+        ultimaChegada = agoraMs;
+        long intervalo = agoraMs - inicioAmostra;
+        if (intervalo > 0 && intervalo >= intervaloMinimoAmostraMs) {
+            adicionarIntervalo(intervalo);
+            inicioAmostra = agoraMs;
+        }
+    }
+
+    /**
+     * Nível de suspeita no instante informado (0 logo após um heartbeat, cresce sem limite depois)
+     */
+    public synchronized double phi(long agoraMs) {
+        long decorrido = agoraMs - ultimaChegada;
+        double media = mediaComPausa();
+
+        // Aproximação logística da CDF normal, estável para caudas longas
+        double y = (decorrido - media) / desvioPadrao();
+        double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+        if (decorrido > media) {
+            return -Math.log10(e / (1.0 + e));
+        }
+        return -Math.log10(1.0 - 1.0 / (1.0 + e));
+    }
+
+    /**
+     * Instante (ms) em que phi atingirá o limiar se nenhum sinal chegar até lá
+     * @param desvioNormalizado valor de desvioNormalizadoParaPhi(limiar)
+     */
+    public synchronized long obterPrazoSuspeita(double desvioNormalizado) {
+        return ultimaChegada + (long) Math.ceil(mediaComPausa() + desvioNormalizado * desvioPadrao());
+    }
+
+    /**
+     * Desvio normalizado em que phi atinge o limiar, invertendo a aproximação usada em phi (Newton)
+     */
+    public static double desvioNormalizadoParaPhi(double limiarPhi) {
+        double p = Math.pow(10, -limiarPhi);
+        double alvo = Math.log((1.0 - p) / p);
+        double y = 1.0;
+        for (int i = 0; i < 50; i++) {
+            double erro = y * (1.5976 + 0.070566 * y * y) - alvo;
+            y -= erro / (1.5976 + 3 * 0.070566 * y * y);
+        }
+        return y;
+    }
+
+    public synchronized long obterUltimaChegada() {
+        return ultimaChegada;
+    }
+
+    public synchronized double obterMediaIntervalosMs() {
+        return soma / quantidade;
+    }
+
+    private double mediaComPausa() {
+        return soma / quantidade + pausaAceitavelMs;
+    }
+
+    private double desvioPadrao() {
+        double media = soma / quantidade;
+        double variancia = Math.max(0, somaQuadrados / quantidade - media * media);
+        return Math.max(Math.sqrt(variancia), desvioPadraoMinimoMs);
+    }
+
+    private void adicionarIntervalo(double intervalo) {
+        if (quantidade == intervalos.length) {
+            double removido = intervalos[proximo];
+            soma -= removido;
+            somaQuadrados -= removido * removido;
+        } else {
+            quantidade++;
+        }
+        intervalos[proximo] = intervalo;
+        proximo = (proximo + 1) % intervalos.length;
+        soma += intervalo;
+        somaQuadrados += intervalo * intervalo;
+    }
+}
@@ -0,0 +1,77 @@
+package br.edu.ifba.orchestrator.service;
+
+import br.edu.ifba.orchestrator.model.Tarefa;
+import br.edu.ifba.orchestrator.model.Tarefa.StatusTarefa;
+
+import java.time.ZoneId;
+
+/**
+ * Critérios de listagem de tarefas. Campos nulos ou zero não restringem;
+ * os intervalos de Lamport e de recebimento (epoch ms) são inclusivos.
+ * Worker, intervalos e status escolhem o índice percorrido em GerenciadorTarefas, nessa ordem;
+ * os critérios restantes são verificados por tarefa.
+ */
+public class FiltroTarefas {
+    private StatusTarefa status;
+    private String workerId;
+    private long lamportMinimo;
+    private long lamportMaximo;
+    private long recebidaDesde;
+    private long recebidaAte;
+
+    public StatusTarefa obterStatus() { return status; }
+    public void definirStatus(StatusTarefa status) { this.status = status; }
+
+    public String obterWorkerId() { return workerId; }
+    public void definirWorkerId(String workerId) { this.workerId = workerId; }
+
+    public long obterLamportMinimo() { return lamportMinimo; }
+    public void definirLamportMinimo(long lamportMinimo) { this.lamportMinimo = lamportMinimo; }
+
+    public long obterLamportMaximo() { return lamportMaximo; }
+    public void definirLamportMaximo(long lamportMaximo) { this.lamportMaximo = lamportMaximo; }
+
+    public long obterRecebidaDesde() { return recebidaDesde; }
+    public void definirRecebidaDesde(long recebidaDesde) { this.recebidaDesde = recebidaDesde; }
+
+    public long obterRecebidaAte() { return recebidaAte; }
+    public void definirRecebidaAte(long recebidaAte) { this.recebidaAte = recebidaAte; }
+
+    public boolean temIntervaloLamport() { return lamportMinimo > 0 || lamportMaximo > 0; }
+
+    public boolean temIntervaloRecebimento() { return recebidaDesde > 0 || recebidaAte > 0; }
+
+    public boolean aceita(Tarefa tarefa) {
+        if (status != null && tarefa.obterStatus() != status) {
+            return false;
+        }
+        if (workerId != null && !workerId.equals(tarefa.obterWorkerResponsavel())) {
+            return false;
+        }
+        if (lamportMinimo > 0 && tarefa.obterClockLamport() < lamportMinimo) {
+            return false;
+        }
+        if (lamportMaximo > 0 && tarefa.obterClockLamport() > lamportMaximo) {
+            return false;
+        }
+        if (recebidaDesde > 0 || recebidaAte > 0) {
+            long recebida = obterMarcaTempoRecebimento(tarefa);
+            if (recebidaDesde > 0 && recebida < recebidaDesde) {
+                return false;
+            }
+            if (recebidaAte > 0 && recebida > recebidaAte) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Horário de recebimento da tarefa em epoch ms (0 se desconhecido)
+     */
+    public static long obterMarcaTempoRecebimento(Tarefa tarefa) {
+        return tarefa.obterHorarioRecebimento() != null
+            ? tarefa.obterHorarioRecebimento().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+            : 0L;
+    }
+}
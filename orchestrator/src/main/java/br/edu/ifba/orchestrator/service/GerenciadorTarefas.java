@@ -2,6 +2,7 @@ package br.edu.ifba.orchestrator.service;
 
 import br.edu.ifba.orchestrator.model.Tarefa;
 import br.edu.ifba.orchestrator.model.Tarefa.StatusTarefa;
+import br.edu.ifba.orchestrator.util.LoggerLamport;
 import br.edu.ifba.orchestrator.util.RelógioLamport;
 import br.edu.ifba.orchestrator.network.ComunicacaoMulticast;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -9,73 +10,108 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-/**
- * Classe para armazenar metadados do sistema no JSON
- */
-class SistemaMetadados {
-    private int roundRobinIndex;
-    private List<String> workersConectados;
-    private long ultimaAtualizacao;
-    private String liderAtual;
-    
-    public SistemaMetadados() {
-        this.roundRobinIndex = 0;
-        this.workersConectados = new ArrayList<>();
-        this.ultimaAtualizacao = System.currentTimeMillis();
-        this.liderAtual = "orchestrator-principal";
-    }
-    
-    // Getters e Setters
-    public int getRoundRobinIndex() { return roundRobinIndex; }
-    public void setRoundRobinIndex(int roundRobinIndex) { this.roundRobinIndex = roundRobinIndex; }
-    
-    public List<String> getWorkersConectados() { return workersConectados; }
-    public void setWorkersConectados(List<String> workersConectados) { this.workersConectados = workersConectados; }
-    
-    public long getUltimaAtualizacao() { return ultimaAtualizacao; }
-    public void setUltimaAtualizacao(long ultimaAtualizacao) { this.ultimaAtualizacao = ultimaAtualizacao; }
-    
-    public String getLiderAtual() { return liderAtual; }
-    public void setLiderAtual(String liderAtual) { this.liderAtual = liderAtual; }
-}
-
-/**
- * Estrutura completa do arquivo JSON
- */
-class SistemaCompleto {
-    private SistemaMetadados metadados;
-    private List<Tarefa> tarefas;
+public class GerenciadorTarefas {
+    private static final String ARQUIVO_TAREFAS = "tarefas.json";
+    private static final String PREFIXO_LOG_TAREFAS = "tarefas.wal";
     
-    public SistemaCompleto() {
-        this.metadados = new SistemaMetadados();
-        this.tarefas = new ArrayList<>();
-    }
+    // "wal" anexa cada mutação ao log e usa tarefas.json como checkpoint; "json" regrava o arquivo inteiro
+    private static final boolean MODO_WAL = !"json".equalsIgnoreCase(
+            System.getProperty("orquestrador.persistencia.modo", "wal"));
+    private static final long INTERVALO_CHECKPOINT_MS = Long.getLong("orquestrador.wal.checkpointIntervaloMs", 10000L);
+    private static final int LIMITE_REGISTROS_CHECKPOINT = Integer.getInteger("orquestrador.wal.checkpointRegistros", 1000);
     
-    public SistemaMetadados getMetadados() { return metadados; }
-    public void setMetadados(SistemaMetadados metadados) { this.metadados = metadados; }
+    // Durabilidade do log: "requisicao" (fsync por lote), "intervalo" (fsync a cada N ms) ou "sistema" (sem fsync)
+    private static final LogTarefas.ModoFsync MODO_FSYNC = LogTarefas.ModoFsync.deNome(
+            System.getProperty("orquestrador.persistencia.fsync", "requisicao"));
+    private static final long INTERVALO_FSYNC_MS = Long.getLong("orquestrador.persistencia.fsyncIntervaloMs", 5L);
     
-    public List<Tarefa> getTarefas() { return tarefas; }
-    public void setTarefas(List<Tarefa> tarefas) { this.tarefas = tarefas; }
-}
-
-public class GerenciadorTarefas {
-    private static final String ARQUIVO_TAREFAS = "tarefas.json";
     private final Map<String, Tarefa> tarefas;
     private final AtomicLong contadorId;
     private final ObjectMapper objectMapper;
     private RelógioLamport relógioLamport;
+    // Logs por tarefa vão pela saída assíncrona; recriado quando o relógio é definido
+    private LoggerLamport logger = new LoggerLamport("Tarefas", null);
     private ComunicacaoMulticast comunicacaoMulticast;
     private SistemaMetadados metadados;
     
+    // Estado do log de escrita antecipada
+    private final Object travaRegistro = new Object();
+    private final AtomicLong sequenciaRegistros = new AtomicLong(0);
+    private final AtomicInteger registrosDesdeCheckpoint = new AtomicInteger(0);
+    private final AtomicBoolean checkpointEmAndamento = new AtomicBoolean(false);
+    private final LogTarefas logTarefas;
+    private final ScheduledExecutorService agendadorCheckpoint;
+    private volatile CompletableFuture<Long> ultimaGravacao = CompletableFuture.completedFuture(0L);
+    
+    // Registros mais recentes já duráveis, com os mesmos bytes gravados no log, para atender catch-ups de
+    // backups sem reler o log. Um pedido anterior ao início da cauda recebe o estado completo.
+    private static final int LIMITE_CAUDA_REGISTROS = Integer.getInteger("orquestrador.replicacao.caudaRegistros", 10000);
+    private final ArrayDeque<RegistroSerializado> caudaRegistros = new ArrayDeque<>();
+    
+    // Ids das tarefas pendentes sem worker, em ordem de chegada. A fila é derivada do estado
+    // persistido (PENDENTE sem worker responsável), então é reconstruída após reinício ou failover.
+    private final Deque<String> filaPendente = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger tamanhoFilaPendente = new AtomicInteger(0);
+    
+    // Ids em ordem de criação (contador do id), usada como cursor de paginação
+    private static final Comparator<String> ORDEM_CRIACAO =
+            Comparator.comparingLong(GerenciadorTarefas::obterOrdemCriacao).thenComparing(Comparator.naturalOrder());
+    
+    // Índices secundários (status -> ids, worker -> ids e worker -> ids pendentes) e contadores, atualizados
+    // junto com cada mutação sob travaIndices. Consultas por status ou worker custam O(resultado), não O(tabela).
+    // Os índices ordenados servem à paginação; como size() deles é O(n), as contagens usam contadores próprios.
+    private final Object travaIndices = new Object();
+    private final NavigableSet<String> idsEmOrdem = new ConcurrentSkipListSet<>(ORDEM_CRIACAO);
+    private final Map<StatusTarefa, NavigableSet<String>> idsPorStatus = criarIndicePorStatus();
+    private final Map<StatusTarefa, AtomicInteger> contagemPorStatus = criarContagemPorStatus();
+    private final Map<String, NavigableSet<String>> idsPorWorker = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> pendentesPorWorker = new ConcurrentHashMap<>();
+    // Relógio de Lamport e recebimento (epoch ms) -> ids, para filtros por intervalo buscarem só a faixa pedida.
+    // Os dois valores são fixados na criação, então só mudam quando a tarefa entra ou sai da tabela.
+    private final NavigableMap<Long, Set<String>> idsPorLamport = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Long, Set<String>> idsPorRecebimento = new ConcurrentSkipListMap<>();
+    private final AtomicInteger totalRealocacoes = new AtomicInteger(0);
+    
+    // Observadores das transições aplicadas localmente; notificados sob travaIndices, na ordem das mutações,
+    // e por isso devem apenas enfileirar a alteração
+    private final List<Consumer<AlteracaoTarefa>> observadores = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequenciaAlteracoes = new AtomicLong(0);
+    
+    // Chave de idempotência -> tarefa criada. A chave fica gravada na própria tarefa, então o índice é
+    // reconstruído pelo indexar ao carregar o checkpoint, reaplicar o log ou receber o estado replicado.
+    private static final int MAXIMO_CHAVES_IDEMPOTENCIA = Integer.getInteger("orquestrador.idempotencia.maximo", 100000);
+    private static final long VALIDADE_CHAVE_IDEMPOTENCIA_MS = Long.getLong("orquestrador.idempotencia.validadeMs", 24 * 60 * 60 * 1000L);
+    private final IndiceIdempotencia indiceIdempotencia =
+            new IndiceIdempotencia(MAXIMO_CHAVES_IDEMPOTENCIA, VALIDADE_CHAVE_IDEMPOTENCIA_MS);
+    
     public GerenciadorTarefas() {
         this.tarefas = new ConcurrentHashMap<>();
         this.contadorId = new AtomicLong(1);
@@ -83,8 +119,50 @@ public class GerenciadorTarefas {
         this.objectMapper.registerModule(new JavaTimeModule());
         this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
         this.metadados = new SistemaMetadados();
+        this.logTarefas = MODO_WAL ? new LogTarefas(PREFIXO_LOG_TAREFAS, MODO_FSYNC, INTERVALO_FSYNC_MS) : null;
+        if (logTarefas != null) {
+            logTarefas.definirOuvinteDuraveis(this::publicarRegistro);
+        }
         
         carregarTarefasDoArquivo();
+        refazerFilaPendente();
+        
+        if (MODO_WAL) {
+            this.agendadorCheckpoint = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "checkpoint-tarefas");
+                thread.setDaemon(true);
+                return thread;
+            });
+            agendadorCheckpoint.scheduleWithFixedDelay(this::executarCheckpoint,
+                    INTERVALO_CHECKPOINT_MS, INTERVALO_CHECKPOINT_MS, TimeUnit.MILLISECONDS);
+            System.out.println("[WAL] Persistência em log ativa - fsync " + MODO_FSYNC.name().toLowerCase() +
+                              ", checkpoint a cada " + INTERVALO_CHECKPOINT_MS + "ms ou " + LIMITE_REGISTROS_CHECKPOINT +
+                              " registros (no mínimo o número de tarefas)");
+        } else {
+            this.agendadorCheckpoint = null;
+        }
+    }
+    
+    /**
+     * Futuro concluído quando todas as mutações registradas até agora estiverem duráveis.
+     * Como o log é gravado em ordem, basta aguardar o último registro anexado.
+     */
+    public CompletableFuture<Void> confirmarPersistencia() {
+        if (!MODO_WAL) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return ultimaGravacao.thenApply(sequencia -> null);
+    }
+    
+    /**
+     * Grava um checkpoint final e fecha o log
+     */
+    public void parar() {
+        if (agendadorCheckpoint != null) {
+            agendadorCheckpoint.shutdown();
+            executarCheckpoint();
+            logTarefas.fechar();
+        }
     }
     
     /**
@@ -92,6 +170,7 @@ public class GerenciadorTarefas {
      */
     public void setRelógioLamport(RelógioLamport relógioLamport) {
         this.relógioLamport = relógioLamport;
+        this.logger = new LoggerLamport("Tarefas", relógioLamport);
     }
     
     /**
@@ -106,7 +185,7 @@ public class GerenciadorTarefas {
      */
     public void recarregarTarefas() {
         try {
-            tarefas.clear();
+            limparTarefasEIndices();
             carregarTarefasDoArquivo();
             System.out.println("[SYNC] Tarefas recarregadas - Total: " + tarefas.size());
         } catch (Exception e) {
@@ -118,11 +197,15 @@ public class GerenciadorTarefas {
      * Atualiza o estado do round-robin nos metadados
      */
     public void atualizarEstadoRoundRobin(int roundRobinIndex, List<String> workersConectados) {
-        metadados.setRoundRobinIndex(roundRobinIndex);
-        metadados.setWorkersConectados(new ArrayList<>(workersConectados));
-        metadados.setUltimaAtualizacao(System.currentTimeMillis());
-        salvarTarefasNoArquivo();
-        System.out.println("[ROUND-ROBIN] Estado atualizado - Índice: " + roundRobinIndex + ", Workers: " + workersConectados);
+        // A cópia guardada nos metadados não é mais alterada, então pode ir para o log assíncrono
+        List<String> copiaWorkers = new ArrayList<>(workersConectados);
+        synchronized (travaRegistro) {
+            metadados.setRoundRobinIndex(roundRobinIndex);
+            metadados.setWorkersConectados(copiaWorkers);
+            metadados.setUltimaAtualizacao(System.currentTimeMillis());
+            registrarMutacao(RegistroLog.deMetadados(metadados.copiar()));
+        }
+        logger.info("[ROUND-ROBIN] Estado atualizado - Índice: %d, Workers: %s", roundRobinIndex, copiaWorkers);
     }
     
     /**
@@ -157,65 +240,267 @@ public class GerenciadorTarefas {
     public SistemaMetadados getMetadados() { return obterMetadados(); }
     
     public Tarefa criarTarefa(String titulo, String descricao) {
+        return criarTarefa(titulo, descricao, null);
+    }
+    
+    /**
+     * Cria a tarefa associada à chave de idempotência (opcional).
+     * @return a tarefa criada, ou null se a chave já pertence a outra tarefa
+     */
+    public Tarefa criarTarefa(String titulo, String descricao, String chaveIdempotencia) {
+        if (obterTarefaIdPorChave(chaveIdempotencia) != null) {
+            return null;
+        }
+        Tarefa tarefa = novaTarefa(titulo, descricao, chaveIdempotencia);
+        synchronized (travaRegistro) {
+            synchronized (travaIndices) {
+                if (!reservarChave(tarefa)) {
+                    return null;
+                }
+                armazenar(tarefa);
+                publicarAlteracao(AlteracaoTarefa.TipoAlteracao.CRIADA, tarefa);
+            }
+            registrarMutacao(RegistroLog.deTarefa(tarefa));
+        }
+        
+        logger.info("Nova tarefa criada: %s '%s'", tarefa.obterIdentificador(), tarefa.obterTitulo());
+        return tarefa;
+    }
+    
+    /**
+     * Cria um lote de tarefas, na ordem recebida, persistindo todas em uma única passada
+     * (registros consecutivos no log ou uma só regravação do JSON)
+     */
+    public List<Tarefa> criarTarefas(List<String> titulos, List<String> descricoes) {
+        return criarTarefas(titulos, descricoes, Collections.nCopies(titulos.size(), null));
+    }
+    
+    /**
+     * Como criarTarefas, com uma chave de idempotência (ou null) por item. Itens cuja chave já pertence
+     * a uma tarefa, inclusive a outro item do mesmo lote, ficam null na lista devolvida.
+     */
+    public List<Tarefa> criarTarefas(List<String> titulos, List<String> descricoes, List<String> chavesIdempotencia) {
+        List<Tarefa> criadas = new ArrayList<>(titulos.size());
+        List<RegistroLog> registros = new ArrayList<>(titulos.size());
+        synchronized (travaRegistro) {
+            for (int i = 0; i < titulos.size(); i++) {
+                String chave = chavesIdempotencia.get(i);
+                if (obterTarefaIdPorChave(chave) != null) {
+                    criadas.add(null);
+                    continue;
+                }
+                Tarefa tarefa = novaTarefa(titulos.get(i), descricoes.get(i), chave);
+                synchronized (travaIndices) {
+                    if (!reservarChave(tarefa)) {
+                        criadas.add(null);
+                        continue;
+                    }
+                    armazenar(tarefa);
+                    publicarAlteracao(AlteracaoTarefa.TipoAlteracao.CRIADA, tarefa);
+                }
+                criadas.add(tarefa);
+                registros.add(RegistroLog.deTarefa(tarefa));
+            }
+            registrarMutacoes(registros);
+        }
+        
+        logger.info("Lote de %d tarefas criado", registros.size());
+        return criadas;
+    }
+    
+    /**
+     * Id da tarefa criada com a chave de idempotência, ou null (chave ausente, desconhecida ou expirada). O(1).
+     */
+    public String obterTarefaIdPorChave(String chaveIdempotencia) {
+        if (chaveIdempotencia == null || chaveIdempotencia.isEmpty()) {
+            return null;
+        }
+        return indiceIdempotencia.obterTarefaId(chaveIdempotencia);
+    }
+    
+    // Exige travaIndices: confirma, no mesmo passo que armazena, que nenhuma requisição concorrente usou a chave
+    private boolean reservarChave(Tarefa tarefa) {
+        String existente = obterTarefaIdPorChave(tarefa.obterChaveIdempotencia());
+        if (existente != null && !existente.equals(tarefa.obterIdentificador())) {
+            logger.info("[IDEMPOTENCIA] Chave %s já usada pela tarefa %s", tarefa.obterChaveIdempotencia(), existente);
+            return false;
+        }
+        return true;
+    }
+    
+    private Tarefa novaTarefa(String titulo, String descricao, String chaveIdempotencia) {
         String id = gerarIdTarefa();
         Tarefa tarefa = new Tarefa(id, titulo, descricao);
         tarefa.definirHorarioRecebimento(LocalDateTime.now());
+        if (chaveIdempotencia != null && !chaveIdempotencia.isEmpty()) {
+            tarefa.definirChaveIdempotencia(chaveIdempotencia);
+        }
         
         // Adiciona timestamp Lamport se disponível
         if (relógioLamport != null) {
             long lamportTimestamp = relógioLamport.tick();
             tarefa.definirClockLamport(lamportTimestamp);
-            System.out.println("[LAMPORT] Nova tarefa criada: " + id + " [Lamport:" + lamportTimestamp + "]");
+            logger.info("[LAMPORT] Nova tarefa criada: %s [Lamport:%d]", id, lamportTimestamp);
         }
-        
-        tarefas.put(id, tarefa);
-        salvarTarefasNoArquivo();
-        
-        System.out.println("Nova tarefa criada: " + tarefa);
         return tarefa;
     }
     
-    public void finalizarTarefa(String tarefaId, String workerId) {
+    /**
+     * Marca a tarefa como finalizada.
+     * @return true se a tarefa estava pendente (false para tarefa desconhecida ou conclusão repetida)
+     */
+    public boolean finalizarTarefa(String tarefaId, String workerId) {
         Tarefa tarefa = tarefas.get(tarefaId);
         if (tarefa != null) {
-            tarefa.definirStatus(StatusTarefa.FINALIZADA);
-            System.out.println("Tarefa " + tarefaId + " finalizada pelo worker " + workerId);
-            salvarTarefasNoArquivo();
+            boolean estavaPendente;
+            synchronized (travaRegistro) {
+                synchronized (travaIndices) {
+                    estavaPendente = tarefa.obterStatus() == StatusTarefa.PENDENTE;
+                    desindexar(tarefa);
+                    tarefa.definirStatus(StatusTarefa.FINALIZADA);
+                    indexar(tarefa);
+                    if (estavaPendente) {
+                        publicarAlteracao(AlteracaoTarefa.TipoAlteracao.FINALIZADA, tarefa);
+                    }
+                }
+                registrarMutacao(RegistroLog.deTarefa(tarefa));
+            }
+            logger.info("Tarefa %s finalizada pelo worker %s", tarefaId, workerId);
+            return estavaPendente;
         } else {
             System.err.println("Tarefa não encontrada: " + tarefaId);
+            return false;
         }
     }
     
     public void atribuirTarefaAoWorker(String tarefaId, String workerId) {
         Tarefa tarefa = tarefas.get(tarefaId);
         if (tarefa != null) {
-            // Se a tarefa já tinha um worker responsável, incrementar contador de realocação
-            if (tarefa.getWorkerResponsavel() != null && !tarefa.getWorkerResponsavel().equals(workerId)) {
-                tarefa.incrementarRealocada();
-                System.out.println("Tarefa " + tarefaId + " realocada de " + tarefa.getWorkerResponsavel() + " para " + workerId);
+            synchronized (travaRegistro) {
+                synchronized (travaIndices) {
+                    String workerAnterior = tarefa.obterWorkerResponsavel();
+                    desindexar(tarefa);
+                    // Se a tarefa já tinha um worker responsável, incrementar contador de realocação
+                    if (workerAnterior != null && !workerAnterior.equals(workerId)) {
+                        tarefa.incrementarRealocada();
+                        logger.info("Tarefa %s realocada de %s para %s", tarefaId, workerAnterior, workerId);
+                    }
+                
+                    tarefa.definirWorkerResponsavel(workerId);
+                    indexar(tarefa);
+                    if (workerAnterior == null) {
+                        publicarAlteracao(AlteracaoTarefa.TipoAlteracao.ATRIBUIDA, tarefa);
+                    } else if (!workerAnterior.equals(workerId)) {
+                        publicarAlteracao(AlteracaoTarefa.TipoAlteracao.REALOCADA, tarefa);
+                    }
+                }
+                registrarMutacao(RegistroLog.deTarefa(tarefa));
             }
-            
-            tarefa.definirWorkerResponsavel(workerId);
-            salvarTarefasNoArquivo();
+        }
+    }
+    
+    /**
+     * Desfaz a atribuição de uma tarefa cujo envio ao worker falhou, para que ela volte a ser
+     * despachável pela fila pendente (que descarta tarefas com worker responsável)
+     */
+    public void desfazerAtribuicao(String tarefaId, String workerId) {
+        Tarefa tarefa = tarefas.get(tarefaId);
+        if (tarefa == null) {
+            return;
+        }
+        synchronized (travaRegistro) {
+            synchronized (travaIndices) {
+                if (tarefa.obterStatus() != StatusTarefa.PENDENTE || !workerId.equals(tarefa.obterWorkerResponsavel())) {
+                    return;
+                }
+                desindexar(tarefa);
+                tarefa.definirWorkerResponsavel(null);
+                indexar(tarefa);
+                publicarAlteracao(AlteracaoTarefa.TipoAlteracao.DEVOLVIDA, tarefa);
+            }
+            registrarMutacao(RegistroLog.deTarefa(tarefa));
         }
     }
     
     public List<Tarefa> obterTarefasPorWorker(String workerId) {
-        return tarefas.values().stream()
-                .filter(tarefa -> workerId.equals(tarefa.getWorkerResponsavel()))
-                .filter(tarefa -> tarefa.getStatus() == StatusTarefa.PENDENTE)
+        Set<String> ids = pendentesPorWorker.get(workerId);
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        return ids.stream()
+                .map(tarefas::get)
+                .filter(tarefa -> tarefa != null && tarefa.obterStatus() == StatusTarefa.PENDENTE)
+                .filter(tarefa -> workerId.equals(tarefa.obterWorkerResponsavel()))
                 .collect(Collectors.toList());
     }
     
     public List<Tarefa> obterTarefasPendentes() {
-        return tarefas.values().stream()
-                .filter(tarefa -> tarefa.getStatus() == StatusTarefa.PENDENTE)
-                .collect(Collectors.toList());
+        return obterTarefasComStatus(StatusTarefa.PENDENTE);
     }
     
     public List<Tarefa> obterTarefasFinalizadas() {
-        return tarefas.values().stream()
-                .filter(tarefa -> tarefa.getStatus() == StatusTarefa.FINALIZADA)
+        return obterTarefasComStatus(StatusTarefa.FINALIZADA);
+    }
+    
+    /**
+     * Número de tarefas com o status informado, sem percorrer a tabela
+     */
+    public int contarTarefas(StatusTarefa status) {
+        return contagemPorStatus.get(status).get();
+    }
+    
+    /**
+     * Número de tarefas pendentes atribuídas ao worker, sem percorrer a tabela
+     */
+    public int contarTarefasPorWorker(String workerId) {
+        Set<String> ids = pendentesPorWorker.get(workerId);
+        return ids != null ? ids.size() : 0;
+    }
+    
+    /**
+     * Percorre sob demanda, em ordem de criação, as tarefas que atendem ao filtro e vêm depois do cursor.
+     * O índice mais restrito (worker, intervalo de Lamport ou de recebimento, status ou todos) é escolhido.
+     * Com intervalo, só os ids da faixa são ordenados por criação; nos demais casos nada é materializado.
+     * @param cursor id da última tarefa já entregue, ou null para começar do início
+     */
+    public Stream<Tarefa> percorrerTarefas(FiltroTarefas filtro, String cursor) {
+        NavigableSet<String> indice;
+        if (filtro.obterWorkerId() != null) {
+            indice = idsPorWorker.get(filtro.obterWorkerId());
+            if (indice == null) {
+                return Stream.empty();
+            }
+        } else if (filtro.temIntervaloLamport()) {
+            indice = idsNoIntervalo(idsPorLamport, filtro.obterLamportMinimo(), filtro.obterLamportMaximo());
+        } else if (filtro.temIntervaloRecebimento()) {
+            indice = idsNoIntervalo(idsPorRecebimento, filtro.obterRecebidaDesde(), filtro.obterRecebidaAte());
+        } else if (filtro.obterStatus() != null) {
+            indice = idsPorStatus.get(filtro.obterStatus());
+        } else {
+            indice = idsEmOrdem;
+        }
+        
+        NavigableSet<String> aPartirDoCursor = cursor == null || cursor.isEmpty() ? indice : indice.tailSet(cursor, false);
+        return aPartirDoCursor.stream()
+                .map(tarefas::get)
+                .filter(tarefa -> tarefa != null && filtro.aceita(tarefa));
+    }
+    
+    // Ids com chave em [minimo, maximo] (0 = sem limite), em ordem de criação
+    private static NavigableSet<String> idsNoIntervalo(NavigableMap<Long, Set<String>> indice, long minimo, long maximo) {
+        long inicio = minimo > 0 ? minimo : Long.MIN_VALUE;
+        long fim = maximo > 0 ? maximo : Long.MAX_VALUE;
+        NavigableSet<String> ids = new TreeSet<>(ORDEM_CRIACAO);
+        if (inicio <= fim) {
+            indice.subMap(inicio, true, fim, true).values().forEach(ids::addAll);
+        }
+        return ids;
+    }
+    
+    private List<Tarefa> obterTarefasComStatus(StatusTarefa status) {
+        return idsPorStatus.get(status).stream()
+                .map(tarefas::get)
+                .filter(tarefa -> tarefa != null && tarefa.obterStatus() == status)
                 .collect(Collectors.toList());
     }
     
@@ -243,7 +528,7 @@ public class GerenciadorTarefas {
             return;
         }
         
-        List<Tarefa> tarefasParaRealocar = getTarefasPorWorker(workerDesconectado);
+        List<Tarefa> tarefasParaRealocar = obterTarefasPorWorker(workerDesconectado);
         
         if (tarefasParaRealocar.isEmpty()) {
             System.out.println("Worker " + workerDesconectado + " não tinha tarefas pendentes");
@@ -256,27 +541,113 @@ public class GerenciadorTarefas {
         int workerIndex = 0;
         for (Tarefa tarefa : tarefasParaRealocar) {
             String novoWorker = workersDisponiveis.get(workerIndex % workersDisponiveis.size());
-            atribuirTarefaAoWorker(tarefa.getId(), novoWorker);
+            atribuirTarefaAoWorker(tarefa.obterIdentificador(), novoWorker);
             workerIndex++;
         }
+    }
+    
+    /**
+     * Coloca uma tarefa recém-criada, ainda sem worker, no fim da fila pendente
+     */
+    public void enfileirarPendente(Tarefa tarefa) {
+        filaPendente.addLast(tarefa.obterIdentificador());
+        tamanhoFilaPendente.incrementAndGet();
+    }
+    
+    /**
+     * Devolve tarefas ao início da fila pendente, mantendo a ordem entre elas.
+     * O worker responsável é removido (e registrado no log) para que a devolução sobreviva a um failover.
+     */
+    public void devolverParaFilaPendente(List<Tarefa> tarefasDevolvidas) {
+        for (int i = tarefasDevolvidas.size() - 1; i >= 0; i--) {
+            Tarefa tarefa = tarefasDevolvidas.get(i);
+            synchronized (travaRegistro) {
+                if (tarefa.obterWorkerResponsavel() != null) {
+                    synchronized (travaIndices) {
+                        desindexar(tarefa);
+                        tarefa.definirWorkerResponsavel(null);
+                        indexar(tarefa);
+                        publicarAlteracao(AlteracaoTarefa.TipoAlteracao.DEVOLVIDA, tarefa);
+                    }
+                    registrarMutacao(RegistroLog.deTarefa(tarefa));
+                }
+            }
+            filaPendente.addFirst(tarefa.obterIdentificador());
+            tamanhoFilaPendente.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Retira a próxima tarefa da fila pendente, descartando as que já foram atribuídas ou finalizadas
+     * @return null se a fila estiver vazia
+     */
+    public Tarefa retirarProximaPendente() {
+        String tarefaId;
+        while ((tarefaId = filaPendente.pollFirst()) != null) {
+            tamanhoFilaPendente.decrementAndGet();
+            Tarefa tarefa = tarefas.get(tarefaId);
+            if (tarefa != null && tarefa.obterStatus() == StatusTarefa.PENDENTE && tarefa.obterWorkerResponsavel() == null) {
+                return tarefa;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Recoloca no início da fila uma tarefa retirada que não pôde ser despachada
+     */
+    public void recolocarNoInicio(Tarefa tarefa) {
+        filaPendente.addFirst(tarefa.obterIdentificador());
+        tamanhoFilaPendente.incrementAndGet();
+    }
+    
+    public boolean temTarefasNaFilaPendente() {
+        return !filaPendente.isEmpty();
+    }
+    
+    public int obterTamanhoFilaPendente() {
+        return tamanhoFilaPendente.get();
+    }
+    
+    /**
+     * Refaz a fila pendente a partir das tarefas pendentes sem worker (carga do disco ou failover)
+     */
+    public void reconstruirFilaPendente() {
+        refazerFilaPendente();
+    }
+    
+    // Privado (e só com chamadas privadas) porque também roda no construtor
+    private void refazerFilaPendente() {
+        List<Tarefa> semWorker = obterTarefasComStatus(StatusTarefa.PENDENTE).stream()
+                .filter(tarefa -> tarefa.obterWorkerResponsavel() == null)
+                .sorted(Comparator.comparing(Tarefa::obterHorarioRecebimento, Comparator.nullsFirst(Comparator.naturalOrder()))
+                        .thenComparing(Tarefa::obterIdentificador))
+                .collect(Collectors.toList());
         
-        salvarTarefasNoArquivo();
+        filaPendente.clear();
+        tamanhoFilaPendente.set(0);
+        for (Tarefa tarefa : semWorker) {
+            filaPendente.addLast(tarefa.obterIdentificador());
+            tamanhoFilaPendente.incrementAndGet();
+        }
+        if (!semWorker.isEmpty()) {
+            System.out.println("[FILA] " + semWorker.size() + " tarefas pendentes sem worker aguardando despacho");
+        }
     }
     
     public Map<String, Integer> obterEstatisticas() {
         Map<String, Integer> stats = new HashMap<>();
         
         int totalTarefas = tarefas.size();
-        int tarefasPendentes = obterTarefasPendentes().size();
-        int tarefasFinalizadas = obterTarefasFinalizadas().size();
-        int tarefasRealocadas = (int) tarefas.values().stream()
-                .mapToInt(Tarefa::getRealocada)
-                .sum();
+        int tarefasPendentes = contarTarefas(StatusTarefa.PENDENTE);
+        int tarefasFinalizadas = contarTarefas(StatusTarefa.FINALIZADA);
+        int tarefasRealocadas = totalRealocacoes.get();
         
         stats.put("total", totalTarefas);
         stats.put("pendentes", tarefasPendentes);
         stats.put("finalizadas", tarefasFinalizadas);
         stats.put("realocadas", tarefasRealocadas);
+        stats.put("naFila", obterTamanhoFilaPendente());
         
         return stats;
     }
@@ -285,8 +656,8 @@ public class GerenciadorTarefas {
         Map<String, Object> stats = new HashMap<>();
         
         int totalTarefas = tarefas.size();
-        int tarefasPendentes = obterTarefasPendentes().size();
-        int tarefasFinalizadas = obterTarefasFinalizadas().size();
+        int tarefasPendentes = contarTarefas(StatusTarefa.PENDENTE);
+        int tarefasFinalizadas = contarTarefas(StatusTarefa.FINALIZADA);
         
         stats.put("total_tarefas", totalTarefas);
         stats.put("tarefas_pendentes", tarefasPendentes);
@@ -300,9 +671,9 @@ public class GerenciadorTarefas {
         
         // Estatísticas por worker
         Map<String, Long> tarefasPorWorker = tarefas.values().stream()
-                .filter(t -> t.getWorkerResponsavel() != null)
+                .filter(t -> t.obterWorkerResponsavel() != null)
                 .collect(Collectors.groupingBy(
-                    Tarefa::getWorkerResponsavel,
+                    Tarefa::obterWorkerResponsavel,
                     Collectors.counting()
                 ));
         stats.put("tarefas_por_worker", tarefasPorWorker);
@@ -310,10 +681,484 @@ public class GerenciadorTarefas {
         return stats;
     }
     
+    /**
+     * Registra um observador das transições de tarefas aplicadas por este gerenciador
+     * (criação, atribuição, realocação, devolução à fila e finalização). Registros reaplicados
+     * do log ou replicados do principal não geram notificações.
+     */
+    public void adicionarObservador(Consumer<AlteracaoTarefa> observador) {
+        observadores.add(observador);
+    }
+    
+    public void removerObservador(Consumer<AlteracaoTarefa> observador) {
+        observadores.remove(observador);
+    }
+    
+    /**
+     * Sequência da última alteração publicada aos observadores
+     */
+    public long obterSequenciaAlteracoes() {
+        return sequenciaAlteracoes.get();
+    }
+    
+    // Exige travaIndices, para que a sequência siga a ordem das mutações
+    private void publicarAlteracao(AlteracaoTarefa.TipoAlteracao tipo, Tarefa tarefa) {
+        if (observadores.isEmpty()) {
+            return;
+        }
+        AlteracaoTarefa alteracao = new AlteracaoTarefa(tipo, sequenciaAlteracoes.incrementAndGet(), tarefa.copiar());
+        for (Consumer<AlteracaoTarefa> observador : observadores) {
+            try {
+                observador.accept(alteracao);
+            } catch (Exception e) {
+                System.err.println("[OBSERVACAO] Erro ao notificar alteração da tarefa " + tarefa.obterIdentificador() + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    private static Map<StatusTarefa, NavigableSet<String>> criarIndicePorStatus() {
+        Map<StatusTarefa, NavigableSet<String>> indice = new EnumMap<>(StatusTarefa.class);
+        for (StatusTarefa status : StatusTarefa.values()) {
+            indice.put(status, new ConcurrentSkipListSet<>(ORDEM_CRIACAO));
+        }
+        return indice;
+    }
+    
+    private static Map<StatusTarefa, AtomicInteger> criarContagemPorStatus() {
+        Map<StatusTarefa, AtomicInteger> contagem = new EnumMap<>(StatusTarefa.class);
+        for (StatusTarefa status : StatusTarefa.values()) {
+            contagem.put(status, new AtomicInteger(0));
+        }
+        return contagem;
+    }
+    
+    /**
+     * Contador embutido no id ("task-<ms>-<contador>"); ids fora do padrão ficam no início
+     */
+    private static long obterOrdemCriacao(String tarefaId) {
+        try {
+            return Long.parseLong(tarefaId.substring(tarefaId.lastIndexOf('-') + 1));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+    
+    /**
+     * Insere ou substitui a tarefa na tabela, mantendo os índices coerentes
+     */
+    // idsEmOrdem só muda quando a tarefa entra ou sai da tabela: mudanças de status ou worker não a
+    // retiram do índice, e um percurso concorrente (paginação, stream) não deixa de vê-la
+    private void armazenar(Tarefa tarefa) {
+        synchronized (travaIndices) {
+            Tarefa anterior = tarefas.put(tarefa.obterIdentificador(), tarefa);
+            if (anterior != null) {
+                desindexar(anterior);
+                if (anterior.obterClockLamport() != tarefa.obterClockLamport()
+                        || FiltroTarefas.obterMarcaTempoRecebimento(anterior) != FiltroTarefas.obterMarcaTempoRecebimento(tarefa)) {
+                    desindexarIntervalos(anterior);
+                    indexarIntervalos(tarefa);
+                }
+            } else {
+                idsEmOrdem.add(tarefa.obterIdentificador());
+                indexarIntervalos(tarefa);
+            }
+            indexar(tarefa);
+        }
+    }
+    
+    private void remover(String tarefaId) {
+        synchronized (travaIndices) {
+            Tarefa removida = tarefas.remove(tarefaId);
+            if (removida != null) {
+                idsEmOrdem.remove(tarefaId);
+                desindexarIntervalos(removida);
+                desindexar(removida);
+            }
+        }
+    }
+    
+    private void limparTarefasEIndices() {
+        synchronized (travaIndices) {
+            tarefas.clear();
+            idsEmOrdem.clear();
+            idsPorLamport.clear();
+            idsPorRecebimento.clear();
+            idsPorStatus.values().forEach(Set::clear);
+            contagemPorStatus.values().forEach(contagem -> contagem.set(0));
+            idsPorWorker.clear();
+            pendentesPorWorker.clear();
+            totalRealocacoes.set(0);
+            indiceIdempotencia.limpar();
+        }
+    }
+    
+    // indexar/desindexar exigem travaIndices; a tarefa não pode ser alterada entre os dois.
+    // Cuidam dos índices que dependem de status e worker; idsEmOrdem fica com armazenar/remover.
+    private void indexar(Tarefa tarefa) {
+        if (idsPorStatus.get(tarefa.obterStatus()).add(tarefa.obterIdentificador())) {
+            contagemPorStatus.get(tarefa.obterStatus()).incrementAndGet();
+        }
+        if (tarefa.obterWorkerResponsavel() != null) {
+            idsPorWorker.computeIfAbsent(tarefa.obterWorkerResponsavel(), w -> new ConcurrentSkipListSet<>(ORDEM_CRIACAO))
+                    .add(tarefa.obterIdentificador());
+            if (tarefa.obterStatus() == StatusTarefa.PENDENTE) {
+                pendentesPorWorker.computeIfAbsent(tarefa.obterWorkerResponsavel(), w -> ConcurrentHashMap.newKeySet())
+                        .add(tarefa.obterIdentificador());
+            }
+        }
+        totalRealocacoes.addAndGet(tarefa.obterRealocada());
+        // A chave continua no índice depois que a tarefa sai da tabela, até expirar ou ser descartada
+        if (tarefa.obterChaveIdempotencia() != null) {
+            indiceIdempotencia.registrar(tarefa.obterChaveIdempotencia(), tarefa.obterIdentificador(),
+                    FiltroTarefas.obterMarcaTempoRecebimento(tarefa));
+        }
+    }
+    
+    private void desindexar(Tarefa tarefa) {
+        if (idsPorStatus.get(tarefa.obterStatus()).remove(tarefa.obterIdentificador())) {
+            contagemPorStatus.get(tarefa.obterStatus()).decrementAndGet();
+        }
+        if (tarefa.obterWorkerResponsavel() != null) {
+            removerDoIndice(idsPorWorker, tarefa.obterWorkerResponsavel(), tarefa.obterIdentificador());
+            removerDoIndice(pendentesPorWorker, tarefa.obterWorkerResponsavel(), tarefa.obterIdentificador());
+        }
+        totalRealocacoes.addAndGet(-tarefa.obterRealocada());
+    }
+    
+    private void indexarIntervalos(Tarefa tarefa) {
+        idsPorLamport.computeIfAbsent(tarefa.obterClockLamport(), c -> ConcurrentHashMap.newKeySet())
+                .add(tarefa.obterIdentificador());
+        idsPorRecebimento.computeIfAbsent(FiltroTarefas.obterMarcaTempoRecebimento(tarefa), r -> ConcurrentHashMap.newKeySet())
+                .add(tarefa.obterIdentificador());
+    }
+    
+    private void desindexarIntervalos(Tarefa tarefa) {
+        removerDoIndice(idsPorLamport, tarefa.obterClockLamport(), tarefa.obterIdentificador());
+        removerDoIndice(idsPorRecebimento, FiltroTarefas.obterMarcaTempoRecebimento(tarefa), tarefa.obterIdentificador());
+    }
+    
+    private static <K> void removerDoIndice(Map<K, ? extends Set<String>> indice, K chave, String tarefaId) {
+        Set<String> ids = indice.get(chave);
+        if (ids != null) {
+            ids.remove(tarefaId);
+            if (ids.isEmpty()) {
+                indice.remove(chave);
+            }
+        }
+    }
+    
     private String gerarIdTarefa() {
         return "task-" + System.currentTimeMillis() + "-" + contadorId.getAndIncrement();
     }
     
+    /**
+     * Persiste uma mutação: no modo WAL anexa um registro ao log, senão regrava o JSON completo.
+     * Deve ser chamado com travaRegistro, tomada antes da própria mutação.
+     */
+    private void registrarMutacao(RegistroLog registro) {
+        registrarMutacoes(Collections.singletonList(registro));
+    }
+    
+    /**
+     * Persiste várias mutações com sequências consecutivas: no modo JSON o arquivo é regravado uma única vez.
+     *
+     * Como toda mutação segura travaRegistro desde a alteração até aqui, a sequência segue a ordem das
+     * mutações e o registro é serializado com o estado daquele momento. Os mesmos bytes vão para o log e,
+ * quando duráveis, para os backups (publicarRegistro, na thread de persistência e em ordem de sequência).
+     *
+     * A sequência só é consumida depois que o registro foi serializado, então uma falha não abre lacuna
+     * e os demais registros do lote seguem para o log. A falha faz confirmarPersistencia falhar (a
+     * requisição em curso informa o erro) e agenda um checkpoint, que grava a mutação pelo estado completo.
+     */
+    private void registrarMutacoes(List<RegistroLog> registros) {
+        if (registros.isEmpty()) {
+            return;
+        }
+        
+        int anexados = 0;
+        IOException falha = null;
+        synchronized (travaRegistro) {
+            for (RegistroLog registro : registros) {
+                long sequencia = sequenciaRegistros.get() + 1;
+                registro.definirSequencia(sequencia);
+                byte[] json;
+                try {
+                    json = objectMapper.writeValueAsBytes(registro);
+                } catch (IOException e) {
+                    System.err.println("[WAL] Erro ao serializar mutação " + registro + ": " + e.getMessage());
+                    falha = e;
+                    continue;
+                }
+                sequenciaRegistros.set(sequencia);
+                if (MODO_WAL) {
+                    ultimaGravacao = logTarefas.anexar(sequencia, json);
+                } else {
+                    // Sem log não há ponto de durabilidade: publica na ordem da sequência
+                    publicarRegistro(json, sequencia);
+                }
+                anexados++;
+            }
+            if (MODO_WAL && falha != null) {
+                ultimaGravacao = CompletableFuture.failedFuture(falha);
+            }
+            if (!MODO_WAL) {
+                salvarTarefasNoArquivo();
+            }
+        }
+        if (MODO_WAL && falha != null) {
+            solicitarCheckpoint();
+        }
+        
+        // O retrato custa O(tabela); com o limite crescendo junto com a tabela, o custo por registro fica constante
+        if (MODO_WAL && anexados > 0
+                && registrosDesdeCheckpoint.addAndGet(anexados) >= Math.max(LIMITE_REGISTROS_CHECKPOINT, tarefas.size())) {
+            solicitarCheckpoint();
+        }
+    }
+    
+    /**
+     * Registro durável (ou, no modo JSON, recém-registrado): entra na cauda de catch-up e vai para os backups
+     */
+    private void publicarRegistro(byte[] json, long sequencia) {
+        synchronized (caudaRegistros) {
+            caudaRegistros.addLast(new RegistroSerializado(sequencia, json));
+            if (caudaRegistros.size() > LIMITE_CAUDA_REGISTROS) {
+                caudaRegistros.pollFirst();
+            }
+        }
+        notificarDeltaParaBackups(sequencia, json);
+    }
+    
+    /**
+     * Agenda um checkpoint, mesmo que nenhuma mutação local tenha sido registrada
+     * (usado quando um backup assume a liderança com estado replicado)
+     */
+    public void solicitarCheckpoint() {
+        if (!MODO_WAL || checkpointEmAndamento.get()) {
+            return;
+        }
+        registrosDesdeCheckpoint.compareAndSet(0, 1);
+        try {
+            agendadorCheckpoint.execute(this::executarCheckpoint);
+        } catch (RejectedExecutionException e) {
+            // Gerenciador sendo encerrado - o checkpoint final é feito em parar()
+        }
+    }
+    
+    /**
+     * Sequência do último registro aplicado (local ou replicado)
+     */
+    public long obterUltimaSequencia() {
+        return sequenciaRegistros.get();
+    }
+    
+    /**
+     * Aplica um registro recebido do principal. Deve ser chamado em ordem de sequência.
+     * @return false se o registro já havia sido aplicado
+     */
+    boolean aplicarRegistroReplicado(RegistroLog registro) {
+        synchronized (travaRegistro) {
+            if (registro.obterSequencia() <= sequenciaRegistros.get()) {
+                return false;
+            }
+            aplicarRegistro(registro);
+            sequenciaRegistros.set(registro.obterSequencia());
+            return true;
+        }
+    }
+    
+    /**
+     * Registros duráveis com sequência maior que a informada, para reenviar a um backup atrasado.
+     * Vêm da cauda em memória e param na primeira lacuna (registro cuja gravação falhou).
+     * @return null se a cauda não cobre mais o intervalo e é preciso transferir o estado completo
+     */
+    List<RegistroSerializado> obterRegistrosDesde(long sequencia, int limite) {
+        if (sequencia >= sequenciaRegistros.get()) {
+            return Collections.emptyList();
+        }
+        
+        List<RegistroSerializado> registros = new ArrayList<>();
+        synchronized (caudaRegistros) {
+            if (caudaRegistros.isEmpty() || caudaRegistros.peekFirst().sequencia > sequencia + 1) {
+                return null;
+            }
+            // A cauda está em ordem crescente: percorre de trás para frente só até a sequência pedida
+            Iterator<RegistroSerializado> iterador = caudaRegistros.descendingIterator();
+            while (iterador.hasNext()) {
+                RegistroSerializado registro = iterador.next();
+                if (registro.sequencia <= sequencia) {
+                    break;
+                }
+                registros.add(registro);
+            }
+        }
+        Collections.reverse(registros);
+        
+        int contiguos = 0;
+        long esperada = sequencia + 1;
+        while (contiguos < registros.size() && contiguos < limite && registros.get(contiguos).sequencia == esperada) {
+            contiguos++;
+            esperada++;
+        }
+        return contiguos == 0 ? null : registros.subList(0, contiguos);
+    }
+    
+    /**
+     * Serializa o estado completo com a sequência que ele representa
+     */
+    String exportarEstado() throws IOException {
+        SistemaCompleto retrato;
+        synchronized (travaRegistro) {
+            retrato = retratarSistema(sequenciaRegistros.get());
+        }
+        return new String(objectMapper.writeValueAsBytes(retrato), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Substitui o estado em memória pelo estado completo recebido do principal
+     */
+    void importarEstado(String conteudoJson) throws IOException {
+        SistemaCompleto sistemaCompleto = objectMapper.readValue(conteudoJson, SistemaCompleto.class);
+        synchronized (travaRegistro) {
+            if (sistemaCompleto.getUltimaSequencia() <= sequenciaRegistros.get()) {
+                return;
+            }
+            limparTarefasEIndices();
+            if (sistemaCompleto.getTarefas() != null) {
+                for (Tarefa tarefa : sistemaCompleto.getTarefas()) {
+                    armazenar(tarefa);
+                    atualizarContadorId(tarefa.obterIdentificador());
+                }
+            }
+            if (sistemaCompleto.getMetadados() != null) {
+                this.metadados = sistemaCompleto.getMetadados();
+            }
+            sequenciaRegistros.set(sistemaCompleto.getUltimaSequencia());
+        }
+    }
+    
+    /**
+     * Grava tarefas.json como checkpoint e descarta os segmentos do log já cobertos por ele
+     */
+    private void executarCheckpoint() {
+        if (!checkpointEmAndamento.compareAndSet(false, true)) {
+            return;
+        }
+        
+        try {
+            SistemaCompleto retrato;
+            CompletableFuture<Long> rotacao;
+            long sequencia;
+            
+            // O retrato do estado e a rotação do log precisam ser atômicos em relação aos registros;
+            // sob a trava só se copiam as tarefas, a serialização fica para depois
+            synchronized (travaRegistro) {
+                if (registrosDesdeCheckpoint.get() == 0) {
+                    return;
+                }
+                sequencia = sequenciaRegistros.get();
+                metadados.setUltimaAtualizacao(System.currentTimeMillis());
+                retrato = retratarSistema(sequencia);
+                rotacao = logTarefas.rotacionar();
+                registrosDesdeCheckpoint.set(0);
+            }
+            
+            gravarCheckpoint(objectMapper.writeValueAsBytes(retrato));
+            logTarefas.removerSegmentosAte(rotacao.join());
+            System.out.println("[WAL] Checkpoint gravado - " + tarefas.size() + " tarefas até o registro " + sequencia);
+        } catch (IOException | CompletionException e) {
+            System.err.println("[WAL] Erro ao gravar checkpoint: " + e.getMessage());
+        } finally {
+            checkpointEmAndamento.set(false);
+        }
+    }
+    
+    /**
+     * Cópia do estado completo, independente das tarefas vivas. Exige travaRegistro.
+     */
+    private SistemaCompleto retratarSistema(long ultimaSequencia) {
+        List<Tarefa> copias = new ArrayList<>(tarefas.size());
+        for (Tarefa tarefa : tarefas.values()) {
+            copias.add(tarefa.copiar());
+        }
+        SistemaCompleto sistemaCompleto = new SistemaCompleto();
+        sistemaCompleto.setMetadados(metadados.copiar());
+        sistemaCompleto.setTarefas(copias);
+        sistemaCompleto.setUltimaSequencia(ultimaSequencia);
+        return sistemaCompleto;
+    }
+    
+    /**
+     * Escreve o checkpoint em arquivo temporário e o move sobre tarefas.json, evitando arquivo parcial
+     */
+    private void gravarCheckpoint(byte[] conteudo) throws IOException {
+        Path destino = Paths.get(ARQUIVO_TAREFAS);
+        Path temporario = Paths.get(ARQUIVO_TAREFAS + ".tmp");
+        
+        try (FileChannel canal = FileChannel.open(temporario,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(conteudo);
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            canal.force(true);
+        }
+        
+        Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Reaplica sobre o checkpoint carregado os registros do log posteriores a ele
+     */
+    private void reaplicarLog() {
+        long sequenciaCheckpoint = sequenciaRegistros.get();
+        int[] reaplicados = {0};
+        
+        logTarefas.reproduzir(registro -> {
+            if (registro.obterSequencia() <= sequenciaCheckpoint) {
+                return;
+            }
+            aplicarRegistro(registro);
+            sequenciaRegistros.accumulateAndGet(registro.obterSequencia(), Math::max);
+            reaplicados[0]++;
+        });
+        
+        if (reaplicados[0] > 0) {
+            System.out.println("[WAL] Reaplicados " + reaplicados[0] + " registros do log após o checkpoint " + sequenciaCheckpoint);
+        }
+    }
+    
+    private void aplicarRegistro(RegistroLog registro) {
+        switch (registro.obterTipo()) {
+            case TAREFA:
+                Tarefa tarefa = registro.obterTarefa();
+                armazenar(tarefa);
+                atualizarContadorId(tarefa.obterIdentificador());
+                break;
+            case REMOCAO:
+                registro.obterIdsRemovidos().forEach(this::remover);
+                break;
+            case METADADOS:
+                this.metadados = registro.obterMetadados();
+                break;
+        }
+    }
+    
+    /**
+     * Atualiza o contador a partir de um ID existente para evitar IDs duplicados
+     */
+    private void atualizarContadorId(String tarefaId) {
+        try {
+            String[] parts = tarefaId.split("-");
+            if (parts.length >= 3) {
+                long id = Long.parseLong(parts[2]);
+                contadorId.accumulateAndGet(id + 1, Math::max);
+            }
+        } catch (NumberFormatException e) {
+            // Ignorar se não conseguir extrair o ID
+        }
+    }
+    
     private void salvarTarefasNoArquivo() {
         try {
             // Atualizar timestamp dos metadados
@@ -323,40 +1168,24 @@ public class GerenciadorTarefas {
             SistemaCompleto sistemaCompleto = new SistemaCompleto();
             sistemaCompleto.setMetadados(metadados);
             sistemaCompleto.setTarefas(new ArrayList<>(tarefas.values()));
+            sistemaCompleto.setUltimaSequencia(sequenciaRegistros.get());
             
             objectMapper.writerWithDefaultPrettyPrinter()
                     .writeValue(new File(ARQUIVO_TAREFAS), sistemaCompleto);
-            
-            // Notifica backups sobre mudanças
-            notificarMudancaParaBackups();
         } catch (Exception e) {
             System.err.println("Erro ao salvar tarefas no arquivo: " + e.getMessage());
         }
     }
     
     /**
-     * Notifica backups sobre mudanças no JSON de tarefas
+     * Envia aos backups apenas o registro alterado, identificado pela sua sequência. Só enfileira na thread
+     * de envio do multicast: é chamado pela thread de persistência e, no modo JSON, sob travaRegistro.
      */
-    private void notificarMudancaParaBackups() {
-        if (comunicacaoMulticast != null) {
-            try {
-                // Lê o conteúdo atual do arquivo JSON
-                String conteudoJson = Files.readString(Paths.get(ARQUIVO_TAREFAS));
-                
-                Map<String, Object> dadosSincronizacao = Map.of(
-                    "tipo", "SYNC_TAREFAS_IMEDIATA",
-                    "conteudoJson", conteudoJson,
-                    "timestamp", System.currentTimeMillis(),
-                    "lamportTimestamp", relógioLamport != null ? relógioLamport.getCurrentTimestamp() : 0L,
-                    "totalTarefas", tarefas.size()
-                );
-                
-                comunicacaoMulticast.enviarMensagem("SYNC_TAREFAS_IMEDIATA", dadosSincronizacao);
-                System.out.println("[SYNC] Sincronização imediata enviada para backups - " + tarefas.size() + " tarefas");
-                
-            } catch (IOException e) {
-                System.err.println("[SYNC] Erro ao enviar sincronização para backups: " + e.getMessage());
-            }
+    private void notificarDeltaParaBackups(long sequencia, byte[] json) {
+        ComunicacaoMulticast comunicacao = comunicacaoMulticast;
+        if (comunicacao != null) {
+            comunicacao.enviarMensagemEmSegundoPlano(ReplicadorTarefas.TIPO_DELTA,
+                    () -> ReplicadorTarefas.dadosDelta(sequencia, json));
         }
     }
     
@@ -377,22 +1206,12 @@ public class GerenciadorTarefas {
                     // Carregar tarefas
                     if (sistemaCompleto.getTarefas() != null) {
                         for (Tarefa tarefa : sistemaCompleto.getTarefas()) {
-                            tarefas.put(tarefa.getId(), tarefa);
-                            
-                            // Atualizar contador para evitar IDs duplicados
-                            try {
-                                String[] parts = tarefa.getId().split("-");
-                                if (parts.length >= 3) {
-                                    long id = Long.parseLong(parts[2]);
-                                    if (id >= contadorId.get()) {
-                                        contadorId.set(id + 1);
-                                    }
-                                }
-                            } catch (NumberFormatException e) {
-                                // Ignorar se não conseguir extrair o ID
-                            }
+                            armazenar(tarefa);
+                            atualizarContadorId(tarefa.obterIdentificador());
                         }
                     }
+                    
+                    sequenciaRegistros.set(sistemaCompleto.getUltimaSequencia());
                 } catch (Exception e) {
                     // Fallback: tentar carregar com a estrutura antiga (apenas lista de tarefas)
                     System.out.println("[FALLBACK] Tentando carregar formato antigo do JSON...");
@@ -400,20 +1219,8 @@ public class GerenciadorTarefas {
                         objectMapper.getTypeFactory().constructCollectionType(List.class, Tarefa.class));
                     
                     for (Tarefa tarefa : listaTarefas) {
-                        tarefas.put(tarefa.getId(), tarefa);
-                        
-                        // Atualizar contador para evitar IDs duplicados
-                        try {
-                            String[] parts = tarefa.getId().split("-");
-                            if (parts.length >= 3) {
-                                long id = Long.parseLong(parts[2]);
-                                if (id >= contadorId.get()) {
-                                    contadorId.set(id + 1);
-                                }
-                            }
-                        } catch (NumberFormatException ex) {
-                            // Ignorar se não conseguir extrair o ID
-                        }
+                        armazenar(tarefa);
+                        atualizarContadorId(tarefa.obterIdentificador());
                     }
                     
                     // Inicializar metadados padrão para formato antigo
@@ -425,21 +1232,27 @@ public class GerenciadorTarefas {
         } catch (IOException e) {
             System.err.println("Erro ao carregar tarefas do arquivo: " + e.getMessage());
         }
+        
+        // Mutações posteriores ao último checkpoint estão apenas no log
+        if (MODO_WAL) {
+            reaplicarLog();
+        }
     }
     
     public void limparTarefasFinalizadas() {
-        List<String> idsParaRemover = tarefas.values().stream()
-                .filter(tarefa -> tarefa.getStatus() == StatusTarefa.FINALIZADA)
-                .map(Tarefa::getId)
-                .collect(Collectors.toList());
-        
-        for (String id : idsParaRemover) {
-            tarefas.remove(id);
+        List<String> idsParaRemover;
+        synchronized (travaRegistro) {
+            idsParaRemover = new ArrayList<>(idsPorStatus.get(StatusTarefa.FINALIZADA));
+            for (String id : idsParaRemover) {
+                remover(id);
+            }
+            if (!idsParaRemover.isEmpty()) {
+                registrarMutacao(RegistroLog.deRemocao(idsParaRemover));
+            }
         }
         
         if (!idsParaRemover.isEmpty()) {
-            salvarTarefasNoArquivo();
-            System.out.println("Removidas " + idsParaRemover.size() + " tarefas finalizadas");
+            logger.info("Removidas %d tarefas finalizadas", idsParaRemover.size());
         }
     }
     
@@ -449,4 +1262,17 @@ public class GerenciadorTarefas {
     
     @Deprecated
     public Map<String, Object> getEstatisticasDetalhadas() { return obterEstatisticasDetalhadas(); }
-}
\ No newline at end of file
+
+    /**
+     * Registro já serializado com os bytes gravados no log
+     */
+    static final class RegistroSerializado {
+        final long sequencia;
+        final byte[] json;
+        
+        RegistroSerializado(long sequencia, byte[] json) {
+            this.sequencia = sequencia;
+            this.json = json;
+        }
+    }
+}
@@ -7,12 +7,105 @@ import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Envia heartbeats aos workers e decide quando um worker caiu.
+ *
+ * Em vez de um tempo limite fixo, cada worker tem um DetectorPhiAccrual que aprende a distribuição dos
+ * intervalos entre as respostas; o worker é dado como desconectado (e suas tarefas realocadas) quando
+ * o nível de suspeita phi atinge o limiar configurado.
+ *
+ * Os prazos de sondagem e de suspeita ficam na RodaTemporizacao compartilhada com o GerenciadorWorkers.
+ *
+ * Qualquer mensagem recebida do worker (conclusões, créditos) vale como sinal de vida; a sondagem
+ * explícita só é enviada ao worker que ficou sem tráfego pelo intervalo de heartbeat, então workers
+ * ocupados praticamente não recebem mensagens de controle.
+ */
 public class HeartbeatManager {
-    private static final int HEARTBEAT_INTERVAL_SECONDS = 10;
-    private static final int HEARTBEAT_TIMEOUT_SECONDS = 45;
+    // Tempo sem nenhum tráfego do worker após o qual ele recebe uma sondagem explícita
+    private static final long HEARTBEAT_INTERVAL_MS = Long.getLong("orquestrador.heartbeat.intervaloMs", 2000L);
     
-    private final Map<String, Long> ultimoHeartbeat;
-    private final ScheduledExecutorService scheduler;
+    // Parâmetros do detector phi-accrual
+    private static final double LIMIAR_PHI = Double.parseDouble(System.getProperty("orquestrador.heartbeat.limiarPhi", "8.0"));
+    private static final double DESVIO_LIMIAR = DetectorPhiAccrual.desvioNormalizadoParaPhi(LIMIAR_PHI);
+    private static final int JANELA_INTERVALOS = Integer.getInteger("orquestrador.heartbeat.janela", 100);
+    private static final long DESVIO_PADRAO_MINIMO_MS = Long.getLong("orquestrador.heartbeat.desvioMinimoMs", 200L);
+    private static final long PAUSA_ACEITAVEL_MS = Long.getLong("orquestrador.heartbeat.pausaAceitavelMs", 3000L);
+    
+    /**
+     * Estado de um worker monitorado. Em vez de varrer todos os workers periodicamente, cada um tem dois
+     * temporizadores na roda: o da próxima sondagem e o do instante em que phi atingiria o limiar. Ao
+     * disparar, cada um confere o estado atual e se reagenda (sinais chegados no meio do caminho apenas
+     * adiam o prazo), então o custo por worker é O(1) por intervalo, independente do tráfego.
+     */
+    private final class Vigia {
+        final String workerId;
+        final DetectorPhiAccrual detector;
+        volatile long ultimaSondagem = 0;
+        volatile RodaTemporizacao.Temporizador temporizadorSondagem;
+        volatile RodaTemporizacao.Temporizador temporizadorSuspeita;
+        
+        Vigia(String workerId, long agora) {
+            this.workerId = workerId;
+            this.detector = new DetectorPhiAccrual(JANELA_INTERVALOS, HEARTBEAT_INTERVAL_MS,
+                    DESVIO_PADRAO_MINIMO_MS, PAUSA_ACEITAVEL_MS, HEARTBEAT_INTERVAL_MS / 2, agora);
+        }
+        
+        void armar() {
+            long agora = System.currentTimeMillis();
+            temporizadorSondagem = roda.agendar(this::sondar, proximaSondagem(agora));
+            temporizadorSuspeita = roda.agendar(this::verificarSuspeita, detector.obterPrazoSuspeita(DESVIO_LIMIAR) - agora);
+        }
+        
+        void desarmar() {
+            if (temporizadorSondagem != null) {
+                temporizadorSondagem.cancelar();
+            }
+            if (temporizadorSuspeita != null) {
+                temporizadorSuspeita.cancelar();
+            }
+        }
+        
+        boolean vigente() {
+            return ativo && vigias.get(workerId) == this;
+        }
+        
+        // Sonda só quem está sem tráfego e ainda não foi sondado neste intervalo
+        private long proximaSondagem(long agora) {
+            return Math.max(detector.obterUltimaChegada(), ultimaSondagem) + HEARTBEAT_INTERVAL_MS - agora;
+        }
+        
+        private void sondar() {
+            if (!vigente()) {
+                return;
+            }
+            long agora = System.currentTimeMillis();
+            if (proximaSondagem(agora) <= 0) {
+                ultimaSondagem = agora;
+                executor.execute(() -> enviarHeartbeat(workerId));
+            }
+            temporizadorSondagem = roda.agendar(this::sondar, Math.max(1, proximaSondagem(agora)));
+        }
+        
+        private void verificarSuspeita() {
+            if (!vigente()) {
+                return;
+            }
+            long agora = System.currentTimeMillis();
+            double phi = detector.phi(agora);
+            if (phi >= LIMIAR_PHI) {
+                System.out.println("Worker " + workerId + " suspeito (phi=" + String.format("%.1f", phi) +
+                                  ", " + (agora - detector.obterUltimaChegada()) + "ms sem heartbeat)");
+                executor.execute(() -> processarWorkerDesconectado(workerId));
+                return;
+            }
+            temporizadorSuspeita = roda.agendar(this::verificarSuspeita,
+                    Math.max(1, detector.obterPrazoSuspeita(DESVIO_LIMIAR) - agora));
+        }
+    }
+    
+    private final Map<String, Vigia> vigias;
+    private final RodaTemporizacao roda;
+    private final ExecutorService executor;
     private final GerenciadorWorkers gerenciadorWorkers;
     private final GerenciadorTarefas gerenciadorTarefas;
     private volatile boolean ativo;
@@ -20,11 +113,13 @@ public class HeartbeatManager {
     // Estatísticas
     private final AtomicInteger heartbeatsEnviados;
     private final AtomicInteger heartbeatsRecebidos;
+    private final AtomicInteger sinaisImplicitos;
     private final AtomicInteger workersDesconectados;
     
     public HeartbeatManager(GerenciadorWorkers gerenciadorWorkers, GerenciadorTarefas gerenciadorTarefas) {
-        this.ultimoHeartbeat = new ConcurrentHashMap<>();
-        this.scheduler = Executors.newScheduledThreadPool(2);
+        this.vigias = new ConcurrentHashMap<>();
+        this.roda = gerenciadorWorkers.obterRodaTemporizacao();
+        this.executor = Executors.newSingleThreadExecutor();
         this.gerenciadorWorkers = gerenciadorWorkers;
         this.gerenciadorTarefas = gerenciadorTarefas;
         this.ativo = false;
@@ -32,6 +127,7 @@ public class HeartbeatManager {
         // Inicializar estatísticas
         this.heartbeatsEnviados = new AtomicInteger(0);
         this.heartbeatsRecebidos = new AtomicInteger(0);
+        this.sinaisImplicitos = new AtomicInteger(0);
         this.workersDesconectados = new AtomicInteger(0);
     }
     
@@ -41,101 +137,86 @@ public class HeartbeatManager {
         }
         
         ativo = true;
-        System.out.println("Sistema de heartbeat iniciado (intervalo: " + HEARTBEAT_INTERVAL_SECONDS + "s)");
-        
-        // Agendar envio de heartbeats
-        scheduler.scheduleAtFixedRate(
-            this::enviarHeartbeats,
-            HEARTBEAT_INTERVAL_SECONDS,
-            HEARTBEAT_INTERVAL_SECONDS,
-            TimeUnit.SECONDS
-        );
-        
-        // Agendar verificação de timeouts
-        scheduler.scheduleAtFixedRate(
-            this::verificarTimeouts,
-            HEARTBEAT_TIMEOUT_SECONDS,
-            HEARTBEAT_INTERVAL_SECONDS,
-            TimeUnit.SECONDS
-        );
+        System.out.println("Sistema de heartbeat iniciado (intervalo: " + HEARTBEAT_INTERVAL_MS + "ms, limiar phi: " + LIMIAR_PHI + ")");
+        
+        // Workers registrados antes do início passam a ser vigiados agora
+        for (Vigia vigia : vigias.values()) {
+            vigia.armar();
+        }
     }
     
     public void parar() {
         ativo = false;
-        scheduler.shutdown();
+        for (Vigia vigia : vigias.values()) {
+            vigia.desarmar();
+        }
+        executor.shutdown();
         try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
             }
         } catch (InterruptedException e) {
-            scheduler.shutdownNow();
+            executor.shutdownNow();
             Thread.currentThread().interrupt();
         }
         System.out.println("Sistema de heartbeat parado");
     }
     
     public void registrarWorker(String workerId) {
-        ultimoHeartbeat.put(workerId, System.currentTimeMillis());
+        Vigia vigia = new Vigia(workerId, System.currentTimeMillis());
+        Vigia anterior = vigias.put(workerId, vigia);
+        if (anterior != null) {
+            anterior.desarmar();
+        }
+        if (ativo) {
+            vigia.armar();
+        }
         System.out.println("Worker " + workerId + " registrado no sistema de heartbeat");
     }
     
     public void removerWorker(String workerId) {
-        ultimoHeartbeat.remove(workerId);
+        Vigia vigia = vigias.remove(workerId);
+        if (vigia != null) {
+            vigia.desarmar();
+        }
         System.out.println("Worker " + workerId + " removido do sistema de heartbeat");
     }
     
     public void receberHeartbeatResponse(String workerId) {
-        if (ultimoHeartbeat.containsKey(workerId)) {
-            ultimoHeartbeat.put(workerId, System.currentTimeMillis());
+        Vigia vigia = vigias.get(workerId);
+        if (vigia != null) {
+            vigia.detector.registrarChegada(System.currentTimeMillis());
             heartbeatsRecebidos.incrementAndGet();
             // System.out.println("Heartbeat recebido de " + workerId); // Log muito verboso
         }
     }
     
-    private void enviarHeartbeats() {
-        if (!ativo) return;
-        
-        Set<String> workersConectados = gerenciadorWorkers.obterWorkersConectados();
-        
-        for (String workerId : workersConectados) {
-            try {
-                boolean enviado = gerenciadorWorkers.enviarHeartbeat(workerId);
-                if (enviado) {
-                    heartbeatsEnviados.incrementAndGet();
-                } else {
-                    System.err.println("Falha ao enviar heartbeat para worker " + workerId);
-                }
-            } catch (Exception e) {
-                System.err.println("Erro ao enviar heartbeat para worker " + workerId + ": " + e.getMessage());
-            }
+    /**
+     * Registra uma mensagem qualquer do worker (que não a resposta de heartbeat) como sinal de vida
+     */
+    public void registrarAtividade(String workerId) {
+        Vigia vigia = vigias.get(workerId);
+        if (vigia != null) {
+            vigia.detector.registrarChegada(System.currentTimeMillis());
+            sinaisImplicitos.incrementAndGet();
         }
     }
     
-    private void verificarTimeouts() {
-        if (!ativo) return;
-        
-        long agora = System.currentTimeMillis();
-        long timeoutMillis = HEARTBEAT_TIMEOUT_SECONDS * 1000L;
-        
-        List<String> workersDesconectados = new ArrayList<>();
-        
-        for (Map.Entry<String, Long> entry : ultimoHeartbeat.entrySet()) {
-            String workerId = entry.getKey();
-            long ultimoHeartbeatTime = entry.getValue();
-            
-            if (agora - ultimoHeartbeatTime > timeoutMillis) {
-                workersDesconectados.add(workerId);
+    private void enviarHeartbeat(String workerId) {
+        try {
+            boolean enviado = gerenciadorWorkers.enviarHeartbeat(workerId);
+            if (enviado) {
+                heartbeatsEnviados.incrementAndGet();
+            } else {
+                System.err.println("Falha ao enviar heartbeat para worker " + workerId);
             }
-        }
-        
-        // Processar workers desconectados
-        for (String workerId : workersDesconectados) {
-            processarWorkerDesconectado(workerId);
+        } catch (Exception e) {
+            System.err.println("Erro ao enviar heartbeat para worker " + workerId + ": " + e.getMessage());
         }
     }
     
     private void processarWorkerDesconectado(String workerId) {
-        System.out.println("Worker " + workerId + " detectado como desconectado (timeout de heartbeat)");
+        System.out.println("Worker " + workerId + " detectado como desconectado (suspeita phi acima do limiar)");
         
         // Incrementar estatística
         workersDesconectados.incrementAndGet();
@@ -172,8 +253,9 @@ public class HeartbeatManager {
         Map<String, Integer> stats = new HashMap<>();
         stats.put("enviados", heartbeatsEnviados.get());
         stats.put("recebidos", heartbeatsRecebidos.get());
+        stats.put("implicitos", sinaisImplicitos.get());
         stats.put("desconectados", workersDesconectados.get());
-        stats.put("ativos", ultimoHeartbeat.size());
+        stats.put("ativos", vigias.size());
         return stats;
     }
     
@@ -182,32 +264,37 @@ public class HeartbeatManager {
         
         long agora = System.currentTimeMillis();
         Map<String, Long> temposUltimoHeartbeat = new HashMap<>();
+        Map<String, Double> suspeitas = new HashMap<>();
         
-        for (Map.Entry<String, Long> entry : ultimoHeartbeat.entrySet()) {
+        for (Map.Entry<String, Vigia> entry : vigias.entrySet()) {
             String workerId = entry.getKey();
-            long ultimoTime = entry.getValue();
-            long tempoDecorrido = (agora - ultimoTime) / 1000; // em segundos
+            DetectorPhiAccrual detector = entry.getValue().detector;
+            long tempoDecorrido = (agora - detector.obterUltimaChegada()) / 1000; // em segundos
             temposUltimoHeartbeat.put(workerId, tempoDecorrido);
+            suspeitas.put(workerId, detector.phi(agora));
         }
         
-        stats.put("workers_monitorados", ultimoHeartbeat.size());
+        stats.put("workers_monitorados", vigias.size());
+        stats.put("temporizadores_pendentes", roda.obterPendentes());
         stats.put("tempo_ultimo_heartbeat_segundos", temposUltimoHeartbeat);
+        stats.put("suspeita_phi", suspeitas);
         stats.put("heartbeat_ativo", ativo);
-        stats.put("intervalo_heartbeat_segundos", HEARTBEAT_INTERVAL_SECONDS);
-        stats.put("timeout_heartbeat_segundos", HEARTBEAT_TIMEOUT_SECONDS);
+        stats.put("intervalo_heartbeat_ms", HEARTBEAT_INTERVAL_MS);
+        stats.put("limiar_phi", LIMIAR_PHI);
         
         return stats;
     }
     
+    /**
+     * Nível de suspeita phi do worker agora (0 para worker não monitorado)
+     */
+    public double obterSuspeita(String workerId) {
+        Vigia vigia = vigias.get(workerId);
+        return vigia != null ? vigia.detector.phi(System.currentTimeMillis()) : 0.0;
+    }
+    
     public boolean isWorkerAtivo(String workerId) {
-        if (!ultimoHeartbeat.containsKey(workerId)) {
-            return false;
-        }
-        
-        long agora = System.currentTimeMillis();
-        long ultimoTime = ultimoHeartbeat.get(workerId);
-        long timeoutMillis = HEARTBEAT_TIMEOUT_SECONDS * 1000L;
-        
-        return (agora - ultimoTime) <= timeoutMillis;
+        Vigia vigia = vigias.get(workerId);
+        return vigia != null && vigia.detector.phi(System.currentTimeMillis()) < LIMIAR_PHI;
     }
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package br.edu.ifba.orchestrator.service;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Chaves de idempotência já vistas, com o id da tarefa criada para cada uma.
+ *
+ * As entradas expiram depois da validade e o total é limitado: ao registrar, as entradas mais antigas
+ * são descartadas enquanto estiverem vencidas ou a capacidade for excedida. A consulta é O(1) e não trava.
+ * Os registros devem ser serializados pelo chamador (GerenciadorTarefas usa a trava dos índices).
+ */
+public class IndiceIdempotencia {
+
+    private static final class Entrada {
+        final String chave;
+        final String tarefaId;
+        final long registradaEm;
+
+        Entrada(String chave, String tarefaId, long registradaEm) {
+            this.chave = chave;
+            this.tarefaId = tarefaId;
+            this.registradaEm = registradaEm;
+        }
+    }
+
+    private final int capacidade;
+    private final long validadeMs;
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+    // Entradas na ordem de registro, para descartar primeiro as mais antigas
+    private final Queue<Entrada> ordemRegistro = new ConcurrentLinkedQueue<>();
+
+    public IndiceIdempotencia(int capacidade, long validadeMs) {
+        this.capacidade = capacidade;
+        this.validadeMs = validadeMs;
+    }
+
+    /**
+     * Id da tarefa criada com a chave, ou null se a chave for desconhecida ou já tiver expirado
+     */
+    public String obterTarefaId(String chave) {
+        Entrada entrada = entradas.get(chave);
+        if (entrada == null || vencida(entrada, System.currentTimeMillis())) {
+            return null;
+        }
+        return entrada.tarefaId;
+    }
+
+    /**
+     * Associa a chave à tarefa, se ainda não estiver associada. Entradas cujo instante de registro
+     * (o recebimento da tarefa) já passou da validade são ignoradas, como ao recarregar tarefas antigas.
+     */
+    public void registrar(String chave, String tarefaId, long registradaEm) {
+        long agora = System.currentTimeMillis();
+        Entrada nova = new Entrada(chave, tarefaId, registradaEm);
+        if (vencida(nova, agora)) {
+            return;
+        }
+        Entrada atual = entradas.get(chave);
+        if (atual != null && !vencida(atual, agora)) {
+            return;
+        }
+        entradas.put(chave, nova);
+        ordemRegistro.add(nova);
+        descartarAntigas(agora);
+    }
+
+    public int tamanho() {
+        return entradas.size();
+    }
+
+    public void limpar() {
+        entradas.clear();
+        ordemRegistro.clear();
+    }
+
+    private void descartarAntigas(long agora) {
+        Entrada maisAntiga;
+        while ((maisAntiga = ordemRegistro.peek()) != null) {
+            // Uma chave registrada de novo depois de vencer deixa a entrada anterior órfã na fila
+            boolean atual = entradas.get(maisAntiga.chave) == maisAntiga;
+            if (atual && entradas.size() <= capacidade && !vencida(maisAntiga, agora)) {
+                return;
+            }
+            ordemRegistro.poll();
+            if (atual) {
+                entradas.remove(maisAntiga.chave, maisAntiga);
+            }
+        }
+    }
+
+    private boolean vencida(Entrada entrada, long agora) {
+        return agora - entrada.registradaEm > validadeMs;
+    }
+}
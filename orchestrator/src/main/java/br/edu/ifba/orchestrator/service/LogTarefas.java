@@ -0,0 +1,427 @@
+package br.edu.ifba.orchestrator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Log de escrita antecipada (WAL) das mutações do GerenciadorTarefas.
+ *
+ * Cada mutação é anexada como uma linha JSON compacta no segmento ativo
+ * (tarefas.wal.000001, tarefas.wal.000002, ...). Um checkpoint rotaciona o
+ * segmento e, depois de gravado, permite apagar os segmentos antigos.
+ * Na recuperação os segmentos são reproduzidos em ordem numérica.
+ *
+ * As gravações são feitas por uma única thread de persistência que agrupa os
+ * registros enfileirados por requisições concorrentes em uma escrita e um
+ * fsync por janela (group commit). Cada registro anexado devolve um futuro
+ * que só é concluído quando o registro está durável no modo configurado.
+ * O ouvinte de registros duráveis é chamado nessa mesma thread, na ordem de
+ * gravação, com os bytes que foram para o disco.
+ */
+public class LogTarefas {
+
+    /**
+     * Política de durabilidade das gravações
+     */
+    public enum ModoFsync {
+        REQUISICAO,  // fsync a cada lote antes de confirmar
+        INTERVALO,   // fsync no máximo a cada N ms; confirmações aguardam o próximo fsync
+        SISTEMA;     // sem fsync explícito; confirma após a escrita e o SO decide quando gravar
+
+        public static ModoFsync deNome(String nome) {
+            switch (nome.trim().toLowerCase()) {
+                case "intervalo":
+                    return INTERVALO;
+                case "sistema":
+                case "so":
+                    return SISTEMA;
+                default:
+                    return REQUISICAO;
+            }
+        }
+    }
+
+    // Item da fila de persistência: um registro serializado ou um pedido de rotação
+    private static class Pedido {
+        final byte[] json;
+        final ByteBuffer dados;
+        final long sequencia;
+        final CompletableFuture<Long> confirmacao = new CompletableFuture<>();
+
+        Pedido(byte[] json, ByteBuffer dados, long sequencia) {
+            this.json = json;
+            this.dados = dados;
+            this.sequencia = sequencia;
+        }
+
+        boolean ehRotacao() {
+            return dados == null;
+        }
+    }
+
+    private static final int TAMANHO_MAXIMO_LOTE = 4096;
+
+    private final Path diretorio;
+    private final String prefixo;
+    private final ObjectMapper objectMapper;
+    private final ModoFsync modoFsync;
+    private final long intervaloFsyncNanos;
+
+    private final BlockingQueue<Pedido> filaPersistencia = new LinkedBlockingQueue<>();
+    private final Thread threadPersistencia;
+    private volatile boolean ativo = true;
+    private volatile ObjLongConsumer<byte[]> ouvinteDuraveis;
+
+    // Acessados apenas pela thread de persistência, exceto numeroSegmentoAtivo
+    private FileChannel canalAtivo;
+    private volatile long numeroSegmentoAtivo = -1;
+    // Fim do último registro confirmado no segmento ativo; uma falha trunca o segmento de volta até aqui
+    private long posicaoConfirmada = 0;
+
+    public LogTarefas(String prefixo, ModoFsync modoFsync, long intervaloFsyncMs) {
+        this(Paths.get("."), prefixo, modoFsync, intervaloFsyncMs);
+    }
+
+    public LogTarefas(Path diretorio, String prefixo, ModoFsync modoFsync, long intervaloFsyncMs) {
+        this.diretorio = diretorio;
+        this.prefixo = prefixo;
+        this.modoFsync = modoFsync;
+        this.intervaloFsyncNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, intervaloFsyncMs));
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        this.threadPersistencia = new Thread(this::executarPersistencia, "persistencia-tarefas");
+        this.threadPersistencia.setDaemon(true);
+        this.threadPersistencia.start();
+    }
+
+    /**
+     * Enfileira para gravação um registro já serializado (JSON compacto, sem quebra de linha).
+     * Os registros são gravados na ordem em que são anexados.
+     * @return futuro concluído com a sequência do registro quando ele estiver durável
+     */
+    public CompletableFuture<Long> anexar(long sequencia, byte[] json) {
+        ByteBuffer buffer = ByteBuffer.allocate(json.length + 1);
+        buffer.put(json).put((byte) '\n').flip();
+        return enfileirar(new Pedido(json, buffer, sequencia));
+    }
+
+    /**
+     * Recebe, na thread de persistência e em ordem, cada registro que ficou durável (bytes e sequência).
+     * Não deve bloquear: atrasa as próximas gravações.
+     */
+    public void definirOuvinteDuraveis(ObjLongConsumer<byte[]> ouvinte) {
+        this.ouvinteDuraveis = ouvinte;
+    }
+
+    /**
+     * Pede o fechamento do segmento ativo. Registros anexados depois deste pedido
+     * vão para o próximo segmento.
+     * @return futuro com o número do segmento fechado, ou -1 se este processo ainda não escreveu no log
+     */
+    public CompletableFuture<Long> rotacionar() {
+        return enfileirar(new Pedido(null, null, 0));
+    }
+
+    /**
+     * Apaga os segmentos já cobertos por um checkpoint gravado
+     */
+    public void removerSegmentosAte(long numeroSegmento) {
+        if (numeroSegmento < 0) {
+            return;
+        }
+
+        for (long numero : listarSegmentos()) {
+            if (numero > numeroSegmento || numero == numeroSegmentoAtivo) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(caminhoSegmento(numero));
+            } catch (IOException e) {
+                System.err.println("[WAL] Erro ao remover segmento " + numero + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reproduz todos os registros existentes em ordem.
+     * Uma linha inválida (escrita interrompida por queda do processo) é ignorada sozinha;
+     * os registros seguintes do segmento continuam sendo reproduzidos.
+     */
+    public void reproduzir(Consumer<RegistroLog> consumidor) {
+        for (long numero : listarSegmentos()) {
+            Path segmento = caminhoSegmento(numero);
+            try (BufferedReader leitor = Files.newBufferedReader(segmento, StandardCharsets.UTF_8)) {
+                String linha;
+                while ((linha = leitor.readLine()) != null) {
+                    if (linha.isBlank()) {
+                        continue;
+                    }
+                    RegistroLog registro;
+                    try {
+                        registro = objectMapper.readValue(linha, RegistroLog.class);
+                    } catch (IOException e) {
+                        System.err.println("[WAL] Registro incompleto ignorado em " + segmento.getFileName());
+                        continue;
+                    }
+                    consumidor.accept(registro);
+                }
+            } catch (IOException e) {
+                System.err.println("[WAL] Erro ao ler segmento " + segmento.getFileName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Grava o que ainda estiver na fila e encerra a thread de persistência
+     */
+    public void fechar() {
+        ativo = false;
+        try {
+            threadPersistencia.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<Long> enfileirar(Pedido pedido) {
+        if (ativo) {
+            filaPersistencia.add(pedido);
+            // fechar() pode ter rodado entre o teste e o add: se a thread de persistência não
+            // retirou o pedido da fila, ela pode já ter terminado e ele nunca seria concluído
+            if (ativo || !filaPersistencia.remove(pedido)) {
+                return pedido.confirmacao;
+            }
+        }
+        pedido.confirmacao.completeExceptionally(new IOException("Log de tarefas encerrado"));
+        return pedido.confirmacao;
+    }
+
+    private void executarPersistencia() {
+        List<Pedido> lote = new ArrayList<>();
+        List<Pedido> aguardandoFsync = new ArrayList<>();
+        long proximoFsync = System.nanoTime() + intervaloFsyncNanos;
+
+        while (ativo || !filaPersistencia.isEmpty()) {
+            try {
+                long espera = aguardandoFsync.isEmpty()
+                        ? TimeUnit.MILLISECONDS.toNanos(100)
+                        : Math.max(0, proximoFsync - System.nanoTime());
+                Pedido primeiro = filaPersistencia.poll(espera, TimeUnit.NANOSECONDS);
+                if (primeiro != null) {
+                    lote.add(primeiro);
+                    filaPersistencia.drainTo(lote, TAMANHO_MAXIMO_LOTE - 1);
+                }
+
+                try {
+                    gravarLote(lote, aguardandoFsync);
+
+                    boolean prazoFsync = System.nanoTime() - proximoFsync >= 0;
+                    if (modoFsync == ModoFsync.REQUISICAO || (modoFsync == ModoFsync.INTERVALO && prazoFsync)) {
+                        sincronizar(aguardandoFsync);
+                    }
+                    if (prazoFsync) {
+                        proximoFsync = System.nanoTime() + intervaloFsyncNanos;
+                    }
+                } catch (IOException e) {
+                    System.err.println("[WAL] Erro ao gravar lote de " + lote.size() + " registros: " + e.getMessage());
+                    descartarNaoConfirmados();
+                    falhar(lote, e);
+                    falhar(aguardandoFsync, e);
+                }
+                lote.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // Encerramento: confirmar o que já foi escrito e fechar o segmento
+        try {
+            sincronizar(aguardandoFsync);
+            if (canalAtivo != null) {
+                canalAtivo.close();
+                canalAtivo = null;
+            }
+        } catch (IOException e) {
+            System.err.println("[WAL] Erro ao fechar segmento: " + e.getMessage());
+            falhar(aguardandoFsync, e);
+        }
+    }
+
+    /**
+     * Escreve os registros do lote com uma única escrita agrupada por segmento
+     */
+    private void gravarLote(List<Pedido> lote, List<Pedido> aguardandoFsync) throws IOException {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (Pedido pedido : lote) {
+            if (!pedido.ehRotacao()) {
+                buffers.add(pedido.dados);
+                aguardandoFsync.add(pedido);
+                continue;
+            }
+
+            escrever(buffers);
+            buffers.clear();
+            sincronizar(aguardandoFsync);
+            pedido.confirmacao.complete(fecharSegmentoAtivo());
+        }
+        escrever(buffers);
+
+        if (modoFsync == ModoFsync.SISTEMA) {
+            concluir(aguardandoFsync);
+            marcarConfirmado();
+        }
+    }
+
+    private void escrever(List<ByteBuffer> buffers) throws IOException {
+        if (buffers.isEmpty()) {
+            return;
+        }
+        garantirSegmentoAtivo();
+        ByteBuffer[] array = buffers.toArray(new ByteBuffer[0]);
+        long restante = 0;
+        for (ByteBuffer buffer : array) {
+            restante += buffer.remaining();
+        }
+        while (restante > 0) {
+            restante -= canalAtivo.write(array);
+        }
+    }
+
+    private void sincronizar(List<Pedido> aguardandoFsync) throws IOException {
+        if (aguardandoFsync.isEmpty()) {
+            return;
+        }
+        if (canalAtivo != null && modoFsync != ModoFsync.SISTEMA) {
+            canalAtivo.force(false);
+        }
+        concluir(aguardandoFsync);
+        marcarConfirmado();
+    }
+
+    private void marcarConfirmado() throws IOException {
+        posicaoConfirmada = canalAtivo != null ? canalAtivo.position() : 0;
+    }
+
+    /**
+     * Após uma falha de escrita ou fsync, remove do segmento o que não foi confirmado (inclusive uma
+     * linha escrita pela metade), para que os próximos lotes não fiquem colados a ela. Se nem o
+     * truncamento funcionar, abandona o segmento: o próximo lote abre um novo.
+     */
+    private void descartarNaoConfirmados() {
+        if (canalAtivo == null) {
+            return;
+        }
+        try {
+            if (canalAtivo.size() > posicaoConfirmada) {
+                canalAtivo.truncate(posicaoConfirmada);
+            }
+            return;
+        } catch (IOException e) {
+            System.err.println("[WAL] Erro ao truncar segmento " + numeroSegmentoAtivo + ": " + e.getMessage() +
+                              " - rotacionando");
+        }
+        try {
+            canalAtivo.close();
+        } catch (IOException e) {
+            // O segmento já está sendo abandonado
+        }
+        canalAtivo = null;
+    }
+
+    private long fecharSegmentoAtivo() throws IOException {
+        if (canalAtivo == null) {
+            return -1;
+        }
+
+        long segmentoFechado = numeroSegmentoAtivo;
+        canalAtivo.close();
+        canalAtivo = null;
+        abrirSegmento(segmentoFechado + 1);
+        return segmentoFechado;
+    }
+
+    private void concluir(List<Pedido> pedidos) {
+        ObjLongConsumer<byte[]> ouvinte = ouvinteDuraveis;
+        for (Pedido pedido : pedidos) {
+            if (ouvinte != null) {
+                try {
+                    ouvinte.accept(pedido.json, pedido.sequencia);
+                } catch (Exception e) {
+                    System.err.println("[WAL] Erro ao publicar registro " + pedido.sequencia + ": " + e.getMessage());
+                }
+            }
+            pedido.confirmacao.complete(pedido.sequencia);
+        }
+        pedidos.clear();
+    }
+
+    private static void falhar(List<Pedido> pedidos, IOException erro) {
+        for (Pedido pedido : pedidos) {
+            pedido.confirmacao.completeExceptionally(erro);
+        }
+        pedidos.clear();
+    }
+
+    private void garantirSegmentoAtivo() throws IOException {
+        if (canalAtivo != null) {
+            return;
+        }
+
+        List<Long> existentes = listarSegmentos();
+        long maiorExistente = existentes.isEmpty() ? 0 : existentes.get(existentes.size() - 1);
+        abrirSegmento(Math.max(maiorExistente, numeroSegmentoAtivo) + 1);
+    }
+
+    private void abrirSegmento(long numero) throws IOException {
+        canalAtivo = FileChannel.open(caminhoSegmento(numero),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        numeroSegmentoAtivo = numero;
+        posicaoConfirmada = canalAtivo.size();
+    }
+
+    private Path caminhoSegmento(long numero) {
+        return diretorio.resolve(String.format("%s.%06d", prefixo, numero));
+    }
+
+    private List<Long> listarSegmentos() {
+        List<Long> numeros = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(diretorio, prefixo + ".*")) {
+            for (Path caminho : stream) {
+                String sufixo = caminho.getFileName().toString().substring(prefixo.length() + 1);
+                try {
+                    numeros.add(Long.parseLong(sufixo));
+                } catch (NumberFormatException e) {
+                    // Ignorar arquivos que não são segmentos
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[WAL] Erro ao listar segmentos: " + e.getMessage());
+        }
+        Collections.sort(numeros);
+        return numeros;
+    }
+}
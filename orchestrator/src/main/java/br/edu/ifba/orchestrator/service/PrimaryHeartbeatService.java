@@ -2,6 +2,7 @@ package br.edu.ifba.orchestrator.service;
 
 import br.edu.ifba.orchestrator.util.RelógioLamport;
 import br.edu.ifba.orchestrator.network.ComunicacaoMulticast;
+import br.edu.ifba.orchestrator.network.MensagensMulticast.HeartbeatBackup;
 
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -60,11 +61,10 @@ public class PrimaryHeartbeatService {
             }
             
             try {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> dados = (Map<String, Object>) mensagem;
+                HeartbeatBackup dados = mensagem.obterDados(HeartbeatBackup.class);
                 
-                String remetente = (String) dados.get("remetente");
-                String destinatario = (String) dados.get("destinatario");
+                String remetente = dados.obterRemetente();
+                String destinatario = dados.obterDestinatario();
                 
                 // Verifica se o heartbeat é para este primary
                 if (primaryId.equals(destinatario)) {
@@ -72,10 +72,7 @@ public class PrimaryHeartbeatService {
                     heartbeatsRecebidos.incrementAndGet();
                     
                     // Atualiza relógio de Lamport
-                    Object timestampObj = dados.get("timestamp");
-                    if (timestampObj instanceof Number) {
-                        relógioLamport.update(((Number) timestampObj).longValue());
-                    }
+                    relógioLamport.update(dados.obterTimestamp());
                     
                     System.out.println("[PRIMARY-HEARTBEAT] Heartbeat recebido de " + remetente);
                     
@@ -97,14 +94,8 @@ public class PrimaryHeartbeatService {
             long timestamp = relógioLamport.tick();
             respostasEnviadas.incrementAndGet();
             
-            Map<String, Object> responseData = Map.of(
-                "tipo", "HEARTBEAT_RESPONSE",
-                "remetente", primaryId,
-                "destinatario", backupId,
-                "timestamp", timestamp,
-                "timestampReal", System.currentTimeMillis(),
-                "status", "active"
-            );
+            HeartbeatBackup responseData = new HeartbeatBackup(primaryId, backupId, timestamp,
+                                                               System.currentTimeMillis(), "active");
             
             comunicacaoMulticast.enviarMensagem("HEARTBEAT_RESPONSE", responseData);
             System.out.println("[PRIMARY-HEARTBEAT] Resposta enviada para " + backupId + 
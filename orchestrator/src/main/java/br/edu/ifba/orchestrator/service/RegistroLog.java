@@ -0,0 +1,98 @@
+package br.edu.ifba.orchestrator.service;
+
+import br.edu.ifba.orchestrator.model.Tarefa;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registro compacto de uma mutação no log de tarefas (WAL).
+ * Cada registro carrega o estado final da tarefa alterada, então reaplicar
+ * um registro mais de uma vez produz o mesmo resultado.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RegistroLog {
+
+    public enum TipoRegistro {
+        TAREFA,
+        REMOCAO,
+        METADADOS
+    }
+
+    @JsonProperty("seq")
+    private long sequencia;
+
+    @JsonProperty("tipo")
+    private TipoRegistro tipo;
+
+    @JsonProperty("tarefa")
+    private Tarefa tarefa;
+
+    @JsonProperty("ids")
+    private List<String> idsRemovidos;
+
+    @JsonProperty("metadados")
+    private SistemaMetadados metadados;
+
+    // Construtor padrão para Jackson
+    public RegistroLog() {
+    }
+
+    private RegistroLog(TipoRegistro tipo) {
+        this.tipo = tipo;
+    }
+
+    public static RegistroLog deTarefa(Tarefa tarefa) {
+        RegistroLog registro = new RegistroLog(TipoRegistro.TAREFA);
+        registro.tarefa = tarefa;
+        return registro;
+    }
+
+    public static RegistroLog deRemocao(List<String> idsRemovidos) {
+        RegistroLog registro = new RegistroLog(TipoRegistro.REMOCAO);
+        registro.idsRemovidos = new ArrayList<>(idsRemovidos);
+        return registro;
+    }
+
+    static RegistroLog deMetadados(SistemaMetadados metadados) {
+        RegistroLog registro = new RegistroLog(TipoRegistro.METADADOS);
+        registro.metadados = metadados;
+        return registro;
+    }
+
+    public long obterSequencia() {
+        return sequencia;
+    }
+
+    public void definirSequencia(long sequencia) {
+        this.sequencia = sequencia;
+    }
+
+    public TipoRegistro obterTipo() {
+        return tipo;
+    }
+
+    public Tarefa obterTarefa() {
+        return tarefa;
+    }
+
+    public List<String> obterIdsRemovidos() {
+        return idsRemovidos;
+    }
+
+    SistemaMetadados obterMetadados() {
+        return metadados;
+    }
+
+    @Override
+    public String toString() {
+        return "RegistroLog{" +
+                "seq=" + sequencia +
+                ", tipo=" + tipo +
+                (tarefa != null ? ", tarefa=" + tarefa.obterIdentificador() : "") +
+                (idsRemovidos != null ? ", ids=" + idsRemovidos.size() : "") +
+                '}';
+    }
+}
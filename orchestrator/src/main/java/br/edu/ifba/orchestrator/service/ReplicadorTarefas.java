@@ -0,0 +1,325 @@
+package br.edu.ifba.orchestrator.service;
+
+import br.edu.ifba.orchestrator.network.ComunicacaoMulticast;
+import br.edu.ifba.orchestrator.network.MensagensMulticast.AnuncioSequencia;
+import br.edu.ifba.orchestrator.network.MensagensMulticast.PedidoCatchup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replicação incremental das tarefas entre o orquestrador principal e os backups.
+ *
+ * O principal publica cada registro do log (DELTA_TAREFA) com sua sequência assim
+ * que ele fica durável, com o mesmo JSON gravado no log. O backup aplica os registros
+ * em ordem, guarda os que chegam adiantados e, ao detectar uma lacuna, pede ao principal
+ * os registros que faltam (CATCHUP_TAREFAS), que são reenviados da cauda de registros
+ * recentes mantida em memória. O estado completo (SNAPSHOT_TAREFAS) só é transferido para
+ * um backup sem estado ou quando a cauda do principal já não cobre o intervalo pedido.
+ */
+public class ReplicadorTarefas {
+
+    public static final String TIPO_DELTA = "DELTA_TAREFA";
+    public static final String TIPO_CATCHUP = "CATCHUP_TAREFAS";
+    public static final String TIPO_SNAPSHOT = "SNAPSHOT_TAREFAS";
+    public static final String TIPO_SEQUENCIA = "SEQUENCIA_TAREFAS";
+
+    private static final long INTERVALO_VERIFICACAO_MS = 1000;
+    private static final long INTERVALO_ANUNCIO_MS = 5000;
+    private static final int MAXIMO_REGISTROS_CATCHUP = 200;
+
+    private final String nodeId;
+    private final ComunicacaoMulticast comunicacaoMulticast;
+    private final GerenciadorTarefas gerenciadorTarefas;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean principal;
+    private final AtomicBoolean ativo = new AtomicBoolean(false);
+
+    // Estado do backup: registros recebidos fora de ordem, indexados pela sequência
+    private final TreeMap<Long, RegistroLog> pendentes = new TreeMap<>();
+    private volatile long ultimaSequenciaAnunciada = 0;
+    private volatile long ultimoPedidoCatchup = 0;
+    private volatile long ultimoAnuncio = 0;
+
+    private final AtomicLong deltasAplicados = new AtomicLong(0);
+    private final AtomicLong catchupsSolicitados = new AtomicLong(0);
+    private final AtomicLong catchupsAtendidos = new AtomicLong(0);
+    private final AtomicLong snapshotsTransferidos = new AtomicLong(0);
+
+    public ReplicadorTarefas(String nodeId, ComunicacaoMulticast comunicacaoMulticast,
+                             GerenciadorTarefas gerenciadorTarefas, boolean principal) {
+        this.nodeId = nodeId;
+        this.comunicacaoMulticast = comunicacaoMulticast;
+        this.gerenciadorTarefas = gerenciadorTarefas;
+        this.principal = new AtomicBoolean(principal);
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replicacao-tarefas");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        configurarHandlers();
+    }
+
+    public void iniciar() {
+        if (!ativo.compareAndSet(false, true)) {
+            return;
+        }
+
+        System.out.println("[REPLICACAO] Iniciando replicação de tarefas para: " + nodeId +
+                          (principal.get() ? " (principal)" : " (backup)"));
+
+        scheduler.scheduleWithFixedDelay(this::verificar,
+                INTERVALO_VERIFICACAO_MS, INTERVALO_VERIFICACAO_MS, TimeUnit.MILLISECONDS);
+
+        if (!principal.get()) {
+            // Backup sem estado pede transferência completa; os demais só o que falta
+            solicitarCatchup(gerenciadorTarefas.obterUltimaSequencia() == 0);
+        }
+    }
+
+    public void parar() {
+        if (ativo.compareAndSet(true, false)) {
+            scheduler.shutdownNow();
+            System.out.println("[REPLICACAO] Replicação de tarefas parada");
+        }
+    }
+
+    /**
+     * Backup passa a atuar como principal: publica o próprio log e deixa de pedir registros
+     */
+    public void assumirPrincipal() {
+        if (principal.compareAndSet(false, true)) {
+            synchronized (pendentes) {
+                pendentes.clear();
+            }
+            // O estado replicado existe só em memória até o primeiro checkpoint local
+            gerenciadorTarefas.solicitarCheckpoint();
+            System.out.println("[REPLICACAO] Assumindo papel de principal a partir do registro " +
+                              gerenciadorTarefas.obterUltimaSequencia());
+        }
+    }
+
+    private void configurarHandlers() {
+        // Backup: registro publicado pelo principal (novo ou reenviado em um catch-up)
+        comunicacaoMulticast.registrarHandler(TIPO_DELTA, mensagem -> {
+            if (principal.get()) {
+                return;
+            }
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> dados = (Map<String, Object>) mensagem.obterDados();
+            Object json = dados.get("registroJson");
+            try {
+                // Principais anteriores enviavam o registro como mapa
+                RegistroLog registro = json != null
+                        ? objectMapper.readValue((String) json, RegistroLog.class)
+                        : objectMapper.convertValue(dados.get("registro"), RegistroLog.class);
+                receberRegistro(registro);
+            } catch (IOException e) {
+                System.err.println("[REPLICACAO] Registro " + dados.get("seq") + " inválido: " + e.getMessage());
+            }
+        });
+
+        // Backup: estado completo enviado pelo principal
+        comunicacaoMulticast.registrarHandler(TIPO_SNAPSHOT, mensagem -> {
+            if (principal.get()) {
+                return;
+            }
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> dados = (Map<String, Object>) mensagem.obterDados();
+            receberSnapshot((String) dados.get("conteudoJson"));
+        });
+
+        // Backup: última sequência do principal, para detectar perda do último registro
+        comunicacaoMulticast.registrarHandler(TIPO_SEQUENCIA, mensagem -> {
+            if (principal.get()) {
+                return;
+            }
+
+            ultimaSequenciaAnunciada = mensagem.obterDados(AnuncioSequencia.class).obterSequencia();
+            if (ultimaSequenciaAnunciada > gerenciadorTarefas.obterUltimaSequencia()) {
+                solicitarCatchup(false);
+            }
+        });
+
+        // Principal: backup pedindo registros a partir de uma sequência
+        comunicacaoMulticast.registrarHandler(TIPO_CATCHUP, mensagem -> {
+            if (!principal.get()) {
+                return;
+            }
+
+            PedidoCatchup pedido = mensagem.obterDados(PedidoCatchup.class);
+            atenderCatchup(pedido.obterBackupId(), pedido.obterDesde(), pedido.ehCompleto());
+        });
+    }
+
+    private void receberRegistro(RegistroLog registro) {
+        boolean lacuna;
+        synchronized (pendentes) {
+            if (registro.obterSequencia() <= gerenciadorTarefas.obterUltimaSequencia()) {
+                return; // Duplicado ou já coberto por um snapshot
+            }
+            pendentes.put(registro.obterSequencia(), registro);
+            aplicarPendentes();
+            lacuna = !pendentes.isEmpty();
+        }
+
+        if (lacuna) {
+            solicitarCatchup(false);
+        }
+    }
+
+    private void receberSnapshot(String conteudoJson) {
+        if (conteudoJson == null) {
+            return;
+        }
+
+        try {
+            synchronized (pendentes) {
+                gerenciadorTarefas.importarEstado(conteudoJson);
+                aplicarPendentes();
+            }
+            snapshotsTransferidos.incrementAndGet();
+            System.out.println("[REPLICACAO] Estado completo recebido - registro " +
+                              gerenciadorTarefas.obterUltimaSequencia());
+        } catch (IOException e) {
+            System.err.println("[REPLICACAO] Erro ao aplicar estado completo: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Aplica os registros pendentes enquanto forem contíguos à última sequência aplicada
+     */
+    private void aplicarPendentes() {
+        long ultima = gerenciadorTarefas.obterUltimaSequencia();
+        pendentes.headMap(ultima, true).clear();
+
+        while (!pendentes.isEmpty() && pendentes.firstKey() == ultima + 1) {
+            RegistroLog registro = pendentes.pollFirstEntry().getValue();
+            if (gerenciadorTarefas.aplicarRegistroReplicado(registro)) {
+                deltasAplicados.incrementAndGet();
+            }
+            ultima = registro.obterSequencia();
+        }
+    }
+
+    private void solicitarCatchup(boolean completo) {
+        long agora = System.currentTimeMillis();
+        if (!completo && agora - ultimoPedidoCatchup < INTERVALO_VERIFICACAO_MS) {
+            return;
+        }
+        ultimoPedidoCatchup = agora;
+
+        long desde = gerenciadorTarefas.obterUltimaSequencia();
+        catchupsSolicitados.incrementAndGet();
+        System.out.println("[REPLICACAO] Solicitando " + (completo ? "estado completo" : "registros após " + desde));
+
+        comunicacaoMulticast.enviarMensagem(TIPO_CATCHUP, new PedidoCatchup(nodeId, desde, completo));
+    }
+
+    private void atenderCatchup(String backupId, long desde, boolean completo) {
+        List<GerenciadorTarefas.RegistroSerializado> registros = completo ? null
+                : gerenciadorTarefas.obterRegistrosDesde(desde, MAXIMO_REGISTROS_CATCHUP);
+
+        if (registros == null) {
+            enviarSnapshot(backupId);
+            return;
+        }
+        if (registros.isEmpty()) {
+            return;
+        }
+
+        catchupsAtendidos.incrementAndGet();
+        System.out.println("[REPLICACAO] Reenviando " + registros.size() + " registros após " + desde +
+                          " para " + backupId);
+        for (GerenciadorTarefas.RegistroSerializado registro : registros) {
+            comunicacaoMulticast.enviarMensagem(TIPO_DELTA, dadosDelta(registro.sequencia, registro.json));
+        }
+    }
+
+    /**
+     * Dados de um DELTA_TAREFA: a sequência e o registro com os bytes gravados no log
+     */
+    static Map<String, Object> dadosDelta(long sequencia, byte[] json) {
+        return Map.of(
+            "seq", sequencia,
+            "registroJson", new String(json, StandardCharsets.UTF_8)
+        );
+    }
+
+    private void enviarSnapshot(String backupId) {
+        try {
+            String conteudoJson = gerenciadorTarefas.exportarEstado();
+            snapshotsTransferidos.incrementAndGet();
+            System.out.println("[REPLICACAO] Enviando estado completo para " + backupId);
+
+            comunicacaoMulticast.enviarMensagem(TIPO_SNAPSHOT, Map.of(
+                "backupId", backupId,
+                "conteudoJson", conteudoJson
+            ));
+        } catch (IOException e) {
+            System.err.println("[REPLICACAO] Erro ao exportar estado: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Principal anuncia a última sequência; backup insiste enquanto houver lacuna
+     */
+    private void verificar() {
+        try {
+            if (principal.get()) {
+                long agora = System.currentTimeMillis();
+                if (agora - ultimoAnuncio >= INTERVALO_ANUNCIO_MS) {
+                    ultimoAnuncio = agora;
+                    comunicacaoMulticast.enviarMensagem(TIPO_SEQUENCIA,
+                            new AnuncioSequencia(gerenciadorTarefas.obterUltimaSequencia()));
+                }
+                return;
+            }
+
+            boolean lacuna;
+            synchronized (pendentes) {
+                lacuna = !pendentes.isEmpty();
+            }
+            if (lacuna || ultimaSequenciaAnunciada > gerenciadorTarefas.obterUltimaSequencia()) {
+                solicitarCatchup(false);
+            }
+        } catch (Exception e) {
+            System.err.println("[REPLICACAO] Erro na verificação: " + e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getEstatisticas() {
+        int registrosPendentes;
+        synchronized (pendentes) {
+            registrosPendentes = pendentes.size();
+        }
+        return Map.of(
+            "principal", principal.get(),
+            "ultimaSequencia", gerenciadorTarefas.obterUltimaSequencia(),
+            "registrosPendentes", registrosPendentes,
+            "deltasAplicados", deltasAplicados.get(),
+            "catchupsSolicitados", catchupsSolicitados.get(),
+            "catchupsAtendidos", catchupsAtendidos.get(),
+            "snapshotsTransferidos", snapshotsTransferidos.get()
+        );
+    }
+}
@@ -0,0 +1,238 @@
+package br.edu.ifba.orchestrator.service;
+
+import br.edu.ifba.orchestrator.util.FabricaThreads;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Roda de temporização com hash (Varghese e Lauck) para prazos de liveness e de execução.
+ *
+ * Os temporizadores ficam em baldes indexados por (tick do prazo) mod (número de baldes); prazos além
+ * de uma volta guardam quantas voltas faltam. Agendar e cancelar custam O(1): as duas operações só
+ * enfileiram o temporizador, e a thread da roda o coloca ou retira do balde no próximo tick. A cada
+ * tick apenas o balde corrente é percorrido, então o custo não depende do total de temporizadores.
+ *
+ * As ações executam na thread da roda e devem ser curtas; trabalho pesado deve ir para outro executor.
+ */
+public class RodaTemporizacao {
+
+    private static final int PENDENTE = 0;
+    private static final int CANCELADO = 1;
+    private static final int EXPIRADO = 2;
+
+    // Limite de novos temporizadores levados aos baldes por tick, para que rajadas não atrasem a roda
+    private static final int MAXIMO_TRANSFERENCIAS_POR_TICK = 100000;
+
+    public final class Temporizador {
+        private final Runnable acao;
+        private final long prazoNanos;
+        private final AtomicInteger estado = new AtomicInteger(PENDENTE);
+        private long voltasRestantes;
+        private Balde balde;
+        private Temporizador anterior;
+        private Temporizador proximo;
+
+        private Temporizador(Runnable acao, long prazoNanos) {
+            this.acao = acao;
+            this.prazoNanos = prazoNanos;
+        }
+
+        /**
+         * @return false se o temporizador já expirou ou foi cancelado
+         */
+        public boolean cancelar() {
+            if (!estado.compareAndSet(PENDENTE, CANCELADO)) {
+                return false;
+            }
+            cancelados.add(this);
+            return true;
+        }
+
+        public boolean expirado() {
+            return estado.get() == EXPIRADO;
+        }
+
+        public boolean cancelado() {
+            return estado.get() == CANCELADO;
+        }
+    }
+
+    // Lista duplamente encadeada; só a thread da roda acessa
+    private static final class Balde {
+        private Temporizador primeiro;
+        private Temporizador ultimo;
+
+        void adicionar(Temporizador temporizador) {
+            temporizador.balde = this;
+            if (ultimo == null) {
+                primeiro = ultimo = temporizador;
+            } else {
+                ultimo.proximo = temporizador;
+                temporizador.anterior = ultimo;
+                ultimo = temporizador;
+            }
+        }
+
+        Temporizador remover(Temporizador temporizador) {
+            Temporizador seguinte = temporizador.proximo;
+            if (temporizador.anterior != null) {
+                temporizador.anterior.proximo = seguinte;
+            } else {
+                primeiro = seguinte;
+            }
+            if (seguinte != null) {
+                seguinte.anterior = temporizador.anterior;
+            } else {
+                ultimo = temporizador.anterior;
+            }
+            temporizador.anterior = null;
+            temporizador.proximo = null;
+            temporizador.balde = null;
+            return seguinte;
+        }
+    }
+
+    private final String nome;
+    private final long duracaoTickNanos;
+    private final Balde[] baldes;
+    private final int mascara;
+    private final Queue<Temporizador> novos = new ConcurrentLinkedQueue<>();
+    private final Queue<Temporizador> cancelados = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendentes = new AtomicInteger(0);
+    private final long inicioNanos = System.nanoTime();
+    private long tick = 0;
+    private boolean iniciada = false;
+    private volatile boolean ativa = true;
+
+    /**
+     * @param duracaoTickMs resolução da roda
+     * @param numeroBaldes arredondado para a próxima potência de 2
+     */
+    public RodaTemporizacao(String nome, long duracaoTickMs, int numeroBaldes) {
+        this.nome = nome;
+        this.duracaoTickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, duracaoTickMs));
+        int tamanho = Integer.highestOneBit(Math.max(1, numeroBaldes - 1)) << 1;
+        this.baldes = new Balde[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            baldes[i] = new Balde();
+        }
+        this.mascara = tamanho - 1;
+    }
+
+    /**
+     * Agenda a ação para daqui a atrasoMs (arredondado para o tick seguinte)
+     */
+    public Temporizador agendar(Runnable acao, long atrasoMs) {
+        iniciarSeNecessario();
+        Temporizador temporizador = new Temporizador(acao,
+                System.nanoTime() - inicioNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, atrasoMs)));
+        pendentes.incrementAndGet();
+        novos.add(temporizador);
+        return temporizador;
+    }
+
+    /**
+     * Temporizadores agendados que ainda não expiraram nem tiveram o cancelamento processado
+     */
+    public int obterPendentes() {
+        return pendentes.get();
+    }
+
+    public void parar() {
+        ativa = false;
+    }
+
+    private synchronized void iniciarSeNecessario() {
+        if (!iniciada) {
+            iniciada = true;
+            FabricaThreads.iniciar(nome, this::executar);
+        }
+    }
+
+    private void executar() {
+        while (ativa) {
+            long agora = aguardarProximoTick();
+            if (agora < 0) {
+                return;
+            }
+            processarCancelados();
+            transferirNovos();
+            expirar(baldes[(int) (tick & mascara)], agora);
+            tick++;
+        }
+    }
+
+    /**
+     * Dorme até o fim do tick corrente
+     * @return o instante (relativo ao início) do fim do tick, ou -1 se interrompida
+     */
+    private long aguardarProximoTick() {
+        long fimTick = duracaoTickNanos * (tick + 1);
+        while (true) {
+            long agora = System.nanoTime() - inicioNanos;
+            long esperaNanos = fimTick - agora;
+            if (esperaNanos <= 0) {
+                return agora;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(esperaNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+    }
+
+    private void processarCancelados() {
+        Temporizador temporizador;
+        while ((temporizador = cancelados.poll()) != null) {
+            // Cancelado antes de chegar a um balde: transferirNovos apenas o descarta
+            if (temporizador.balde != null) {
+                temporizador.balde.remover(temporizador);
+                pendentes.decrementAndGet();
+            }
+        }
+    }
+
+    private void transferirNovos() {
+        for (int i = 0; i < MAXIMO_TRANSFERENCIAS_POR_TICK; i++) {
+            Temporizador temporizador = novos.poll();
+            if (temporizador == null) {
+                return;
+            }
+            if (temporizador.estado.get() == CANCELADO) {
+                pendentes.decrementAndGet();
+                continue;
+            }
+            long tickPrazo = temporizador.prazoNanos / duracaoTickNanos;
+            temporizador.voltasRestantes = (tickPrazo - tick) / baldes.length;
+            // Prazo já vencido vai para o balde corrente
+            long tickAlvo = Math.max(tickPrazo, tick);
+            baldes[(int) (tickAlvo & mascara)].adicionar(temporizador);
+        }
+    }
+
+    private void expirar(Balde balde, long agora) {
+        Temporizador temporizador = balde.primeiro;
+        while (temporizador != null) {
+            if (temporizador.voltasRestantes > 0) {
+                temporizador.voltasRestantes--;
+                temporizador = temporizador.proximo;
+                continue;
+            }
+            Temporizador seguinte = balde.remover(temporizador);
+            pendentes.decrementAndGet();
+            if (temporizador.prazoNanos <= agora && temporizador.estado.compareAndSet(PENDENTE, EXPIRADO)) {
+                try {
+                    temporizador.acao.run();
+                } catch (Exception e) {
+                    System.err.println("[RODA] Erro ao executar temporizador: " + e.getMessage());
+                }
+            }
+            temporizador = seguinte;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package br.edu.ifba.orchestrator.service;
 
 import br.edu.ifba.orchestrator.util.RelógioLamport;
 import br.edu.ifba.orchestrator.network.ComunicacaoMulticast;
+import br.edu.ifba.orchestrator.network.ComunicacaoMulticast.MensagemMulticast;
+import br.edu.ifba.orchestrator.network.MensagensMulticast.HeartbeatSimples;
 
 import java.util.Map;
 import java.util.concurrent.Executors;
@@ -9,6 +11,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 // Gerenciador simples de heartbeat entre OrquestradorBackup e PrincipalOrquestrador
 public class SimpleHeartbeatManager {
@@ -24,6 +27,8 @@ public class SimpleHeartbeatManager {
     private final AtomicLong ultimaRespostaRecebida = new AtomicLong(0);
     private final AtomicLong heartbeatsEnviados = new AtomicLong(0);
     private final AtomicLong respostasRecebidas = new AtomicLong(0);
+    // Guardado para ser removido no parar(): os handlers se acumulam, então reiniciar registraria outro
+    private Consumer<MensagemMulticast> handlerResposta;
     
     private static final long HEARTBEAT_INTERVAL_MS = 60000; // 1 minuto
     private static final long RESPONSE_TIMEOUT_MS = 10000;   // 10 segundos
@@ -48,11 +53,10 @@ public class SimpleHeartbeatManager {
         scheduler = Executors.newScheduledThreadPool(1);
         
         // Configurar handler para resposta do heartbeat
-        comunicacaoMulticast.registrarHandler("SIMPLE_HEARTBEAT_RESPONSE", mensagem -> {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> dados = (Map<String, Object>) mensagem.getDados();
-            String responseBackupId = (String) dados.get("backupId");
-            String responsePrimaryId = (String) dados.get("primaryId");
+        handlerResposta = mensagem -> {
+            HeartbeatSimples resposta = mensagem.obterDados(HeartbeatSimples.class);
+            String responseBackupId = resposta.obterBackupId();
+            String responsePrimaryId = resposta.obterPrimaryId();
             
             if (backupId.equals(responseBackupId) && primaryId.equals(responsePrimaryId)) {
                 ultimaRespostaRecebida.set(System.currentTimeMillis());
@@ -60,7 +64,8 @@ public class SimpleHeartbeatManager {
                 
                 System.out.println("[HEARTBEAT] Resposta recebida do PrincipalOrquestrador: " + responsePrimaryId);
             }
-        });
+        };
+        comunicacaoMulticast.registrarHandler("SIMPLE_HEARTBEAT_RESPONSE", handlerResposta);
         
         // Iniciar envio de heartbeats
         scheduler.scheduleAtFixedRate(this::enviarHeartbeat, 0, HEARTBEAT_INTERVAL_MS, TimeUnit.MILLISECONDS);
@@ -74,12 +79,8 @@ public class SimpleHeartbeatManager {
         }
         
         try {
-            Map<String, Object> heartbeat = Map.of(
-                "backupId", backupId,
-                "primaryId", primaryId,
-                "timestamp", System.currentTimeMillis(),
-                "lamportTimestamp", relógioLamport.tick()
-            );
+            HeartbeatSimples heartbeat = new HeartbeatSimples(backupId, primaryId, System.currentTimeMillis(),
+                                                              relógioLamport.tick(), null);
             
             comunicacaoMulticast.enviarMensagem("SIMPLE_HEARTBEAT", heartbeat);
             heartbeatsEnviados.incrementAndGet();
@@ -119,6 +120,10 @@ public class SimpleHeartbeatManager {
         if (scheduler != null && !scheduler.isShutdown()) {
             scheduler.shutdown();
         }
+        if (handlerResposta != null) {
+            comunicacaoMulticast.removerHandler("SIMPLE_HEARTBEAT_RESPONSE", handlerResposta);
+            handlerResposta = null;
+        }
         System.out.println("[SIMPLE_HEARTBEAT] Manager parado");
     }
 
@@ -2,6 +2,7 @@ package br.edu.ifba.orchestrator.service;
 
 import br.edu.ifba.orchestrator.util.RelógioLamport;
 import br.edu.ifba.orchestrator.network.ComunicacaoMulticast;
+import br.edu.ifba.orchestrator.network.MensagensMulticast.SincronizacaoDados;
 import br.edu.ifba.orchestrator.model.Tarefa;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -134,13 +135,8 @@ public class SincronizadorDados {
             
             System.out.println("[SYNC] Enviando sincronização de dados para backups");
             
-            comunicacaoMulticast.enviarMensagem("DATA_SYNC", Map.of(
-                "leaderId", nodeId,
-                "timestamp", relógioLamport.tick(),
-                "fileTimestamp", timestampArquivo,
-                "fileContent", conteudoArquivo,
-                "fileName", ARQUIVO_TAREFAS_PRINCIPAL,
-                "syncType", "full"
+            comunicacaoMulticast.enviarMensagem("DATA_SYNC", new SincronizacaoDados(
+                nodeId, relógioLamport.tick(), timestampArquivo, conteudoArquivo, ARQUIVO_TAREFAS_PRINCIPAL, "full"
             ));
             
         } catch (IOException e) {
@@ -176,12 +172,10 @@ public class SincronizadorDados {
                 return;
             }
             
-            @SuppressWarnings("unchecked")
-            Map<String, Object> dados = (Map<String, Object>) mensagem.getDados();
-            String leaderId = (String) dados.get("leaderId");
+            SincronizacaoDados dados = mensagem.obterDados(SincronizacaoDados.class);
             
             // Verifica se a sincronização vem do principal
-            if ("orchestrator-primary".equals(leaderId)) {
+            if ("orchestrator-primary".equals(dados.obterLeaderId())) {
                 processarSincronizacaoRecebida(dados);
             }
         });
@@ -224,9 +218,9 @@ public class SincronizadorDados {
     private void processarSincronizacaoImediata(Map<String, Object> dados) {
         try {
             String conteudoJson = (String) dados.get("conteudoJson");
-            Long timestamp = (Long) dados.get("timestamp");
-            Long lamportTimestamp = (Long) dados.get("lamportTimestamp");
-            Integer totalTarefas = (Integer) dados.get("totalTarefas");
+            // O Jackson entrega Integer ou Long conforme o valor
+            Number lamportTimestamp = (Number) dados.get("lamportTimestamp");
+            Number totalTarefas = (Number) dados.get("totalTarefas");
             
             if (conteudoJson == null || conteudoJson.trim().isEmpty()) {
                 System.err.println("[SYNC] Conteúdo JSON vazio na sincronização imediata");
@@ -235,7 +229,7 @@ public class SincronizadorDados {
             
             // Atualiza relógio de Lamport
             if (lamportTimestamp != null) {
-                relógioLamport.update(lamportTimestamp);
+                relógioLamport.update(lamportTimestamp.longValue());
             }
             
             // Salva o conteúdo no arquivo de backup
@@ -261,12 +255,12 @@ public class SincronizadorDados {
     /**
      * Processa sincronização recebida do líder
      */
-    private void processarSincronizacaoRecebida(@SuppressWarnings("unchecked") Map<String, Object> dados) {
+    private void processarSincronizacaoRecebida(SincronizacaoDados dados) {
         try {
-            String conteudoArquivo = (String) dados.get("fileContent");
-            String nomeArquivo = (String) dados.get("fileName");
-            Long timestampArquivo = (Long) dados.get("fileTimestamp");
-            String leaderId = (String) dados.get("leaderId");
+            String conteudoArquivo = dados.obterFileContent();
+            String nomeArquivo = dados.obterFileName();
+            long timestampArquivo = dados.obterFileTimestamp();
+            String leaderId = dados.obterLeaderId();
             
             if (conteudoArquivo == null || nomeArquivo == null) {
                 System.err.println("[SYNC] Dados de sincronização inválidos");
@@ -282,7 +276,7 @@ public class SincronizadorDados {
             Path arquivoBackup = Paths.get(ARQUIVO_TAREFAS_BACKUP);
             Files.writeString(arquivoBackup, conteudoArquivo);
             
-            if (timestampArquivo != null) {
+            if (timestampArquivo > 0) {
                 Files.setLastModifiedTime(arquivoBackup, 
                     java.nio.file.attribute.FileTime.fromMillis(timestampArquivo));
             }
@@ -299,7 +293,7 @@ public class SincronizadorDados {
                 // Substitui arquivo principal
                 Files.writeString(arquivoAtual, conteudoArquivo);
                 
-                if (timestampArquivo != null) {
+                if (timestampArquivo > 0) {
                     Files.setLastModifiedTime(arquivoAtual, 
                         java.nio.file.attribute.FileTime.fromMillis(timestampArquivo));
                 }
@@ -0,0 +1,29 @@
+package br.edu.ifba.orchestrator.service;
+
+import br.edu.ifba.orchestrator.model.Tarefa;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Estrutura completa do arquivo JSON
+ */
+class SistemaCompleto {
+    private SistemaMetadados metadados;
+    private List<Tarefa> tarefas;
+    private long ultimaSequencia;
+    
+    public SistemaCompleto() {
+        this.metadados = new SistemaMetadados();
+        this.tarefas = new ArrayList<>();
+    }
+    
+    public SistemaMetadados getMetadados() { return metadados; }
+    public void setMetadados(SistemaMetadados metadados) { this.metadados = metadados; }
+    
+    public List<Tarefa> getTarefas() { return tarefas; }
+    public void setTarefas(List<Tarefa> tarefas) { this.tarefas = tarefas; }
+    
+    public long getUltimaSequencia() { return ultimaSequencia; }
+    public void setUltimaSequencia(long ultimaSequencia) { this.ultimaSequencia = ultimaSequencia; }
+}
@@ -0,0 +1,46 @@
+package br.edu.ifba.orchestrator.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classe para armazenar metadados do sistema no JSON
+ */
+class SistemaMetadados {
+    private int roundRobinIndex;
+    private List<String> workersConectados;
+    private long ultimaAtualizacao;
+    private String liderAtual;
+    
+    public SistemaMetadados() {
+        this.roundRobinIndex = 0;
+        this.workersConectados = new ArrayList<>();
+        this.ultimaAtualizacao = System.currentTimeMillis();
+        this.liderAtual = "orchestrator-principal";
+    }
+    
+    // Getters e Setters
+    public int getRoundRobinIndex() { return roundRobinIndex; }
+    public void setRoundRobinIndex(int roundRobinIndex) { this.roundRobinIndex = roundRobinIndex; }
+    
+    public List<String> getWorkersConectados() { return workersConectados; }
+    public void setWorkersConectados(List<String> workersConectados) { this.workersConectados = workersConectados; }
+    
+    public long getUltimaAtualizacao() { return ultimaAtualizacao; }
+    public void setUltimaAtualizacao(long ultimaAtualizacao) { this.ultimaAtualizacao = ultimaAtualizacao; }
+    
+    public String getLiderAtual() { return liderAtual; }
+    public void setLiderAtual(String liderAtual) { this.liderAtual = liderAtual; }
+    
+    /**
+     * Cria uma cópia independente para ser registrada no log
+     */
+    public SistemaMetadados copiar() {
+        SistemaMetadados copia = new SistemaMetadados();
+        copia.setRoundRobinIndex(roundRobinIndex);
+        copia.setWorkersConectados(new ArrayList<>(workersConectados));
+        copia.setUltimaAtualizacao(ultimaAtualizacao);
+        copia.setLiderAtual(liderAtual);
+        return copia;
+    }
+}
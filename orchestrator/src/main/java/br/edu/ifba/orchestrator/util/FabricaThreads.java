@@ -0,0 +1,42 @@
+package br.edu.ifba.orchestrator.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cria as threads dos laços bloqueantes do orquestrador.
+ * Com -Dorquestrador.threads=virtual elas passam a ser threads virtuais (Java 21),
+ * permitindo comparar os dois modelos com o mesmo binário.
+ */
+public final class FabricaThreads {
+
+    private static final boolean THREADS_VIRTUAIS = "virtual".equalsIgnoreCase(
+            System.getProperty("orquestrador.threads", "plataforma"));
+
+    private FabricaThreads() {
+    }
+
+    public static boolean usaThreadsVirtuais() {
+        return THREADS_VIRTUAIS;
+    }
+
+    /**
+     * Inicia uma thread daemon (plataforma) ou virtual para um laço bloqueante
+     */
+    public static Thread iniciar(String nome, Runnable tarefa) {
+        if (THREADS_VIRTUAIS) {
+            return Thread.ofVirtual().name(nome).start(tarefa);
+        }
+        Thread thread = new Thread(tarefa, nome);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Executor com uma thread por tarefa: virtual, ou pool em cache de threads de plataforma
+     */
+    public static ExecutorService novoExecutorPorTarefa() {
+        return THREADS_VIRTUAIS ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newCachedThreadPool();
+    }
+}
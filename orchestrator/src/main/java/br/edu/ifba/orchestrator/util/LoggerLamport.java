@@ -1,20 +1,22 @@
 package br.edu.ifba.orchestrator.util;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-
 // Logger especializado para sistemas distribuídos com suporte a timestamps Lamport.
 // Fornece logs estruturados que incluem tanto timestamps físicos quanto lógicos.
+// A formatação e a escrita acontecem na thread da SaidaLogAssincrona; quem loga só registra os dados.
+// Os métodos com modelo e argumentos (formato do String.format) evitam montar a mensagem na thread chamadora.
 public class LoggerLamport {
     
-    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final Object[] SEM_ARGUMENTOS = new Object[0];
     
     private final String componentName;
+    // Pode ser nulo enquanto o componente ainda não recebeu o relógio; a marca sai como "-"
     private final RelógioLamport relógioLamport;
+    private final SaidaLogAssincrona saida;
     
     public LoggerLamport(String componentName, RelógioLamport relógioLamport) {
         this.componentName = componentName;
         this.relógioLamport = relógioLamport;
+        this.saida = SaidaLogAssincrona.obterPadrao();
     }
     
     // Log de informação com timestamp Lamport
@@ -22,16 +24,31 @@ public class LoggerLamport {
         log("INFO", message, false);
     }
     
+    // Log de informação com modelo formatado na thread de log
+    public void info(String modelo, Object... argumentos) {
+        log("INFO", modelo, argumentos, false);
+    }
+    
     // Log de informação com timestamp Lamport e tick automático
     public void infoWithTick(String message) {
         log("INFO", message, true);
     }
     
+    // Log de informação com modelo formatado na thread de log e tick automático
+    public void infoWithTick(String modelo, Object... argumentos) {
+        log("INFO", modelo, argumentos, true);
+    }
+    
     // Log de warning com timestamp Lamport
     public void warn(String message) {
         log("WARN", message, false);
     }
     
+    // Log de warning com modelo formatado na thread de log
+    public void warn(String modelo, Object... argumentos) {
+        log("WARN", modelo, argumentos, false);
+    }
+    
     // Log de warning com timestamp Lamport e tick automático
     public void warnWithTick(String message) {
         log("WARN", message, true);
@@ -42,6 +59,11 @@ public class LoggerLamport {
         log("ERROR", message, false);
     }
     
+    // Log de erro com modelo formatado na thread de log
+    public void error(String modelo, Object... argumentos) {
+        log("ERROR", modelo, argumentos, false);
+    }
+    
     // Log de erro com timestamp Lamport e tick automático
     public void errorWithTick(String message) {
         log("ERROR", message, true);
@@ -52,6 +74,11 @@ public class LoggerLamport {
         log("DEBUG", message, false);
     }
     
+    // Log de debug com modelo formatado na thread de log
+    public void debug(String modelo, Object... argumentos) {
+        log("DEBUG", modelo, argumentos, false);
+    }
+    
     // Log de debug com timestamp Lamport e tick automático
     public void debugWithTick(String message) {
         log("DEBUG", message, true);
@@ -60,45 +87,45 @@ public class LoggerLamport {
     // Log de evento de sistema distribuído (sempre com tick)
     public void distributed(String event, String details) {
         long lamportTimestamp = relógioLamport.tick();
-        String formattedMessage = String.format("[DISTRIBUTED] %s: %s", event, details);
-        logFormatted("DIST", formattedMessage, lamportTimestamp);
+        logFormatted("DIST", "[DISTRIBUTED] %s: %s", new Object[] {event, details}, lamportTimestamp);
     }
     
     // Log de comunicação entre nós (sempre com tick)
     public void communication(String direction, String peer, String messageType, String details) {
         long lamportTimestamp = relógioLamport.tick();
-        String formattedMessage = String.format("[COMM] %s %s - %s: %s", direction, peer, messageType, details);
-        logFormatted("COMM", formattedMessage, lamportTimestamp);
+        logFormatted("COMM", "[COMM] %s %s - %s: %s", new Object[] {direction, peer, messageType, details}, lamportTimestamp);
     }
     
     // Log de sincronização com timestamp recebido
     public void sync(String event, long receivedTimestamp, String details) {
         long newTimestamp = relógioLamport.update(receivedTimestamp);
-        String formattedMessage = String.format("[SYNC] %s (received:%d, new:%d): %s", 
-                                               event, receivedTimestamp, newTimestamp, details);
-        logFormatted("SYNC", formattedMessage, newTimestamp);
+        logFormatted("SYNC", "[SYNC] %s (received:%d, new:%d): %s",
+                     new Object[] {event, receivedTimestamp, newTimestamp, details}, newTimestamp);
     }
     
     // Método interno de log
     private void log(String level, String message, boolean doTick) {
-        long lamportTimestamp = doTick ? relógioLamport.tick() : relógioLamport.obterTimestampAtual();
-        logFormatted(level, message, lamportTimestamp);
-    }
-    
-    // Método interno de formatação e saída do log
-    private void logFormatted(String level, String message, long lamportTimestamp) {
-        String physicalTimestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
-        String nodeId = relógioLamport.obterIdNo();
-        
-        String logEntry = String.format("[%s] [%s] [%s:L%d] %s: %s",
-                physicalTimestamp,
-                level,
-                nodeId,
-                lamportTimestamp,
-                componentName,
-                message);
-        
-        System.out.println(logEntry);
+        log(level, message, SEM_ARGUMENTOS, doTick);
+    }
+    
+    private void log(String level, String modelo, Object[] argumentos, boolean doTick) {
+        long lamportTimestamp;
+        if (relógioLamport == null) {
+            lamportTimestamp = -1;
+        } else {
+            lamportTimestamp = doTick ? relógioLamport.tick() : relógioLamport.obterTimestampAtual();
+        }
+        logFormatted(level, modelo, argumentos, lamportTimestamp);
+    }
+    
+    // Método interno: entrega o registro à saída assíncrona, que formata e escreve
+    private void logFormatted(String level, String modelo, Object[] argumentos, long lamportTimestamp) {
+        if (relógioLamport == null) {
+            saida.registrar(level, componentName, "-", -1, false, modelo, argumentos);
+        } else {
+            saida.registrar(level, componentName, relógioLamport.obterIdNo(), lamportTimestamp,
+                            relógioLamport.usaRelogioHibrido(), modelo, argumentos);
+        }
     }
     
     // Cria um logger filho para um subcomponente
@@ -108,12 +135,17 @@ public class LoggerLamport {
     
     // Obtém o timestamp Lamport atual sem modificá-lo
     public long obterTimestampLamportAtual() {
-        return relógioLamport.obterTimestampAtual();
+        return relógioLamport != null ? relógioLamport.obterTimestampAtual() : -1;
     }
     
     // Obtém o ID do nó
     public String obterIdNo() {
-        return relógioLamport.obterIdNo();
+        return relógioLamport != null ? relógioLamport.obterIdNo() : null;
+    }
+    
+    // Espera a escrita dos registros pendentes (ex.: antes de encerrar)
+    public void descarregar() {
+        saida.descarregar();
     }
     
     // Métodos de compatibilidade (deprecated)
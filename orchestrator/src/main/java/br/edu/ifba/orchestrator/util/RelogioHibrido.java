@@ -0,0 +1,120 @@
+package br.edu.ifba.orchestrator.util;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relógio lógico híbrido (HLC, Kulkarni et al.): milissegundos físicos nos 48 bits altos e um contador
+ * lógico nos 16 bits baixos, em um único long.
+ *
+ * Como no Lamport, update(m) > max(local, m) e tick() > local, então a ordem causal é preservada e os
+ * valores seguem comparáveis como números. Além disso o valor nunca fica atrás do relógio físico local,
+ * o que permite correlacioná-lo com horários de parede. Se o relógio físico voltar (ajuste de NTP), o
+ * HLC não volta: continua na parte física anterior e avança só o contador.
+ *
+ * Todas as operações são um laço de compare-and-set sobre primitivos, sem alocação.
+ */
+public class RelogioHibrido {
+
+    public static final int BITS_LOGICOS = 16;
+    private static final long MASCARA_LOGICA = (1L << BITS_LOGICOS) - 1;
+
+    // Timestamps recebidos mais à frente que isto do relógio físico local indicam relógio adiantado no remetente
+    private static final long DESVIO_MAXIMO_MS = Long.getLong("orquestrador.hlc.desvioMaximoMs", 60000L);
+
+    private static final DateTimeFormatter FORMATO = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+            .withZone(ZoneId.systemDefault());
+
+    private final AtomicLong estado = new AtomicLong(0);
+    private final AtomicLong desviosExcessivos = new AtomicLong(0);
+
+    public long tick() {
+        return tick(1);
+    }
+
+    /**
+     * Reserva os timestamps de vários eventos locais de uma vez.
+     * O contador lógico comporta 2^16 eventos por milissegundo; o que passar disso (bloco grande ou
+     * contador já perto do limite) avança a parte física além do relógio de parede, como faria um
+     * relógio adiantado, e o contador recomeça. O bloco continua exclusivo e crescente.
+     * @return O último timestamp do bloco
+     */
+    public long tick(int eventos) {
+        if (eventos < 1) {
+            throw new IllegalArgumentException("Número de eventos deve ser positivo: " + eventos);
+        }
+        long piso = compor(System.currentTimeMillis(), 0) - 1;
+        long atual;
+        long novo;
+        do {
+            atual = estado.get();
+            novo = avancar(Math.max(atual, piso), eventos);
+        } while (!estado.compareAndSet(atual, novo));
+        return novo;
+    }
+
+    // Soma eventos ao contador lógico, levando o excedente para a parte física
+    private static long avancar(long base, int eventos) {
+        long logico = obterLogico(base) + eventos;
+        return compor(obterFisico(base) + (logico >>> BITS_LOGICOS), logico);
+    }
+
+    /**
+     * Avança além do timestamp recebido, do local e do relógio físico
+     */
+    public long update(long recebido) {
+        long agora = System.currentTimeMillis();
+        if (obterFisico(recebido) - agora > DESVIO_MAXIMO_MS) {
+            registrarDesvio(recebido, agora);
+        }
+        long piso = compor(agora, 0) - 1;
+        long atual;
+        long novo;
+        do {
+            atual = estado.get();
+            novo = avancar(Math.max(Math.max(atual, recebido), piso), 1);
+        } while (!estado.compareAndSet(atual, novo));
+        return novo;
+    }
+
+    public long obterTimestampAtual() {
+        return estado.get();
+    }
+
+    /**
+     * Quantos timestamps recebidos estavam adiantados além do desvio máximo
+     */
+    public long obterDesviosExcessivos() {
+        return desviosExcessivos.get();
+    }
+
+    public static long compor(long fisicoMs, long logico) {
+        return (fisicoMs << BITS_LOGICOS) | (logico & MASCARA_LOGICA);
+    }
+
+    public static long obterFisico(long timestamp) {
+        return timestamp >>> BITS_LOGICOS;
+    }
+
+    public static long obterLogico(long timestamp) {
+        return timestamp & MASCARA_LOGICA;
+    }
+
+    /**
+     * Formato legível: horário físico e contador lógico (ex.: 2024-05-01 12:00:00.123+2)
+     */
+    public static String formatar(long timestamp) {
+        return FORMATO.format(Instant.ofEpochMilli(obterFisico(timestamp))) + "+" + obterLogico(timestamp);
+    }
+
+    // O valor é aceito mesmo assim (recusá-lo quebraria a causalidade); só o primeiro e depois um a cada mil são logados
+    private void registrarDesvio(long recebido, long agora) {
+        long total = desviosExcessivos.incrementAndGet();
+        if (total == 1 || total % 1000 == 0) {
+            System.err.println("[HLC] Timestamp recebido " + (obterFisico(recebido) - agora) +
+                              "ms à frente do relógio local (" + total + " ocorrências) - verifique a sincronização de relógios");
+        }
+    }
+}
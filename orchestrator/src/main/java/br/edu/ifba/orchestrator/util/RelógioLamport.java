@@ -8,18 +8,43 @@ import java.util.concurrent.atomic.AtomicLong;
  * O relógio de Lamport garante que eventos causalmente relacionados tenham timestamps
  * ordenados logicamente, mesmo em sistemas distribuídos onde não há sincronização
  * de relógio físico perfeita.
+ * 
+ * Com -Dorquestrador.relogio=hlc os timestamps passam a vir de um RelogioHibrido (físico + lógico),
+ * mantendo a mesma interface para quem usa o relógio (multicast, tarefas, snapshots e logs).
  */
 public class RelógioLamport {
+    // Cada evento do relógio só é impresso com -Dorquestrador.lamport.log=true (depuração): mesmo pela
+    // saída assíncrona, o registro aloca os argumentos em todo tick e update, que ficam no caminho quente
+    private static final boolean LOG_EVENTOS = "true".equalsIgnoreCase(
+            System.getProperty("orquestrador.lamport.log", "false"));
+    
+    private static final boolean HIBRIDO_PADRAO = "hlc".equalsIgnoreCase(
+            System.getProperty("orquestrador.relogio", "lamport"));
+    
     private final AtomicLong timestamp;
     private final String nodeId;
+    // Não nulo no modo HLC, que então responde por todas as operações
+    private final RelogioHibrido hibrido;
     
     /**
      * Construtor do relógio de Lamport
      * @param nodeId Identificador único do nó (ex: "orchestrator-1", "worker-1")
      */
     public RelógioLamport(String nodeId) {
+        this(nodeId, HIBRIDO_PADRAO);
+    }
+    
+    /**
+     * @param hibrido true para usar o relógio lógico híbrido em vez do contador de Lamport
+     */
+    public RelógioLamport(String nodeId, boolean hibrido) {
         this.timestamp = new AtomicLong(0);
         this.nodeId = nodeId;
+        this.hibrido = hibrido ? new RelogioHibrido() : null;
+    }
+    
+    public boolean usaRelogioHibrido() {
+        return hibrido != null;
     }
     
     /**
@@ -27,23 +52,55 @@ public class RelógioLamport {
      * @return O novo timestamp após incremento
      */
     public long tick() {
-        long newTimestamp = timestamp.incrementAndGet();
-        System.out.println("[LAMPORT] " + nodeId + " - Tick: " + newTimestamp);
+        long newTimestamp = hibrido != null ? hibrido.tick() : timestamp.incrementAndGet();
+        if (LOG_EVENTOS) {
+            SaidaLogAssincrona.obterPadrao().registrarLinha("[LAMPORT] %s - Tick: %s", nodeId, formatarMarcaEvento(newTimestamp));
+        }
+        return newTimestamp;
+    }
+    
+    /**
+     * Reserva de uma vez os timestamps de vários eventos locais (lotes de tarefas): o bloco
+     * (retorno - eventos, retorno] é exclusivo do chamador, ao custo de uma única operação atômica
+     * @return O último timestamp do bloco
+     */
+    public long tick(int eventos) {
+        long newTimestamp = hibrido != null ? hibrido.tick(eventos) : timestamp.addAndGet(eventos);
+        if (LOG_EVENTOS) {
+            SaidaLogAssincrona.obterPadrao().registrarLinha("[LAMPORT] %s - Tick x%d: %s", nodeId, eventos,
+                                                            formatarMarcaEvento(newTimestamp));
+        }
         return newTimestamp;
     }
     
     /**
-     * Atualiza o timestamp local ao receber uma mensagem
+     * Atualiza o timestamp local ao receber uma mensagem.
+     * Usa compare-and-set: com ticks e updates concorrentes nenhum incremento se perde
+     * e o relógio nunca volta para um valor menor que o de outra thread.
      * @param receivedTimestamp Timestamp recebido na mensagem
      * @return O novo timestamp local após sincronização
      */
     public long update(long receivedTimestamp) {
-        long currentTimestamp = timestamp.get();
-        long newTimestamp = Math.max(currentTimestamp, receivedTimestamp) + 1;
-        timestamp.set(newTimestamp);
+        if (hibrido != null) {
+            long newTimestamp = hibrido.update(receivedTimestamp);
+            if (LOG_EVENTOS) {
+                SaidaLogAssincrona.obterPadrao().registrarLinha("[LAMPORT] %s - Update: received=%s, new=%s", nodeId,
+                                                                formatarMarcaEvento(receivedTimestamp),
+                                                                formatarMarcaEvento(newTimestamp));
+            }
+            return newTimestamp;
+        }
+        long currentTimestamp;
+        long newTimestamp;
+        do {
+            currentTimestamp = timestamp.get();
+            newTimestamp = Math.max(currentTimestamp, receivedTimestamp) + 1;
+        } while (!timestamp.compareAndSet(currentTimestamp, newTimestamp));
         
-        System.out.println("[LAMPORT] " + nodeId + " - Update: local=" + currentTimestamp + 
-                          ", received=" + receivedTimestamp + ", new=" + newTimestamp);
+        if (LOG_EVENTOS) {
+            SaidaLogAssincrona.obterPadrao().registrarLinha("[LAMPORT] %s - Update: local=%d, received=%d, new=%d",
+                                                            nodeId, currentTimestamp, receivedTimestamp, newTimestamp);
+        }
         return newTimestamp;
     }
     
@@ -52,7 +109,19 @@ public class RelógioLamport {
      * @return Timestamp atual
      */
     public long obterTimestampAtual() {
-        return timestamp.get();
+        return hibrido != null ? hibrido.obterTimestampAtual() : timestamp.get();
+    }
+    
+    /**
+     * Timestamp legível para logs: "L<contador>" no Lamport, "H<horário>+<lógico>" no HLC
+     */
+    public String formatarMarca(long marca) {
+        return hibrido != null ? "H" + RelogioHibrido.formatar(marca) : "L" + marca;
+    }
+    
+    // No HLC o texto legível é montado na thread de log; no Lamport o próprio número basta
+    private Object formatarMarcaEvento(long marca) {
+        return hibrido != null ? new MarcaHibrida(marca) : marca;
     }
     
     /**
@@ -68,7 +137,7 @@ public class RelógioLamport {
      * @return String formatada com timestamp e nodeId
      */
     public String obterTimestampFormatado() {
-        return "[" + nodeId + ":" + obterTimestampAtual() + "]";
+        return "[" + nodeId + ":" + (hibrido != null ? formatarMarca(obterTimestampAtual()) : obterTimestampAtual()) + "]";
     }
     
     // Métodos de compatibilidade (deprecated)
@@ -101,6 +170,20 @@ public class RelógioLamport {
         }
     }
     
+    // Adia a formatação do horário do HLC até o toString chamado pela thread de log
+    private static final class MarcaHibrida {
+        private final long marca;
+        
+        MarcaHibrida(long marca) {
+            this.marca = marca;
+        }
+        
+        @Override
+        public String toString() {
+            return "H" + RelogioHibrido.formatar(marca);
+        }
+    }
+    
     @Override
     public String toString() {
         return "RelógioLamport{nodeId='" + nodeId + "', timestamp=" + obterTimestampAtual() + "}";
@@ -0,0 +1,259 @@
+package br.edu.ifba.orchestrator.util;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Formatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Saída de log assíncrona usada pelo LoggerLamport e pelos eventos do RelógioLamport.
+ *
+ * Quem loga só copia nível, componente, marca Lamport, System.nanoTime() e o modelo com seus argumentos
+ * para um registro de um anel pré-alocado; uma thread de fundo formata (horário, String.format) e
+ * escreve em lote no System.out. Os argumentos são formatados depois, então devem ser valores imutáveis
+ * (textos, números), não objetos que mudam de estado.
+ *
+ * Com o anel cheio a política decide: "bloquear" (padrão) espera espaço e não perde nada, "descartar"
+ * conta e descarta o registro para nunca atrasar quem loga. Com -Dorquestrador.log.assincrono=false
+ * cada registro é formatado e escrito na própria thread, como antes.
+ *
+ * O anel é uma fila limitada de vários produtores e um consumidor: cada posição tem um número de
+ * sequência que indica se está livre para a volta corrente ou já publicada.
+ */
+public final class SaidaLogAssincrona {
+
+    private static final boolean ASSINCRONA = !"false".equalsIgnoreCase(
+            System.getProperty("orquestrador.log.assincrono", "true"));
+    private static final int CAPACIDADE = Integer.getInteger("orquestrador.log.capacidade", 8192);
+    private static final boolean DESCARTAR_QUANDO_CHEIO = "descartar".equalsIgnoreCase(
+            System.getProperty("orquestrador.log.politica", "bloquear"));
+
+    private static final DateTimeFormatter FORMATO_HORARIO = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+            .withZone(ZoneId.systemDefault());
+    // Escreve no System.out quando o lote formatado passa deste tamanho, mesmo que ainda haja registros
+    private static final int TAMANHO_MAXIMO_LOTE = 64 * 1024;
+    private static final long ESPERA_OCIOSA_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long TEMPO_LIMITE_DESCARGA_MS = 2000;
+
+    // Converte System.nanoTime() (barato e monotônico) em horário de parede na formatação
+    private static final long BASE_MILIS = System.currentTimeMillis();
+    private static final long BASE_NANOS = System.nanoTime();
+
+    private static final SaidaLogAssincrona PADRAO = new SaidaLogAssincrona(CAPACIDADE, DESCARTAR_QUANDO_CHEIO);
+
+    private static final class Registro {
+        String nivel;
+        String componente;
+        String noId;
+        long marca;
+        boolean marcaHibrida;
+        long nanos;
+        String modelo;
+        Object[] argumentos;
+    }
+
+    private final Registro[] registros;
+    private final AtomicLongArray sequencias;
+    private final int mascara;
+    private final boolean descartarQuandoCheio;
+    private final AtomicLong cauda = new AtomicLong(0);
+    private final LongAdder descartados = new LongAdder();
+    private final StringBuilder lote = new StringBuilder(TAMANHO_MAXIMO_LOTE + 1024);
+    private final Formatter formatador = new Formatter(lote);
+    private Thread consumidor;
+    private long cabeca = 0;
+    private long descartadosInformados = 0;
+    private volatile long escritos = 0;
+    private volatile boolean consumidorAguardando = false;
+
+    private SaidaLogAssincrona(int capacidade, boolean descartarQuandoCheio) {
+        int tamanho = Integer.highestOneBit(Math.max(2, capacidade - 1)) << 1;
+        this.registros = new Registro[tamanho];
+        this.sequencias = new AtomicLongArray(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            registros[i] = new Registro();
+            sequencias.set(i, i);
+        }
+        this.mascara = tamanho - 1;
+        this.descartarQuandoCheio = descartarQuandoCheio;
+
+        if (ASSINCRONA) {
+            consumidor = FabricaThreads.iniciar("log-lamport", this::consumir);
+            Runtime.getRuntime().addShutdownHook(new Thread(this::descarregar, "log-lamport-descarga"));
+        }
+    }
+
+    public static SaidaLogAssincrona obterPadrao() {
+        return PADRAO;
+    }
+
+    /**
+     * Registra uma entrada no formato do LoggerLamport: [horário] [nível] [nó:marca] componente: mensagem
+     * @param argumentos formatados com String.format sobre o modelo; null ou vazio usa o modelo como está
+     */
+    public void registrar(String nivel, String componente, String noId, long marca, boolean marcaHibrida,
+                          String modelo, Object[] argumentos) {
+        registrar(nivel, componente, noId, marca, marcaHibrida, System.nanoTime(), modelo, argumentos);
+    }
+
+    /**
+     * Registra uma linha sem cabeçalho (ex.: "[LAMPORT] no - Tick: 5"), como um System.out.println fora da thread
+     */
+    public void registrarLinha(String modelo, Object... argumentos) {
+        registrar(null, null, null, 0, false, 0, modelo, argumentos);
+    }
+
+    /**
+     * Registros descartados por anel cheio (só com a política "descartar")
+     */
+    public long obterDescartados() {
+        return descartados.sum();
+    }
+
+    public int obterCapacidade() {
+        return registros.length;
+    }
+
+    /**
+     * Espera (com limite) que tudo o que já foi registrado esteja escrito no System.out
+     */
+    public void descarregar() {
+        if (!ASSINCRONA) {
+            return;
+        }
+        long alvo = cauda.get();
+        long limite = System.currentTimeMillis() + TEMPO_LIMITE_DESCARGA_MS;
+        while (escritos < alvo && System.currentTimeMillis() < limite) {
+            LockSupport.unpark(consumidor);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    private void registrar(String nivel, String componente, String noId, long marca, boolean marcaHibrida,
+                           long nanos, String modelo, Object[] argumentos) {
+        if (!ASSINCRONA) {
+            synchronized (lote) {
+                formatar(nivel, componente, noId, marca, marcaHibrida, nanos, modelo, argumentos);
+                escreverLote();
+            }
+            return;
+        }
+
+        long posicao;
+        int indice;
+        while (true) {
+            posicao = cauda.get();
+            indice = (int) (posicao & mascara);
+            long diferenca = sequencias.get(indice) - posicao;
+            if (diferenca == 0) {
+                if (cauda.compareAndSet(posicao, posicao + 1)) {
+                    break;
+                }
+            } else if (diferenca < 0) {
+                // Posição ainda ocupada pela volta anterior: anel cheio
+                if (descartarQuandoCheio) {
+                    descartados.increment();
+                    return;
+                }
+                LockSupport.unpark(consumidor);
+                LockSupport.parkNanos(50_000);
+            }
+            // diferenca > 0: outro produtor ficou com a posição; tenta a seguinte
+        }
+
+        Registro registro = registros[indice];
+        registro.nivel = nivel;
+        registro.componente = componente;
+        registro.noId = noId;
+        registro.marca = marca;
+        registro.marcaHibrida = marcaHibrida;
+        registro.nanos = nanos;
+        registro.modelo = modelo;
+        registro.argumentos = argumentos;
+        sequencias.set(indice, posicao + 1);
+
+        if (consumidorAguardando) {
+            LockSupport.unpark(consumidor);
+        }
+    }
+
+    private void consumir() {
+        while (true) {
+            int indice = (int) (cabeca & mascara);
+            if (sequencias.get(indice) == cabeca + 1) {
+                Registro registro = registros[indice];
+                formatar(registro.nivel, registro.componente, registro.noId, registro.marca, registro.marcaHibrida,
+                        registro.nanos, registro.modelo, registro.argumentos);
+                registro.modelo = null;
+                registro.argumentos = null;
+                sequencias.set(indice, cabeca + registros.length);
+                cabeca++;
+                if (lote.length() >= TAMANHO_MAXIMO_LOTE) {
+                    escreverLote();
+                    escritos = cabeca;
+                }
+                continue;
+            }
+
+            // Nada publicado: escreve o que acumulou e dorme até um produtor acordar a thread
+            informarDescartados();
+            escreverLote();
+            escritos = cabeca;
+            consumidorAguardando = true;
+            if (sequencias.get(indice) != cabeca + 1) {
+                LockSupport.parkNanos(ESPERA_OCIOSA_NANOS);
+            }
+            consumidorAguardando = false;
+        }
+    }
+
+    private void formatar(String nivel, String componente, String noId, long marca, boolean marcaHibrida,
+                          long nanos, String modelo, Object[] argumentos) {
+        if (componente != null) {
+            lote.append('[');
+            FORMATO_HORARIO.formatTo(Instant.ofEpochMilli(BASE_MILIS + (nanos - BASE_NANOS) / 1_000_000), lote);
+            lote.append("] [").append(nivel).append("] [").append(noId).append(':');
+            if (marca < 0) {
+                lote.append('-');
+            } else if (marcaHibrida) {
+                lote.append('H').append(RelogioHibrido.formatar(marca));
+            } else {
+                lote.append('L').append(marca);
+            }
+            lote.append("] ").append(componente).append(": ");
+        }
+        if (argumentos == null || argumentos.length == 0) {
+            lote.append(modelo);
+        } else {
+            try {
+                formatador.format(modelo, argumentos);
+            } catch (Exception e) {
+                lote.append(modelo).append(" (erro de formatação: ").append(e.getMessage()).append(')');
+            }
+        }
+        lote.append(System.lineSeparator());
+    }
+
+    private void informarDescartados() {
+        long total = descartados.sum();
+        if (total > descartadosInformados) {
+            lote.append("[LOG] ").append(total - descartadosInformados)
+                .append(" registros descartados com o buffer de log cheio (").append(total).append(" no total)")
+                .append(System.lineSeparator());
+            descartadosInformados = total;
+        }
+    }
+
+    private void escreverLote() {
+        if (lote.length() > 0) {
+            System.out.print(lote);
+            System.out.flush();
+            lote.setLength(0);
+        }
+    }
+}
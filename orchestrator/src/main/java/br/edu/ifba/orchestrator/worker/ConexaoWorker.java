@@ -0,0 +1,30 @@
+package br.edu.ifba.orchestrator.worker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Conexão com um worker, independente do transporte (socket bloqueante ou laço de eventos NIO).
+ * As mensagens são linhas JSON ou, se negociado no REGISTRO, quadros do ProtocoloWorker.
+ */
+public interface ConexaoWorker {
+
+    String obterWorkerId();
+
+    /**
+     * Indica se o worker negociou o protocolo binário no registro
+     */
+    boolean usaProtocoloBinario();
+
+    /**
+     * Envia uma linha JSON ao worker. Pode ser chamado de qualquer thread.
+     */
+    void enviar(String mensagem);
+
+    /**
+     * Envia um quadro já codificado ao worker. Pode ser chamado de qualquer thread.
+     */
+    void enviarQuadro(ByteBuffer quadro);
+
+    void fechar() throws IOException;
+}
@@ -0,0 +1,36 @@
+package br.edu.ifba.orchestrator.worker;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToIntFunction;
+
+/**
+ * "Power of two choices": sorteia dois workers distintos e envia ao menos ocupado.
+ * Custo constante por tarefa e distribuição próxima da do menos-ocupado em frotas grandes.
+ */
+public class DespachoDuasEscolhas implements EstrategiaDespacho {
+
+    @Override
+    public String escolherWorker(List<String> workers, ToIntFunction<String> tarefasEmAndamento) {
+        int total = workers.size();
+        if (total == 1) {
+            return workers.get(0);
+        }
+
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        int primeiro = aleatorio.nextInt(total);
+        int segundo = aleatorio.nextInt(total - 1);
+        if (segundo >= primeiro) {
+            segundo++;
+        }
+
+        String workerA = workers.get(primeiro);
+        String workerB = workers.get(segundo);
+        return tarefasEmAndamento.applyAsInt(workerB) < tarefasEmAndamento.applyAsInt(workerA) ? workerB : workerA;
+    }
+
+    @Override
+    public String obterNome() {
+        return "duas-escolhas";
+    }
+}
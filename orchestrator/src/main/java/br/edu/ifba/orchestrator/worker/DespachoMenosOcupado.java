@@ -0,0 +1,40 @@
+package br.edu.ifba.orchestrator.worker;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * Envia a tarefa ao worker com menos tarefas em andamento.
+ * A varredura começa em uma posição rotativa para que empates não favoreçam sempre o mesmo worker.
+ */
+public class DespachoMenosOcupado implements EstrategiaDespacho {
+
+    private final AtomicInteger inicio = new AtomicInteger(0);
+
+    @Override
+    public String escolherWorker(List<String> workers, ToIntFunction<String> tarefasEmAndamento) {
+        int total = workers.size();
+        int deslocamento = Math.floorMod(inicio.getAndIncrement(), total);
+
+        String escolhido = null;
+        int menorCarga = Integer.MAX_VALUE;
+        for (int i = 0; i < total; i++) {
+            String worker = workers.get((deslocamento + i) % total);
+            int carga = tarefasEmAndamento.applyAsInt(worker);
+            if (carga < menorCarga) {
+                menorCarga = carga;
+                escolhido = worker;
+                if (carga == 0) {
+                    break;
+                }
+            }
+        }
+        return escolhido;
+    }
+
+    @Override
+    public String obterNome() {
+        return "menos-ocupado";
+    }
+}
@@ -0,0 +1,41 @@
+package br.edu.ifba.orchestrator.worker;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * Round-robin sobre a lista ordenada de workers, ignorando a carga de cada um.
+ * O índice é persistido nos metadados para ser retomado após failover.
+ */
+public class DespachoRoundRobin implements EstrategiaDespacho {
+
+    private final AtomicInteger indice = new AtomicInteger(0);
+
+    @Override
+    public String escolherWorker(List<String> workers, ToIntFunction<String> tarefasEmAndamento) {
+        while (true) {
+            int atual = indice.get();
+            int escolhido = atual % workers.size();
+            if (indice.compareAndSet(atual, (escolhido + 1) % workers.size())) {
+                return workers.get(escolhido);
+            }
+        }
+    }
+
+    @Override
+    public String obterNome() {
+        return "round-robin";
+    }
+
+    /**
+     * Índice do próximo worker a receber uma tarefa
+     */
+    public int obterIndice() {
+        return indice.get();
+    }
+
+    public void definirIndice(int novoIndice) {
+        indice.set(Math.max(0, novoIndice));
+    }
+}
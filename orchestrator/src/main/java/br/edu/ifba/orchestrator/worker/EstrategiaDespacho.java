@@ -0,0 +1,34 @@
+package br.edu.ifba.orchestrator.worker;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Política de escolha do worker que recebe uma tarefa.
+ * Selecionada com -Dorquestrador.despacho=round-robin|menos-ocupado|duas-escolhas.
+ */
+public interface EstrategiaDespacho {
+
+    /**
+     * Escolhe um worker. Pode ser chamado de várias threads ao mesmo tempo.
+     * @param workers lista ordenada e não vazia dos workers conectados
+     * @param tarefasEmAndamento número de tarefas enviadas e ainda não concluídas por worker
+     */
+    String escolherWorker(List<String> workers, ToIntFunction<String> tarefasEmAndamento);
+
+    String obterNome();
+
+    static EstrategiaDespacho criar(String nome) {
+        switch (nome.toLowerCase()) {
+            case "menos-ocupado":
+                return new DespachoMenosOcupado();
+            case "duas-escolhas":
+                return new DespachoDuasEscolhas();
+            case "round-robin":
+                return new DespachoRoundRobin();
+            default:
+                System.err.println("Estratégia de despacho desconhecida '" + nome + "' - usando round-robin");
+                return new DespachoRoundRobin();
+        }
+    }
+}
@@ -2,30 +2,88 @@ package br.edu.ifba.orchestrator.worker;
 
 import br.edu.ifba.orchestrator.atividade.OrquestradorAtividadeProto.Atividade;
 import br.edu.ifba.orchestrator.model.Tarefa;
+import br.edu.ifba.orchestrator.network.ProtocoloWorker;
 import br.edu.ifba.orchestrator.service.GerenciadorTarefas;
 import br.edu.ifba.orchestrator.service.HeartbeatManager;
+import br.edu.ifba.orchestrator.service.RodaTemporizacao;
+import br.edu.ifba.orchestrator.util.FabricaThreads;
+import br.edu.ifba.orchestrator.util.LoggerLamport;
 import br.edu.ifba.orchestrator.util.RelógioLamport;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.*;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class GerenciadorWorkers {
     
-    private final Map<String, WorkerConnection> workersConectados;
-    private final AtomicInteger roundRobinIndex;
+    private static final String ESTRATEGIA_DESPACHO = System.getProperty("orquestrador.despacho", "round-robin");
+    
+    // Janela de crédito de workers que não anunciam uma (recebem tarefas assim que chegam)
+    public static final int CREDITOS_ILIMITADOS = Integer.MAX_VALUE;
+    
+    // Tempo máximo entre o envio de uma tarefa e a conclusão; vencido, a tarefa volta à fila e pode acabar
+    // executada por dois workers (entrega "pelo menos uma vez"). 0 desativa.
+    private static final long PRAZO_EXECUCAO_MS = Long.getLong("orquestrador.tarefa.prazoExecucaoMs", 60000L);
+    
+    // Resolução e tamanho da roda de temporização compartilhada (prazos de tarefas e de heartbeat)
+    private static final long TICK_RODA_MS = Long.getLong("orquestrador.roda.tickMs", 10L);
+    private static final int BALDES_RODA = Integer.getInteger("orquestrador.roda.baldes", 512);
+    
+    private static final class PrazoExecucao {
+        final String tarefaId;
+        final String workerId;
+        RodaTemporizacao.Temporizador temporizador;
+        
+        PrazoExecucao(String tarefaId, String workerId) {
+            this.tarefaId = tarefaId;
+            this.workerId = workerId;
+        }
+    }
+    
+    private final Map<String, ConexaoWorker> workersConectados;
+    // Lista ordenada de workers, refeita só quando um worker entra ou sai
+    private volatile List<String> workersOrdenados;
+    // Tarefas enviadas e ainda não concluídas por worker, mantidas no despacho e na CONCLUSAO
+    private final Map<String, AtomicInteger> tarefasEmAndamento;
+    // Quantas tarefas cada worker aceita ao mesmo tempo (anunciado no REGISTRO ou em CREDITO)
+    private final Map<String, Integer> janelaCreditos;
+    // Serializa o dreno da fila pendente do GerenciadorTarefas (tarefas sem worker ou sem crédito)
+    private final Object travaFilaPendente = new Object();
+    private volatile EstrategiaDespacho estrategiaDespacho;
     private final ObjectMapper objectMapper;
+    private final RodaTemporizacao rodaTemporizacao;
+    // Prazo de execução de cada tarefa enviada; os vencidos são tratados fora da thread da roda
+    private final Map<String, PrazoExecucao> prazosExecucao;
+    private final BlockingQueue<PrazoExecucao> prazosVencidos;
+    // Tarefa -> workers que a receberam e ainda a executam sem serem os responsáveis (redespacho por prazo)
+    private final Map<String, Set<String>> creditosRetidos = new ConcurrentHashMap<>();
+    private boolean tratamentoPrazosIniciado = false;
     private GerenciadorTarefas gerenciadorTarefas;
     private HeartbeatManager heartbeatManager;
     private RelógioLamport relógioLamport;
+    // Logs por tarefa (despacho, envio, conclusão) vão pela saída assíncrona; recriado ao receber o relógio
+    private LoggerLamport logger = new LoggerLamport("Workers", null);
     
     public GerenciadorWorkers() {
         this.workersConectados = new ConcurrentHashMap<>();
-        this.roundRobinIndex = new AtomicInteger(0);
+        this.workersOrdenados = List.of();
+        this.tarefasEmAndamento = new ConcurrentHashMap<>();
+        this.janelaCreditos = new ConcurrentHashMap<>();
+        this.estrategiaDespacho = EstrategiaDespacho.criar(ESTRATEGIA_DESPACHO);
         this.objectMapper = new ObjectMapper();
+        this.rodaTemporizacao = new RodaTemporizacao("roda-temporizacao", TICK_RODA_MS, BALDES_RODA);
+        this.prazosExecucao = new ConcurrentHashMap<>();
+        this.prazosVencidos = new LinkedBlockingQueue<>();
     }
     
     public void setGerenciadorTarefas(GerenciadorTarefas gerenciadorTarefas) {
@@ -36,139 +94,516 @@ public class GerenciadorWorkers {
         this.heartbeatManager = heartbeatManager;
     }
     
+    public RodaTemporizacao obterRodaTemporizacao() {
+        return rodaTemporizacao;
+    }
+    
     public void setRelógioLamport(RelógioLamport relógioLamport) {
         this.relógioLamport = relógioLamport;
+        this.logger = new LoggerLamport("Workers", relógioLamport);
+    }
+    
+    public void definirEstrategiaDespacho(EstrategiaDespacho estrategiaDespacho) {
+        this.estrategiaDespacho = estrategiaDespacho;
+        System.out.println("[DESPACHO] Estratégia: " + estrategiaDespacho.obterNome());
     }
     
+    public EstrategiaDespacho obterEstrategiaDespacho() {
+        return estrategiaDespacho;
+    }
+    
+    /**
+     * Registra um worker conectado por socket bloqueante, com uma thread de escuta própria
+     */
     public void adicionarWorker(String workerId, Socket socket) {
         try {
-            WorkerConnection connection = new WorkerConnection(workerId, socket);
-            workersConectados.put(workerId, connection);
-            
-            // Registrar worker no sistema de heartbeat
-            if (heartbeatManager != null) {
-                heartbeatManager.registrarWorker(workerId);
-            }
+            adicionarWorker(workerId, socket,
+                    new DataInputStream(new BufferedInputStream(socket.getInputStream())), false, CREDITOS_ILIMITADOS);
+        } catch (IOException e) {
+            System.err.println("Erro ao adicionar worker " + workerId + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Registra um worker por socket bloqueante reaproveitando o fluxo em que o REGISTRO foi lido
+     */
+    public void adicionarWorker(String workerId, Socket socket, DataInputStream entrada,
+                                boolean protocoloBinario, int creditos) {
+        try {
+            WorkerConnection connection = new WorkerConnection(workerId, socket, entrada, protocoloBinario);
+            adicionarWorker(connection, creditos);
             
             // Iniciar thread para escutar mensagens do worker
             iniciarThreadEscuta(connection);
             
-            System.out.println("Worker " + workerId + " conectado. Total de workers: " + workersConectados.size());
-            
         } catch (IOException e) {
             System.err.println("Erro ao adicionar worker " + workerId + ": " + e.getMessage());
         }
     }
     
+    /**
+     * Registra um worker cuja leitura é feita pelo transporte (ex.: laço de eventos NIO)
+     */
+    public void adicionarWorker(ConexaoWorker connection) {
+        adicionarWorker(connection, CREDITOS_ILIMITADOS);
+    }
+    
+    /**
+     * Registra um worker que aceita no máximo {@code creditos} tarefas em andamento
+     */
+    public void adicionarWorker(ConexaoWorker connection, int creditos) {
+        String workerId = connection.obterWorkerId();
+        
+        // Confirmar o protocolo binário antes de qualquer outra mensagem ao worker
+        if (connection.usaProtocoloBinario()) {
+            connection.enviarQuadro(ProtocoloWorker.codificarRegistroAck());
+        }
+        
+        // Contador criado antes de o worker entrar na lista de despacho; na reconexão o atual é mantido
+        tarefasEmAndamento.computeIfAbsent(workerId, id -> new AtomicInteger(contarTarefasPendentes(id)));
+        janelaCreditos.put(workerId, creditos);
+        
+        ConexaoWorker anterior = workersConectados.put(workerId, connection);
+        if (anterior != null && anterior != connection) {
+            fecharConexao(anterior);
+        }
+        atualizarListaWorkers();
+        
+        // Registrar worker no sistema de heartbeat
+        if (heartbeatManager != null) {
+            heartbeatManager.registrarWorker(workerId);
+        }
+        
+        System.out.println("Worker " + workerId + " conectado" +
+                          (connection.usaProtocoloBinario() ? " (" + ProtocoloWorker.NOME_PROTOCOLO + ")" : "") +
+                          (creditos != CREDITOS_ILIMITADOS ? " [créditos: " + creditos + "]" : "") +
+                          ". Total de workers: " + workersConectados.size());
+        
+        // O novo worker pode absorver tarefas que aguardavam crédito
+        drenarFilaPendente();
+    }
+    
     private void iniciarThreadEscuta(WorkerConnection connection) {
-        Thread thread = new Thread(() -> {
+        String workerId = connection.obterWorkerId();
+        ProtocoloWorker.ReceptorMensagens receptor = new ProtocoloWorker.ReceptorMensagens() {
+            @Override
+            public void linhaJson(String linha) {
+                processarMensagemWorker(workerId, linha);
+            }
+            
+            @Override
+            public void quadro(byte tipo, ByteBuffer corpo) {
+                processarQuadroWorker(workerId, tipo, corpo);
+            }
+        };
+        
+        FabricaThreads.iniciar("worker-" + workerId, () -> {
             try {
-                String mensagem;
-                while ((mensagem = connection.getEntrada().readLine()) != null) {
-                    processarMensagemWorker(connection.getWorkerId(), mensagem);
+                while (ProtocoloWorker.lerProxima(connection.getEntrada(), receptor)) {
+                    // Mensagens tratadas pelo receptor
                 }
             } catch (IOException e) {
-                System.out.println("Worker " + connection.getWorkerId() + " desconectado");
+                System.out.println("Worker " + connection.obterWorkerId() + " desconectado");
             } finally {
-                removerWorker(connection.getWorkerId());
+                removerWorker(connection.obterWorkerId(), connection);
             }
         });
-        thread.setDaemon(true);
-        thread.start();
     }
     
-    private void processarMensagemWorker(String workerId, String mensagem) {
+    /**
+     * Trata uma linha JSON recebida de um worker. Chamado pela thread de leitura do transporte.
+     */
+    public void processarMensagemWorker(String workerId, String mensagem) {
         try {
-            if (mensagem.contains("\"tipo\":\"CONCLUSAO\"")) {
-                // Extrair ID da tarefa concluída
-                String tarefaId = extrairValorJson(mensagem, "tarefaId");
-                if (tarefaId != null && gerenciadorTarefas != null) {
-                    // Incrementar Lamport ao receber confirmação de conclusão
-                    if (relógioLamport != null) {
-                        long lamportTimestamp = relógioLamport.tick();
-                        System.out.println("[LAMPORT] Confirmação de conclusão recebida - Tick: " + lamportTimestamp);
-                    }
-                    gerenciadorTarefas.finalizarTarefa(tarefaId, workerId);
-                }
-            } else if (mensagem.contains("\"tipo\":\"HEARTBEAT_RESPONSE\"")) {
-                // Processar resposta de heartbeat
-                if (heartbeatManager != null) {
-                    heartbeatManager.receberHeartbeatResponse(workerId);
-                }
-            } else if (mensagem.contains("\"tipo\":\"DESCONEXAO\"")) {
-                System.out.println("Worker " + workerId + " solicitou desconexão");
+            JsonNode json = objectMapper.readTree(mensagem);
+            String tipo = json.path("tipo").asText();
+            if (!"HEARTBEAT_RESPONSE".equals(tipo)) {
+                registrarSinalDeVida(workerId);
+            }
+            
+            if ("CONCLUSAO".equals(tipo)) {
+                tratarConclusao(workerId, json.path("tarefaId").asText(null));
+            } else if ("HEARTBEAT_RESPONSE".equals(tipo)) {
+                tratarHeartbeatResponse(workerId);
+            } else if ("DESCONEXAO".equals(tipo)) {
+                tratarDesconexao(workerId);
+            } else if ("CREDITO".equals(tipo)) {
+                tratarCredito(workerId, json.path("creditos").asInt(0));
             }
         } catch (Exception e) {
             System.err.println("Erro ao processar mensagem do worker " + workerId + ": " + e.getMessage());
         }
     }
     
-    private String extrairValorJson(String json, String chave) {
+    /**
+     * Trata um quadro binário recebido de um worker. O corpo só é válido durante a chamada.
+     */
+    public void processarQuadroWorker(String workerId, byte tipo, ByteBuffer corpo) {
         try {
-            String busca = "\"" + chave + "\":\"";
-            int inicio = json.indexOf(busca);
-            if (inicio != -1) {
-                inicio += busca.length();
-                int fim = json.indexOf("\"", inicio);
-                if (fim != -1) {
-                    return json.substring(inicio, fim);
-                }
+            if (tipo != ProtocoloWorker.TIPO_HEARTBEAT_RESPONSE) {
+                registrarSinalDeVida(workerId);
+            }
+            
+            if (tipo == ProtocoloWorker.TIPO_CONCLUSAO) {
+                tratarConclusao(workerId, ProtocoloWorker.lerTexto(corpo));
+            } else if (tipo == ProtocoloWorker.TIPO_HEARTBEAT_RESPONSE) {
+                tratarHeartbeatResponse(workerId);
+            } else if (tipo == ProtocoloWorker.TIPO_DESCONEXAO) {
+                tratarDesconexao(workerId);
+            } else if (tipo == ProtocoloWorker.TIPO_CREDITO) {
+                tratarCredito(workerId, corpo.getInt());
+            } else {
+                System.err.println("Quadro de tipo desconhecido (" + tipo + ") recebido do worker " + workerId);
             }
         } catch (Exception e) {
-            System.err.println("Erro ao extrair valor JSON: " + e.getMessage());
+            System.err.println("Erro ao processar mensagem do worker " + workerId + ": " + e.getMessage());
         }
-        return null;
     }
     
-    public boolean distribuirTarefa(Atividade atividade) {
-        if (workersConectados.isEmpty()) {
-            System.out.println("Nenhum worker disponível para receber a tarefa");
-            return false;
+    private void tratarConclusao(String workerId, String tarefaId) {
+        if (tarefaId != null && gerenciadorTarefas != null) {
+            // Incrementar Lamport ao receber confirmação de conclusão
+            if (relógioLamport != null) {
+                logger.infoWithTick("[LAMPORT] Confirmação de conclusão recebida (tarefa %s)", tarefaId);
+            }
+            cancelarPrazoExecucao(tarefaId);
+            // Cada worker que recebeu a tarefa ocupa um crédito até concluí-la ou sair, mesmo depois de um
+            // redespacho por prazo vencido ou de outro worker concluí-la antes
+            Tarefa tarefa = gerenciadorTarefas.obterTarefa(tarefaId);
+            String responsavel = tarefa != null ? tarefa.obterWorkerResponsavel() : workerId;
+            boolean creditoDevolvido = devolverCreditoRetido(tarefaId, workerId);
+            // Conclusões repetidas não descontam a carga duas vezes
+            if (gerenciadorTarefas.finalizarTarefa(tarefaId, workerId)) {
+                if (workerId.equals(responsavel)) {
+                    liberarCredito(responsavel);
+                } else if (responsavel != null) {
+                    // Um worker anterior concluiu primeiro; o responsável atual ainda executa a tarefa
+                    reterCredito(tarefaId, responsavel);
+                }
+                creditoDevolvido = true;
+            }
+            if (creditoDevolvido) {
+                drenarFilaPendente();
+            }
         }
-        
+    }
+    
+    private void tratarCredito(String workerId, int creditos) {
+        if (!workersConectados.containsKey(workerId)) {
+            return;
+        }
+        janelaCreditos.put(workerId, creditos > 0 ? creditos : CREDITOS_ILIMITADOS);
+        System.out.println("[CREDITO] Worker " + workerId + " anunciou janela de " + (creditos > 0 ? creditos : "ilimitados") + " créditos");
+        drenarFilaPendente();
+    }
+    
+    // Todo tráfego do worker conta como heartbeat, dispensando sondagens enquanto ele estiver ocupado
+    private void registrarSinalDeVida(String workerId) {
+        if (heartbeatManager != null) {
+            heartbeatManager.registrarAtividade(workerId);
+        }
+    }
+    
+    private void tratarHeartbeatResponse(String workerId) {
+        if (heartbeatManager != null) {
+            heartbeatManager.receberHeartbeatResponse(workerId);
+        }
+    }
+    
+    private void tratarDesconexao(String workerId) {
+        System.out.println("Worker " + workerId + " solicitou desconexão");
+    }
+    
+    /**
+     * Resultado de distribuirTarefa
+     */
+    public enum ResultadoDistribuicao {
+        /** Tarefa criada e já enviada a um worker */
+        DISTRIBUIDA,
+        /** Tarefa criada e aguardando na fila pendente */
+        PENDENTE,
+        /** A chave de idempotência já pertence a outra tarefa; nada foi criado */
+        REPETIDA
+    }
+    
+    /**
+     * Cria a tarefa e a envia a um worker. Sem worker conectado ou com crédito, a tarefa fica
+     * na fila pendente do GerenciadorTarefas e é despachada quando houver capacidade.
+     */
+    public ResultadoDistribuicao distribuirTarefa(Atividade atividade) {
         // Criar tarefa no gerenciador
         if (gerenciadorTarefas == null) {
             System.err.println("GerenciadorTarefas não foi configurado");
-            return false;
+            return ResultadoDistribuicao.PENDENTE;
         }
         
-        Tarefa tarefa = gerenciadorTarefas.criarTarefa(atividade.getTitulo(), atividade.getDescricao());
+        Tarefa tarefa = gerenciadorTarefas.criarTarefa(atividade.getTitulo(), atividade.getDescricao(),
+                atividade.getChaveIdempotencia());
+        if (tarefa == null) {
+            return ResultadoDistribuicao.REPETIDA;
+        }
         
-        // Algoritmo Round Robin melhorado
-        List<String> workerIds = new ArrayList<>(workersConectados.keySet());
-        Collections.sort(workerIds); // Garantir ordem consistente
+        // Respeitar a ordem de chegada: só despacha direto se ninguém estiver aguardando na fila
+        if (!gerenciadorTarefas.temTarefasNaFilaPendente() && despacharTarefa(tarefa)) {
+            return ResultadoDistribuicao.DISTRIBUIDA;
+        }
         
-        // Garantir que o índice seja válido para o tamanho atual da lista
-        int currentIndex = roundRobinIndex.get() % workerIds.size();
-        String workerEscolhido = workerIds.get(currentIndex);
+        gerenciadorTarefas.enfileirarPendente(tarefa);
+        logger.info("%s - tarefa %s aguardando na fila pendente (%d na fila)",
+                    workersOrdenados.isEmpty() ? "[FILA] Nenhum worker disponível" : "[CREDITO] Nenhum worker com crédito disponível",
+                    tarefa.obterIdentificador(), gerenciadorTarefas.obterTamanhoFilaPendente());
+        drenarFilaPendente();
+        return tarefa.obterWorkerResponsavel() != null ? ResultadoDistribuicao.DISTRIBUIDA : ResultadoDistribuicao.PENDENTE;
+    }
+
+    /**
+     * Cria e persiste o lote de uma vez e despacha na ordem recebida.
+     * A partir da primeira tarefa que não couber, as seguintes também vão para a fila, preservando a ordem.
+     * Atividades cuja chave de idempotência já pertence a uma tarefa não geram tarefa nova.
+     * @return para cada atividade, se a tarefa correspondente já foi enviada a um worker
+     */
+    public List<Boolean> distribuirTarefas(List<Atividade> lote) {
+        if (gerenciadorTarefas == null) {
+            System.err.println("GerenciadorTarefas não foi configurado");
+            return Collections.nCopies(lote.size(), false);
+        }
+
+        List<String> titulos = new ArrayList<>(lote.size());
+        List<String> descricoes = new ArrayList<>(lote.size());
+        List<String> chaves = new ArrayList<>(lote.size());
+        for (Atividade atividade : lote) {
+            titulos.add(atividade.getTitulo());
+            descricoes.add(atividade.getDescricao());
+            chaves.add(atividade.getChaveIdempotencia());
+        }
+        List<Tarefa> tarefas = gerenciadorTarefas.criarTarefas(titulos, descricoes, chaves);
+
+        boolean enfileirando = gerenciadorTarefas.temTarefasNaFilaPendente();
+        int enfileiradas = 0;
+        for (Tarefa tarefa : tarefas) {
+            if (tarefa == null) {
+                continue;
+            }
+            if (!enfileirando && despacharTarefa(tarefa)) {
+                continue;
+            }
+            enfileirando = true;
+            gerenciadorTarefas.enfileirarPendente(tarefa);
+            enfileiradas++;
+        }
+
+        if (enfileiradas > 0) {
+            logger.info("[FILA] %d de %d tarefas do lote aguardando na fila pendente (%d na fila)",
+                        enfileiradas, tarefas.size(), gerenciadorTarefas.obterTamanhoFilaPendente());
+            drenarFilaPendente();
+        }
+
+        List<Boolean> enviadas = new ArrayList<>(tarefas.size());
+        for (Tarefa tarefa : tarefas) {
+            enviadas.add(tarefa != null && tarefa.obterWorkerResponsavel() != null);
+        }
+        return enviadas;
+    }
+
+    /**
+     * Escolhe um worker com crédito disponível, atribui e envia a tarefa.
+     * @return false se nenhum worker tiver crédito ou o envio falhar
+     */
+    private boolean despacharTarefa(Tarefa tarefa) {
+        List<String> workerIds = workersOrdenados;
+        if (workerIds.isEmpty()) {
+            return false;
+        }
         
-        // Incrementar para a próxima distribuição
-        int novoIndice = (currentIndex + 1) % workerIds.size();
-        roundRobinIndex.set(novoIndice);
+        EstrategiaDespacho estrategia = estrategiaDespacho;
+        String workerEscolhido = estrategia.escolherWorker(workerIds, this::obterTarefasEmAndamento);
+        if (!reservarCredito(workerEscolhido)) {
+            // Escolhido sem crédito: qualquer outro worker com crédito serve
+            workerEscolhido = procurarWorkerComCredito(workerIds);
+            if (workerEscolhido == null) {
+                return false;
+            }
+        }
         
-        // Atualizar estado do round-robin no GerenciadorTarefas
-        gerenciadorTarefas.atualizarEstadoRoundRobin(novoIndice, workerIds);
+        // Atualizar estado do round-robin no GerenciadorTarefas (só faz sentido para essa estratégia)
+        if (estrategia instanceof DespachoRoundRobin) {
+            gerenciadorTarefas.atualizarEstadoRoundRobin(((DespachoRoundRobin) estrategia).obterIndice(), workerIds);
+        }
         
-        System.out.println("Distribuindo tarefa para worker " + workerEscolhido + " (índice " + currentIndex + " de " + workerIds.size() + " workers)");
+        logger.info("Distribuindo tarefa %s para worker %s (%s, %d em andamento, %d workers)", tarefa.obterIdentificador(),
+                    workerEscolhido, estrategia.obterNome(), obterTarefasEmAndamento(workerEscolhido), workerIds.size());
         
         // Atribuir tarefa ao worker
-        gerenciadorTarefas.atribuirTarefaAoWorker(tarefa.getId(), workerEscolhido);
+        gerenciadorTarefas.atribuirTarefaAoWorker(tarefa.obterIdentificador(), workerEscolhido);
         
         // Incrementar Lamport ao distribuir tarefa para worker
         if (relógioLamport != null) {
-            long lamportTimestamp = relógioLamport.tick();
-            System.out.println("[LAMPORT] Tarefa distribuída para worker - Tick: " + lamportTimestamp);
+            logger.infoWithTick("[LAMPORT] Tarefa %s distribuída para worker %s", tarefa.obterIdentificador(), workerEscolhido);
         }
         
-        WorkerConnection connection = workersConectados.get(workerEscolhido);
-        if (connection != null) {
-            return enviarTarefaParaWorker(connection, tarefa);
+        ConexaoWorker connection = workersConectados.get(workerEscolhido);
+        if (connection != null && enviarTarefaParaWorker(connection, tarefa)) {
+            agendarPrazoExecucao(tarefa.obterIdentificador(), workerEscolhido);
+            return true;
         }
         
+        // Envio falhou: sem desfazer a atribuição a tarefa ficaria presa a um worker que nunca a recebeu
+        gerenciadorTarefas.desfazerAtribuicao(tarefa.obterIdentificador(), workerEscolhido);
+        liberarCredito(workerEscolhido);
         return false;
     }
     
-    private boolean enviarTarefaParaWorker(WorkerConnection connection, Tarefa tarefa) {
+    /**
+     * Entrega tarefas da fila pendente enquanto houver worker com crédito.
+     * Chamado quando um crédito é devolvido, anunciado, um worker entra ou após failover.
+     */
+    public void drenarFilaPendente() {
+        if (gerenciadorTarefas == null || !gerenciadorTarefas.temTarefasNaFilaPendente() || workersOrdenados.isEmpty()) {
+            return;
+        }
+        
+        synchronized (travaFilaPendente) {
+            int despachadas = 0;
+            Tarefa tarefa;
+            while ((tarefa = gerenciadorTarefas.retirarProximaPendente()) != null) {
+                if (!despacharTarefa(tarefa)) {
+                    gerenciadorTarefas.recolocarNoInicio(tarefa);
+                    break;
+                }
+                despachadas++;
+            }
+            if (despachadas > 1) {
+                logger.info("[FILA] %d tarefas despachadas da fila pendente (%d restantes)",
+                            despachadas, gerenciadorTarefas.obterTamanhoFilaPendente());
+            }
+        }
+    }
+    
+    /**
+     * Agenda (ou reagenda, se a tarefa mudou de worker) o prazo de execução da tarefa enviada
+     */
+    private void agendarPrazoExecucao(String tarefaId, String workerId) {
+        if (PRAZO_EXECUCAO_MS <= 0) {
+            return;
+        }
+        PrazoExecucao prazo = new PrazoExecucao(tarefaId, workerId);
+        PrazoExecucao anterior = prazosExecucao.put(tarefaId, prazo);
+        if (anterior != null && anterior.temporizador != null) {
+            anterior.temporizador.cancelar();
+        }
+        iniciarTratamentoPrazos();
+        prazo.temporizador = rodaTemporizacao.agendar(() -> prazosVencidos.offer(prazo), PRAZO_EXECUCAO_MS);
+    }
+    
+    private void cancelarPrazoExecucao(String tarefaId) {
+        PrazoExecucao prazo = prazosExecucao.remove(tarefaId);
+        if (prazo != null && prazo.temporizador != null) {
+            prazo.temporizador.cancelar();
+        }
+    }
+    
+    private synchronized void iniciarTratamentoPrazos() {
+        if (!tratamentoPrazosIniciado) {
+            tratamentoPrazosIniciado = true;
+            FabricaThreads.iniciar("prazos-tarefas", this::tratarPrazosVencidos);
+        }
+    }
+    
+    private void tratarPrazosVencidos() {
+        while (true) {
+            try {
+                PrazoExecucao prazo = prazosVencidos.take();
+                if (prazosExecucao.remove(prazo.tarefaId, prazo)) {
+                    redespacharTarefaAtrasada(prazo);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("[PRAZO] Erro ao tratar prazo vencido: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * A tarefa não foi concluída no prazo pelo worker que a recebeu: recoloca a tarefa no início da fila
+     * pendente, de onde sai para o próximo worker com crédito. O worker atrasado continua executando,
+     * então o crédito dele fica retido até a conclusão tardia ou a saída do worker.
+     * A entrega passa a ser "pelo menos uma vez": a tarefa pode ser executada pelos dois workers.
+     */
+    private void redespacharTarefaAtrasada(PrazoExecucao prazo) {
+        Tarefa tarefa = gerenciadorTarefas != null ? gerenciadorTarefas.obterTarefa(prazo.tarefaId) : null;
+        if (tarefa == null || tarefa.obterStatus() != Tarefa.StatusTarefa.PENDENTE
+                || !prazo.workerId.equals(tarefa.obterWorkerResponsavel())) {
+            return;
+        }
+        System.out.println("[PRAZO] Tarefa " + prazo.tarefaId + " sem conclusão do worker " + prazo.workerId +
+                          " após " + PRAZO_EXECUCAO_MS + "ms - redespachando");
+        reterCredito(prazo.tarefaId, prazo.workerId);
+        gerenciadorTarefas.devolverParaFilaPendente(Collections.singletonList(tarefa));
+        drenarFilaPendente();
+    }
+    
+    private void reterCredito(String tarefaId, String workerId) {
+        creditosRetidos.compute(tarefaId, (id, workers) -> {
+            Set<String> retidos = workers != null ? workers : new HashSet<>();
+            retidos.add(workerId);
+            return retidos;
+        });
+    }
+    
+    /**
+     * Devolve o crédito que o worker mantinha retido pela tarefa, se houver
+     */
+    private boolean devolverCreditoRetido(String tarefaId, String workerId) {
+        boolean[] devolvido = {false};
+        creditosRetidos.computeIfPresent(tarefaId, (id, workers) -> {
+            devolvido[0] = workers.remove(workerId);
+            return workers.isEmpty() ? null : workers;
+        });
+        if (devolvido[0]) {
+            liberarCredito(workerId);
+        }
+        return devolvido[0];
+    }
+    
+    private boolean reservarCredito(String workerId) {
+        AtomicInteger emAndamento = tarefasEmAndamento.get(workerId);
+        if (emAndamento == null) {
+            return false;
+        }
+        int janela = janelaCreditos.getOrDefault(workerId, CREDITOS_ILIMITADOS);
+        while (true) {
+            int atual = emAndamento.get();
+            if (atual >= janela) {
+                return false;
+            }
+            if (emAndamento.compareAndSet(atual, atual + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    private void liberarCredito(String workerId) {
+        AtomicInteger emAndamento = tarefasEmAndamento.get(workerId);
+        if (emAndamento != null) {
+            emAndamento.updateAndGet(valor -> Math.max(0, valor - 1));
+        }
+    }
+    
+    private String procurarWorkerComCredito(List<String> workerIds) {
+        int total = workerIds.size();
+        int inicio = ThreadLocalRandom.current().nextInt(total);
+        for (int i = 0; i < total; i++) {
+            String workerId = workerIds.get((inicio + i) % total);
+            if (reservarCredito(workerId)) {
+                return workerId;
+            }
+        }
+        return null;
+    }
+    
+    private boolean enviarTarefaParaWorker(ConexaoWorker connection, Tarefa tarefa) {
         try {
             // Converter LocalDateTime para timestamp em milissegundos
             long timestampMillis = 0;
@@ -179,64 +614,134 @@ public class GerenciadorWorkers {
                     .toEpochMilli();
             }
             
-            // Criar mensagem JSON com timestamp como número
-            String mensagem = String.format(
-                "{\"tipo\":\"TAREFA\",\"tarefa\":{\"id\":\"%s\",\"title\":\"%s\",\"description\":\"%s\",\"timestamp\":%d}}",
-                tarefa.getId(),
-                tarefa.getTitulo().replace("\"", "\\\""),
-                tarefa.getDescricao().replace("\"", "\\\""),
-                timestampMillis
-            );
-            
-            connection.getSaida().println(mensagem);
+            if (connection.usaProtocoloBinario()) {
+                connection.enviarQuadro(ProtocoloWorker.codificarTarefa(
+                        tarefa.obterIdentificador(), tarefa.obterTitulo(), tarefa.obterDescricao(), timestampMillis));
+            } else {
+                // Criar mensagem JSON com timestamp como número
+                Map<String, Object> dadosTarefa = new LinkedHashMap<>();
+                dadosTarefa.put("id", tarefa.obterIdentificador());
+                dadosTarefa.put("title", tarefa.obterTitulo());
+                dadosTarefa.put("description", tarefa.obterDescricao());
+                dadosTarefa.put("timestamp", timestampMillis);
+                
+                Map<String, Object> mensagem = new LinkedHashMap<>();
+                mensagem.put("tipo", "TAREFA");
+                mensagem.put("tarefa", dadosTarefa);
+                String linha = objectMapper.writeValueAsString(mensagem);
+                ProtocoloWorker.validarLinha(linha);
+                connection.enviar(linha);
+            }
             
-            System.out.println("Tarefa '" + tarefa.getTitulo() + "' enviada para worker " + connection.getWorkerId());
+            logger.info("Tarefa '%s' enviada para worker %s", tarefa.obterTitulo(), connection.obterWorkerId());
             return true;
             
         } catch (Exception e) {
-            System.err.println("Erro ao enviar tarefa para worker " + connection.getWorkerId() + ": " + e.getMessage());
+            System.err.println("Erro ao enviar tarefa para worker " + connection.obterWorkerId() + ": " + e.getMessage());
             return false;
         }
     }
     
     public void removerWorker(String workerId) {
-        WorkerConnection connection = workersConectados.remove(workerId);
+        ConexaoWorker connection = workersConectados.remove(workerId);
         if (connection != null) {
-            try {
-                connection.fechar();
-            } catch (IOException e) {
-                System.err.println("Erro ao fechar conexão do worker " + workerId + ": " + e.getMessage());
-            }
+            tratarWorkerRemovido(workerId, connection);
+        }
+    }
+    
+    /**
+     * Remove o worker somente se a conexão registrada ainda for esta
+     * (evita derrubar um worker que já se reconectou por outra conexão)
+     */
+    public void removerWorker(String workerId, ConexaoWorker connection) {
+        if (workersConectados.remove(workerId, connection)) {
+            tratarWorkerRemovido(workerId, connection);
+        }
+    }
+    
+    private void fecharConexao(ConexaoWorker connection) {
+        try {
+            connection.fechar();
+        } catch (IOException e) {
+            System.err.println("Erro ao fechar conexão do worker " + connection.obterWorkerId() + ": " + e.getMessage());
+        }
+    }
+    
+    private void tratarWorkerRemovido(String workerId, ConexaoWorker connection) {
+        atualizarListaWorkers();
+        tarefasEmAndamento.remove(workerId);
+        janelaCreditos.remove(workerId);
+        // Os créditos retidos somem com o contador; não podem ser devolvidos a uma reconexão com o mesmo id
+        for (String tarefaId : creditosRetidos.keySet()) {
+            creditosRetidos.computeIfPresent(tarefaId, (id, workers) -> {
+                workers.remove(workerId);
+                return workers.isEmpty() ? null : workers;
+            });
+        }
+        fecharConexao(connection);
+        
+        // Remover do sistema de heartbeat
+        if (heartbeatManager != null) {
+            heartbeatManager.removerWorker(workerId);
+        }
+        
+        System.out.println("Worker " + workerId + " removido. Total de workers: " + workersConectados.size());
+        
+        // Redistribuir tarefas do worker desconectado imediatamente
+        if (gerenciadorTarefas != null && !workersConectados.isEmpty()) {
+            List<Tarefa> tarefasParaRealocar = gerenciadorTarefas.obterTarefasPorWorker(workerId);
             
-            // Remover do sistema de heartbeat
-            if (heartbeatManager != null) {
-                heartbeatManager.removerWorker(workerId);
+            if (!tarefasParaRealocar.isEmpty()) {
+                System.out.println("Redistribuindo " + tarefasParaRealocar.size() + " tarefas do worker " + workerId + " imediatamente");
+                
+                // Realocar as tarefas no gerenciador
+                List<String> workersDisponiveis = new ArrayList<>(workersConectados.keySet());
+                gerenciadorTarefas.realocarTarefasDoWorker(workerId, workersDisponiveis);
+                
+                // Enviar as tarefas realocadas para os novos workers
+                enviarTarefasRealocadas(tarefasParaRealocar, workersDisponiveis);
+            } else {
+                System.out.println("Worker " + workerId + " não tinha tarefas pendentes para redistribuir");
             }
+        } else if (workersConectados.isEmpty()) {
+            System.out.println("Nenhum worker disponível para redistribuir tarefas de " + workerId);
             
-            System.out.println("Worker " + workerId + " removido. Total de workers: " + workersConectados.size());
-            
-            // Redistribuir tarefas do worker desconectado imediatamente
-            if (gerenciadorTarefas != null && !workersConectados.isEmpty()) {
-                List<Tarefa> tarefasParaRealocar = gerenciadorTarefas.getTarefasPorWorker(workerId);
-                
-                if (!tarefasParaRealocar.isEmpty()) {
-                    System.out.println("Redistribuindo " + tarefasParaRealocar.size() + " tarefas do worker " + workerId + " imediatamente");
-                    
-                    // Realocar as tarefas no gerenciador
-                    List<String> workersDisponiveis = new ArrayList<>(workersConectados.keySet());
-                    gerenciadorTarefas.realocarTarefasDoWorker(workerId, workersDisponiveis);
-                    
-                    // Enviar as tarefas realocadas para os novos workers
-                    enviarTarefasRealocadas(tarefasParaRealocar, workersDisponiveis);
-                } else {
-                    System.out.println("Worker " + workerId + " não tinha tarefas pendentes para redistribuir");
+            // Sem workers, as tarefas voltam para a fila pendente e saem quando alguém se conectar
+            if (gerenciadorTarefas != null) {
+                List<Tarefa> tarefasOrfas = gerenciadorTarefas.obterTarefasPorWorker(workerId);
+                if (!tarefasOrfas.isEmpty()) {
+                    gerenciadorTarefas.devolverParaFilaPendente(tarefasOrfas);
+                    System.out.println("[FILA] " + tarefasOrfas.size() + " tarefas de " + workerId + " devolvidas à fila pendente");
                 }
-            } else if (workersConectados.isEmpty()) {
-                System.out.println("Nenhum worker disponível para redistribuir tarefas de " + workerId);
             }
         }
     }
     
+    private synchronized void atualizarListaWorkers() {
+        List<String> lista = new ArrayList<>(workersConectados.keySet());
+        Collections.sort(lista); // Garantir ordem consistente
+        workersOrdenados = Collections.unmodifiableList(lista);
+    }
+    
+    private int contarTarefasPendentes(String workerId) {
+        return gerenciadorTarefas != null ? gerenciadorTarefas.contarTarefasPorWorker(workerId) : 0;
+    }
+    
+    /**
+     * Número de tarefas enviadas ao worker e ainda não concluídas
+     */
+    public int obterTarefasEmAndamento(String workerId) {
+        AtomicInteger emAndamento = tarefasEmAndamento.get(workerId);
+        return emAndamento != null ? emAndamento.get() : 0;
+    }
+    
+    /**
+     * Número de tarefas na fila central aguardando crédito de algum worker
+     */
+    public int obterTamanhoFilaPendente() {
+        return gerenciadorTarefas != null ? gerenciadorTarefas.obterTamanhoFilaPendente() : 0;
+    }
+    
     public int obterNumeroWorkersConectados() {
         return workersConectados.size();
     }
@@ -247,17 +752,21 @@ public class GerenciadorWorkers {
     
     public int obterNumeroTarefasEnviadas() {
         if (gerenciadorTarefas != null) {
-            return gerenciadorTarefas.getTarefasPendentes().size();
+            return gerenciadorTarefas.contarTarefas(Tarefa.StatusTarefa.PENDENTE);
         }
         return 0;
     }
     
     public boolean enviarHeartbeat(String workerId) {
-        WorkerConnection connection = workersConectados.get(workerId);
+        ConexaoWorker connection = workersConectados.get(workerId);
         if (connection != null) {
             try {
-                String mensagem = "{\"tipo\":\"HEARTBEAT\",\"timestamp\":" + System.currentTimeMillis() + "}";
-                connection.getSaida().println(mensagem);
+                long timestamp = System.currentTimeMillis();
+                if (connection.usaProtocoloBinario()) {
+                    connection.enviarQuadro(ProtocoloWorker.codificarHeartbeat(timestamp));
+                } else {
+                    connection.enviar("{\"tipo\":\"HEARTBEAT\",\"timestamp\":" + timestamp + "}");
+                }
                 return true;
             } catch (Exception e) {
                 System.err.println("Erro ao enviar heartbeat para worker " + workerId + ": " + e.getMessage());
@@ -273,19 +782,45 @@ public class GerenciadorWorkers {
         }
         
         // Usar round robin para distribuir as tarefas
+        List<Tarefa> semCredito = new ArrayList<>();
         int workerIndex = 0;
         for (Tarefa tarefa : tarefasParaRealocar) {
             String novoWorker = workersDisponiveis.get(workerIndex % workersDisponiveis.size());
             
-            System.out.println("Enviando tarefa realocada " + tarefa.getId() + " para worker " + novoWorker);
+            System.out.println("Enviando tarefa realocada " + tarefa.obterIdentificador() + " para worker " + novoWorker);
             
-            WorkerConnection connection = workersConectados.get(novoWorker);
-            if (connection != null) {
-                enviarTarefaParaWorker(connection, tarefa);
+            if (!enviarTarefaRealocada(tarefa, novoWorker)) {
+                semCredito.add(tarefa);
             }
-            
             workerIndex++;
         }
+        devolverParaFilaPendente(semCredito);
+    }
+    
+    /**
+     * Envia a tarefa realocada se o worker tiver crédito
+     */
+    private boolean enviarTarefaRealocada(Tarefa tarefa, String novoWorker) {
+        ConexaoWorker connection = workersConectados.get(novoWorker);
+        if (connection != null && reservarCredito(novoWorker)) {
+            if (enviarTarefaParaWorker(connection, tarefa)) {
+                agendarPrazoExecucao(tarefa.obterIdentificador(), novoWorker);
+                return true;
+            }
+            liberarCredito(novoWorker);
+        }
+        return false;
+    }
+    
+    /**
+     * Tarefas realocadas sem crédito voltam para o início da fila pendente, mantendo a ordem entre elas
+     */
+    private void devolverParaFilaPendente(List<Tarefa> tarefas) {
+        if (!tarefas.isEmpty()) {
+            gerenciadorTarefas.devolverParaFilaPendente(tarefas);
+            System.out.println("[CREDITO] " + tarefas.size() + " tarefas realocadas aguardando crédito na fila pendente");
+        }
+        drenarFilaPendente();
     }
 
     public void redistribuirTarefasRealocadas(String workerDesconectado) {
@@ -293,34 +828,28 @@ public class GerenciadorWorkers {
             return;
         }
         
-        List<Tarefa> tarefasRealocadas = gerenciadorTarefas.getTarefasPorWorker(workerDesconectado);
+        List<Tarefa> tarefasRealocadas = gerenciadorTarefas.obterTarefasPorWorker(workerDesconectado);
+        List<Tarefa> semCredito = new ArrayList<>();
         
         for (Tarefa tarefa : tarefasRealocadas) {
-            // Encontrar novo worker usando round robin melhorado
-            List<String> workersDisponiveis = new ArrayList<>(workersConectados.keySet());
+            // Encontrar novo worker pela estratégia de despacho configurada
+            List<String> workersDisponiveis = workersOrdenados;
             if (!workersDisponiveis.isEmpty()) {
-                Collections.sort(workersDisponiveis);
+                String novoWorker = estrategiaDespacho.escolherWorker(workersDisponiveis, this::obterTarefasEmAndamento);
                 
-                // Usar a mesma lógica melhorada de round robin
-                int currentIndex = roundRobinIndex.get() % workersDisponiveis.size();
-                String novoWorker = workersDisponiveis.get(currentIndex);
+                System.out.println("Redistribuindo tarefa " + tarefa.obterIdentificador() + " para worker " + novoWorker);
                 
-                // Incrementar para a próxima redistribuição
-                roundRobinIndex.set((currentIndex + 1) % workersDisponiveis.size());
-                
-                System.out.println("Redistribuindo tarefa " + tarefa.getId() + " para worker " + novoWorker);
-                
-                WorkerConnection connection = workersConectados.get(novoWorker);
-                if (connection != null) {
-                    enviarTarefaParaWorker(connection, tarefa);
+                if (!enviarTarefaRealocada(tarefa, novoWorker)) {
+                    semCredito.add(tarefa);
                 }
             }
         }
+        devolverParaFilaPendente(semCredito);
     }
     
     public void fecharTodosWorkers() {
         System.out.println("Fechando conexões com todos os workers...");
-        for (WorkerConnection connection : workersConectados.values()) {
+        for (ConexaoWorker connection : workersConectados.values()) {
             try {
                 connection.fechar();
             } catch (IOException e) {
@@ -328,6 +857,8 @@ public class GerenciadorWorkers {
             }
         }
         workersConectados.clear();
+        tarefasEmAndamento.clear();
+        atualizarListaWorkers();
         System.out.println("Todas as conexões foram fechadas.");
     }
     
@@ -336,10 +867,14 @@ public class GerenciadorWorkers {
      */
     public void restaurarEstadoRoundRobin() {
         if (gerenciadorTarefas != null) {
+            if (!(estrategiaDespacho instanceof DespachoRoundRobin)) {
+                return;
+            }
+            DespachoRoundRobin roundRobin = (DespachoRoundRobin) estrategiaDespacho;
             int indiceRestaurado = gerenciadorTarefas.getRoundRobinIndex();
             List<String> workersMetadados = gerenciadorTarefas.getWorkersConectadosMetadados();
             
-            roundRobinIndex.set(indiceRestaurado);
+            roundRobin.definirIndice(indiceRestaurado);
             
             System.out.println("[RESTORE] Estado round-robin restaurado - Índice: " + indiceRestaurado);
             System.out.println("[RESTORE] Workers nos metadados: " + workersMetadados);
@@ -347,12 +882,11 @@ public class GerenciadorWorkers {
             
             // Se há workers conectados atualmente, ajustar o índice para o tamanho atual
             if (!workersConectados.isEmpty()) {
-                List<String> workersAtuais = new ArrayList<>(workersConectados.keySet());
-                Collections.sort(workersAtuais);
+                List<String> workersAtuais = workersOrdenados;
                 
                 // Ajustar índice para o tamanho atual da lista de workers
                 int indiceAjustado = indiceRestaurado % workersAtuais.size();
-                roundRobinIndex.set(indiceAjustado);
+                roundRobin.definirIndice(indiceAjustado);
                 
                 // Atualizar metadados com workers atuais
                 gerenciadorTarefas.atualizarEstadoRoundRobin(indiceAjustado, workersAtuais);
@@ -379,14 +913,19 @@ public class GerenciadorWorkers {
         
         try {
             String mensagemJson = objectMapper.writeValueAsString(notificacao);
+            ByteBuffer quadro = ProtocoloWorker.codificarMudancaOrquestrador(novoOrquestradorId, novoHost, novaPorta);
             
             // Enviar notificação para todos os workers conectados
-            for (WorkerConnection connection : workersConectados.values()) {
+            for (ConexaoWorker connection : workersConectados.values()) {
                 try {
-                    connection.getSaida().println(mensagemJson);
-                    System.out.println("[FAILOVER] Notificação enviada para worker: " + connection.getWorkerId());
+                    if (connection.usaProtocoloBinario()) {
+                        connection.enviarQuadro(quadro.duplicate());
+                    } else {
+                        connection.enviar(mensagemJson);
+                    }
+                    System.out.println("[FAILOVER] Notificação enviada para worker: " + connection.obterWorkerId());
                 } catch (Exception e) {
-                    System.err.println("[FAILOVER] Erro ao notificar worker " + connection.getWorkerId() + ": " + e.getMessage());
+                    System.err.println("[FAILOVER] Erro ao notificar worker " + connection.obterWorkerId() + ": " + e.getMessage());
                 }
             }
             
@@ -395,32 +934,62 @@ public class GerenciadorWorkers {
         }
     }
     
-    // Classe interna para representar uma conexão com worker
-    private static class WorkerConnection {
+    // Conexão com worker por socket bloqueante (modo de transporte "bloqueante")
+    private static class WorkerConnection implements ConexaoWorker {
         private final String workerId;
         private final Socket socket;
-        private final BufferedReader entrada;
-        private final PrintWriter saida;
+        private final DataInputStream entrada;
+        private final OutputStream saida;
+        private final boolean protocoloBinario;
+        private final ReentrantLock travaEscrita = new ReentrantLock();
         
-        public WorkerConnection(String workerId, Socket socket) throws IOException {
+        public WorkerConnection(String workerId, Socket socket, DataInputStream entrada, boolean protocoloBinario) throws IOException {
             this.workerId = workerId;
             this.socket = socket;
-            this.entrada = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            this.saida = new PrintWriter(socket.getOutputStream(), true);
+            this.entrada = entrada;
+            this.saida = new BufferedOutputStream(socket.getOutputStream());
+            this.protocoloBinario = protocoloBinario;
         }
         
-        public String getWorkerId() {
+        @Override
+        public String obterWorkerId() {
             return workerId;
         }
         
-        public BufferedReader getEntrada() {
-            return entrada;
+        @Override
+        public boolean usaProtocoloBinario() {
+            return protocoloBinario;
+        }
+        
+        @Override
+        public void enviar(String mensagem) {
+            escrever(ByteBuffer.wrap((mensagem + "\n").getBytes(StandardCharsets.UTF_8)));
+        }
+        
+        @Override
+        public void enviarQuadro(ByteBuffer quadro) {
+            escrever(quadro);
+        }
+        
+        // Trava explícita em vez de synchronized: a escrita bloqueante não prende a thread portadora
+        // quando a conexão é atendida por uma thread virtual
+        private void escrever(ByteBuffer dados) {
+            travaEscrita.lock();
+            try {
+                saida.write(dados.array(), dados.arrayOffset() + dados.position(), dados.remaining());
+                saida.flush();
+            } catch (IOException e) {
+                System.err.println("Erro ao enviar mensagem para worker " + workerId + ": " + e.getMessage());
+            } finally {
+                travaEscrita.unlock();
+            }
         }
         
-        public PrintWriter getSaida() {
-            return saida;
+        public DataInputStream getEntrada() {
+            return entrada;
         }
         
+        @Override
         public void fechar() throws IOException {
             entrada.close();
             saida.close();
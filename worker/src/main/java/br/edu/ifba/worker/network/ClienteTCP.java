@@ -5,6 +5,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.*;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -12,12 +14,26 @@ public class ClienteTCP {
     private static final String DEFAULT_SERVIDOR_HOST = "localhost";
     private static final int DEFAULT_SERVIDOR_PORTA = 8080;
     
+    // -Dworker.threads=virtual recebe as mensagens do orquestrador em uma thread virtual (Java 21)
+    private static final boolean THREADS_VIRTUAIS = "virtual".equalsIgnoreCase(
+            System.getProperty("worker.threads", "plataforma"));
+    
+    // -Dworker.protocolo=json desativa a negociação do protocolo binário no registro
+    private static final boolean OFERECER_BINARIO = !"json".equalsIgnoreCase(
+            System.getProperty("worker.protocolo", "binario"));
+    
+    // Quantas tarefas o worker aceita em andamento (recebidas e não concluídas); 0 = sem limite.
+    // O orquestrador guarda o restante na fila central e envia conforme as conclusões devolvem créditos.
+    private static final int CREDITOS_PREFETCH = Integer.getInteger("worker.prefetch", 16);
+    
     private final String servidorHost;
     private final int servidorPorta;
     private Socket socket;
-    private BufferedReader entrada;
-    private PrintWriter saida;
+    private DataInputStream entrada;
+    private OutputStream saida;
+    private volatile boolean protocoloBinario;
     private ObjectMapper objectMapper;
+    // Sem limite próprio para não perder tarefas de orquestradores antigos; com créditos, nunca passa da janela
     private BlockingQueue<Tarefa> filaTarefas;
     private String workerId;
     private boolean conectado;
@@ -38,16 +54,17 @@ public class ClienteTCP {
     public boolean conectar() {
         try {
             socket = new Socket(servidorHost, servidorPorta);
-            entrada = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            saida = new PrintWriter(socket.getOutputStream(), true);
+            abrirFluxos();
             
             // Registrar worker no orquestrador
             registrarWorker();
             
+            // Marcar como conectado antes da recepção, que encerra quando conectado é falso
+            conectado = true;
+            
             // Iniciar thread para receber tarefas
             iniciarThreadRecepcao();
             
-            conectado = true;
             System.out.println("Worker " + workerId + " conectado ao orquestrador em " + servidorHost + ":" + servidorPorta);
             return true;
             
@@ -57,30 +74,68 @@ public class ClienteTCP {
         }
     }
     
+    private void abrirFluxos() throws IOException {
+        entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        saida = new BufferedOutputStream(socket.getOutputStream());
+        // Até o orquestrador confirmar o protocolo binário, as mensagens saem em JSON
+        protocoloBinario = false;
+    }
+    
     private void registrarWorker() {
         try {
-            String mensagemRegistro = "{\"tipo\":\"REGISTRO\",\"workerId\":\"" + workerId + "\"}";
-            saida.println(mensagemRegistro);
+            String mensagemRegistro = "{\"tipo\":\"REGISTRO\",\"workerId\":\"" + workerId + "\"" +
+                    (OFERECER_BINARIO ? ",\"protocolo\":\"" + ProtocoloWorker.NOME_PROTOCOLO + "\"" : "") +
+                    (CREDITOS_PREFETCH > 0 ? ",\"creditos\":" + CREDITOS_PREFETCH : "") + "}";
+            enviarLinha(mensagemRegistro);
         } catch (Exception e) {
             System.err.println("Erro ao registrar worker: " + e.getMessage());
         }
     }
     
+    private synchronized void enviarLinha(String mensagem) throws IOException {
+        saida.write((mensagem + "\n").getBytes(StandardCharsets.UTF_8));
+        saida.flush();
+    }
+    
+    private synchronized void enviarQuadro(ByteBuffer quadro) throws IOException {
+        saida.write(quadro.array(), quadro.arrayOffset() + quadro.position(), quadro.remaining());
+        saida.flush();
+    }
+    
     private void iniciarThreadRecepcao() {
-        Thread threadRecepcao = new Thread(() -> {
+        // A thread fica presa aos fluxos desta conexão, mesmo que uma reconexão troque os campos
+        DataInputStream fluxo = entrada;
+        ProtocoloWorker.ReceptorMensagens receptor = new ProtocoloWorker.ReceptorMensagens() {
+            @Override
+            public void linhaJson(String linha) {
+                processarMensagem(linha);
+            }
+            
+            @Override
+            public void quadro(byte tipo, ByteBuffer corpo) {
+                processarQuadro(tipo, corpo);
+            }
+        };
+        
+        Runnable recepcao = () -> {
             try {
-                String linha;
-                while ((linha = entrada.readLine()) != null && conectado) {
-                    processarMensagem(linha);
+                while (ProtocoloWorker.lerProxima(fluxo, receptor) && conectado) {
+                    // Mensagens tratadas pelo receptor
                 }
             } catch (IOException e) {
                 if (conectado) {
                     System.err.println("Erro na comunicação com o orquestrador: " + e.getMessage());
                 }
             }
-        });
-        threadRecepcao.setDaemon(true);
-        threadRecepcao.start();
+        };
+        
+        if (THREADS_VIRTUAIS) {
+            Thread.ofVirtual().name("recepcao-" + workerId).start(recepcao);
+        } else {
+            Thread threadRecepcao = new Thread(recepcao);
+            threadRecepcao.setDaemon(true);
+            threadRecepcao.start();
+        }
     }
     
     private void processarMensagem(String mensagem) {
@@ -104,6 +159,33 @@ public class ClienteTCP {
         }
     }
     
+    private void processarQuadro(byte tipo, ByteBuffer corpo) {
+        try {
+            if (tipo == ProtocoloWorker.TIPO_TAREFA) {
+                String id = ProtocoloWorker.lerTexto(corpo);
+                String titulo = ProtocoloWorker.lerTexto(corpo);
+                String descricao = ProtocoloWorker.lerTexto(corpo);
+                Tarefa tarefa = new Tarefa(id, titulo, descricao, corpo.getLong());
+                tarefa.setWorkerId(workerId);
+                filaTarefas.offer(tarefa);
+                System.out.println("Nova tarefa recebida: " + tarefa.getTitulo());
+            } else if (tipo == ProtocoloWorker.TIPO_HEARTBEAT) {
+                responderHeartbeat();
+            } else if (tipo == ProtocoloWorker.TIPO_REGISTRO_ACK) {
+                protocoloBinario = true;
+                System.out.println("Protocolo " + ProtocoloWorker.NOME_PROTOCOLO + " negociado com o orquestrador");
+            } else if (tipo == ProtocoloWorker.TIPO_MUDANCA_ORQUESTRADOR) {
+                String novoOrquestradorId = ProtocoloWorker.lerTexto(corpo);
+                String novoHost = ProtocoloWorker.lerTexto(corpo);
+                int novaPorta = corpo.getInt();
+                System.out.println("\n*** NOTIFICAÇÃO DE MUDANÇA DE ORQUESTRADOR ***");
+                mudarOrquestrador(novoOrquestradorId, novoHost, novaPorta);
+            }
+        } catch (Exception e) {
+            System.err.println("Erro ao processar mensagem: " + e.getMessage());
+        }
+    }
+    
     // Mudança de orquestrador, quando o principal cai e entra o de backup
     private void processarMudancaOrquestrador(String mensagem) {
         try {
@@ -116,25 +198,7 @@ public class ClienteTCP {
             String novoOrquestradorId = extrairValor(mensagem, "novoOrquestradorId");
             
             if (novoHost != null && novaPortaStr != null) {
-                int novaPorta = Integer.parseInt(novaPortaStr);
-                
-                System.out.println("Novo orquestrador: " + novoOrquestradorId);
-                System.out.println("Nova conexão: " + novoHost + ":" + novaPorta);
-                System.out.println("Desconectando do orquestrador atual...");
-                
-                // Desconectar da conexão atual
-                desconectar();
-                
-                // Aguardar um pouco antes de tentar reconectar
-                Thread.sleep(3000);
-                
-                // Tentar reconectar ao novo orquestrador
-                System.out.println("Tentando reconectar ao novo orquestrador...");
-                if (reconectarNovoOrquestrador(novoHost, novaPorta)) {
-                    System.out.println("*** RECONEXÃO REALIZADA COM SUCESSO ***");
-                } else {
-                    System.err.println("*** FALHA NA RECONEXÃO ***");
-                }
+                mudarOrquestrador(novoOrquestradorId, novoHost, Integer.parseInt(novaPortaStr));
             }
             
         } catch (Exception e) {
@@ -142,6 +206,30 @@ public class ClienteTCP {
         }
     }
     
+    private void mudarOrquestrador(String novoOrquestradorId, String novoHost, int novaPorta) {
+        try {
+            System.out.println("Novo orquestrador: " + novoOrquestradorId);
+            System.out.println("Nova conexão: " + novoHost + ":" + novaPorta);
+            System.out.println("Desconectando do orquestrador atual...");
+            
+            // Desconectar da conexão atual
+            desconectar();
+            
+            // Aguardar um pouco antes de tentar reconectar
+            Thread.sleep(3000);
+            
+            // Tentar reconectar ao novo orquestrador
+            System.out.println("Tentando reconectar ao novo orquestrador...");
+            if (reconectarNovoOrquestrador(novoHost, novaPorta)) {
+                System.out.println("*** RECONEXÃO REALIZADA COM SUCESSO ***");
+            } else {
+                System.err.println("*** FALHA NA RECONEXÃO ***");
+            }
+        } catch (Exception e) {
+            System.err.println("Erro ao processar mudança de orquestrador: " + e.getMessage());
+        }
+    }
+    
     // Extrai valor do JSON
     private String extrairValor(String json, String chave) {
         String busca = "\"" + chave + "\":";
@@ -170,16 +258,16 @@ public class ClienteTCP {
             
             // Conectar ao novo orquestrador
             socket = new Socket(novoHost, novaPorta);
-            entrada = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            saida = new PrintWriter(socket.getOutputStream(), true);
+            abrirFluxos();
             
             // Registrar worker no novo orquestrador
             registrarWorker();
             
+            conectado = true;
+            
             // Reiniciar thread de recepção
             iniciarThreadRecepcao();
             
-            conectado = true;
             System.out.println("Worker " + workerId + " reconectado ao novo orquestrador em " + novoHost + ":" + novaPorta);
             return true;
             
@@ -191,8 +279,12 @@ public class ClienteTCP {
     
     private void responderHeartbeat() {
         try {
-            String resposta = "{\"tipo\":\"HEARTBEAT_RESPONSE\",\"workerId\":\"" + workerId + "\",\"timestamp\":" + System.currentTimeMillis() + "}";
-            saida.println(resposta);
+            if (protocoloBinario) {
+                enviarQuadro(ProtocoloWorker.codificarHeartbeatResponse(workerId, System.currentTimeMillis()));
+            } else {
+                String resposta = "{\"tipo\":\"HEARTBEAT_RESPONSE\",\"workerId\":\"" + workerId + "\",\"timestamp\":" + System.currentTimeMillis() + "}";
+                enviarLinha(resposta);
+            }
             // System.out.println("Heartbeat respondido ao orquestrador"); // Log muito verboso, comentado
         } catch (Exception e) {
             System.err.println("Erro ao responder heartbeat: " + e.getMessage());
@@ -201,14 +293,33 @@ public class ClienteTCP {
     
     public void enviarConclusaoTarefa(String tarefaId) {
         try {
-            String mensagem = "{\"tipo\":\"CONCLUSAO\",\"workerId\":\"" + workerId + "\",\"tarefaId\":\"" + tarefaId + "\"}";
-            saida.println(mensagem);
+            if (protocoloBinario) {
+                enviarQuadro(ProtocoloWorker.codificarConclusao(tarefaId, workerId));
+            } else {
+                String mensagem = "{\"tipo\":\"CONCLUSAO\",\"workerId\":\"" + workerId + "\",\"tarefaId\":\"" + tarefaId + "\"}";
+                enviarLinha(mensagem);
+            }
             System.out.println("Conclusão da tarefa " + tarefaId + " enviada ao orquestrador");
         } catch (Exception e) {
             System.err.println("Erro ao enviar conclusão da tarefa: " + e.getMessage());
         }
     }
     
+    /**
+     * Anuncia uma nova janela de créditos ao orquestrador (0 = sem limite)
+     */
+    public void anunciarCreditos(int creditos) {
+        try {
+            if (protocoloBinario) {
+                enviarQuadro(ProtocoloWorker.codificarCredito(creditos));
+            } else {
+                enviarLinha("{\"tipo\":\"CREDITO\",\"workerId\":\"" + workerId + "\",\"creditos\":" + creditos + "}");
+            }
+        } catch (Exception e) {
+            System.err.println("Erro ao anunciar créditos: " + e.getMessage());
+        }
+    }
+    
     public Tarefa receberTarefa() {
         try {
             return filaTarefas.take(); // Bloqueia até uma tarefa estar disponível
@@ -234,8 +345,15 @@ public class ClienteTCP {
         conectado = false;
         try {
             if (saida != null) {
-                String mensagem = "{\"tipo\":\"DESCONEXAO\",\"workerId\":\"" + workerId + "\"}";
-                saida.println(mensagem);
+                try {
+                    if (protocoloBinario) {
+                        enviarQuadro(ProtocoloWorker.codificarDesconexao(workerId));
+                    } else {
+                        enviarLinha("{\"tipo\":\"DESCONEXAO\",\"workerId\":\"" + workerId + "\"}");
+                    }
+                } catch (IOException e) {
+                    // Conexão já encerrada pelo orquestrador
+                }
                 saida.close();
             }
             if (entrada != null) entrada.close();